@@ -0,0 +1,71 @@
+package edu.washington.cs.knowitall.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.washington.cs.knowitall.nlp.ChunkedSentence;
+import edu.washington.cs.knowitall.nlp.OpenNlpSentenceChunker;
+
+/**
+ * Tokenizing, POS tagging and NP chunking one sentence with
+ * {@link OpenNlpSentenceChunker#chunkSentence(String)}, and the whole corpus
+ * either one sentence at a time or as a batch with
+ * {@link OpenNlpSentenceChunker#chunkSentences(List)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkerBenchmark {
+
+    @Param({ "en", "fr" })
+    public String language;
+
+    private OpenNlpSentenceChunker chunker;
+    private List<String> sentences;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        Corpus.setLanguage(language);
+        chunker = new OpenNlpSentenceChunker();
+        sentences = Corpus.readSentences(language);
+    }
+
+    @Benchmark
+    public ChunkedSentence chunkSentence() throws Exception {
+        String sentence = sentences.get(next);
+        next = (next + 1) % sentences.size();
+        return chunker.chunkSentence(sentence);
+    }
+
+    @Benchmark
+    public List<ChunkedSentence> chunkEach() throws Exception {
+        List<ChunkedSentence> results = new ArrayList<ChunkedSentence>(
+                sentences.size());
+        for (String sentence : sentences) {
+            results.add(chunker.chunkSentence(sentence));
+        }
+        return results;
+    }
+
+    @Benchmark
+    public List<ChunkedSentence> chunkBatch() {
+        return chunker.chunkSentences(sentences);
+    }
+}
@@ -0,0 +1,50 @@
+package edu.washington.cs.knowitall.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.washington.cs.knowitall.extractor.conf.ReVerbOpenNlpConfFunction;
+import edu.washington.cs.knowitall.nlp.extraction.ChunkedBinaryExtraction;
+
+/**
+ * Scoring one English extraction with the default
+ * {@link ReVerbOpenNlpConfFunction}. There is no confidence function for
+ * French.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfFunctionBenchmark {
+
+    private ReVerbOpenNlpConfFunction confFunction;
+    private List<ChunkedBinaryExtraction> extractions;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        Corpus.setLanguage("en");
+        confFunction = new ReVerbOpenNlpConfFunction();
+        extractions = Corpus.readExtractions("en");
+    }
+
+    @Benchmark
+    public double getConf() throws Exception {
+        ChunkedBinaryExtraction extr = extractions.get(next);
+        next = (next + 1) % extractions.size();
+        return confFunction.getConf(extr);
+    }
+}
@@ -0,0 +1,160 @@
+package edu.washington.cs.knowitall.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import ca.umontreal.rali.reverbfr.ReverbConfiguration;
+
+import edu.washington.cs.knowitall.extractor.ExtractorException;
+import edu.washington.cs.knowitall.extractor.ReVerbExtractor;
+import edu.washington.cs.knowitall.nlp.ChunkedSentence;
+import edu.washington.cs.knowitall.nlp.OpenNlpSentenceChunker;
+import edu.washington.cs.knowitall.nlp.extraction.ChunkedBinaryExtraction;
+
+/**
+ * Access to the checked-in benchmark corpus: one sentence per line in
+ * {@code /corpus/en.txt} and {@code /corpus/fr.txt}, and an HTML page built
+ * from the English sentences in {@code /corpus/en.html}.
+ * <p>
+ * {@link ReverbConfiguration} is a JVM-wide switch and some extractor
+ * constants are fixed when their class is loaded, so a benchmark must call
+ * {@link #setLanguage(String)} before it creates any extractor. JMH runs each
+ * benchmark and parameter combination in its own forked JVM, which keeps the
+ * languages apart as long as benchmarks are not run with {@code -f 0}.
+ * </p>
+ */
+public final class Corpus {
+
+    private Corpus() {
+    }
+
+    /**
+     * Switches ReVerb to the given language.
+     * 
+     * @param language
+     *            "en" or "fr"
+     */
+    public static void setLanguage(String language) {
+        if (language.equals("en")) {
+            ReverbConfiguration.setLocale(Locale.ENGLISH);
+        } else if (language.equals("fr")) {
+            ReverbConfiguration.setLocale(Locale.FRENCH);
+        } else {
+            throw new IllegalArgumentException("Unknown language: " + language);
+        }
+    }
+
+    /**
+     * @param language
+     *            "en" or "fr"
+     * @return the sentences of the corpus in the given language
+     * @throws IOException
+     */
+    public static List<String> readSentences(String language)
+            throws IOException {
+        List<String> sentences = new ArrayList<String>();
+        BufferedReader reader = open("/corpus/" + language + ".txt");
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    sentences.add(line.trim());
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return sentences;
+    }
+
+    /**
+     * @return the HTML version of the English corpus
+     * @throws IOException
+     */
+    public static String readHtml() throws IOException {
+        StringBuilder html = new StringBuilder();
+        BufferedReader reader = open("/corpus/en.html");
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                html.append(line).append('\n');
+            }
+        } finally {
+            reader.close();
+        }
+        return html.toString();
+    }
+
+    /**
+     * Chunks the sentences of the corpus in the current language.
+     * 
+     * @param language
+     * @return the chunked sentences
+     * @throws Exception
+     */
+    public static List<ChunkedSentence> readChunkedSentences(String language)
+            throws Exception {
+        OpenNlpSentenceChunker chunker = new OpenNlpSentenceChunker();
+        List<ChunkedSentence> sentences = new ArrayList<ChunkedSentence>();
+        for (String sentence : readSentences(language)) {
+            sentences.add(chunker.chunkSentence(sentence));
+        }
+        return sentences;
+    }
+
+    /**
+     * Copies the given sentences into a pool of the given size, cycling
+     * through them. Benchmarks that must not see the caches that extractors
+     * keep on a sentence fill a new pool before each iteration and take the
+     * next copy from it in each invocation, so that the copying is not timed
+     * and the caches of a copy are cold until the pool wraps around.
+     *
+     * @param sentences
+     * @param size
+     * @return the copies
+     */
+    public static ChunkedSentence[] copies(List<ChunkedSentence> sentences,
+            int size) {
+        ChunkedSentence[] copies = new ChunkedSentence[size];
+        for (int i = 0; i < size; i++) {
+            copies[i] = sentences.get(i % sentences.size()).clone();
+        }
+        return copies;
+    }
+
+    /**
+     * Extracts from the sentences of the corpus in the current language with
+     * a default {@link ReVerbExtractor}.
+     * 
+     * @param language
+     * @return the extractions
+     * @throws Exception
+     */
+    public static List<ChunkedBinaryExtraction> readExtractions(String language)
+            throws Exception {
+        ReVerbExtractor reverb = new ReVerbExtractor();
+        List<ChunkedBinaryExtraction> extractions = new ArrayList<ChunkedBinaryExtraction>();
+        for (ChunkedSentence sentence : readChunkedSentences(language)) {
+            for (ChunkedBinaryExtraction extr : reverb.extract(sentence)) {
+                extractions.add(extr);
+            }
+        }
+        if (extractions.isEmpty()) {
+            throw new ExtractorException("No extractions in the corpus");
+        }
+        return extractions;
+    }
+
+    private static BufferedReader open(String resource) throws IOException {
+        InputStream in = Corpus.class.getResourceAsStream(resource);
+        if (in == null) {
+            throw new IOException("Could not find resource " + resource);
+        }
+        return new BufferedReader(new InputStreamReader(in, "UTF-8"));
+    }
+}
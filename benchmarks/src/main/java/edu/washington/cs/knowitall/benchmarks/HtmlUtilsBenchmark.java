@@ -0,0 +1,51 @@
+package edu.washington.cs.knowitall.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.washington.cs.knowitall.util.HtmlTextExtractor;
+import edu.washington.cs.knowitall.util.HtmlUtils;
+
+/**
+ * Converting the HTML page of the corpus to text with
+ * {@link HtmlUtils#removeHtml(String)}, and with
+ * {@link HtmlTextExtractor#extract(CharSequence, StringBuilder)} into a
+ * builder reused from call to call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HtmlUtilsBenchmark {
+
+    private String html;
+    private final StringBuilder text = new StringBuilder();
+
+    @Setup
+    public void setUp() throws Exception {
+        html = Corpus.readHtml();
+    }
+
+    @Benchmark
+    public String removeHtml() {
+        return HtmlUtils.removeHtml(html);
+    }
+
+    @Benchmark
+    public StringBuilder extractText() {
+        HtmlTextExtractor.extract(html, text);
+        return text;
+    }
+}
@@ -0,0 +1,51 @@
+package edu.washington.cs.knowitall.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.washington.cs.knowitall.nlp.extraction.ChunkedBinaryExtraction;
+import edu.washington.cs.knowitall.normalization.BinaryExtractionNormalizer;
+import edu.washington.cs.knowitall.normalization.NormalizedBinaryExtraction;
+
+/**
+ * Normalizing (stemming and filtering) one English extraction with
+ * {@link BinaryExtractionNormalizer#normalize(ChunkedBinaryExtraction)}. The
+ * stemmer is English only.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NormalizerBenchmark {
+
+    private BinaryExtractionNormalizer normalizer;
+    private List<ChunkedBinaryExtraction> extractions;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        Corpus.setLanguage("en");
+        normalizer = new BinaryExtractionNormalizer();
+        extractions = Corpus.readExtractions("en");
+    }
+
+    @Benchmark
+    public NormalizedBinaryExtraction normalize() {
+        ChunkedBinaryExtraction extr = extractions.get(next);
+        next = (next + 1) % extractions.size();
+        return normalizer.normalize(extr);
+    }
+}
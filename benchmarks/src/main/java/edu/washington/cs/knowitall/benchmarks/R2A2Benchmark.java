@@ -0,0 +1,65 @@
+package edu.washington.cs.knowitall.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.washington.cs.knowitall.extractor.R2A2;
+import edu.washington.cs.knowitall.nlp.ChunkedSentence;
+import edu.washington.cs.knowitall.nlp.extraction.ChunkedBinaryExtraction;
+
+/**
+ * Extracting binary relations from one chunked English sentence with
+ * {@link R2A2}, whose argument learners are only trained for English. Each
+ * invocation takes the next copy of a sentence from a pool (see
+ * {@link RegexExtractorBenchmark}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class R2A2Benchmark {
+
+    private static final int POOL_SIZE = 1 << 13;
+
+    private R2A2 extractor;
+    private List<ChunkedSentence> sentences;
+    private ChunkedSentence[] pool;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        Corpus.setLanguage("en");
+        extractor = new R2A2();
+        sentences = Corpus.readChunkedSentences("en");
+    }
+
+    @Setup(Level.Iteration)
+    public void fillPool() {
+        pool = Corpus.copies(sentences, POOL_SIZE);
+        next = 0;
+    }
+
+    @Benchmark
+    public void extract(Blackhole bh) throws Exception {
+        ChunkedSentence sentence = pool[next];
+        next = next + 1 == pool.length ? 0 : next + 1;
+        for (ChunkedBinaryExtraction extr : extractor.extract(sentence)) {
+            bh.consume(extr);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package edu.washington.cs.knowitall.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.washington.cs.knowitall.extractor.ReVerbExtractor;
+import edu.washington.cs.knowitall.nlp.ChunkedSentence;
+import edu.washington.cs.knowitall.nlp.extraction.ChunkedBinaryExtraction;
+
+/**
+ * Extracting binary relations from one chunked sentence with a default
+ * {@link ReVerbExtractor}. Each invocation takes the next copy of a sentence
+ * from a pool (see {@link RegexExtractorBenchmark}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReVerbExtractorBenchmark {
+
+    private static final int POOL_SIZE = 1 << 13;
+
+    @Param({ "en", "fr" })
+    public String language;
+
+    private ReVerbExtractor extractor;
+    private List<ChunkedSentence> sentences;
+    private ChunkedSentence[] pool;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        Corpus.setLanguage(language);
+        extractor = new ReVerbExtractor();
+        sentences = Corpus.readChunkedSentences(language);
+    }
+
+    @Setup(Level.Iteration)
+    public void fillPool() {
+        pool = Corpus.copies(sentences, POOL_SIZE);
+        next = 0;
+    }
+
+    @Benchmark
+    public void extract(Blackhole bh) throws Exception {
+        ChunkedSentence sentence = pool[next];
+        next = next + 1 == pool.length ? 0 : next + 1;
+        for (ChunkedBinaryExtraction extr : extractor.extract(sentence)) {
+            bh.consume(extr);
+        }
+    }
+}
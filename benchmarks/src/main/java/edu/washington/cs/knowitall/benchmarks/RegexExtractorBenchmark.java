@@ -0,0 +1,75 @@
+package edu.washington.cs.knowitall.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.washington.cs.knowitall.extractor.ReVerbRelationExtractor;
+import edu.washington.cs.knowitall.extractor.RegexExtractor;
+import edu.washington.cs.knowitall.nlp.ChunkedSentence;
+import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
+
+/**
+ * Finding relation phrases in one chunked sentence with
+ * {@link RegexExtractor#extract(Object)}, using the long relation pattern for
+ * English and the relation pattern for French. Each invocation takes the next
+ * copy of a sentence from a pool filled before each iteration (see
+ * {@link Corpus#copies(List, int)}), so that no copying is timed. Caches kept
+ * on the sentence are cold on the first pass over the pool and warm on the
+ * following ones, which dominate when an invocation takes a few microseconds.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegexExtractorBenchmark {
+
+    private static final int POOL_SIZE = 1 << 13;
+
+    @Param({ "en", "fr" })
+    public String language;
+
+    private RegexExtractor extractor;
+    private List<ChunkedSentence> sentences;
+    private ChunkedSentence[] pool;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        Corpus.setLanguage(language);
+        extractor = new RegexExtractor(language.equals("en")
+                ? ReVerbRelationExtractor.LONG_RELATION_PATTERN
+                : ReVerbRelationExtractor.FRENCH_RELATION_PATTERN_01);
+        sentences = Corpus.readChunkedSentences(language);
+    }
+
+    @Setup(Level.Iteration)
+    public void fillPool() {
+        pool = Corpus.copies(sentences, POOL_SIZE);
+        next = 0;
+    }
+
+    @Benchmark
+    public void extract(Blackhole bh) throws Exception {
+        ChunkedSentence sentence = pool[next];
+        next = next + 1 == pool.length ? 0 : next + 1;
+        for (ChunkedExtraction extr : extractor.extract(sentence)) {
+            bh.consume(extr);
+        }
+    }
+}
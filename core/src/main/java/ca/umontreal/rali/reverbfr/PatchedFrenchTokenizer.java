@@ -23,10 +23,9 @@ import java.util.Arrays;
 
 import opennlp.tools.tokenize.Tokenizer;
 import opennlp.tools.tokenize.TokenizerME;
-import opennlp.tools.tokenize.TokenizerModel;
 import opennlp.tools.util.InvalidFormatException;
 import opennlp.tools.util.Span;
-import edu.washington.cs.knowitall.util.DefaultObjects;
+import edu.washington.cs.knowitall.util.NlpModelRegistry;
 
 /**
  * Patches oversights like splitting ; from word.
@@ -38,7 +37,7 @@ public class PatchedFrenchTokenizer implements Tokenizer {
     
     public PatchedFrenchTokenizer() {
         try {
-            baseTokenizer = new TokenizerME(new TokenizerModel(DefaultObjects.getResourceAsStream(DefaultObjects.getTokenizermodelfile())));
+            baseTokenizer = new TokenizerME(NlpModelRegistry.getTokenizerModel());
         } catch (InvalidFormatException e) {
             throw new RuntimeException(e);
         } catch (IOException e) {
@@ -1,8 +1,11 @@
 package edu.washington.cs.knowitall.argumentidentifier;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import edu.washington.cs.knowitall.extractor.conf.classifier.DoubleFeatures;
+import edu.washington.cs.knowitall.extractor.conf.classifier.LazyFeatureVector;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedArgumentExtraction;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
 
@@ -13,6 +16,29 @@ import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
  *
  */
 public class Arg1LocationFeatureGenerator {
+    /** The names of the features, in the order of {@link Features} */
+    public static final List<String> FEATURE_NAMES = Collections
+            .unmodifiableList(Arrays.asList("simple_subj", "quotes_subj",
+                    "relative_subj", "verb_conj", "app", "which_who",
+                    "capitalized", "punct_count", "intervening_np_count",
+                    "np_count_before", "word_before_pred_conj",
+                    "intervening_and", "word_after_vp", "word_before_vp"));
+
+    private static final int SIMPLE_SUBJ = 0;
+    private static final int QUOTES_SUBJ = 1;
+    private static final int RELATIVE_SUBJ = 2;
+    private static final int VERB_CONJ = 3;
+    private static final int APP = 4;
+    private static final int WHICH_WHO = 5;
+    private static final int CAPITALIZED = 6;
+    private static final int PUNCT_COUNT = 7;
+    private static final int INTERVENING_NP_COUNT = 8;
+    private static final int NP_COUNT_BEFORE = 9;
+    private static final int WORD_BEFORE_PRED_CONJ = 10;
+    private static final int INTERVENING_AND = 11;
+    private static final int WORD_AFTER_VP = 12;
+    private static final int WORD_BEFORE_VP = 13;
+
     PatternExtractor patternExtractor;
 
     public Arg1LocationFeatureGenerator() {
@@ -56,7 +82,6 @@ public class Arg1LocationFeatureGenerator {
 
     public DoubleFeatures extractFeatures(ChunkedExtraction extr,
             ChunkedArgumentExtraction arg1, int current, boolean train) {
-        List<String> words = extr.getSentence().getTokens();
         List<String> chunks = extr.getSentence().getChunkTags();
 
         int pred_start = extr.getRange().getStart();
@@ -68,61 +93,13 @@ public class Arg1LocationFeatureGenerator {
         }
         for (int k = current; k > end; k--) {
             if (chunks.get(k).equals("B-NP")) {
-
-                boolean simple_subj = false;
-                boolean quotes_subj = patternExtractor.quotesSubj(extr, k);
-                boolean relative_subj = false;
-                boolean verb_conj = false;
-                boolean app_clause = false;
-                boolean which_who = false;
-                boolean capitalized = false;
-                boolean word_before_pred_conj = false;
-                boolean intervening_and = false;
-                boolean word_after_vp = false;
-                boolean word_before_vp = false;
-                int np_count_before = patternExtractor.getNPCountBefore(extr,
-                        k);
-                int intervening_np = patternExtractor.getInterveningNPCount(
-                        extr, k);
-                int punctuation_count = patternExtractor.getPunctuationCount(
-                        extr, k);
-
-                simple_subj = patternExtractor.simpleSubj(extr, k);
-                relative_subj = patternExtractor.relSubj(extr, k);
-                verb_conj = patternExtractor.matchesVerbConjSimple(extr, k);
-                app_clause = patternExtractor.matchesAppositiveClause(extr,
-                        current);
-
-                which_who = (words.get(k).equals("which")
-                        || words.get(k).equals("who") || words.get(k).equals(
-                        "that"));
-                capitalized = patternExtractor.getCapitalized(extr, k);
-                punctuation_count = patternExtractor.getPunctuationCount(extr,
-                        k);
-                word_before_pred_conj = patternExtractor.wordBeforePredIsConj(
-                        extr, k);
-                intervening_and = patternExtractor.getInterveningConj(extr, k);
-                word_after_vp = patternExtractor.wordAfterIsVP(extr, k);
-                np_count_before = patternExtractor.getNPCountBefore(extr, k);
-                word_before_vp = patternExtractor.wordBeforeIsVP(extr, k);
-                intervening_np = patternExtractor.getInterveningNPCount(extr,
-                        k);
+                Features features = new Features();
+                features.reset(extr, k, current);
 
                 DoubleFeatures featureMap = new DoubleFeatures();
-                featureMap.put("simple_subj", toDouble(simple_subj));
-                featureMap.put("quotes_subj", toDouble(quotes_subj));
-                featureMap.put("relative_subj", toDouble(relative_subj));
-                featureMap.put("verb_conj", toDouble(verb_conj));
-                featureMap.put("app", toDouble(app_clause));
-                featureMap.put("which_who", toDouble(which_who));
-                featureMap.put("capitalized", toDouble(capitalized));
-                featureMap.put("punct_count", toDouble(punctuation_count));
-                featureMap.put("intervening_np_count", toDouble(intervening_np));
-                featureMap.put("np_count_before", toDouble(np_count_before));
-                featureMap.put("word_before_pred_conj", toDouble(word_before_pred_conj));
-                featureMap.put("intervening_and", toDouble(intervening_and));
-                featureMap.put("word_after_vp", toDouble(word_after_vp));
-                featureMap.put("word_before_vp", toDouble(word_before_vp));
+                for (int i = 0; i < FEATURE_NAMES.size(); i++) {
+                    featureMap.put(FEATURE_NAMES.get(i), features.get(i));
+                }
 
                 return featureMap;
             }
@@ -130,4 +107,91 @@ public class Arg1LocationFeatureGenerator {
 
         throw new IllegalStateException();
     }
+
+    /**
+     * Returns a reusable feature vector, which computes the features of an
+     * NP only as they are asked for.
+     *
+     * @return a new feature vector over {@link #FEATURE_NAMES}
+     */
+    public Features newFeatures() {
+        return new Features();
+    }
+
+    /**
+     * The features of a candidate NP for arg1, in the order of
+     * {@link Arg1LocationFeatureGenerator#FEATURE_NAMES}.
+     */
+    public class Features extends LazyFeatureVector {
+        private ChunkedExtraction extr;
+        private int np;
+        private int current;
+
+        private Features() {
+            super(FEATURE_NAMES.size());
+        }
+
+        /**
+         * Moves the vector to the NP starting at the given index.
+         *
+         * @param extr
+         *            the predicate
+         * @param np
+         *            the index of the B-NP tag of the NP
+         */
+        public void reset(ChunkedExtraction extr, int np) {
+            reset(extr, np, np);
+        }
+
+        // the appositive clause is matched from current, where the search
+        // for the NP started
+        private void reset(ChunkedExtraction extr, int np, int current) {
+            this.extr = extr;
+            this.np = np;
+            this.current = current;
+            clear();
+        }
+
+        @Override
+        protected double compute(int feature) {
+            switch (feature) {
+            case SIMPLE_SUBJ:
+                return toDouble(patternExtractor.simpleSubj(extr, np));
+            case QUOTES_SUBJ:
+                return toDouble(patternExtractor.quotesSubj(extr, np));
+            case RELATIVE_SUBJ:
+                return toDouble(patternExtractor.relSubj(extr, np));
+            case VERB_CONJ:
+                return toDouble(patternExtractor.matchesVerbConjSimple(extr,
+                        np));
+            case APP:
+                return toDouble(patternExtractor.matchesAppositiveClause(extr,
+                        current));
+            case WHICH_WHO:
+                String word = extr.getSentence().getToken(np);
+                return toDouble(word.equals("which") || word.equals("who")
+                        || word.equals("that"));
+            case CAPITALIZED:
+                return toDouble(patternExtractor.getCapitalized(extr, np));
+            case PUNCT_COUNT:
+                return toDouble(patternExtractor.getPunctuationCount(extr, np));
+            case INTERVENING_NP_COUNT:
+                return toDouble(patternExtractor.getInterveningNPCount(extr,
+                        np));
+            case NP_COUNT_BEFORE:
+                return toDouble(patternExtractor.getNPCountBefore(extr, np));
+            case WORD_BEFORE_PRED_CONJ:
+                return toDouble(patternExtractor.wordBeforePredIsConj(extr, np));
+            case INTERVENING_AND:
+                return toDouble(patternExtractor.getInterveningConj(extr, np));
+            case WORD_AFTER_VP:
+                return toDouble(patternExtractor.wordAfterIsVP(extr, np));
+            case WORD_BEFORE_VP:
+                return toDouble(patternExtractor.wordBeforeIsVP(extr, np));
+            default:
+                throw new IllegalArgumentException("Unknown feature: "
+                        + feature);
+            }
+        }
+    }
 }
@@ -4,8 +4,8 @@ import java.io.IOException;
 import java.net.URL;
 
 import edu.washington.cs.knowitall.argumentidentifier.ArgLearner.Mode;
+import edu.washington.cs.knowitall.extractor.conf.classifier.CompiledDecisionTree;
 import edu.washington.cs.knowitall.extractor.conf.classifier.DecisionTree;
-import edu.washington.cs.knowitall.extractor.conf.classifier.DoubleFeatures;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
 
 /**
@@ -27,9 +27,19 @@ public class ArgLocationClassifier {
         }
     }
 
-    private DecisionTree classifier;
+    private CompiledDecisionTree classifier;
+    private int closestNp;
     private Arg1LocationFeatureGenerator featuregenerator;
 
+    // the feature vector of each thread
+    private final ThreadLocal<Arg1LocationFeatureGenerator.Features> features =
+            new ThreadLocal<Arg1LocationFeatureGenerator.Features>() {
+        @Override
+        protected Arg1LocationFeatureGenerator.Features initialValue() {
+            return featuregenerator.newFeatures();
+        }
+    };
+
     private Mode mode;
 
     public ArgLocationClassifier(Mode mode) throws IOException {
@@ -43,6 +53,8 @@ public class ArgLocationClassifier {
     public double[] getArgBound(ChunkedExtraction predicate) {
         if (mode == ArgLearner.Mode.LEFT) {
             double[] resultsclassifier = { -1, 1 };
+            Arg1LocationFeatureGenerator.Features features = this.features
+                    .get();
             int classification = -1;
             int k = predicate.getStart() - 1;
             int rightbound = -1;
@@ -50,10 +62,9 @@ public class ArgLocationClassifier {
             // classify each np
             while (k > -1 && classification == -1) {
                 if (predicate.getSentence().getChunkTag(k).equals("B-NP")) {
-                    DoubleFeatures features = featuregenerator.extractFeatures(
-                            predicate, null, k, false);
-                    String outcome = classifier.classify(features);
-                    classification = outcome.equals("closest_np") ? 0 : -1;
+                    features.reset(predicate, k);
+                    int outcome = classifier.classify(features);
+                    classification = outcome == closestNp ? 0 : -1;
                     rightbound = k;
                 }
                 k--;
@@ -121,6 +132,8 @@ public class ArgLocationClassifier {
     }
 
     private void setupClassifier(URL modelUrl) throws IOException {
-        this.classifier = DecisionTree.fromModel(modelUrl);
+        this.classifier = DecisionTree.fromModel(modelUrl).compile(
+                Arg1LocationFeatureGenerator.FEATURE_NAMES);
+        this.closestNp = classifier.getOutcomeIndex("closest_np");
     }
 }
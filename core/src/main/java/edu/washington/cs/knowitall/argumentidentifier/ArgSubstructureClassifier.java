@@ -4,13 +4,17 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Vector;
 import java.util.regex.Pattern;
 
 import cc.mallet.fst.CRF;
-import cc.mallet.fst.confidence.ViterbiConfidenceEstimator;
 import cc.mallet.pipe.Pipe;
 import cc.mallet.pipe.iterator.LineGroupIterator;
+import cc.mallet.types.Alphabet;
+import cc.mallet.types.FeatureVector;
+import cc.mallet.types.FeatureVectorSequence;
 import cc.mallet.types.Instance;
 import cc.mallet.types.InstanceList;
 import cc.mallet.types.Sequence;
@@ -33,15 +37,16 @@ public class ArgSubstructureClassifier {
 
     private CRF crf = null;
     private Pipe crf_pipe = null;
-    private ViterbiConfidenceEstimator crf_estimator;
     private ObjectInputStream crf_input;
 
-    private String[] startTags = { "B-ARG" }; // used by Transducer, indicate
-                                              // the start of an argument
-                                              // ("B-ARG");
-    private String[] inTags = { "I-ARG" }; // used by Transducer, indicate the
-                                           // continuation of an argument
-                                           // ("I-ARG");
+    // the lattice buffers of each thread
+    private final ThreadLocal<CRFLattice> crf_lattices =
+            new ThreadLocal<CRFLattice>() {
+        @Override
+        protected CRFLattice initialValue() {
+            return new CRFLattice(crf);
+        }
+    };
 
     private ArgSubstructureFeatureGenerator featuregenerator;
 
@@ -57,10 +62,22 @@ public class ArgSubstructureClassifier {
     }
 
     private Pair<Double, Sequence<?>> applyCRF(String testingdata) {
-        Sequence<?> input = null;
-        Sequence<?> output = null;
-        Double conf;
+        FeatureVectorSequence input = parseInputSequence(testingdata);
+        if (input == null) {
+            return new Pair<Double, Sequence<?>>(-1.0, null);
+        }
+        return applyCRF(input);
+    }
 
+    /**
+     * Builds the input of the CRF by running crf_pipe over the first group of
+     * non-empty lines of the given text.
+     *
+     * @param testingdata
+     *            the features of each position, one line per position
+     * @return the input sequence, or <code>null</code> if there is no group
+     */
+    FeatureVectorSequence parseInputSequence(String testingdata) {
         InstanceList testSequence = null;
         crf_pipe.setTargetProcessing(true);
         testSequence = new InstanceList(crf_pipe);
@@ -68,16 +85,108 @@ public class ArgSubstructureClassifier {
                 testingdata), Pattern.compile("^\\s*$"), true));
 
         if (testSequence.size() < 1) {
-            return new Pair<Double, Sequence<?>>(-1.0, null);
+            return null;
         }
 
         Instance inst = testSequence.get(0);
-        input = (Sequence<?>) inst.getData();
+        return (FeatureVectorSequence) inst.getData();
+    }
+
+    private Pair<Double, Sequence<?>> applyCRF(FeatureVectorSequence input) {
+        if (input.size() < 1) {
+            return new Pair<Double, Sequence<?>>(-1.0, null);
+        }
 
-        output = crf.transduce(input);
-        conf = crf_estimator.estimateConfidenceFor(inst, startTags, inTags);
+        // the Viterbi labeling and its confidence, as given by
+        // crf.transduce and a ViterbiConfidenceEstimator
+        CRFLattice lattice = crf_lattices.get();
+        lattice.compute(input);
 
-        return new Pair<Double, Sequence<?>>(conf, output);
+        return new Pair<Double, Sequence<?>>(lattice.getConfidence(),
+                lattice.getBestOutput());
+    }
+
+    /**
+     * Builds the input of the CRF directly from the features of each position,
+     * without rendering them as text for crf_pipe to parse. The result is the
+     * sequence crf_pipe makes of the first group of non-empty lines of that
+     * text: the label of each position is left out, the last remaining feature
+     * of a line is read as its target and dropped, and features missing from
+     * the data alphabet are ignored.
+     *
+     * @param instances
+     *            the features of each position, the last one being its label
+     * @return the input sequence, or <code>null</code> if a feature is empty or
+     *         contains whitespace, and so would not survive the text format
+     * @see #parseInputSequence(String)
+     */
+    FeatureVectorSequence toInputSequence(
+            Vector<Vector<String>> instances) {
+        Alphabet dataAlphabet = crf_pipe.getDataAlphabet();
+        List<FeatureVector> vectors = new ArrayList<FeatureVector>(
+                instances.size());
+        String[] tokens = new String[0];
+        for (Vector<String> instance : instances) {
+            String label = instance.lastElement();
+            if (tokens.length < instance.size()) {
+                tokens = new String[instance.size()];
+            }
+            int numTokens = 0;
+            for (String feature : instance) {
+                if (!feature.equals(label)) {
+                    if (!isToken(feature)) {
+                        return null;
+                    }
+                    tokens[numTokens++] = feature;
+                }
+            }
+
+            // an empty line ends the group read by the pipe
+            if (numTokens == 0) {
+                if (vectors.isEmpty()) {
+                    continue;
+                } else {
+                    break;
+                }
+            }
+
+            int[] indices = new int[numTokens - 1];
+            int numIndices = 0;
+            for (int i = 0; i < numTokens - 1; i++) {
+                int index = dataAlphabet.lookupIndex(tokens[i], false);
+                if (index >= 0) {
+                    indices[numIndices++] = index;
+                }
+            }
+            if (numIndices < indices.length) {
+                int[] found = new int[numIndices];
+                System.arraycopy(indices, 0, found, 0, numIndices);
+                indices = found;
+            }
+            vectors.add(new FeatureVector(dataAlphabet, indices));
+        }
+        return new FeatureVectorSequence(
+                vectors.toArray(new FeatureVector[vectors.size()]));
+    }
+
+    private static boolean isToken(String feature) {
+        if (feature.length() == 0) {
+            return false;
+        }
+        for (int i = 0; i < feature.length(); i++) {
+            switch (feature.charAt(i)) {
+            case ' ':
+            case '\t':
+            case '\n':
+            case '\u000B':
+            case '\f':
+            case '\r':
+                return false;
+            default:
+                break;
+            }
+        }
+        return true;
     }
 
     private int readCRFOutputLeft(ChunkedExtraction extr, int start,
@@ -139,16 +248,24 @@ public class ArgSubstructureClassifier {
         return lastnp;
     }
 
-    private double[] classifyData(String testingdata, ChunkedExtraction extr,
-            int start) {
+    private double[] classifyData(Vector<Vector<String>> testingdata,
+            ChunkedExtraction extr, int start) {
 
         double[] toreturn = { -1.0, -1.0 };
-        if (testingdata == null || testingdata.equals("")) {
+        if (testingdata == null) {
             return toreturn;
         }
 
-        // apply crf
-        Pair<Double, Sequence<?>> pair = applyCRF(testingdata);
+        // apply crf, going through the text format only for features it
+        // cannot represent
+        Pair<Double, Sequence<?>> pair;
+        FeatureVectorSequence input = toInputSequence(testingdata);
+        if (input != null) {
+            pair = applyCRF(input);
+        } else {
+            pair = applyCRF(featuregenerator.convertInstancesToFeatures(
+                    testingdata, false));
+        }
         Double conf = pair.getFirst();
         Sequence<?> output = pair.getSecond();
 
@@ -186,19 +303,18 @@ public class ArgSubstructureClassifier {
         crf.getOutputAlphabet().stopGrowth();
         crf_pipe = crf.getInputPipe();
         crf_pipe.setTargetProcessing(false);
-        crf_estimator = new ViterbiConfidenceEstimator(crf);
     }
 
-    private String extractFeatures(ChunkedExtraction extr, int argstart,
-            int argend, boolean train) {
-        String features = featuregenerator.extractCRFFeatures(extr, argstart,
-                argend, train);
+    private Vector<Vector<String>> extractFeatures(ChunkedExtraction extr,
+            int argstart, int argend, boolean train) {
+        Vector<Vector<String>> features = featuregenerator
+                .extractCRFFeatureVectors(extr, argstart, argend, train);
         return features;
     }
 
     public double[] getArgBound(ChunkedExtraction predicate, int other_bound) {
-        String features = extractFeatures(predicate, other_bound, other_bound,
-                false);
+        Vector<Vector<String>> features = extractFeatures(predicate,
+                other_bound, other_bound, false);
         double[] resultsclassifier = classifyData(features, predicate,
                 other_bound);
         return resultsclassifier;
@@ -124,7 +124,7 @@ public class ArgSubstructureFeatureGenerator {
         patterns.add(Pattern.compile(PUNT));
     }
 
-    private String convertInstancesToFeatures(Vector<Vector<String>> instances,
+    String convertInstancesToFeatures(Vector<Vector<String>> instances,
             Boolean train) {
         if (instances == null) {
             return "";
@@ -138,7 +138,7 @@ public class ArgSubstructureFeatureGenerator {
 
             for (String feature : instance) {
                 if (train || !feature.equals(label)) {
-                    features.append(feature + " ");
+                    features.append(feature).append(' ');
                 }
             }
             features.append("\n");
@@ -646,9 +646,10 @@ public class ArgSubstructureFeatureGenerator {
         return features;
     }
 
-    // Extract a list of features for this extraction
-    public String extractCRFFeatures(ChunkedExtraction extr, int argstart,
-            int argend, Boolean train) {
+    // Extract the features of each position for this extraction, in the order
+    // given to the CRF. The last feature of each position is its label.
+    public Vector<Vector<String>> extractCRFFeatureVectors(
+            ChunkedExtraction extr, int argstart, int argend, Boolean train) {
         Vector<PositionInstance> instances = createBaseInstances(extr,
                 argstart, argend, train);
         if (instances == null) {
@@ -659,7 +660,17 @@ public class ArgSubstructureFeatureGenerator {
         if (features.size() == 0) {
             return null;
         }
-        features = addPredicateFeatures(instances, features);
+        return addPredicateFeatures(instances, features);
+    }
+
+    // Extract a list of features for this extraction
+    public String extractCRFFeatures(ChunkedExtraction extr, int argstart,
+            int argend, Boolean train) {
+        Vector<Vector<String>> features = extractCRFFeatureVectors(extr,
+                argstart, argend, train);
+        if (features == null) {
+            return null;
+        }
 
         String featureString = convertInstancesToFeatures(features, train);
         return featureString;
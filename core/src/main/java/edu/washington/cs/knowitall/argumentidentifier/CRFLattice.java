@@ -0,0 +1,219 @@
+package edu.washington.cs.knowitall.argumentidentifier;
+
+import cc.mallet.fst.CRF;
+import cc.mallet.fst.Transducer;
+import cc.mallet.types.ArraySequence;
+import cc.mallet.types.Sequence;
+
+/**
+ * Computes the best labeling of a sequence by a CRF together with its
+ * confidence, from a single pass over the transition weights. The results are
+ * those of <code>crf.transduce(input)</code> and of a
+ * <code>ViterbiConfidenceEstimator</code>, which build a
+ * <code>MaxLatticeDefault</code> each and a <code>SumLatticeDefault</code>,
+ * and so compute every transition weight several times.
+ * <p>
+ * The forward pass keeps the Viterbi weights and the forward (alpha) weights
+ * of each node, using the same transitions in the same order as MALLET, so
+ * the total weight is the same to the last bit. The best path is then read
+ * the way <code>MaxLatticeDefault</code> reads it with its A* search, whose
+ * heuristic includes the final weights of the states at the last position
+ * only: end states are tried in order of their Viterbi weight, and the path
+ * kept is the one with the best weight before the final weight, among the end
+ * states whose Viterbi weight beats it. The weight of that path leaves out
+ * the initial and final weights, and is summed from the end.
+ * </p>
+ * <p>
+ * An instance keeps its buffers between calls, so it should not be shared
+ * between threads.
+ * </p>
+ */
+class CRFLattice {
+
+    private final CRF crf;
+    private final int numStates;
+    private final double[] initialWeights;
+    private final double[] finalWeights;
+
+    // per position and state, or per position, source and destination state
+    // for the transition weights
+    private double[] deltas = new double[0];
+    private double[] alphas = new double[0];
+    private int[] predecessors = new int[0];
+    private Object[] outputs = new Object[0];
+    private double[] weights = new double[0];
+
+    // Viterbi weights of the end states before their final weights
+    private final double[] lastDeltas;
+    private final boolean[] tried;
+
+    private Sequence<Object> bestOutput;
+    private double confidence;
+
+    public CRFLattice(CRF crf) {
+        this.crf = crf;
+        this.numStates = crf.numStates();
+        this.initialWeights = new double[numStates];
+        this.finalWeights = new double[numStates];
+        for (int i = 0; i < numStates; i++) {
+            initialWeights[i] = crf.getState(i).getInitialWeight();
+            finalWeights[i] = crf.getState(i).getFinalWeight();
+        }
+        this.lastDeltas = new double[numStates];
+        this.tried = new boolean[numStates];
+    }
+
+    /**
+     * Labels the given input sequence, which must not be empty.
+     *
+     * @param input
+     * @throws IllegalStateException
+     *             if no path through the lattice has a finite weight
+     */
+    public void compute(Sequence<?> input) {
+        int latticeLength = input.size() + 1;
+        ensureCapacity(latticeLength);
+        forward(input, latticeLength);
+
+        int last = latticeLength - 1;
+        int end = selectEndState(last);
+        if (end < 0) {
+            throw new IllegalStateException("No path through the CRF lattice");
+        }
+
+        // walk back along the best path, summing its weight from the end
+        Object[] labels = new Object[last];
+        double cost = 0;
+        int state = end;
+        for (int ip = last - 1; ip >= 0; ip--) {
+            labels[ip] = outputs[(ip + 1) * numStates + state];
+            int previous = predecessors[(ip + 1) * numStates + state];
+            cost = cost + -weights[(ip * numStates + previous) * numStates
+                    + state];
+            state = previous;
+        }
+
+        double totalWeight = Transducer.IMPOSSIBLE_WEIGHT;
+        for (int j = 0; j < numStates; j++) {
+            totalWeight = Transducer.sumLogProb(totalWeight, alphas[last
+                    * numStates + j]
+                    + finalWeights[j]);
+        }
+
+        bestOutput = new ArraySequence<Object>(labels);
+        confidence = Math.exp(-cost - totalWeight);
+    }
+
+    /**
+     * @return the best labeling found by the last call to
+     *         {@link #compute(Sequence)}
+     */
+    public Sequence<Object> getBestOutput() {
+        return bestOutput;
+    }
+
+    /**
+     * @return the confidence of the best labeling found by the last call to
+     *         {@link #compute(Sequence)}
+     */
+    public double getConfidence() {
+        return confidence;
+    }
+
+    private void forward(Sequence<?> input, int latticeLength) {
+        int size = latticeLength * numStates;
+        for (int k = 0; k < size; k++) {
+            deltas[k] = Transducer.IMPOSSIBLE_WEIGHT;
+            alphas[k] = Transducer.IMPOSSIBLE_WEIGHT;
+            predecessors[k] = -1;
+            outputs[k] = null;
+        }
+        for (int i = 0; i < numStates; i++) {
+            if (initialWeights[i] > Transducer.IMPOSSIBLE_WEIGHT) {
+                deltas[i] = initialWeights[i];
+                alphas[i] = initialWeights[i];
+            }
+        }
+
+        for (int ip = 0; ip < latticeLength - 1; ip++) {
+            boolean last = ip == latticeLength - 2;
+            int from = ip * numStates;
+            int to = from + numStates;
+            if (last) {
+                for (int j = 0; j < numStates; j++) {
+                    lastDeltas[j] = Transducer.IMPOSSIBLE_WEIGHT;
+                }
+            }
+            for (int i = 0; i < numStates; i++) {
+                double delta = deltas[from + i];
+                if (delta == Transducer.IMPOSSIBLE_WEIGHT) {
+                    continue;
+                }
+                double alpha = alphas[from + i];
+                Transducer.TransitionIterator iter = crf.getState(i)
+                        .transitionIterator(input, ip, null, ip);
+                while (iter.hasNext()) {
+                    int j = iter.next().getIndex();
+                    double weight = iter.getWeight();
+                    weights[(from + i) * numStates + j] = weight;
+                    outputs[to + j] = iter.getOutput();
+
+                    double pathWeight = delta + weight;
+                    double viterbiWeight = pathWeight;
+                    if (last) {
+                        viterbiWeight += finalWeights[j];
+                    }
+                    if (viterbiWeight > deltas[to + j]) {
+                        deltas[to + j] = viterbiWeight;
+                        predecessors[to + j] = i;
+                        if (last) {
+                            lastDeltas[j] = pathWeight;
+                        }
+                    }
+                    alphas[to + j] = Transducer.sumLogProb(alphas[to + j],
+                            alpha + weight);
+                }
+            }
+        }
+    }
+
+    private int selectEndState(int last) {
+        int offset = last * numStates;
+        for (int j = 0; j < numStates; j++) {
+            tried[j] = false;
+        }
+        int best = -1;
+        while (true) {
+            int next = -1;
+            for (int j = 0; j < numStates; j++) {
+                double delta = deltas[offset + j];
+                if (!tried[j] && delta > Transducer.IMPOSSIBLE_WEIGHT
+                        && (next < 0 || delta > deltas[offset + next])) {
+                    next = j;
+                }
+            }
+            // the search ends once the best path found so far beats the
+            // remaining end states
+            if (next < 0 || (best >= 0
+                    && !(deltas[offset + next] > lastDeltas[best]))) {
+                return best;
+            }
+            tried[next] = true;
+            if (best < 0 || lastDeltas[next] > lastDeltas[best]) {
+                best = next;
+            }
+        }
+    }
+
+    private void ensureCapacity(int latticeLength) {
+        int size = latticeLength * numStates;
+        if (deltas.length < size) {
+            int capacity = Math.max(size, 2 * deltas.length);
+            deltas = new double[capacity];
+            alphas = new double[capacity];
+            predecessors = new int[capacity];
+            outputs = new Object[capacity];
+            weights = new double[capacity * numStates];
+        }
+    }
+}
@@ -8,6 +8,8 @@ import java.net.URL;
 import edu.washington.cs.knowitall.extractor.conf.ConfidenceFunction;
 import edu.washington.cs.knowitall.extractor.conf.ConfidenceFunctionException;
 import edu.washington.cs.knowitall.extractor.conf.classifier.LogisticRegression;
+import edu.washington.cs.knowitall.metrics.LatencyHistogram;
+import edu.washington.cs.knowitall.metrics.MetricsRegistry;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedBinaryExtraction;
 
 /***
@@ -20,6 +22,9 @@ import edu.washington.cs.knowitall.nlp.extraction.ChunkedBinaryExtraction;
  */
 
 public class ConfidenceMetric implements ConfidenceFunction {
+    private static final MetricsRegistry METRICS = MetricsRegistry.getDefault();
+    private static final LatencyHistogram CONF_TIME = METRICS.histogram("conf");
+
     private static URL MODEL_URL =
             ConfidenceMetric.class.getResource("/r2a2-conf.weights");
 
@@ -50,6 +55,9 @@ public class ConfidenceMetric implements ConfidenceFunction {
     @Override
     public double getConf(ChunkedBinaryExtraction extr)
             throws ConfidenceFunctionException {
-        return logreg.confidence(extr);
+        long start = METRICS.startTimer();
+        double conf = logreg.confidence(extr);
+        METRICS.stopTimer(CONF_TIME, start);
+        return conf;
     }
 }
@@ -9,6 +9,7 @@ import java.util.regex.Pattern;
 import edu.washington.cs.knowitall.regex.Match;
 import edu.washington.cs.knowitall.regex.RegularExpression;
 import edu.washington.cs.knowitall.commonlib.Range;
+import edu.washington.cs.knowitall.nlp.ChunkedSentence;
 import edu.washington.cs.knowitall.nlp.ChunkedSentencePattern;
 import edu.washington.cs.knowitall.nlp.ChunkedSentenceToken;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
@@ -443,8 +444,13 @@ public class PatternExtractor {
         if (extr.getStart() < 2) {
             return false;
         }
-        int length = extr.getSentence().getLength();
-        if (matches(ChunkedSentenceToken.tokenize(extr.getSentence().getSubSequence(0, length)), "statement",
+        ChunkedSentence sentence = extr.getSentence();
+        // A view of the whole sentence only differs from the sentence when its
+        // first chunk tag is an I- tag, which the view turns into a B- tag.
+        if (sentence.getChunkTag(0).startsWith("I-")) {
+            sentence = sentence.getSubSequence(0, sentence.getLength());
+        }
+        if (matches(ChunkedSentenceToken.tokenize(sentence), "statement",
                 true)) {
             return true;
         }
@@ -465,8 +471,8 @@ public class PatternExtractor {
                 ChunkedSentenceToken.tokenize(extr.getSentence(), new Range(extr.getStart(),
                         extr.getLength())), "list_1", true)
                 && !extr.getSentence()
-                        .getSubSequence(extr.getStart(), extr.getLength())
-                        .getPosTagsAsString().contains("IN")) {
+                        .getPosTagsAsString(extr.getStart(), extr.getLength())
+                        .contains("IN")) {
             return true;
         }
         return false;
@@ -14,17 +14,33 @@ import edu.washington.cs.knowitall.extractor.mapper.BracketsRemover;
 import edu.washington.cs.knowitall.extractor.mapper.SentenceEndFilter;
 import edu.washington.cs.knowitall.extractor.mapper.SentenceLengthFilter;
 import edu.washington.cs.knowitall.extractor.mapper.SentenceStartFilter;
+import edu.washington.cs.knowitall.metrics.LatencyHistogram;
+import edu.washington.cs.knowitall.util.HtmlTextExtractor;
 import edu.washington.cs.knowitall.util.HtmlUtils;
 
 /**
  * An <code>Extractor</code> class for extracting <code>NpChunkedSentence</code> objects from a
  * <code>String</code> containing HTML. Is backed by an OpenNLP <code>SentenceDetector</code> object.
- * Uses the code in <code>HtmlUtils</code> to extract plain text from HTML.
+ * Uses <code>HtmlTextExtractor</code> to extract plain text from HTML, or the regular expressions
+ * of <code>HtmlUtils</code> if asked to.
  * @author afader
  *
  */
 public class HtmlSentenceExtractor extends SentenceExtractor {
 
+    private static final LatencyHistogram STRIP_TIME = METRICS
+            .histogram("html.strip");
+
+    // the text buffer of each thread
+    private static final ThreadLocal<StringBuilder> textBuffers = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder();
+        }
+    };
+
+    private boolean useRegexHtmlStripping = false;
+
     /**
      * Constructs a new <code>SentenceExtractor</code> object using the given OpenNLP <code>SentenceDetector</code>
      * object.
@@ -43,24 +59,51 @@ public class HtmlSentenceExtractor extends SentenceExtractor {
         super();
     }
 
+    /**
+     * Sets whether to extract the text of the HTML with the regular expressions of
+     * <code>HtmlUtils.removeHtml</code> instead of <code>HtmlTextExtractor</code>, which is the
+     * default.
+     * @param useRegexHtmlStripping
+     */
+    public void setUseRegexHtmlStripping(boolean useRegexHtmlStripping) {
+        this.useRegexHtmlStripping = useRegexHtmlStripping;
+    }
+
     @Override
     /**
      * Extracts sentences from the given HTML.
      */
     protected Collection<String> extractCandidates(String htmlBlock) {
 
-        String content = HtmlUtils.removeHtml(htmlBlock);
-        String[] lines = content.split("\n");
+        long start = METRICS.startTimer();
+        CharSequence content;
+        if (useRegexHtmlStripping) {
+            content = HtmlUtils.removeHtml(htmlBlock);
+        } else {
+            StringBuilder text = textBuffers.get();
+            HtmlTextExtractor.extract(htmlBlock, text);
+            content = text;
+        }
+        METRICS.stopTimer(STRIP_TIME, start);
+
+        start = METRICS.startTimer();
         List<String> results = new ArrayList<String>();
         SentenceDetector detector = getSentenceDetector();
-        for (String line : lines) {
-            line = line.trim();
+        int lineStart = 0;
+        while (lineStart < content.length()) {
+            int lineEnd = lineStart;
+            while (lineEnd < content.length() && content.charAt(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            String line = content.subSequence(lineStart, lineEnd).toString().trim();
+            lineStart = lineEnd + 1;
             for (String sent : detector.sentDetect(line)) {
                 if (!sent.trim().equals("")) {
                     results.add(sent);
                 }
             }
         }
+        METRICS.stopTimer(SPLIT_TIME, start);
         return results;
 
     }
@@ -0,0 +1,121 @@
+package edu.washington.cs.knowitall.extractor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.washington.cs.knowitall.commonlib.Range;
+import edu.washington.cs.knowitall.metrics.LatencyHistogram;
+import edu.washington.cs.knowitall.metrics.MetricsRegistry;
+import edu.washington.cs.knowitall.nlp.ChunkedSentence;
+import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
+import edu.washington.cs.knowitall.sequence.LayeredTokenMatcher;
+import edu.washington.cs.knowitall.sequence.LayeredTokenPattern;
+import edu.washington.cs.knowitall.sequence.LayeredTokenPatternSet;
+import edu.washington.cs.knowitall.sequence.SequenceException;
+
+/**
+ * An extractor that matches several regular expression patterns against
+ * NP-chunked sentences at once. Its output is the same as that of an
+ * {@link ExtractorUnion} of one {@link RegexExtractor} per pattern: the matches
+ * of the first pattern, then those of the second, and so on. The patterns are
+ * matched in a single pass using a {@link LayeredTokenPatternSet}, whatever
+ * the default engine of {@link LayeredTokenPattern}.
+ * <p>
+ * The single pass is timed in the <code>relation.patterns</code> histogram.
+ * While metrics are enabled, one sentence in
+ * {@value #PATTERN_SAMPLE_INTERVAL} is also matched with each pattern on its
+ * own, outside of that timing, to fill the histogram of each pattern (see
+ * {@link RegexExtractor#histogramName(String)}).
+ * </p>
+ */
+public class MultiRegexExtractor extends
+        Extractor<ChunkedSentence, ChunkedExtraction> {
+
+    private static final MetricsRegistry METRICS = MetricsRegistry.getDefault();
+
+    static final int PATTERN_SAMPLE_INTERVAL = 64;
+
+    private LayeredTokenPatternSet patterns;
+    private LatencyHistogram matchTime;
+    private LatencyHistogram[] patternTimes;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    /**
+     * Constructs a new instance using the given patterns.
+     *
+     * @param patternStrings
+     *            the relation patterns
+     * @throws SequenceException
+     *             if unable to compile the patterns
+     */
+    public MultiRegexExtractor(String... patternStrings)
+            throws SequenceException {
+        this.patterns = new LayeredTokenPatternSet(patternStrings);
+        this.matchTime = METRICS.histogram("relation.patterns");
+        this.patternTimes = new LatencyHistogram[patternStrings.length];
+        for (int p = 0; p < patternStrings.length; p++) {
+            patternTimes[p] = METRICS.histogram(RegexExtractor
+                    .histogramName(patternStrings[p]));
+        }
+    }
+
+    /**
+     * @return the <code>LayeredTokenPatternSet</code> used to extract
+     *         relations.
+     */
+    public LayeredTokenPatternSet getPatterns() {
+        return patterns;
+    }
+
+    @Override
+    /**
+     * Extracts relations matching any of the regular expressions.
+     */
+    public Collection<ChunkedExtraction> extractCandidates(
+            ChunkedSentence sentence) throws ExtractorException {
+
+        try {
+
+            long startTime = METRICS.startTimer();
+            Collection<ChunkedExtraction> results = new ArrayList<ChunkedExtraction>();
+            for (List<Range> matches : patterns.findAll(sentence)) {
+                for (Range r : matches) {
+                    results.add(new ChunkedExtraction(sentence, r));
+                }
+            }
+            METRICS.stopTimer(matchTime, startTime);
+
+            int call = calls.getAndIncrement();
+            if (METRICS.isEnabled()
+                    && (call & (PATTERN_SAMPLE_INTERVAL - 1)) == 0) {
+                timePatterns(sentence);
+            }
+            return results;
+
+        } catch (SequenceException e) {
+            String msg = String.format("Couldn't extract from sentence '%s'",
+                    sentence);
+            throw new ExtractorException(msg, e);
+        }
+    }
+
+    /**
+     * Matches each pattern against the given sentence on its own, recording
+     * the time in the histogram of the pattern.
+     */
+    private void timePatterns(ChunkedSentence sentence)
+            throws SequenceException {
+        List<LayeredTokenPattern> list = patterns.getPatterns();
+        for (int p = 0; p < list.size(); p++) {
+            long startTime = METRICS.startTimer();
+            LayeredTokenMatcher m = list.get(p).matcher(sentence);
+            while (m.find()) {
+                // only timing
+            }
+            METRICS.stopTimer(patternTimes[p], startTime);
+        }
+    }
+
+}
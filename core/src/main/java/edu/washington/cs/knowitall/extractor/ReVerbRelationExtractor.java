@@ -129,18 +129,14 @@ public abstract class ReVerbRelationExtractor extends RelationFirstNpChunkExtrac
             new ExtractorUnion<ChunkedSentence, ChunkedExtraction>();
 
         if (ReverbConfiguration.isEn()) {
+            // Matches the short and long patterns in one pass, with the same
+            // output as one RegexExtractor per pattern.
             try {
-                relExtractor.addExtractor(new RegexExtractor(SHORT_RELATION_PATTERN));
+                relExtractor.addExtractor(new MultiRegexExtractor(
+                    SHORT_RELATION_PATTERN, LONG_RELATION_PATTERN));
             } catch (SequenceException e) {
                 throw new ExtractorException(
-                    "Unable to initialize short pattern extractor", e);
-            }
-    
-            try {
-                relExtractor.addExtractor(new RegexExtractor(LONG_RELATION_PATTERN));
-            } catch (SequenceException e) {
-                throw new ExtractorException(
-                    "Unable to initialize long pattern extractor", e);
+                    "Unable to initialize short and long pattern extractor", e);
             }
         }
         
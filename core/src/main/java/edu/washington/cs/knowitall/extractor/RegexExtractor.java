@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 
 import edu.washington.cs.knowitall.commonlib.Range;
+import edu.washington.cs.knowitall.metrics.LatencyHistogram;
+import edu.washington.cs.knowitall.metrics.MetricsRegistry;
 import edu.washington.cs.knowitall.nlp.ChunkedSentence;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
 import edu.washington.cs.knowitall.sequence.LayeredTokenMatcher;
@@ -21,8 +23,11 @@ import edu.washington.cs.knowitall.sequence.SequenceException;
 public class RegexExtractor extends
         Extractor<ChunkedSentence, ChunkedExtraction> {
 
+    private static final MetricsRegistry METRICS = MetricsRegistry.getDefault();
+
     private String patternString;
     private LayeredTokenPattern pattern;
+    private LatencyHistogram matchTime;
 
     /**
      * Constructs a new instance using the given pattern.
@@ -35,6 +40,47 @@ public class RegexExtractor extends
     public RegexExtractor(String patternString) throws SequenceException {
         this.patternString = patternString;
         this.pattern = new LayeredTokenPattern(patternString);
+        this.matchTime = METRICS.histogram(histogramName(patternString));
+    }
+
+    /**
+     * Constructs a new instance using the given compiled pattern, e.g. one of
+     * the patterns returned by {@link LayeredTokenPattern#compileShared}.
+     *
+     * @param pattern
+     *            the relation pattern
+     */
+    public RegexExtractor(LayeredTokenPattern pattern) {
+        this.patternString = pattern.toString();
+        this.pattern = pattern;
+        this.matchTime = METRICS.histogram(histogramName(patternString));
+    }
+
+    /**
+     * Returns the name of the histogram timing the given pattern. Relation
+     * patterns are hundreds of characters long, so the patterns of
+     * {@link ReVerbRelationExtractor} are named after their constant, e.g.
+     * <code>relation.pattern.long</code>, and other patterns by the hash of
+     * their string.
+     *
+     * @param patternString
+     * @return the name
+     */
+    static String histogramName(String patternString) {
+        String id;
+        if (patternString
+                .equals(ReVerbRelationExtractor.SHORT_RELATION_PATTERN)) {
+            id = "short";
+        } else if (patternString
+                .equals(ReVerbRelationExtractor.LONG_RELATION_PATTERN)) {
+            id = "long";
+        } else if (patternString
+                .equals(ReVerbRelationExtractor.FRENCH_RELATION_PATTERN_01)) {
+            id = "fr01";
+        } else {
+            id = String.format("%08x", patternString.hashCode());
+        }
+        return "relation.pattern." + id;
     }
 
     /**
@@ -60,6 +106,7 @@ public class RegexExtractor extends
 
         try {
 
+            long startTime = METRICS.startTimer();
             LayeredTokenMatcher m = pattern.matcher(sentence);
             Collection<ChunkedExtraction> results = new ArrayList<ChunkedExtraction>();
 
@@ -70,6 +117,7 @@ public class RegexExtractor extends
                 ChunkedExtraction extr = new ChunkedExtraction(sentence, r);
                 results.add(extr);
             }
+            METRICS.stopTimer(matchTime, startTime);
             return results;
 
         } catch (SequenceException e) {
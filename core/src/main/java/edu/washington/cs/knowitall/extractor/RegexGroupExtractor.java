@@ -19,8 +19,17 @@ public class RegexGroupExtractor extends
         this.pattern = pattern;
     }
 
+    /**
+     * Constructs an extractor for the given pattern, matched with
+     * {@link LayeredTokenPattern.Engine#REGEX} whatever the default engine:
+     * the DFA engine would resolve every group by matching again with
+     * {@link java.util.regex.Pattern}.
+     *
+     * @param patternStr
+     */
     public RegexGroupExtractor(String patternStr) {
-        this(new LayeredTokenPattern(patternStr));
+        this(new LayeredTokenPattern(patternStr,
+                LayeredTokenPattern.Engine.REGEX));
     }
 
     protected Collection<SpanExtraction> extractCandidates(ChunkedSentence sent)
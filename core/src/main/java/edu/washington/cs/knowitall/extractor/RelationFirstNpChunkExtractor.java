@@ -2,6 +2,12 @@ package edu.washington.cs.knowitall.extractor;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+import edu.washington.cs.knowitall.metrics.LatencyHistogram;
+import edu.washington.cs.knowitall.metrics.MetricsRegistry;
 
 import edu.washington.cs.knowitall.nlp.ChunkedSentence;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedArgumentExtraction;
@@ -36,6 +42,12 @@ import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
 public abstract class RelationFirstNpChunkExtractor
     extends Extractor<ChunkedSentence, ChunkedBinaryExtraction> {
 
+    private static final MetricsRegistry METRICS = MetricsRegistry.getDefault();
+    private static final LatencyHistogram ARG1_TIME = METRICS
+        .histogram("argument.arg1");
+    private static final LatencyHistogram ARG2_TIME = METRICS
+        .histogram("argument.arg2");
+
     // Allow unary relations to be extracted.
     protected boolean allowUnary = false;
 
@@ -43,6 +55,13 @@ public abstract class RelationFirstNpChunkExtractor
     protected Extractor<ChunkedExtraction, ChunkedArgumentExtraction> arg1Extr;
     protected Extractor<ChunkedExtraction, ChunkedArgumentExtraction> arg2Extr;
 
+    /**
+     * Constructs a new extractor with no mappers.
+     */
+    public RelationFirstNpChunkExtractor() {
+        getMappers().setName("binary");
+    }
+
     /**
      * @return the extractor used to extract relations.
      */
@@ -74,6 +93,7 @@ public abstract class RelationFirstNpChunkExtractor
     public void setRelationExtractor(
         Extractor<ChunkedSentence, ChunkedExtraction> relExtr) {
         this.relExtr = relExtr;
+        nameMappers(relExtr, "relation");
     }
 
     /**
@@ -83,6 +103,7 @@ public abstract class RelationFirstNpChunkExtractor
     public void setArgument1Extractor(
         Extractor<ChunkedExtraction, ChunkedArgumentExtraction> arg1Extr) {
         this.arg1Extr = arg1Extr;
+        nameMappers(arg1Extr, "arg1");
     }
 
     /**
@@ -92,12 +113,40 @@ public abstract class RelationFirstNpChunkExtractor
     public void setArgument2Extractor(
         Extractor<ChunkedExtraction, ChunkedArgumentExtraction> arg2Extr) {
         this.arg2Extr = arg2Extr;
+        nameMappers(arg2Extr, "arg2");
     }
 
     public void setAllowUnary(boolean allowUnary) {
         this.allowUnary = allowUnary;
     }
 
+    /**
+     * Names the mappers of the given extractor in the default
+     * {@link MetricsRegistry}, unless they already have a name.
+     */
+    private static void nameMappers(Extractor<?, ?> extractor, String name) {
+        if (extractor != null && extractor.getMappers().getName() == null) {
+            extractor.getMappers().setName(name);
+        }
+    }
+
+    @Override
+    /**
+     * Extracts from the given sentence, counting the sentence and its
+     * extractions in the default {@link MetricsRegistry} when it is enabled.
+     */
+    public Iterable<ChunkedBinaryExtraction> extract(ChunkedSentence source)
+        throws ExtractorException {
+        Iterable<ChunkedBinaryExtraction> extrs = super.extract(source);
+        if (!METRICS.isEnabled()) {
+            return extrs;
+        }
+        List<ChunkedBinaryExtraction> results = Lists.newArrayList(extrs);
+        METRICS.increment("sentences", 1);
+        METRICS.increment("extractions", results.size());
+        return results;
+    }
+
 
     @Override
     /**
@@ -121,10 +170,15 @@ public abstract class RelationFirstNpChunkExtractor
         Collection<ChunkedBinaryExtraction> extrs =
             new ArrayList<ChunkedBinaryExtraction>();
         for (ChunkedExtraction rel : rels) {
+            long start = METRICS.startTimer();
             Iterable<? extends ChunkedArgumentExtraction> arg1s =
                 arg1Extr.extract(rel);
+            METRICS.stopTimer(ARG1_TIME, start);
+
+            start = METRICS.startTimer();
             Iterable<? extends ChunkedArgumentExtraction> arg2s =
                 arg2Extr.extract(rel);
+            METRICS.stopTimer(ARG2_TIME, start);
 
             extrs.addAll(
                 ChunkedBinaryExtraction.productOfArgs(rel, arg1s, arg2s, allowUnary));
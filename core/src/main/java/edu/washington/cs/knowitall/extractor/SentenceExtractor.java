@@ -4,6 +4,8 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
 
+import edu.washington.cs.knowitall.metrics.LatencyHistogram;
+import edu.washington.cs.knowitall.metrics.MetricsRegistry;
 import edu.washington.cs.knowitall.util.DefaultObjects;
 
 import opennlp.tools.sentdetect.SentenceDetector;
@@ -16,6 +18,11 @@ import opennlp.tools.sentdetect.SentenceDetector;
  */
 public class SentenceExtractor extends Extractor<String, String> {
 
+    protected static final MetricsRegistry METRICS = MetricsRegistry
+            .getDefault();
+    protected static final LatencyHistogram SPLIT_TIME = METRICS
+            .histogram("sentence.split");
+
     private SentenceDetector detector;
 
     /**
@@ -25,6 +32,7 @@ public class SentenceExtractor extends Extractor<String, String> {
      */
     public SentenceExtractor() throws IOException {
         this.detector = DefaultObjects.getDefaultSentenceDetector();
+        getMappers().setName("sentence");
     }
 
     /**
@@ -34,6 +42,7 @@ public class SentenceExtractor extends Extractor<String, String> {
      */
     public SentenceExtractor(SentenceDetector detector) {
         this.detector = detector;
+        getMappers().setName("sentence");
     }
 
     /**
@@ -48,6 +57,9 @@ public class SentenceExtractor extends Extractor<String, String> {
      * and returns an <code>Iterable<String></code> object over the detected sentences.
      */
     protected Collection<String> extractCandidates(String source) {
-        return Arrays.asList(detector.sentDetect(source));
+        long start = METRICS.startTimer();
+        String[] sentences = detector.sentDetect(source);
+        METRICS.stopTimer(SPLIT_TIME, start);
+        return Arrays.asList(sentences);
     }
 }
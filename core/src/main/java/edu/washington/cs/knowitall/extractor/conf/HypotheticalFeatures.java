@@ -8,13 +8,11 @@ import java.util.Set;
 
 import com.google.common.base.Predicate;
 
+import edu.washington.cs.knowitall.extractor.conf.featureset.FeatureContext;
+import edu.washington.cs.knowitall.extractor.conf.featureset.FeatureContext.Part;
 import edu.washington.cs.knowitall.extractor.conf.featureset.VerbTokenFeature;
 import edu.washington.cs.knowitall.extractor.conf.featureset.TokenFeature;
-import edu.washington.cs.knowitall.nlp.ChunkedSentence;
-import edu.washington.cs.knowitall.nlp.extraction.ChunkedArgumentExtraction;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedBinaryExtraction;
-import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
-import edu.washington.cs.knowitall.normalization.BasicFieldNormalizer;
 import edu.washington.cs.knowitall.sequence.SequenceException;
 
 /**
@@ -26,8 +24,6 @@ import edu.washington.cs.knowitall.sequence.SequenceException;
  */
 public class HypotheticalFeatures {
 
-    private BasicFieldNormalizer stemmer;
-
     private HashMap<String, Predicate<ChunkedBinaryExtraction>> featureMap;
 
     private static String[] ifWords = new String[] { "if", "whether", "though",
@@ -45,8 +41,6 @@ public class HypotheticalFeatures {
 
     public HypotheticalFeatures() {
 
-        this.stemmer = new BasicFieldNormalizer();
-
         initKeywordSets();
 
         initFeatureSet();
@@ -108,16 +102,10 @@ public class HypotheticalFeatures {
             @Override
             public boolean apply(ChunkedBinaryExtraction extr) {
 
-                ChunkedSentence sentence = extr.getSentence();
-                ChunkedArgumentExtraction arg1 = extr.getArgument1();
-                ChunkedExtraction rel = extr.getRelation();
-                for (int i = arg1.getStart() + arg1.getLength(); i < rel
-                        .getStart(); ++i) {
-                    String token = sentence.getToken(i);
-                    String pos = sentence.getPosTag(i);
-
-                    String lemma = stemmer.stemSingleToken(token, pos);
-                    if (keyWords.contains(lemma.toLowerCase())) {
+                FeatureContext c = FeatureContext.of(extr);
+                for (int i = c.getEnd(Part.ARG1); i < c.getStart(Part.REL);
+                        ++i) {
+                    if (keyWords.contains(c.getStem(i))) {
                         return true;
                     }
                 }
@@ -132,15 +120,11 @@ public class HypotheticalFeatures {
             @Override
             public boolean apply(ChunkedBinaryExtraction extr) {
 
-                ChunkedSentence sentence = extr.getSentence();
-                ChunkedArgumentExtraction arg1 = extr.getArgument1();
-                int i = arg1.getStart() - 1;
+                FeatureContext c = FeatureContext.of(extr);
+                int i = c.getStart(Part.ARG1) - 1;
                 if (i < 0)
                     return false;
-                String token = sentence.getToken(i);
-                String pos = sentence.getPosTag(i);
-                String lemma = stemmer.stemSingleToken(token, pos);
-                if (keyWords.contains(lemma.toLowerCase())) {
+                if (keyWords.contains(c.getStem(i))) {
                     return true;
                 }
                 return false;
@@ -10,10 +10,10 @@ import java.util.regex.Pattern;
 import com.google.common.base.Predicate;
 
 import edu.washington.cs.knowitall.extractor.conf.featureset.ChunkFeature;
+import edu.washington.cs.knowitall.extractor.conf.featureset.FeatureContext;
+import edu.washington.cs.knowitall.extractor.conf.featureset.FeatureContext.Part;
 import edu.washington.cs.knowitall.extractor.conf.featureset.TokenFeature;
 import edu.washington.cs.knowitall.extractor.conf.featureset.PosFeature;
-import edu.washington.cs.knowitall.nlp.ChunkedSentence;
-import edu.washington.cs.knowitall.nlp.extraction.ChunkedArgumentExtraction;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedBinaryExtraction;
 import edu.washington.cs.knowitall.sequence.SequenceException;
 
@@ -89,13 +89,11 @@ public class NestedFeatures {
             @Override
             public boolean apply(ChunkedBinaryExtraction arg0) {
 
-                ChunkedSentence sentence = arg0.getSentence();
-                ChunkedArgumentExtraction arg2 = arg0.getArgument2();
+                FeatureContext c = FeatureContext.of(arg0);
 
-                for (int i = arg2.getStart() + arg2.getLength(); i < sentence
-                        .getLength(); ++i) {
+                for (int i = c.getEnd(Part.ARG2); i < c.getLength(); ++i) {
 
-                    if (sentence.getToken(i).equalsIgnoreCase("that")) {
+                    if (c.getToken(i).equalsIgnoreCase("that")) {
                         return true;
                     }
                 }
@@ -114,12 +112,11 @@ public class NestedFeatures {
             @Override
             public boolean apply(ChunkedBinaryExtraction arg0) {
 
-                ChunkedSentence sentence = arg0.getSentence();
-                ChunkedArgumentExtraction arg2 = arg0.getArgument2();
+                FeatureContext c = FeatureContext.of(arg0);
 
-                int i = arg2.getStart() + arg2.getLength();
-                if (i < sentence.getLength()) {
-                    String token = sentence.getToken(i);
+                int i = c.getEnd(Part.ARG2);
+                if (i < c.getLength()) {
+                    String token = c.getToken(i);
                     if (!token.isEmpty() && !period.matcher(token).matches()
                             && punct.matcher(token).matches()) {
 
@@ -139,12 +136,11 @@ public class NestedFeatures {
             @Override
             public boolean apply(ChunkedBinaryExtraction arg0) {
 
-                ChunkedSentence sentence = arg0.getSentence();
-                ChunkedArgumentExtraction arg1 = arg0.getArgument1();
+                FeatureContext c = FeatureContext.of(arg0);
 
-                int i = arg1.getStart() - 1;
-                if (i >= 0 && sentence.getLength() > 0) {
-                    String token = sentence.getToken(i);
+                int i = c.getStart(Part.ARG1) - 1;
+                if (i >= 0 && c.getLength() > 0) {
+                    String token = c.getToken(i);
                     for (String givenTok : givenTokens) {
                         if (token.equals(givenTok)) {
                             return true;
@@ -1,5 +1,6 @@
 package edu.washington.cs.knowitall.extractor.conf;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 
@@ -11,6 +12,8 @@ import edu.washington.cs.knowitall.regex.RegularExpression;
 import edu.washington.cs.knowitall.extractor.ReVerbExtractor;
 import edu.washington.cs.knowitall.extractor.conf.featureset.BooleanFeatureSet;
 import edu.washington.cs.knowitall.extractor.conf.featureset.ChunkFeature;
+import edu.washington.cs.knowitall.extractor.conf.featureset.FeatureContext;
+import edu.washington.cs.knowitall.extractor.conf.featureset.FeatureContext.Part;
 import edu.washington.cs.knowitall.extractor.conf.featureset.PosFeature;
 import edu.washington.cs.knowitall.nlp.ChunkedSentence;
 import edu.washington.cs.knowitall.nlp.ChunkedSentencePattern;
@@ -108,14 +111,11 @@ public class ReVerbFeatures {
         // "3F" - conjunction of "Extr begins sentence", "ends sentence", and
         // "covers phrase".
         featureMap.put("3F", new Predicate<ChunkedBinaryExtraction>() {
-            Predicate<ChunkedBinaryExtraction> startArg1 = startArg1();
-            Predicate<ChunkedBinaryExtraction> endArg2 = endArg2();
-            Predicate<ChunkedBinaryExtraction> extrCoversPhrase = extrCoversPhrase();
-
             @Override
             public boolean apply(ChunkedBinaryExtraction arg0) {
-                return startArg1.apply(arg0) && endArg2.apply(arg0)
-                        && extrCoversPhrase.apply(arg0);
+                FeatureContext c = FeatureContext.of(arg0);
+                return startsWithArg1(c) && endsWithArg2(c)
+                        && coversPhrase(arg0, c);
             }
         });
 
@@ -143,6 +143,59 @@ public class ReVerbFeatures {
     public RegularExpression<ChunkedSentenceToken> listPattern2 = ChunkedSentencePattern
             .compile(list2);
 
+    // The matches of the list patterns in the last sentence seen by each
+    // thread, shared by the extractions of that sentence
+    private final ThreadLocal<SentenceLists> lastLists = new ThreadLocal<SentenceLists>();
+
+    private static class SentenceLists {
+        final ChunkedSentence sentence;
+        final List<Range> ranges = new ArrayList<Range>();
+
+        SentenceLists(ChunkedSentence sentence) {
+            this.sentence = sentence;
+        }
+
+        void addAll(List<Match<ChunkedSentenceToken>> matchList) {
+            for (Match<ChunkedSentenceToken> match : matchList) {
+                ranges.add(new Range(match.startIndex(), match.endIndex()
+                        - match.startIndex()));
+            }
+        }
+    }
+
+    private List<Range> getListRanges(FeatureContext c) {
+        ChunkedSentence sentence = c.getSentence();
+        SentenceLists lists = lastLists.get();
+        if (lists == null || lists.sentence != sentence) {
+            lists = new SentenceLists(sentence);
+
+            // list1 needs two commas and list2 a comma and a conjunction, so
+            // most sentences need not be matched at all
+            int commas = 0;
+            boolean conj = false;
+            for (int i = 0; i < c.getLength(); i++) {
+                if (c.getToken(i).equals(",")) {
+                    commas++;
+                }
+                if (c.getPosTag(i).equalsIgnoreCase("CC")) {
+                    conj = true;
+                }
+            }
+            if (commas > 1 || (commas > 0 && conj)) {
+                List<ChunkedSentenceToken> tokens = ChunkedSentenceToken
+                        .tokenize(sentence);
+                if (conj) {
+                    lists.addAll(listPattern2.findAll(tokens));
+                }
+                if (commas > 1) {
+                    lists.addAll(listPattern1.findAll(tokens));
+                }
+            }
+            lastLists.set(lists);
+        }
+        return lists.ranges;
+    }
+
     private Predicate<ChunkedBinaryExtraction> arg2InList() {
         return new Predicate<ChunkedBinaryExtraction>() {
             @Override
@@ -150,21 +203,8 @@ public class ReVerbFeatures {
                 // find all matches to the list pattern. If arg2 overlaps with
                 // the match, return true.
                 ChunkedArgumentExtraction arg2 = extr.getArgument2();
-                ChunkedSentence sentence = arg2.getSentence();
-                List<Match<ChunkedSentenceToken>> matchList = listPattern2
-                        .findAll(ChunkedSentenceToken.tokenize(sentence));
-                for (Match<ChunkedSentenceToken> match : matchList) {
-                    Range matchRange = new Range(match.startIndex(),
-                            match.endIndex() - match.startIndex());
-                    if (matchRange.overlapsWith(arg2.getRange())) {
-                        return true;
-                    }
-                }
-                matchList = listPattern1.findAll(ChunkedSentenceToken
-                        .tokenize(sentence));
-                for (Match<ChunkedSentenceToken> match : matchList) {
-                    Range matchRange = new Range(match.startIndex(),
-                            match.endIndex() - match.startIndex());
+                List<Range> listRanges = getListRanges(FeatureContext.of(extr));
+                for (Range matchRange : listRanges) {
                     if (matchRange.overlapsWith(arg2.getRange())) {
                         return true;
                     }
@@ -174,20 +214,26 @@ public class ReVerbFeatures {
         };
     }
 
+    private static boolean startsWithArg1(FeatureContext c) {
+        return c.getStart(Part.ARG1) == 0;
+    }
+
     private Predicate<ChunkedBinaryExtraction> startArg1() {
         return new Predicate<ChunkedBinaryExtraction>() {
             public boolean apply(ChunkedBinaryExtraction e) {
-                return e.getArgument1().getRange().getStart() == 0;
+                return startsWithArg1(FeatureContext.of(e));
             }
         };
     }
 
+    private static boolean endsWithArg2(FeatureContext c) {
+        return c.getEnd(Part.ARG2) - 1 == c.getLength() - 2;
+    }
+
     private Predicate<ChunkedBinaryExtraction> endArg2() {
         return new Predicate<ChunkedBinaryExtraction>() {
             public boolean apply(ChunkedBinaryExtraction e) {
-                int arg2End = e.getArgument2().getRange().getLastIndex();
-                int sentEnd = e.getSentence().getLength() - 2;
-                return arg2End == sentEnd;
+                return endsWithArg2(FeatureContext.of(e));
             }
         };
     }
@@ -195,11 +241,10 @@ public class ReVerbFeatures {
     private Predicate<ChunkedBinaryExtraction> relPronounBeforeRel() {
         return new Predicate<ChunkedBinaryExtraction>() {
             public boolean apply(ChunkedBinaryExtraction e) {
-                ChunkedExtraction pred = e.getRelation();
-                int predStart = pred.getStart();
+                FeatureContext c = FeatureContext.of(e);
+                int predStart = c.getStart(Part.REL);
                 if (predStart > 0) {
-                    String precToken = e.getSentence().getTokens()
-                            .get(predStart - 1).toLowerCase();
+                    String precToken = c.getLowerToken(predStart - 1);
                     if (precToken.equals("which") || precToken.equals("who")
                             || precToken.equals("that")) {
                         return true;
@@ -210,8 +255,9 @@ public class ReVerbFeatures {
         };
     }
 
-    private boolean isProperNp(ChunkedExtraction e) {
-        for (String tag : e.getPosTags()) {
+    private boolean isProperNp(FeatureContext c, Part part) {
+        for (int i = c.getStart(part); i < c.getEnd(part); i++) {
+            String tag = c.getPosTag(i);
             if (tag.equalsIgnoreCase("NNP") || tag.equalsIgnoreCase("NNPS")) {
                 return true;
             }
@@ -226,7 +272,7 @@ public class ReVerbFeatures {
     private Predicate<ChunkedBinaryExtraction> arg1IsProper() {
         return new Predicate<ChunkedBinaryExtraction>() {
             public boolean apply(ChunkedBinaryExtraction e) {
-                return isProperNp(e.getArgument1());
+                return isProperNp(FeatureContext.of(e), Part.ARG1);
             }
         };
     }
@@ -234,7 +280,7 @@ public class ReVerbFeatures {
     private Predicate<ChunkedBinaryExtraction> arg2IsProper() {
         return new Predicate<ChunkedBinaryExtraction>() {
             public boolean apply(ChunkedBinaryExtraction e) {
-                return isProperNp(e.getArgument2());
+                return isProperNp(FeatureContext.of(e), Part.ARG2);
             }
         };
     }
@@ -277,8 +323,8 @@ public class ReVerbFeatures {
         final String token = t;
         return new Predicate<ChunkedBinaryExtraction>() {
             public boolean apply(ChunkedBinaryExtraction e) {
-                List<String> tokens = e.getRelation().getTokens();
-                return tokens.get(tokens.size() - 1).equals(token);
+                FeatureContext c = FeatureContext.of(e);
+                return c.getToken(c.getEnd(Part.REL) - 1).equals(token);
             }
         };
     }
@@ -294,26 +340,28 @@ public class ReVerbFeatures {
     private Predicate<ChunkedBinaryExtraction> extrCoversPhrase() {
         return new Predicate<ChunkedBinaryExtraction>() {
             public boolean apply(ChunkedBinaryExtraction e) {
-                ChunkedSentence sent = e.getSentence();
-                List<String> tokens = sent.getTokens();
+                return coversPhrase(e, FeatureContext.of(e));
+            }
+        };
+    }
 
-                Range x = e.getArgument1().getRange();
-                Range y = e.getArgument2().getRange();
-                Range r = e.getRelation().getRange();
-                boolean adj = x.isAdjacentTo(r) && r.isAdjacentTo(y);
+    private static boolean coversPhrase(ChunkedBinaryExtraction e,
+            FeatureContext c) {
+        Range x = e.getArgument1().getRange();
+        Range y = e.getArgument2().getRange();
+        Range r = e.getRelation().getRange();
+        boolean adj = x.isAdjacentTo(r) && r.isAdjacentTo(y);
 
-                int xs = x.getStart();
-                boolean leftOk = xs == 0 || tokens.get(xs - 1).equals(",")
-                        || tokens.get(xs - 1).equals(".");
+        int xs = x.getStart();
+        boolean leftOk = xs == 0 || c.getToken(xs - 1).equals(",")
+                || c.getToken(xs - 1).equals(".");
 
-                int l = sent.getLength() - 1;
-                int yr = y.getLastIndex();
-                boolean rightOk = yr == l || tokens.get(yr + 1).equals(",")
-                        || tokens.get(yr + 1).equals(".");
+        int l = c.getLength() - 1;
+        int yr = y.getLastIndex();
+        boolean rightOk = yr == l || c.getToken(yr + 1).equals(",")
+                || c.getToken(yr + 1).equals(".");
 
-                return adj && leftOk && rightOk;
-            }
-        };
+        return adj && leftOk && rightOk;
     }
 
     //
@@ -324,11 +372,10 @@ public class ReVerbFeatures {
             final String token) {
         return new Predicate<ChunkedBinaryExtraction>() {
             public boolean apply(ChunkedBinaryExtraction e) {
-                ChunkedArgumentExtraction arg1 = e.getArgument1();
-                int arg1Start = arg1.getStart();
+                FeatureContext c = FeatureContext.of(e);
+                int arg1Start = c.getStart(Part.ARG1);
                 if (arg1Start > 0) {
-                    String precTok = e.getSentence().getTokens()
-                            .get(arg1Start - 1);
+                    String precTok = c.getToken(arg1Start - 1);
                     if (precTok.equalsIgnoreCase(token)) {
                         return true;
                     }
@@ -341,11 +388,10 @@ public class ReVerbFeatures {
     private Predicate<ChunkedBinaryExtraction> tokenBeforeRel(final String token) {
         return new Predicate<ChunkedBinaryExtraction>() {
             public boolean apply(ChunkedBinaryExtraction e) {
-                ChunkedExtraction rel = e.getRelation();
-                int relStart = rel.getStart();
+                FeatureContext c = FeatureContext.of(e);
+                int relStart = c.getStart(Part.REL);
                 if (relStart > 0) {
-                    String precTok = e.getSentence().getTokens()
-                            .get(relStart - 1);
+                    String precTok = c.getToken(relStart - 1);
                     if (precTok.equalsIgnoreCase(token)) {
                         return true;
                     }
@@ -358,11 +404,10 @@ public class ReVerbFeatures {
     private Predicate<ChunkedBinaryExtraction> tokenAfterArg2(final String token) {
         return new Predicate<ChunkedBinaryExtraction>() {
             public boolean apply(ChunkedBinaryExtraction e) {
-                ChunkedArgumentExtraction arg2 = e.getArgument2();
-                int arg1End = arg2.getStart() + arg2.getLength() - 1;
-                if (arg1End + 1 < e.getSentence().getLength() - 1) {
-                    String nextTok = e.getSentence().getTokens()
-                            .get(arg1End + 1);
+                FeatureContext c = FeatureContext.of(e);
+                int arg1End = c.getEnd(Part.ARG2) - 1;
+                if (arg1End + 1 < c.getLength() - 1) {
+                    String nextTok = c.getToken(arg1End + 1);
                     if (nextTok.equalsIgnoreCase(token)) {
                         return true;
                     }
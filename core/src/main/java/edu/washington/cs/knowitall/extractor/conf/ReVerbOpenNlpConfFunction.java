@@ -12,6 +12,8 @@ import opennlp.maxent.GISModel;
 import opennlp.maxent.io.PlainTextGISModelReader;
 import edu.washington.cs.knowitall.extractor.conf.featureset.BooleanFeatureSet;
 import edu.washington.cs.knowitall.extractor.conf.opennlp.OpenNlpConfFunction;
+import edu.washington.cs.knowitall.metrics.LatencyHistogram;
+import edu.washington.cs.knowitall.metrics.MetricsRegistry;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedBinaryExtraction;
 import edu.washington.cs.knowitall.util.DefaultObjects;
 
@@ -28,6 +30,9 @@ import edu.washington.cs.knowitall.util.DefaultObjects;
  */
 public class ReVerbOpenNlpConfFunction implements ConfidenceFunction {
 
+    private static final MetricsRegistry METRICS = MetricsRegistry.getDefault();
+    private static final LatencyHistogram CONF_TIME = METRICS.histogram("conf");
+
     private ReVerbFeatures reverbFeatures;
     private OpenNlpConfFunction<ChunkedBinaryExtraction> conf;
 
@@ -109,6 +114,9 @@ public class ReVerbOpenNlpConfFunction implements ConfidenceFunction {
      */
     public double getConf(ChunkedBinaryExtraction extr)
             throws ConfidenceFunctionException {
-        return this.conf.getConf(extr);
+        long start = METRICS.startTimer();
+        double result = this.conf.getConf(extr);
+        METRICS.stopTimer(CONF_TIME, start);
+        return result;
     }
 }
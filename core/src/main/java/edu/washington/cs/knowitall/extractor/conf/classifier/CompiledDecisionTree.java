@@ -0,0 +1,222 @@
+package edu.washington.cs.knowitall.extractor.conf.classifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.washington.cs.knowitall.extractor.conf.classifier.DecisionTree.Comparison;
+import edu.washington.cs.knowitall.extractor.conf.classifier.DecisionTree.Tree;
+
+/***
+ * A decision tree compiled against a fixed list of features, so that an
+ * instance can be classified from a {@link LazyFeatureVector} instead of a
+ * {@link DoubleFeatures} map. Only the features tested along the path taken
+ * by the instance are computed.
+ *
+ * The children of each node are laid out as a chain of binary tests in flat
+ * arrays: a test holds the index of its feature, its comparison and its
+ * constant, the node to go to if it passes, which is the first test of the
+ * children of the tree node or a leaf, and the node to go to if it fails,
+ * which is the test of the next child. As in {@link DecisionTree#classify},
+ * the first child whose test passes is taken.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+public class CompiledDecisionTree {
+
+    private static final int EQ = 0;
+    private static final int LE = 1;
+    private static final int GE = 2;
+    private static final int LT = 3;
+    private static final int GT = 4;
+
+    // the node reached when no child of a node passes its test; leaves are
+    // encoded as -(outcome + 1)
+    private static final int NO_MATCH = Integer.MIN_VALUE;
+
+    private final List<String> featureNames;
+    private final List<String> outcomes = new ArrayList<String>();
+
+    private int[] features = new int[0];
+    private int[] comparisons = new int[0];
+    private double[] thresholds = new double[0];
+    private int[] ifTrue = new int[0];
+    private int[] ifFalse = new int[0];
+    private int size = 0;
+
+    private final int entry;
+
+    /**
+     * Compiles the given tree.
+     *
+     * @param tree
+     * @param featureNames
+     *            the names of the features, in the order of the indices given
+     *            to {@link LazyFeatureVector#get(int)}
+     * @throws IllegalArgumentException
+     *             if the tree tests a feature that is not in the list, or a
+     *             predicate that is not a {@link Comparison}
+     */
+    public CompiledDecisionTree(DecisionTree tree, List<String> featureNames) {
+        this.featureNames = featureNames;
+        this.entry = compileChildren(tree.getRoot().children);
+        this.features = trim(features);
+        this.comparisons = trim(comparisons);
+        this.thresholds = trim(thresholds);
+        this.ifTrue = trim(ifTrue);
+        this.ifFalse = trim(ifFalse);
+    }
+
+    private int compileChildren(List<Tree> children) {
+        if (children == null || children.isEmpty()) {
+            return NO_MATCH;
+        }
+
+        // the tests of the children are consecutive
+        int first = size;
+        for (int i = 0; i < children.size(); i++) {
+            addTest(children.get(i));
+            ifFalse[first + i] = i + 1 < children.size() ? first + i + 1
+                    : NO_MATCH;
+        }
+
+        for (int i = 0; i < children.size(); i++) {
+            // the subtree is compiled before indexing into the arrays, which
+            // compiling it can grow
+            Tree child = children.get(i);
+            int next = child.children != null ? compileChildren(child.children)
+                    : -(outcomeIndex(child.outcome) + 1);
+            ifTrue[first + i] = next;
+        }
+
+        return first;
+    }
+
+    private void addTest(Tree node) {
+        if (!(node.predicate instanceof Comparison)) {
+            throw new IllegalArgumentException("Cannot compile predicate: "
+                    + node.predicateString);
+        }
+        Comparison comparison = (Comparison) node.predicate;
+        int feature = featureNames.indexOf(comparison.feature);
+        if (feature < 0) {
+            throw new IllegalArgumentException("Unknown feature: "
+                    + comparison.feature);
+        }
+
+        if (size == features.length) {
+            int capacity = Math.max(16, 2 * size);
+            features = Arrays.copyOf(features, capacity);
+            comparisons = Arrays.copyOf(comparisons, capacity);
+            thresholds = Arrays.copyOf(thresholds, capacity);
+            ifTrue = Arrays.copyOf(ifTrue, capacity);
+            ifFalse = Arrays.copyOf(ifFalse, capacity);
+        }
+        features[size] = feature;
+        comparisons[size] = comparisonCode(comparison.comparison);
+        thresholds[size] = comparison.value;
+        size++;
+    }
+
+    private static int comparisonCode(String comparison) {
+        if (comparison.equals("=")) {
+            return EQ;
+        } else if (comparison.equals("<=")) {
+            return LE;
+        } else if (comparison.equals(">=")) {
+            return GE;
+        } else if (comparison.equals("<")) {
+            return LT;
+        } else if (comparison.equals(">")) {
+            return GT;
+        } else {
+            throw new IllegalArgumentException("unknown comparison: "
+                    + comparison);
+        }
+    }
+
+    private int outcomeIndex(String outcome) {
+        int index = outcomes.indexOf(outcome);
+        if (index < 0) {
+            outcomes.add(outcome);
+            index = outcomes.size() - 1;
+        }
+        return index;
+    }
+
+    private int[] trim(int[] array) {
+        return Arrays.copyOf(array, size);
+    }
+
+    private double[] trim(double[] array) {
+        return Arrays.copyOf(array, size);
+    }
+
+    /**
+     * @return the number of outcomes of the tree
+     */
+    public int getNumOutcomes() {
+        return outcomes.size();
+    }
+
+    /**
+     * @param index
+     * @return the outcome with the given index
+     */
+    public String getOutcome(int index) {
+        return outcomes.get(index);
+    }
+
+    /**
+     * @param outcome
+     * @return the index of the given outcome, as returned by
+     *         {@link #classify(LazyFeatureVector)}
+     * @throws IllegalArgumentException
+     *             if the tree has no such outcome
+     */
+    public int getOutcomeIndex(String outcome) {
+        int index = outcomes.indexOf(outcome);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown outcome: " + outcome);
+        }
+        return index;
+    }
+
+    /**
+     * Classifies an instance.
+     *
+     * @param values
+     *            the features of the instance, in the order the tree was
+     *            compiled against
+     * @return the index of the outcome of the instance
+     * @throws IllegalStateException
+     *             if no child of a node on the path passes its test
+     */
+    public int classify(LazyFeatureVector values) {
+        int node = entry;
+        while (node >= 0) {
+            double value = values.get(features[node]);
+            node = test(comparisons[node], value, thresholds[node])
+                    ? ifTrue[node] : ifFalse[node];
+        }
+        if (node == NO_MATCH) {
+            throw new IllegalStateException();
+        }
+        return -node - 1;
+    }
+
+    private static boolean test(int comparison, double value, double threshold) {
+        switch (comparison) {
+        case EQ:
+            return value == threshold;
+        case LE:
+            return value <= threshold;
+        case GE:
+            return value >= threshold;
+        case LT:
+            return value < threshold;
+        default:
+            return value > threshold;
+        }
+    }
+}
@@ -111,30 +111,56 @@ public class DecisionTree {
     private static final Pattern outcomePattern = Pattern.compile("(\\w+) ([=<>]+) ([^\\s]+) : (\\w+) .*");
     private static final Pattern testPattern = Pattern.compile("(\\w+) ([=<>]+) ([^\\s]+)");
 
-    private static Predicate<DoubleFeatures> predicate(final String feature, final String comparison, final String value) {
-        return new Predicate<DoubleFeatures>() {
-            @Override
-            public boolean apply(DoubleFeatures features) {
-                if (comparison.equals("=")) {
-                    return features.get(feature) == Double.parseDouble(value);
-                }
-                else if (comparison.equals("<=")) {
-                    return features.get(feature) <= Double.parseDouble(value);
-                }
-                else if (comparison.equals(">=")) {
-                    return features.get(feature) >= Double.parseDouble(value);
-                }
-                else if (comparison.equals("<")) {
-                    return features.get(feature) < Double.parseDouble(value);
-                }
-                else if (comparison.equals(">")) {
-                    return features.get(feature) < Double.parseDouble(value);
-                }
-                else {
-                    throw new IllegalArgumentException("unknown comparison: " + comparison);
-                }
+    /**
+     * The test of a node of the tree, which compares the value of a feature
+     * against a constant.
+     */
+    public static class Comparison implements Predicate<DoubleFeatures> {
+        public final String feature;
+        public final String comparison;
+        public final double value;
+
+        public Comparison(String feature, String comparison, String value) {
+            if (!(comparison.equals("=") || comparison.equals("<=")
+                    || comparison.equals(">=") || comparison.equals("<")
+                    || comparison.equals(">"))) {
+                throw new IllegalArgumentException("unknown comparison: " + comparison);
+            }
+            this.feature = feature;
+            this.comparison = comparison;
+            this.value = Double.parseDouble(value);
+        }
+
+        /**
+         * @param featureValue
+         * @return whether the given value of the feature passes the test
+         */
+        public boolean test(double featureValue) {
+            if (comparison.equals("=")) {
+                return featureValue == value;
+            }
+            else if (comparison.equals("<=")) {
+                return featureValue <= value;
+            }
+            else if (comparison.equals(">=")) {
+                return featureValue >= value;
+            }
+            else if (comparison.equals("<")) {
+                return featureValue < value;
             }
-        };
+            else {
+                return featureValue > value;
+            }
+        }
+
+        @Override
+        public boolean apply(DoubleFeatures features) {
+            return test(features.get(feature));
+        }
+    }
+
+    private static Predicate<DoubleFeatures> predicate(String feature, String comparison, String value) {
+        return new Comparison(feature, comparison, value);
     }
 
     private static Tree fromLines(List<Line> lines) {
@@ -186,6 +212,21 @@ public class DecisionTree {
         }
     }
 
+    public Tree getRoot() {
+        return root;
+    }
+
+    /**
+     * Compiles the tree against the given feature order.
+     *
+     * @param featureNames
+     * @return the compiled tree
+     * @see CompiledDecisionTree
+     */
+    public CompiledDecisionTree compile(List<String> featureNames) {
+        return new CompiledDecisionTree(this, featureNames);
+    }
+
     public String classify(DoubleFeatures features) {
         Tree loc = root;
 
@@ -0,0 +1,56 @@
+package edu.washington.cs.knowitall.extractor.conf.classifier;
+
+import java.util.Arrays;
+
+/**
+ * The values of a fixed list of features of an instance, each computed the
+ * first time it is asked for. Subclasses compute the features of their
+ * current instance, and call {@link #clear()} whenever that instance changes,
+ * so a vector can be reused across instances without allocating.
+ *
+ * Instances are not thread-safe.
+ */
+public abstract class LazyFeatureVector {
+
+    private final double[] values;
+    private final boolean[] computed;
+
+    protected LazyFeatureVector(int numFeatures) {
+        this.values = new double[numFeatures];
+        this.computed = new boolean[numFeatures];
+    }
+
+    /**
+     * @return the number of features of the vector
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * @param feature
+     *            the index of a feature
+     * @return the value of the feature for the current instance
+     */
+    public double get(int feature) {
+        if (!computed[feature]) {
+            values[feature] = compute(feature);
+            computed[feature] = true;
+        }
+        return values[feature];
+    }
+
+    /**
+     * Forgets the computed values, to be called when the instance changes.
+     */
+    protected void clear() {
+        Arrays.fill(computed, false);
+    }
+
+    /**
+     * @param feature
+     *            the index of a feature
+     * @return the value of the feature for the current instance
+     */
+    protected abstract double compute(int feature);
+}
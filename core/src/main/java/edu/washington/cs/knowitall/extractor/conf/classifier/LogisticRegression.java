@@ -2,22 +2,53 @@ package edu.washington.cs.knowitall.extractor.conf.classifier;
 
 import java.io.FileNotFoundException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 
 import edu.washington.cs.knowitall.extractor.conf.featureset.FeatureSet;
 
+/***
+ * A logistic regression classifier over a feature set, with weights given by
+ * feature name.
+ *
+ * The weights are aligned to the feature indices when the classifier is
+ * built, so that scoring evaluates the weighted features by index and takes a
+ * dense dot product. Features without a weight are not evaluated.
+ * {@link #confidence(List)} scores many extractions together.
+ */
 public class LogisticRegression<E> {
     private final FeatureSet<E> featureSet;
     private final Map<String, Double> featureWeights;
     private final double intercept;
 
+    // the indices of the weighted features, in feature order, and their
+    // weights
+    private final int[] featureIndices;
+    private final double[] weights;
+
     public LogisticRegression(FeatureSet<E> featureSet,
             Map<String, Double> weights) {
         this.featureSet = featureSet;
         this.featureWeights = weights;
         this.intercept = featureWeights.get("intercept");
+
+        List<String> featureNames = featureSet.getFeatureNames();
+        List<Integer> indices = new ArrayList<Integer>();
+        for (int i = 0; i < featureNames.size(); i++) {
+            if (featureWeights.containsKey(featureNames.get(i))) {
+                indices.add(i);
+            }
+        }
+        this.featureIndices = new int[indices.size()];
+        this.weights = new double[indices.size()];
+        for (int j = 0; j < featureIndices.length; j++) {
+            featureIndices[j] = indices.get(j);
+            this.weights[j] = featureWeights.get(featureNames.get(indices
+                    .get(j)));
+        }
     }
 
     public LogisticRegression(FeatureSet<E> featureSet, InputStream input)
@@ -44,15 +75,42 @@ public class LogisticRegression<E> {
 
     public double confidence(E extraction) {
         double z = intercept;
-        for (String featureName : this.featureSet.getFeatureNames()) {
-            if (featureWeights.containsKey(featureName)) {
-                double weight = featureWeights.get(featureName);
-                double feature = featureSet.featurize(featureName, extraction);
+        for (int j = 0; j < featureIndices.length; j++) {
+            z += weights[j]
+                    * featureSet.featurize(featureIndices[j], extraction);
+        }
 
-                z += weight * feature;
+        return 1.0 / (1.0 + Math.exp(-z));
+    }
+
+    /**
+     * Scores the given extractions. All of them are featurized first, into
+     * one array allocated for the call, and then scored in a single pass over
+     * it.
+     *
+     * @param extractions
+     * @return the confidence of each extraction
+     */
+    public double[] confidence(List<? extends E> extractions) {
+        int n = extractions.size();
+        int m = weights.length;
+        double[] x = new double[n * m];
+        for (int e = 0; e < n; e++) {
+            E extraction = extractions.get(e);
+            for (int j = 0; j < m; j++) {
+                x[e * m + j] = featureSet.featurize(featureIndices[j],
+                        extraction);
             }
         }
 
-        return 1.0 / (1.0 + Math.exp(-z));
+        double[] confidences = new double[n];
+        for (int e = 0; e < n; e++) {
+            double z = intercept;
+            for (int j = 0; j < m; j++) {
+                z += weights[j] * x[e * m + j];
+            }
+            confidences[e] = 1.0 / (1.0 + Math.exp(-z));
+        }
+        return confidences;
     }
 }
@@ -13,6 +13,11 @@ import com.google.common.collect.ImmutableMap;
  * of type <code>T</code>. Each feature is represented as a
  * <code>Predicate<T></code> object, and has a String name.
  *
+ * The ith feature is the one with the ith name in sorted order. The
+ * predicates are also kept in an array in that order, so that an object can
+ * be featurized without looking features up by name, into a bitset that the
+ * caller can reuse (see {@link #featurizeToBits(Object, long[])}).
+ *
  * @author afader
  *
  * @param <T>
@@ -21,15 +26,23 @@ public class BooleanFeatureSet<T> extends FeatureSet<T> {
 
     private Map<String, Predicate<T>> features;
 
+    // the features in the order of their names
+    private final Predicate<T>[] predicates;
+
     /**
      * Constructs a new feature set from the given features.
      *
      * @param givenFeatures
      */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
     public BooleanFeatureSet(Map<String, Predicate<T>> givenFeatures) {
         super(ImmutableList.copyOf(givenFeatures.keySet()));
 
         features = ImmutableMap.copyOf(givenFeatures);
+        predicates = new Predicate[featureNames.size()];
+        for (int i = 0; i < predicates.length; i++) {
+            predicates[i] = features.get(featureNames.get(i));
+        }
     }
 
     /**
@@ -40,10 +53,8 @@ public class BooleanFeatureSet<T> extends FeatureSet<T> {
      */
     public SortedMap<String, Boolean> featurize(T object) {
         TreeMap<String, Boolean> values = new TreeMap<String, Boolean>();
-        for (int i = 0; i < this.getNumFeatures(); i++) {
-            String featureName = featureNames.get(i);
-            boolean featureValue = features.get(featureName).apply(object);
-            values.put(featureName, featureValue);
+        for (int i = 0; i < predicates.length; i++) {
+            values.put(featureNames.get(i), predicates[i].apply(object));
         }
         return values;
     }
@@ -57,16 +68,13 @@ public class BooleanFeatureSet<T> extends FeatureSet<T> {
      * @return
      */
     public double[] featurizeToDouble(T object) {
-        double[] values = new double[features.size()];
-        int i = 0;
-        for (String featureName : this.featureNames) {
-            if (features.get(featureName).apply(object)) {
+        double[] values = new double[predicates.length];
+        for (int i = 0; i < predicates.length; i++) {
+            if (predicates[i].apply(object)) {
                 values[i] = 1.0;
             } else {
                 values[i] = 0.0;
             }
-
-            i++;
         }
         return values;
     }
@@ -79,15 +87,64 @@ public class BooleanFeatureSet<T> extends FeatureSet<T> {
      * @return
      */
     public boolean[] featurizeToBool(T object) {
-        boolean[] values = new boolean[features.size()];
-        int i = 0;
-        for (String featureName : this.featureNames) {
-            values[i] = features.get(featureName).apply(object);
-            i++;
+        boolean[] values = new boolean[predicates.length];
+        for (int i = 0; i < predicates.length; i++) {
+            values[i] = predicates[i].apply(object);
         }
         return values;
     }
 
+    /**
+     * @return a new bitset large enough for the features of this set
+     */
+    public long[] newBitSet() {
+        return new long[(predicates.length + 63) >>> 6];
+    }
+
+    /**
+     * Writes the feature representation of object into a bitset, where bit
+     * <code>i % 64</code> of word <code>i / 64</code> is the value of the ith
+     * feature.
+     *
+     * @param object
+     * @param bits
+     *            a bitset from {@link #newBitSet()}, which is overwritten, or
+     *            null
+     * @return the given bitset, or a new one if it was null
+     */
+    public long[] featurizeToBits(T object, long[] bits) {
+        if (bits == null) {
+            bits = newBitSet();
+        }
+        for (int w = 0; w < bits.length; w++) {
+            bits[w] = 0L;
+        }
+        for (int i = 0; i < predicates.length; i++) {
+            if (predicates[i].apply(object)) {
+                bits[i >>> 6] |= 1L << i;
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * @param bits
+     *            a bitset written by {@link #featurizeToBits(Object, long[])}
+     * @param i
+     * @return the value of the ith feature
+     */
+    public static boolean getBit(long[] bits, int i) {
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * @param i
+     * @return the ith feature
+     */
+    public Predicate<T> getFeature(int i) {
+        return predicates[i];
+    }
+
     /**
      * Returns the features as an ImmutableList, sorted using the default String
      * comparator on the features' names.
@@ -102,6 +159,11 @@ public class BooleanFeatureSet<T> extends FeatureSet<T> {
     public double featurize(String featureName, T object) {
         return this.features.get(featureName).apply(object) == true ? 1.0 : 0.0;
     }
+
+    @Override
+    public double featurize(int featureIndex, T object) {
+        return this.predicates[featureIndex].apply(object) ? 1.0 : 0.0;
+    }
     
     public boolean featurizeToBool(String featureName, T object) {
         return this.features.get(featureName).apply(object);
@@ -1,12 +1,10 @@
 package edu.washington.cs.knowitall.extractor.conf.featureset;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
 
 import edu.washington.cs.knowitall.commonlib.Range;
-import edu.washington.cs.knowitall.nlp.ChunkedSentence;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedArgumentExtraction;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedBinaryExtraction;
 
@@ -18,25 +16,24 @@ import edu.washington.cs.knowitall.nlp.extraction.ChunkedBinaryExtraction;
  */
 public abstract class ChunkFeature extends ExtractionFeature {
 
-    private Set<String> chunkTags;
+    private BitSet chunkCodes;
 
     public ChunkFeature(String... givenTokens) {
         this(Arrays.asList(givenTokens));
     }
 
     public ChunkFeature(Collection<String> givenChunkTags) {
-        this.chunkTags = new HashSet<String>();
-        this.chunkTags.addAll(givenChunkTags);
+        this.chunkCodes = FeatureContext.getTagCodes(givenChunkTags);
     }
 
     @Override
     protected abstract Range rangeToExamine(ChunkedBinaryExtraction cbe);
 
     @Override
-    protected boolean testAtIndex(Integer index, ChunkedSentence sentence) {
+    protected boolean testAtIndex(int index, FeatureContext context) {
 
-        String tag = sentence.getChunkTag(index);
-        return chunkTags.contains(tag);
+        int code = context.getChunkCode(index);
+        return code != FeatureContext.NO_TAG && chunkCodes.get(code);
     }
 
     /**
@@ -7,6 +7,7 @@ import java.util.TreeMap;
 
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 /***
  * Represents a set of boolean feature functions that can be applied to objects
@@ -21,6 +22,9 @@ public class DoubleFeatureSet<T> extends FeatureSet<T> {
 
     private ImmutableList<Function<T, Double>> features;
 
+    // the index of each feature name
+    private ImmutableMap<String, Integer> featureIndices;
+
     /**
      * Constructs a new feature set from the given features.
      *
@@ -32,6 +36,12 @@ public class DoubleFeatureSet<T> extends FeatureSet<T> {
         TreeMap<String, Function<T, Double>> sortedFeatures = new TreeMap<String, Function<T, Double>>(
                 givenFeatures);
         features = ImmutableList.copyOf(sortedFeatures.values());
+
+        ImmutableMap.Builder<String, Integer> indices = ImmutableMap.builder();
+        for (int i = 0; i < featureNames.size(); i++) {
+            indices.put(featureNames.get(i), i);
+        }
+        featureIndices = indices.build();
     }
 
     /**
@@ -78,7 +88,16 @@ public class DoubleFeatureSet<T> extends FeatureSet<T> {
 
     @Override
     public double featurize(String featureName, T object) {
-        return this.features.get(this.featureNames.indexOf(featureName)).apply(
-                object);
+        Integer index = this.featureIndices.get(featureName);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown feature: "
+                    + featureName);
+        }
+        return this.features.get(index).apply(object);
+    }
+
+    @Override
+    public double featurize(int featureIndex, T object) {
+        return this.features.get(featureIndex).apply(object);
     }
 }
@@ -3,10 +3,8 @@ package edu.washington.cs.knowitall.extractor.conf.featureset;
 import com.google.common.base.Predicate;
 
 import edu.washington.cs.knowitall.commonlib.Range;
-import edu.washington.cs.knowitall.nlp.ChunkedSentence;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedBinaryExtraction;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
-import edu.washington.cs.knowitall.normalization.BasicFieldNormalizer;
 
 /**
  * A parent class for any feature that picks a particular range and applies a
@@ -14,34 +12,31 @@ import edu.washington.cs.knowitall.normalization.BasicFieldNormalizer;
  *
  * For example, the feature `return true if arg2 contains token "fish"` would be
  * implemented by having rangeToExamine() return arg2.getRange() and
- * testAtIndex() returning sentence.getToken(index).equalsIgnoreCase("fish");
+ * testAtIndex() returning context.getToken(index).equalsIgnoreCase("fish");
+ *
+ * The test reads the sentence through the {@link FeatureContext} of the
+ * extraction, which is shared by all the features.
  *
  * @author Rob
  */
 public abstract class ExtractionFeature implements
         Predicate<ChunkedBinaryExtraction> {
 
-    protected BasicFieldNormalizer stemmer;
-
-    protected ExtractionFeature() {
-
-        stemmer = new BasicFieldNormalizer();
-    }
-
     protected abstract Range rangeToExamine(ChunkedBinaryExtraction cbe);
 
     @Override
     public boolean apply(ChunkedBinaryExtraction cbe) {
 
-        ChunkedSentence sentence = cbe.getSentence();
-        for (Integer index : rangeToExamine(cbe)) {
+        FeatureContext context = FeatureContext.of(cbe);
+        Range range = rangeToExamine(cbe);
+        for (int index = range.getStart(); index < range.getEnd(); index++) {
 
             // bounds check
-            if (index < 0 || index > sentence.getLength()) {
+            if (index < 0 || index > context.getLength()) {
                 continue;
             }
 
-            if (testAtIndex(index, sentence)) {
+            if (testAtIndex(index, context)) {
 
                 return true;
             }
@@ -50,8 +45,7 @@ public abstract class ExtractionFeature implements
         return false;
     }
 
-    protected abstract boolean testAtIndex(Integer index,
-            ChunkedSentence sentence);
+    protected abstract boolean testAtIndex(int index, FeatureContext context);
 
     /**
      * Implements the following naive algorithm for locating the head verb
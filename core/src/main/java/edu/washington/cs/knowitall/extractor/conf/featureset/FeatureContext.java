@@ -0,0 +1,229 @@
+package edu.washington.cs.knowitall.extractor.conf.featureset;
+
+import java.util.BitSet;
+import java.util.Collection;
+
+import edu.washington.cs.knowitall.nlp.ChunkedSentence;
+import edu.washington.cs.knowitall.nlp.extraction.ChunkedBinaryExtraction;
+import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
+import edu.washington.cs.knowitall.normalization.Stemmer;
+import edu.washington.cs.knowitall.sequence.SymbolTable;
+
+/**
+ * The facts about an extraction that the confidence features share: the
+ * tokens of its sentence, lower cased and stemmed, their POS and chunk tags as
+ * {@link SymbolTable} codes, and the bounds of arg1, the relation and arg2.
+ * The tags neighboring a part of the extraction are read at
+ * <code>getStart(part) - 1</code> and <code>getEnd(part)</code>.
+ *
+ * A feature gets the context of an extraction with {@link #of}, which builds
+ * it once and hands the same instance to every feature evaluated on the
+ * extraction by the same thread. Consecutive extractions of the same sentence
+ * share the sentence arrays, and each token is stemmed at most once.
+ */
+public final class FeatureContext {
+
+    /** The parts of a binary extraction */
+    public enum Part {
+        ARG1, REL, ARG2
+    }
+
+    /** The code of a missing tag */
+    public static final int NO_TAG = -1;
+
+    private static final ThreadLocal<FeatureContext> lastContext = new ThreadLocal<FeatureContext>();
+
+    private final ChunkedBinaryExtraction extraction;
+    private final ChunkedSentence sentence;
+    private final int length;
+
+    // sentence arrays, shared with the previous context of the same sentence
+    private final String[] tokens;
+    private final String[] lowerTokens;
+    private final String[] posTags;
+    private final int[] posCodes;
+    private final int[] chunkCodes;
+    private final String[] stems;
+
+    private final int[] starts = new int[3];
+    private final int[] ends = new int[3];
+    private final int relationHeadVerb;
+
+    private FeatureContext(ChunkedBinaryExtraction extr, FeatureContext last) {
+        this.extraction = extr;
+        this.sentence = extr.getSentence();
+        this.length = sentence.getLength();
+
+        if (last != null && last.sentence == sentence) {
+            tokens = last.tokens;
+            lowerTokens = last.lowerTokens;
+            posTags = last.posTags;
+            posCodes = last.posCodes;
+            chunkCodes = last.chunkCodes;
+            stems = last.stems;
+        } else {
+            tokens = sentence.getTokens().toArray(new String[length]);
+            posTags = sentence.getPosTags().toArray(new String[length]);
+            posCodes = getLayerCodes(ChunkedSentence.POS_LAYER);
+            chunkCodes = getLayerCodes(ChunkedSentence.NP_LAYER);
+            lowerTokens = new String[length];
+            stems = new String[length];
+            for (int i = 0; i < length; i++) {
+                lowerTokens[i] = tokens[i].toLowerCase();
+            }
+        }
+
+        setBounds(Part.ARG1, extr.getArgument1());
+        setBounds(Part.REL, extr.getRelation());
+        setBounds(Part.ARG2, extr.getArgument2());
+
+        int head = -1;
+        for (int i = getEnd(Part.REL) - 1; i >= getStart(Part.REL); i--) {
+            if (posTags[i].startsWith("V") || posTags[i].equals("MD")) {
+                head = i;
+                break;
+            }
+        }
+        this.relationHeadVerb = head;
+    }
+
+    /**
+     * @return the codes of the given layer of the sentence, which are shared
+     *         with the sentence and must not be modified
+     */
+    private int[] getLayerCodes(String layerName) {
+        int[] codes = sentence.getLayerCodes(layerName);
+        if (codes == null) {
+            codes = SymbolTable.intern(sentence.getLayer(layerName));
+        }
+        return codes;
+    }
+
+    private void setBounds(Part part, ChunkedExtraction extr) {
+        starts[part.ordinal()] = extr.getStart();
+        ends[part.ordinal()] = extr.getStart() + extr.getLength();
+    }
+
+    /**
+     * Returns the context of the given extraction, which is reused for as
+     * long as the calling thread asks for the same extraction.
+     *
+     * @param extr
+     * @return the context of the extraction
+     */
+    public static FeatureContext of(ChunkedBinaryExtraction extr) {
+        FeatureContext last = lastContext.get();
+        if (last != null && last.extraction == extr) {
+            return last;
+        }
+        FeatureContext context = new FeatureContext(extr, last);
+        lastContext.set(context);
+        return context;
+    }
+
+    /**
+     * @param tags
+     * @return the set of the {@link SymbolTable} codes of the given tags,
+     *         ignoring null tags
+     */
+    public static BitSet getTagCodes(Collection<String> tags) {
+        BitSet codes = new BitSet();
+        for (String tag : tags) {
+            if (tag != null) {
+                codes.set(SymbolTable.intern(tag));
+            }
+        }
+        return codes;
+    }
+
+    public ChunkedBinaryExtraction getExtraction() {
+        return extraction;
+    }
+
+    public ChunkedSentence getSentence() {
+        return sentence;
+    }
+
+    /**
+     * @return the number of tokens in the sentence
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @param part
+     * @return the index of the first token of the part
+     */
+    public int getStart(Part part) {
+        return starts[part.ordinal()];
+    }
+
+    /**
+     * @param part
+     * @return the index after the last token of the part
+     */
+    public int getEnd(Part part) {
+        return ends[part.ordinal()];
+    }
+
+    /**
+     * @return the index of the head verb of the relation, as found by
+     *         {@link ExtractionFeature#indexOfHeadVerb}, or -1 if it has none
+     */
+    public int getRelationHeadVerb() {
+        return relationHeadVerb;
+    }
+
+    public String getToken(int i) {
+        return tokens[i];
+    }
+
+    public String getLowerToken(int i) {
+        return lowerTokens[i];
+    }
+
+    public String getPosTag(int i) {
+        return posTags[i];
+    }
+
+    /**
+     * @param i
+     * @return the code of the POS tag at index i, or {@link #NO_TAG} if i is
+     *         outside the sentence
+     */
+    public int getPosCode(int i) {
+        return i < 0 || i >= length ? NO_TAG : posCodes[i];
+    }
+
+    /**
+     * @param i
+     * @return the code of the chunk tag at index i, or {@link #NO_TAG} if i is
+     *         outside the sentence
+     */
+    public int getChunkCode(int i) {
+        return i < 0 || i >= length ? NO_TAG : chunkCodes[i];
+    }
+
+    /**
+     * @param i
+     * @return true if the stem of the token at index i has been computed
+     */
+    boolean hasStem(int i) {
+        return stems[i] != null;
+    }
+
+    /**
+     * @param i
+     * @return the lower cased stem of the token at index i
+     */
+    public String getStem(int i) {
+        String stem = stems[i];
+        if (stem == null) {
+            stem = Stemmer.getDefault().stem(tokens[i], posTags[i])
+                    .toLowerCase();
+            stems[i] = stem;
+        }
+        return stem;
+    }
+}
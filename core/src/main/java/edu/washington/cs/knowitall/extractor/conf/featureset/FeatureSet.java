@@ -17,6 +17,19 @@ public abstract class FeatureSet<T> {
 
     public abstract double featurize(String featureName, T object);
 
+    /**
+     * Returns the value of the ith feature, in the order of
+     * {@link #getFeatureNames()}, for the given object. Subclasses that can
+     * address their features by index should override this method.
+     *
+     * @param featureIndex
+     * @param object
+     * @return the value of the feature
+     */
+    public double featurize(int featureIndex, T object) {
+        return this.featurize(this.featureNames.get(featureIndex), object);
+    }
+
     public double[] featurizeToDouble(T object) {
         double[] values = new double[this.featureNames.size()];
 
@@ -1,12 +1,10 @@
 package edu.washington.cs.knowitall.extractor.conf.featureset;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
 
 import edu.washington.cs.knowitall.commonlib.Range;
-import edu.washington.cs.knowitall.nlp.ChunkedSentence;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedArgumentExtraction;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedBinaryExtraction;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
@@ -21,7 +19,7 @@ public abstract class PosFeature extends ExtractionFeature {
     public static final String[] allVerbPosTags = new String[] { "VB", "VBD",
             "VBG", "VBN", "VBP", "VBZ" };
 
-    private Set<String> posTags;
+    private BitSet posCodes;
 
     public PosFeature(String... posTags) {
 
@@ -30,15 +28,14 @@ public abstract class PosFeature extends ExtractionFeature {
 
     public PosFeature(Collection<String> posTags) {
 
-        this.posTags = new HashSet<String>();
-        this.posTags.addAll(posTags);
+        this.posCodes = FeatureContext.getTagCodes(posTags);
     }
 
     @Override
-    protected boolean testAtIndex(Integer index, ChunkedSentence sentence) {
+    protected boolean testAtIndex(int index, FeatureContext context) {
 
-        String posTag = sentence.getPosTag(index);
-        return posTags.contains(posTag);
+        int code = context.getPosCode(index);
+        return code != FeatureContext.NO_TAG && posCodes.get(code);
     }
 
     /**
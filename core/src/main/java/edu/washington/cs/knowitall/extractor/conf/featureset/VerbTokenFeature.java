@@ -6,7 +6,6 @@ import java.util.HashSet;
 import java.util.Set;
 
 import edu.washington.cs.knowitall.commonlib.Range;
-import edu.washington.cs.knowitall.nlp.ChunkedSentence;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedArgumentExtraction;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedBinaryExtraction;
 
@@ -34,15 +33,12 @@ public abstract class VerbTokenFeature extends ExtractionFeature {
     protected abstract Range rangeToExamine(ChunkedBinaryExtraction cbe);
 
     @Override
-    protected boolean testAtIndex(Integer index, ChunkedSentence sentence) {
+    protected boolean testAtIndex(int index, FeatureContext context) {
 
-        String pos = sentence.getPosTag(index);
+        String pos = context.getPosTag(index);
         if (!pos.startsWith("V") && !pos.startsWith("MD"))
             return false;
-        String token = sentence.getToken(index);
-        token = stemmer.stemSingleToken(token, sentence.getPosTag(index));
-        token = token.toLowerCase();
-        return tokens.contains(token);
+        return tokens.contains(context.getStem(index));
     }
 
     public static VerbTokenFeature withinArg2(String... tokens) {
@@ -85,8 +81,8 @@ public abstract class VerbTokenFeature extends ExtractionFeature {
         return new VerbTokenFeature(tokens) {
             @Override
             protected Range rangeToExamine(ChunkedBinaryExtraction cbe) {
-                Integer index = indexOfHeadVerb(cbe.getRelation(), false);
-                if (index == null)
+                int index = FeatureContext.of(cbe).getRelationHeadVerb();
+                if (index < 0)
                     return Range.EMPTY;
                 else
                     return Range.fromInterval(index, index + 1);
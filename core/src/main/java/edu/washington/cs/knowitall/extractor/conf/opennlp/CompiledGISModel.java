@@ -0,0 +1,145 @@
+package edu.washington.cs.knowitall.extractor.conf.opennlp;
+
+import java.util.List;
+
+import opennlp.maxent.GISModel;
+import opennlp.model.Context;
+import opennlp.model.IndexHashTable;
+
+/***
+ * A GIS model compiled against a fixed list of boolean features, so that an
+ * instance can be scored from the values of its features without building the
+ * <code>featureName=value</code> context strings and looking them up in the
+ * model.
+ *
+ * The context of each feature value and the index of the outcome of interest
+ * are resolved once, when the model is compiled. Scoring then sums the
+ * parameters of the active contexts into a primitive array, in the same order
+ * and with the same arithmetic as <code>GISModel.eval</code>, so the result is
+ * the same probability. The model is assumed to use a uniform prior, which is
+ * what the GIS model readers create.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+public class CompiledGISModel {
+
+    private final int numFeatures;
+    private final int numOutcomes;
+    private final int outcome;
+
+    private final double logPrior;
+    private final double correctionConstant;
+    private final double correctionParam;
+    private final double constantInverse;
+
+    // outcomes and parameters of the context of each feature value, at
+    // 2 * feature + (value ? 1 : 0), or null if the model does not know it
+    private final int[][] outcomes;
+    private final double[][] parameters;
+
+    /**
+     * Compiles the given model.
+     *
+     * @param model
+     * @param featureNames
+     *            the names of the features, in the order of the bits given to
+     *            {@link #eval(long[])}
+     * @param outcome
+     *            the outcome whose probability is returned by
+     *            {@link #eval(long[])}
+     * @throws IllegalArgumentException
+     *             if the model has no such outcome
+     */
+    @SuppressWarnings("unchecked")
+    public CompiledGISModel(GISModel model, List<String> featureNames,
+            String outcome) {
+        Object[] data = model.getDataStructures();
+        Context[] params = (Context[]) data[0];
+        IndexHashTable<String> pmap = (IndexHashTable<String>) data[1];
+
+        this.numFeatures = featureNames.size();
+        this.numOutcomes = model.getNumOutcomes();
+        this.outcome = indexOf(model, outcome);
+
+        this.logPrior = Math.log(1.0 / numOutcomes);
+        this.correctionConstant = ((Integer) data[3]).intValue();
+        this.correctionParam = ((Double) data[4]).doubleValue();
+        this.constantInverse = 1.0 / correctionConstant;
+
+        this.outcomes = new int[2 * numFeatures][];
+        this.parameters = new double[2 * numFeatures][];
+        for (int i = 0; i < numFeatures; i++) {
+            String name = featureNames.get(i);
+            resolve(params, pmap.get(name + "=false"), 2 * i);
+            resolve(params, pmap.get(name + "=true"), 2 * i + 1);
+        }
+    }
+
+    private static int indexOf(GISModel model, String outcome) {
+        for (int i = 0; i < model.getNumOutcomes(); i++) {
+            if (model.getOutcome(i).equals(outcome)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown outcome: " + outcome);
+    }
+
+    private void resolve(Context[] params, int context, int slot) {
+        if (context >= 0) {
+            outcomes[slot] = params[context].getOutcomes();
+            parameters[slot] = params[context].getParameters();
+        }
+    }
+
+    /**
+     * @return the number of features of the model
+     */
+    public int getNumFeatures() {
+        return numFeatures;
+    }
+
+    /**
+     * Returns the probability of the outcome of interest for an instance.
+     *
+     * @param values
+     *            the feature values of the instance, as a bitset where bit
+     *            <code>i</code> of word <code>i / 64</code> is the value of
+     *            the <code>i</code>th feature
+     * @return the probability of the outcome
+     */
+    public double eval(long[] values) {
+        double[] sums = new double[numOutcomes];
+        int[] numFeats = new int[numOutcomes];
+        for (int oid = 0; oid < numOutcomes; oid++) {
+            sums[oid] = logPrior;
+        }
+
+        for (int i = 0; i < numFeatures; i++) {
+            boolean value = (values[i >>> 6] & (1L << i)) != 0;
+            int slot = value ? 2 * i + 1 : 2 * i;
+            int[] activeOutcomes = outcomes[slot];
+            if (activeOutcomes == null) {
+                continue;
+            }
+            double[] activeParameters = parameters[slot];
+            for (int j = 0; j < activeOutcomes.length; j++) {
+                int oid = activeOutcomes[j];
+                numFeats[oid]++;
+                sums[oid] += activeParameters[j] * 1.0;
+            }
+        }
+
+        double normal = 0.0;
+        for (int oid = 0; oid < numOutcomes; oid++) {
+            if (correctionParam != 0) {
+                sums[oid] = Math.exp(sums[oid] * constantInverse
+                        + ((1.0 - numFeats[oid] / correctionConstant)
+                        * correctionParam));
+            } else {
+                sums[oid] = Math.exp(sums[oid] * constantInverse);
+            }
+            normal += sums[oid];
+        }
+        return sums[outcome] / normal;
+    }
+}
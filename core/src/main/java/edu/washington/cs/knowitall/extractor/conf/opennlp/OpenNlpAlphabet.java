@@ -21,6 +21,9 @@ import edu.washington.cs.knowitall.extractor.conf.featureset.BooleanFeatureSet;
 public class OpenNlpAlphabet<T> {
     public final ImmutableMap<Key, String> lookup;
 
+    // the strings of the ith feature at 2 * i (false) and 2 * i + 1 (true)
+    private final String[] strings;
+
     public static class Key {
         public final String featureName;
         public final boolean value;
@@ -49,12 +52,43 @@ public class OpenNlpAlphabet<T> {
 
     public OpenNlpAlphabet(BooleanFeatureSet<T> features) {
         Map<Key, String> lookup = new HashMap<Key, String>();
+        this.strings = new String[2 * features.getNumFeatures()];
 
+        int i = 0;
         for (String featureName : features.getFeatureNames()) {
-            lookup.put(new Key(featureName, true), featureName + "=true");
-            lookup.put(new Key(featureName, false), featureName + "=false");
+            String falseString = featureName + "=false";
+            String trueString = featureName + "=true";
+            lookup.put(new Key(featureName, true), trueString);
+            lookup.put(new Key(featureName, false), falseString);
+            strings[2 * i] = falseString;
+            strings[2 * i + 1] = trueString;
+            i++;
         }
 
         this.lookup = ImmutableMap.copyOf(lookup);
     }
+
+    /**
+     * @param feature
+     *            the index of a feature in the feature set
+     * @param value
+     * @return the string of the feature with the given value
+     */
+    public String get(int feature, boolean value) {
+        return strings[value ? 2 * feature + 1 : 2 * feature];
+    }
+
+    /**
+     * @param bits
+     *            the feature values of an instance, as written by
+     *            {@link BooleanFeatureSet#featurizeToBits}
+     * @return the strings of the features with their values
+     */
+    public String[] toStrings(long[] bits) {
+        String[] stringFeatures = new String[strings.length / 2];
+        for (int i = 0; i < stringFeatures.length; i++) {
+            stringFeatures[i] = get(i, BooleanFeatureSet.getBit(bits, i));
+        }
+        return stringFeatures;
+    }
 }
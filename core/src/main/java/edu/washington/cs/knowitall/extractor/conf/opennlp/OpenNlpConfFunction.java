@@ -30,10 +30,23 @@ public class OpenNlpConfFunction<E> {
      */
     private OpenNlpAlphabet<E> alphabet;
 
+    // the model resolved against the feature set, used for scoring
+    private CompiledGISModel compiledModel;
+
+    // the feature values of the extraction being scored by each thread
+    private final ThreadLocal<long[]> bits = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return featureSet.newBitSet();
+        }
+    };
+
     public OpenNlpConfFunction(GISModel model, BooleanFeatureSet<E> featureSet) throws IOException {
         this.model = model;
         this.featureSet = featureSet;
         this.alphabet = new OpenNlpAlphabet<E>(this.featureSet);
+        this.compiledModel = new CompiledGISModel(model,
+                featureSet.getFeatureNames(), "1");
     }
 
     /**
@@ -42,16 +55,8 @@ public class OpenNlpConfFunction<E> {
      * @return a featurized representation
      */
     public String[] featurize(E extr) {
-        String[] stringFeatures = new String[this.featureSet.getNumFeatures()];
-
-        int i = 0;
-        for (String feature : this.featureSet.getFeatureNames()) {
-            boolean value = this.featureSet.featurizeToBool(feature, extr);
-            stringFeatures[i++] = this.alphabet.lookup
-                    .get(new OpenNlpAlphabet.Key(feature, value));
-        }
-
-        return stringFeatures;
+        return this.alphabet.toStrings(this.featureSet.featurizeToBits(extr,
+                this.bits.get()));
     }
 
     /**
@@ -63,11 +68,7 @@ public class OpenNlpConfFunction<E> {
      */
     public double getConf(E extr)
             throws ConfidenceFunctionException {
-        int i = 0;
-        while (!this.model.getOutcome(i).equals("1")) {
-            i++;
-        }
-
-        return this.model.eval(this.featurize(extr))[i];
+        return this.compiledModel.eval(this.featureSet.featurizeToBits(extr,
+                this.bits.get()));
     }
 }
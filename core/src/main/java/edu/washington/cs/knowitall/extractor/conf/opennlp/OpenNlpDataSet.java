@@ -26,6 +26,9 @@ public class OpenNlpDataSet<T> {
     private final List<Event> instances;
     private final OpenNlpAlphabet<T> alphabet;
 
+    // the feature values of the instance being added
+    private final long[] bits;
+
     /**
      * Constructs a new data set
      *
@@ -39,6 +42,7 @@ public class OpenNlpDataSet<T> {
         this.features = featureSet;
         this.instances = new ArrayList<Event>();
         this.alphabet = new OpenNlpAlphabet<T>(featureSet);
+        this.bits = featureSet.newBitSet();
     }
 
     /**
@@ -49,14 +53,8 @@ public class OpenNlpDataSet<T> {
      * @param label
      */
     public void addInstance(T instance, int label) {
-        String[] stringFeatures = new String[features.getNumFeatures()];
-
-        int i = 0;
-        for (String feature : features.getFeatureNames()) {
-            boolean value = features.featurizeToBool(feature, instance);
-            stringFeatures[i++] = this.alphabet.lookup
-                    .get(new OpenNlpAlphabet.Key(feature, value));
-        }
+        String[] stringFeatures = this.alphabet.toStrings(features
+                .featurizeToBits(instance, this.bits));
 
         Event event = new Event(Integer.toString(label), stringFeatures);
         this.instances.add(event);
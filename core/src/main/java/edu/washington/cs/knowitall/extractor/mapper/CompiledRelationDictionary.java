@@ -0,0 +1,534 @@
+package edu.washington.cs.knowitall.extractor.mapper;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/***
+ * A read-only dictionary from normalized relation strings to their number of
+ * distinct arg2s in a large corpus, the data behind
+ * {@link ReVerbRelationDictionaryFilter}. The dictionary is compiled from the
+ * tab-delimited (#arg2s, relation) format into a file that is used without
+ * parsing: a minimal perfect hash function maps each relation to a slot, and
+ * each slot holds a 64-bit fingerprint of its relation and its frequency. Any
+ * minimum frequency can then be applied at query time. The file is memory
+ * mapped when it is on the file system, and copied once to memory outside of
+ * the Java heap when it is in a jar.
+ * <p>
+ * The perfect hash function is built by hashing and displacing: the relations
+ * are spread over buckets of about four relations, and each bucket stores the
+ * displacement that moves its relations to free slots. Looking up a relation
+ * hashes it once and reads one displacement, one fingerprint and one
+ * frequency. Strings that are not in the dictionary are rejected by the
+ * fingerprint, with a false positive rate of 2<sup>-64</sup> per lookup.
+ * </p>
+ * <p>
+ * The build compiles <code>freq_rel.txt.gz</code> to <code>freq_rel.mph</code>
+ * by calling {@link #main(String[])}. {@link #getDefault()} loads that file
+ * from the classpath, or from the file named by the system property
+ * <code>reverb.relationDictionary</code>, and compiles the text dictionary in
+ * memory if neither is available. Instances are thread-safe.
+ * </p>
+ */
+public class CompiledRelationDictionary {
+
+    /** System property naming a compiled dictionary file to use */
+    public static final String FILE_PROPERTY = "reverb.relationDictionary";
+
+    /** Name of the compiled dictionary on the classpath */
+    public static final String COMPILED_RESOURCE = "freq_rel.mph";
+
+    /** Name of the text dictionary on the classpath */
+    public static final String TEXT_RESOURCE = "freq_rel.txt.gz";
+
+    private static final int MAGIC = 0x52444943; // "RDIC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 5 * 4;
+
+    // Average number of relations per bucket
+    private static final int BUCKET_SIZE = 4;
+
+    // Number of values of d0 tried for a bucket before starting over with
+    // another seed
+    private static final int MAX_D0 = 256;
+
+    // Number of seeds tried before giving up. With distinct relations, a seed
+    // fails with a small probability, so this is only reached on a bug.
+    private static final int MAX_SEEDS = 1000;
+
+    private static final long SEED_1 = 0x9e3779b97f4a7c15L;
+    private static final long SEED_2 = 0xc2b2ae3d27d4eb4fL;
+    private static final long SEED_3 = 0x165667b19e3779f9L;
+
+    private static CompiledRelationDictionary defaultDictionary;
+
+    private final ByteBuffer data;
+    private final int seed;
+    private final int size;
+    private final int numBuckets;
+    private final int bucketsOffset;
+    private final int fingerprintsOffset;
+    private final int frequenciesOffset;
+
+    /**
+     * Wraps the given compiled dictionary, as written by
+     * {@link #compile(InputStream, OutputStream)}.
+     *
+     * @param data
+     * @throws IOException
+     *             if data is not a compiled dictionary
+     */
+    public CompiledRelationDictionary(ByteBuffer data) throws IOException {
+        this.data = data.duplicate();
+        if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new IOException("Not a compiled relation dictionary");
+        }
+        if (data.getInt(4) != VERSION) {
+            throw new IOException(
+                    "Unsupported compiled relation dictionary version "
+                            + data.getInt(4));
+        }
+        seed = data.getInt(8);
+        size = data.getInt(12);
+        numBuckets = data.getInt(16);
+        bucketsOffset = HEADER_SIZE;
+        fingerprintsOffset = bucketsOffset + 4 * numBuckets;
+        frequenciesOffset = fingerprintsOffset + 8 * size;
+        if (data.capacity() != frequenciesOffset + 4 * size) {
+            throw new IOException("Truncated compiled relation dictionary");
+        }
+    }
+
+    /**
+     * @return the dictionary shared by all filters in this JVM, loaded on
+     *         first use.
+     * @throws IOException
+     *             if unable to load the dictionary
+     */
+    public static synchronized CompiledRelationDictionary getDefault()
+            throws IOException {
+        if (defaultDictionary == null) {
+            defaultDictionary = loadDefault();
+        }
+        return defaultDictionary;
+    }
+
+    private static CompiledRelationDictionary loadDefault() throws IOException {
+        String fileName = System.getProperty(FILE_PROPERTY);
+        if (fileName != null) {
+            return map(new File(fileName));
+        }
+        URL url = CompiledRelationDictionary.class.getClassLoader()
+                .getResource(COMPILED_RESOURCE);
+        if (url != null && url.getProtocol().equals("file")) {
+            try {
+                return map(new File(url.toURI()));
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        } else if (url != null) {
+            InputStream in = url.openStream();
+            try {
+                return read(in);
+            } finally {
+                in.close();
+            }
+        }
+        InputStream in = CompiledRelationDictionary.class.getClassLoader()
+                .getResourceAsStream(TEXT_RESOURCE);
+        if (in == null) {
+            throw new IOException("Could not load file " + TEXT_RESOURCE
+                    + " from classpath.");
+        }
+        try {
+            return compile(new GZIPInputStream(in));
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Memory maps the given compiled dictionary file.
+     *
+     * @param file
+     * @return the dictionary
+     * @throws IOException
+     */
+    public static CompiledRelationDictionary map(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            return new CompiledRelationDictionary(channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Reads a compiled dictionary from the given stream into memory outside of
+     * the Java heap.
+     *
+     * @param in
+     * @return the dictionary
+     * @throws IOException
+     */
+    public static CompiledRelationDictionary read(InputStream in)
+            throws IOException {
+        byte[] chunk = new byte[1 << 16];
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        int n;
+        while ((n = in.read(chunk)) > 0) {
+            if (buffer.remaining() < n) {
+                ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(
+                        2 * buffer.capacity(), buffer.position() + n));
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+            buffer.put(chunk, 0, n);
+        }
+        buffer.flip();
+        ByteBuffer exact = ByteBuffer.allocateDirect(buffer.remaining());
+        exact.put(buffer);
+        exact.flip();
+        return new CompiledRelationDictionary(exact);
+    }
+
+    /**
+     * Compiles the given tab-delimited (#arg2s, relation) data into a
+     * dictionary in memory. A relation listed more than once keeps its
+     * highest frequency.
+     *
+     * @param in
+     * @return the dictionary
+     * @throws IOException
+     */
+    public static CompiledRelationDictionary compile(InputStream in)
+            throws IOException {
+        Builder builder = new Builder(in);
+        ByteBuffer data = ByteBuffer.allocateDirect(builder.getCompiledSize());
+        builder.write(data);
+        data.flip();
+        return new CompiledRelationDictionary(data);
+    }
+
+    /**
+     * Compiles the given tab-delimited (#arg2s, relation) data and writes the
+     * compiled dictionary to out.
+     *
+     * @param in
+     * @param out
+     * @throws IOException
+     */
+    public static void compile(InputStream in, OutputStream out)
+            throws IOException {
+        Builder builder = new Builder(in);
+        ByteBuffer data = ByteBuffer.allocate(builder.getCompiledSize());
+        builder.write(data);
+        out.write(data.array());
+    }
+
+    /**
+     * @return the number of relations in the dictionary
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param relation
+     *            a relation normalized with the
+     *            <code>VerbalRelationNormalizer</code> class
+     * @return the number of distinct arg2s of the relation, or 0 if it is not
+     *         in the dictionary
+     */
+    public int getFrequency(String relation) {
+        if (size == 0) {
+            return 0;
+        }
+        long h1 = hash(relation, SEED_1 + seed);
+        long h2 = hash(relation, SEED_2 + seed);
+        int bucket = bucket(h1, numBuckets);
+        int slot = slot(h2, data.getInt(bucketsOffset + 4 * bucket), size);
+        long fingerprint = hash(relation, SEED_3 + seed);
+        if (data.getLong(fingerprintsOffset + 8 * slot) != fingerprint) {
+            return 0;
+        }
+        return data.getInt(frequenciesOffset + 4 * slot);
+    }
+
+    /**
+     * @param relation
+     * @param minFreq
+     * @return <code>true</code> if the relation is in the dictionary with a
+     *         frequency of at least minFreq
+     */
+    public boolean contains(String relation, int minFreq) {
+        int freq = getFrequency(relation);
+        return freq > 0 && freq >= minFreq;
+    }
+
+    private static long hash(String s, long seed) {
+        // FNV-1a over the chars, followed by the MurmurHash3 finalizer
+        long h = seed ^ 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static int bucket(long h1, int numBuckets) {
+        return (int) ((h1 >>> 1) % numBuckets);
+    }
+
+    /**
+     * The slot of a relation is (f + d0 * g + d1) mod n, where f and g come
+     * from its second hash and the displacement d of its bucket is d0 * n +
+     * d1.
+     */
+    private static int slot(long h2, int displacement, int n) {
+        long f = (h2 >>> 32) % n;
+        long g = (h2 & 0xffffffffL) % n;
+        long d0 = (displacement & 0xffffffffL) / n;
+        long d1 = (displacement & 0xffffffffL) % n;
+        return (int) ((f + d0 * g + d1) % n);
+    }
+
+    /**
+     * Builds the perfect hash function and the slots of a dictionary.
+     */
+    private static class Builder {
+
+        private final List<String> relations = new ArrayList<String>();
+        private int[] freqs;
+        private int seed;
+        private int[] displacements;
+        private long[] fingerprints;
+        private int[] slotFreqs;
+
+        Builder(InputStream in) throws IOException {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    in, "UTF-8"));
+            List<Integer> freqList = new ArrayList<Integer>();
+            // Relations seen so far and their index, so that a relation listed
+            // twice gets one slot with its highest frequency
+            Map<String, Integer> indexes = new HashMap<String, Integer>();
+            Pattern delim = Pattern.compile("\t");
+            String line;
+            int lineNum = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNum++;
+                String[] fields = delim.split(line);
+                if (fields.length != 2) {
+                    System.err.println("Could not read line " + lineNum
+                            + ": '" + line + "'");
+                    continue;
+                }
+                int freq = Integer.parseInt(fields[0]);
+                Integer index = indexes.get(fields[1]);
+                if (index == null) {
+                    indexes.put(fields[1], relations.size());
+                    freqList.add(freq);
+                    relations.add(fields[1]);
+                } else if (freq > freqList.get(index)) {
+                    freqList.set(index, freq);
+                }
+            }
+            freqs = new int[freqList.size()];
+            for (int i = 0; i < freqs.length; i++) {
+                freqs[i] = freqList.get(i);
+            }
+            for (seed = 0; !build(); seed++) {
+                if (seed == MAX_SEEDS - 1) {
+                    throw new IllegalStateException(
+                            "Could not build a perfect hash function for "
+                                    + relations.size() + " relations after "
+                                    + MAX_SEEDS + " seeds");
+                }
+            }
+        }
+
+        private boolean build() throws IOException {
+            int n = relations.size();
+            int numBuckets = Math.max(1, (n + BUCKET_SIZE - 1) / BUCKET_SIZE);
+            long[] h2s = new long[n];
+            fingerprints = new long[n];
+            slotFreqs = new int[n];
+            displacements = new int[numBuckets];
+
+            // Sort the relations by bucket, largest buckets first
+            int[] bucketOf = new int[n];
+            int[] bucketSizes = new int[numBuckets];
+            for (int i = 0; i < n; i++) {
+                String relation = relations.get(i);
+                bucketOf[i] = bucket(hash(relation, SEED_1 + seed), numBuckets);
+                h2s[i] = hash(relation, SEED_2 + seed);
+                bucketSizes[bucketOf[i]]++;
+            }
+            int[] bucketStarts = new int[numBuckets + 1];
+            for (int b = 0; b < numBuckets; b++) {
+                bucketStarts[b + 1] = bucketStarts[b] + bucketSizes[b];
+            }
+            int[] members = new int[n];
+            int[] fill = Arrays.copyOf(bucketStarts, numBuckets);
+            for (int i = 0; i < n; i++) {
+                members[fill[bucketOf[i]]++] = i;
+            }
+            Integer[] order = new Integer[numBuckets];
+            for (int b = 0; b < numBuckets; b++) {
+                order[b] = b;
+            }
+            final int[] sizes = bucketSizes;
+            Arrays.sort(order, new Comparator<Integer>() {
+                public int compare(Integer a, Integer b) {
+                    return sizes[b] - sizes[a];
+                }
+            });
+
+            BitSet taken = new BitSet(n);
+            int nextFree = 0;
+            int[] slots = new int[BUCKET_SIZE * 16];
+            long maxDisplacement = Math.min(0xffffffffL, (long) n
+                    * (MAX_D0 + 1) - 1);
+            for (Integer b : order) {
+                int start = bucketStarts[b];
+                int k = bucketSizes[b];
+                if (k == 0) {
+                    break;
+                } else if (k > slots.length) {
+                    return false;
+                }
+                if (k == 1) {
+                    // Any free slot can be reached with d0 = 0
+                    nextFree = taken.nextClearBit(nextFree);
+                    long h2 = h2s[members[start]];
+                    long f = (h2 >>> 32) % n;
+                    int d1 = (int) ((nextFree - f + n) % n);
+                    displacements[b] = d1;
+                    place(members[start], nextFree, taken);
+                    continue;
+                }
+                boolean placed = false;
+                for (long d = n; d <= maxDisplacement && !placed; d++) {
+                    placed = true;
+                    for (int j = 0; j < k && placed; j++) {
+                        int slot = slot(h2s[members[start + j]], (int) d, n);
+                        if (taken.get(slot)) {
+                            placed = false;
+                        }
+                        for (int i = 0; i < j && placed; i++) {
+                            if (slots[i] == slot) {
+                                placed = false;
+                            }
+                        }
+                        slots[j] = slot;
+                    }
+                    if (placed) {
+                        displacements[b] = (int) d;
+                        for (int j = 0; j < k; j++) {
+                            place(members[start + j], slots[j], taken);
+                        }
+                    }
+                }
+                if (!placed) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void place(int relation, int slot, BitSet taken) {
+            taken.set(slot);
+            fingerprints[slot] = hash(relations.get(relation), SEED_3 + seed);
+            slotFreqs[slot] = freqs[relation];
+        }
+
+        int getCompiledSize() {
+            return HEADER_SIZE + 4 * displacements.length + 12
+                    * fingerprints.length;
+        }
+
+        void write(ByteBuffer out) {
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(seed);
+            out.putInt(fingerprints.length);
+            out.putInt(displacements.length);
+            for (int d : displacements) {
+                out.putInt(d);
+            }
+            for (long fingerprint : fingerprints) {
+                out.putLong(fingerprint);
+            }
+            for (int freq : slotFreqs) {
+                out.putInt(freq);
+            }
+        }
+    }
+
+    /**
+     * Compiles a dictionary file. Usage: <code>CompiledRelationDictionary
+     * OUTPUT [INPUT]</code>, where INPUT is a gzipped tab-delimited (#arg2s,
+     * relation) file, <code>freq_rel.txt.gz</code> from the classpath by
+     * default.
+     *
+     * @param args
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: CompiledRelationDictionary OUTPUT [INPUT]");
+            System.exit(1);
+        }
+        InputStream in;
+        if (args.length == 2) {
+            in = new FileInputStream(args[1]);
+        } else {
+            in = CompiledRelationDictionary.class.getClassLoader()
+                    .getResourceAsStream(TEXT_RESOURCE);
+            if (in == null) {
+                throw new IOException("Could not load file " + TEXT_RESOURCE
+                        + " from classpath.");
+            }
+        }
+        long start = System.currentTimeMillis();
+        File output = new File(args[0]);
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(
+                output));
+        try {
+            compile(new GZIPInputStream(in), out);
+        } finally {
+            out.close();
+            in.close();
+        }
+        System.err.println("Compiled relation dictionary to " + output
+                + " in " + (System.currentTimeMillis() - start) + " ms");
+    }
+}
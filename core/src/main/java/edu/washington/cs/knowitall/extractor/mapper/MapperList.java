@@ -1,11 +1,22 @@
 package edu.washington.cs.knowitall.extractor.mapper;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+
+import edu.washington.cs.knowitall.metrics.MetricsRegistry;
 
 /**
  * A list of <code>Mapper<T></code> objects. Applies each mapper in the list to an input
  * stream of <code>T</code> objects in order.
+ * <p>
+ * When the default {@link MetricsRegistry} is enabled, the output of each mapper
+ * is copied to a list so that the time spent in the mapper and the number of
+ * objects it removed can be recorded under the name of this list.
+ * </p>
  * @author afader
  *
  * @param <T>
@@ -13,6 +24,7 @@ import java.util.List;
 public class MapperList<T> extends Mapper<T> {
 
     private List<Mapper<T>> mappers;
+    private String name;
 
     /**
      * Constructs an empty list of mappers.
@@ -40,6 +52,23 @@ public class MapperList<T> extends Mapper<T> {
         return mappers;
     }
 
+    /**
+     * @return the name under which the mappers in this list are measured, or
+     *         <code>null</code> if it has not been set.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the name under which the mappers in this list are measured. A list
+     * without a name nested in another list uses the name of its parent.
+     * @param name
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
     /**
      * Adds a mapper to the end of the list. This mapper will be the last one
      * to be applied to the input stream of objects.
@@ -54,10 +83,52 @@ public class MapperList<T> extends Mapper<T> {
      * Applies each mapper in order to the input stream of objects.
      */
     protected Iterable<T> doMap(Iterable<T> objects) {
+        MetricsRegistry metrics = MetricsRegistry.getDefault();
+        if (metrics.isEnabled()) {
+            return mapMeasured(objects, name != null ? name : "mappers",
+                    metrics, new HashMap<String, Integer>());
+        }
         for (Mapper<T> mapper : this.mappers) {
             objects = mapper.map(objects);
         }
         return objects;
     }
 
+    /**
+     * Applies the mappers, recording each one under
+     * <code>mapper.listName.ClassName</code>. Mappers of the same class, e.g.
+     * anonymous filters added by a helper method, are told apart by their
+     * position: the second one is <code>ClassName#2</code>, and so on.
+     */
+    private List<T> mapMeasured(Iterable<T> objects, String listName,
+            MetricsRegistry metrics, Map<String, Integer> seen) {
+        List<T> current = Lists.newArrayList(objects);
+        for (Mapper<T> mapper : this.mappers) {
+            if (mapper instanceof MapperList && mapper.isEnabled()) {
+                MapperList<T> list = (MapperList<T>) mapper;
+                current = list.mapMeasured(current,
+                        list.name != null ? list.name : listName, metrics,
+                        seen);
+                continue;
+            }
+            String className = mapper.getClass().getName();
+            String key = "mapper." + listName + "."
+                    + className.substring(className.lastIndexOf('.') + 1);
+            Integer occurrences = seen.get(key);
+            int occurrence = occurrences == null ? 1 : occurrences + 1;
+            seen.put(key, occurrence);
+            if (occurrence > 1) {
+                key = key + "#" + occurrence;
+            }
+            long start = metrics.startTimer();
+            List<T> mapped = Lists.newArrayList(mapper.map(current));
+            metrics.stopTimer(key, start);
+            metrics.increment(key + ".in", current.size());
+            metrics.increment(key + ".removed",
+                    Math.max(0, current.size() - mapped.size()));
+            current = mapped;
+        }
+        return current;
+    }
+
 }
@@ -2,6 +2,11 @@ package edu.washington.cs.knowitall.extractor.mapper;
 
 import java.util.HashSet;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import edu.washington.cs.knowitall.metrics.MetricsRegistry;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
 import edu.washington.cs.knowitall.normalization.NormalizedField;
 import edu.washington.cs.knowitall.normalization.VerbalRelationNormalizer;
@@ -9,7 +14,17 @@ import edu.washington.cs.knowitall.normalization.VerbalRelationNormalizer;
 /***
  * A class used to filter out any relations whose normalized form does not
  * appear in the given dictionary. Relation strings are normalized using the
- * VerbalRelationNormalizer class.
+ * VerbalRelationNormalizer class. The dictionary is either a set of relations
+ * or a {@link CompiledRelationDictionary} with a minimum frequency.
+ * <p>
+ * Since the same relation phrases occur again and again, the normalized forms
+ * are kept in a bounded cache shared by all instances, keyed by the tokens and
+ * POS tags of the relation. Its size can be changed with
+ * {@link #setCacheSize(long)}, and its hit and miss counts are returned by
+ * {@link #getCacheStats()} and recorded in the default
+ * {@link MetricsRegistry} as <code>relation.normalize.cache.hit</code> and
+ * <code>relation.normalize.cache.miss</code>.
+ * </p>
  *
  * @author afader
  *
@@ -17,7 +32,16 @@ import edu.washington.cs.knowitall.normalization.VerbalRelationNormalizer;
 public class NormalizedRelationDictionaryFilter extends
         FilterMapper<ChunkedExtraction> {
 
+    /** Default maximum number of normalized relations in the cache */
+    public static final long DEFAULT_CACHE_SIZE = 100000;
+
+    private static final MetricsRegistry METRICS = MetricsRegistry.getDefault();
+
+    private static volatile Cache<String, String> normalizedRelations = newCache(DEFAULT_CACHE_SIZE);
+
     private HashSet<String> relations;
+    private CompiledRelationDictionary dictionary;
+    private int minFreq;
     private VerbalRelationNormalizer normalizer;
 
     /**
@@ -33,13 +57,92 @@ public class NormalizedRelationDictionaryFilter extends
         normalizer.stripBeAdj(true);
     }
 
+    /**
+     * Constructs a new filter that keeps the relations with a frequency of at
+     * least minFreq in the given dictionary.
+     *
+     * @param dictionary
+     * @param minFreq
+     */
+    public NormalizedRelationDictionaryFilter(
+            CompiledRelationDictionary dictionary, int minFreq) {
+        this.dictionary = dictionary;
+        this.minFreq = minFreq;
+        normalizer = new VerbalRelationNormalizer();
+        normalizer.stripBeAdj(true);
+    }
+
+    private static Cache<String, String> newCache(long size) {
+        if (size <= 0) {
+            return null;
+        }
+        return CacheBuilder.newBuilder().maximumSize(size).recordStats()
+                .build();
+    }
+
+    /**
+     * Replaces the cache of normalized relations by an empty one holding at
+     * most the given number of relations. A size of 0 disables the cache.
+     *
+     * @param size
+     */
+    public static void setCacheSize(long size) {
+        normalizedRelations = newCache(size);
+    }
+
+    /**
+     * @return the statistics of the cache of normalized relations, or
+     *         <code>null</code> if it is disabled.
+     */
+    public static CacheStats getCacheStats() {
+        Cache<String, String> cache = normalizedRelations;
+        return cache == null ? null : cache.stats();
+    }
+
     /**
      * Returns true if the tokens in the given extraction appear in the set of
      * relations passed to the constructor.
      */
     public boolean doFilter(ChunkedExtraction extr) {
-        NormalizedField normField = normalizer.normalizeField(extr);
-        return relations.contains(normField.toString());
+        String normalized = normalize(extr);
+        if (dictionary != null) {
+            return dictionary.contains(normalized, minFreq);
+        }
+        return relations.contains(normalized);
+    }
+
+    private String normalize(ChunkedExtraction extr) {
+        Cache<String, String> cache = normalizedRelations;
+        if (cache == null) {
+            return normalizer.normalizeField(extr).toString();
+        }
+        String key = cacheKey(extr);
+        String normalized = cache.getIfPresent(key);
+        if (normalized != null) {
+            METRICS.increment("relation.normalize.cache.hit", 1);
+        } else {
+            NormalizedField normField = normalizer.normalizeField(extr);
+            normalized = normField.toString();
+            cache.put(key, normalized);
+            METRICS.increment("relation.normalize.cache.miss", 1);
+        }
+        return normalized;
+    }
+
+    /**
+     * The tokens and POS tags of the extraction, each preceded by its length
+     * so that no two sequences have the same key.
+     */
+    private static String cacheKey(ChunkedExtraction extr) {
+        int n = extr.getLength();
+        StringBuilder key = new StringBuilder(n * 12);
+        for (int i = 0; i < n; i++) {
+            String token = extr.getToken(i);
+            String posTag = extr.getPosTag(i);
+            key.append(token.length()).append(' ').append(token);
+            key.append(posTag.length()).append(' ').append(posTag);
+        }
+        return key.toString();
     }
 
 }
@@ -6,9 +6,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.HashSet;
 import java.util.regex.Pattern;
-import java.util.zip.GZIPInputStream;
 
-import edu.washington.cs.knowitall.commonlib.ResourceUtils;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
 
 /***
@@ -17,9 +15,10 @@ import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
  * the tab-delimited format (#arg2s, relation). The relations should be
  * normalized using the <code>VerbalRelationNormalizer</code> class.
  *
- * By default, this class searches the classpath for a file called
- * <code>freq_rel.txt.gz</code> and reads the relations with at least 20
- * distinct arg2s from it.
+ * By default, this class uses the {@link CompiledRelationDictionary} shared by
+ * all filters in the JVM, which is compiled from the file
+ * <code>freq_rel.txt.gz</code> on the classpath, and keeps the relations with
+ * at least 20 distinct arg2s.
  *
  * @author afader
  *
@@ -27,7 +26,6 @@ import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
 public class ReVerbRelationDictionaryFilter extends
         FilterMapper<ChunkedExtraction> {
 
-    private static final String relationDictFile = "freq_rel.txt.gz";
     public static final int defaultMinFreq = 20;
     private NormalizedRelationDictionaryFilter filter;
 
@@ -49,8 +47,8 @@ public class ReVerbRelationDictionaryFilter extends
     }
 
     /**
-     * Constructs a new dictionary filter using the data in the file
-     * <code>freq_rel.txt.gz</code>, which is found on the classpath.
+     * Constructs a new dictionary filter using the default
+     * {@link CompiledRelationDictionary}.
      *
      * @param minFreq
      *            the minimum number of distinct arg2s a relation must have to
@@ -58,31 +56,19 @@ public class ReVerbRelationDictionaryFilter extends
      * @throws IOException
      */
     public ReVerbRelationDictionaryFilter(int minFreq) throws IOException {
-        init(getDefaultRelationStream(), minFreq);
+        filter = new NormalizedRelationDictionaryFilter(
+                CompiledRelationDictionary.getDefault(), minFreq);
     }
 
     /**
-     * Constructs a new dictionary filter using the data in the file
-     * <code>freq_rel.txt.gz</code>, and loads all relations with at least 20
-     * distinct arg2s.
+     * Constructs a new dictionary filter using the default
+     * {@link CompiledRelationDictionary}, keeping all relations with at least
+     * 20 distinct arg2s.
      *
      * @throws IOException
      */
     public ReVerbRelationDictionaryFilter() throws IOException {
-        init(getDefaultRelationStream(), defaultMinFreq);
-    }
-
-    private InputStream getDefaultRelationStream() throws IOException {
-        InputStream in = ResourceUtils.loadResource(relationDictFile,
-                ReVerbRelationDictionaryFilter.class);
-        // InputStream in =
-        // ReVerbRelationDictionaryFilter.class.getClassLoader().getResourceAsStream(relationDictFile);
-        if (in != null) {
-            return new GZIPInputStream(in);
-        } else {
-            throw new IOException("Could not load file " + relationDictFile
-                    + " from classpath.");
-        }
+        this(defaultMinFreq);
     }
 
     private void init(InputStream in, int minFreq) throws IOException {
@@ -24,6 +24,18 @@ public class BufferedReaderIterator extends AbstractIterator<String> {
         this.reader = new BufferedReader(reader);
     }
 
+    /**
+     * @return true if the underlying reader can be read without blocking.
+     */
+    public boolean ready() {
+        try {
+            return reader.ready();
+        } catch (IOException e) {
+            // reading will end the iteration rather than block
+            return true;
+        }
+    }
+
     @Override
     protected String computeNext() {
         try {
@@ -0,0 +1,261 @@
+package edu.washington.cs.knowitall.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.simple.JSONValue;
+
+/**
+ * A registry of named {@link LatencyHistogram}s and counters describing the
+ * stages of the extraction pipeline. The pipeline records into the registry
+ * returned by {@link #getDefault()}, which is disabled until
+ * {@link #setEnabled(boolean)} is called; while disabled, the timers cost one
+ * volatile read and nothing is recorded. The registry can be written out as
+ * JSON with {@link #toJson()} or in the Prometheus text format with
+ * {@link #toPrometheus()}, e.g. periodically with a {@link MetricsReporter}.
+ * <p>
+ * The names used by the pipeline are:
+ * </p>
+ * <ul>
+ * <li>{@code html.strip}, {@code sentence.split}, {@code chunker.tokenize},
+ * {@code chunker.pos} and {@code chunker.chunk}: HTML removal, sentence
+ * detection and chunking</li>
+ * <li>{@code relation.pattern.<id>}: matching one relation pattern, where the
+ * id is {@code short}, {@code long} or {@code fr01} for the ReVerb patterns
+ * and a hash of the pattern otherwise; {@code relation.patterns}: matching
+ * several at once in a {@code MultiRegexExtractor}, which also samples the
+ * time of each of its patterns</li>
+ * <li>{@code mapper.<list>.<class>}: applying one mapper, where the list is
+ * {@code relation}, {@code arg1}, {@code arg2} or {@code binary}. The counters
+ * {@code mapper.<list>.<class>.in} and {@code mapper.<list>.<class>.removed}
+ * count the objects given to the mapper and the ones it dropped.</li>
+ * <li>{@code argument.arg1} and {@code argument.arg2}: extracting the
+ * arguments of one relation, including their mappers</li>
+ * <li>{@code conf} and {@code normalize}: scoring and normalizing one
+ * extraction</li>
+ * <li>the counters {@code sentences} and {@code extractions}</li>
+ * <li>the counters {@code relation.normalize.cache.hit} and
+ * {@code relation.normalize.cache.miss} of the cache in
+ * {@code NormalizedRelationDictionaryFilter}</li>
+ * </ul>
+ */
+public class MetricsRegistry {
+
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    /** Returned by {@link #startTimer()} when the registry is disabled */
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<String, LatencyHistogram>();
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
+    private volatile boolean enabled = false;
+
+    /**
+     * @return the registry that the extraction pipeline records into
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return <code>true</code> if values are being recorded
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts or stops recording values.
+     * 
+     * @param enabled
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @param name
+     * @return the histogram with the given name, which is created if needed
+     */
+    public LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram(name);
+            histogram = histograms.putIfAbsent(name, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * @param name
+     * @return the counter with the given name, which is created if needed
+     */
+    public AtomicLong counter(String name) {
+        AtomicLong counter = counters.get(name);
+        if (counter == null) {
+            AtomicLong created = new AtomicLong();
+            counter = counters.putIfAbsent(name, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Adds to the counter with the given name if the registry is enabled.
+     * 
+     * @param name
+     * @param delta
+     */
+    public void increment(String name, long delta) {
+        if (enabled) {
+            counter(name).addAndGet(delta);
+        }
+    }
+
+    /**
+     * Starts timing an operation, to be finished with
+     * {@link #stopTimer(LatencyHistogram, long)}.
+     * 
+     * @return the start time
+     */
+    public long startTimer() {
+        return enabled ? System.nanoTime() : NOT_TIMED;
+    }
+
+    /**
+     * Records the time elapsed since the given start time, unless the
+     * registry was disabled when the timer was started.
+     * 
+     * @param histogram
+     * @param start
+     *            as returned by {@link #startTimer()}
+     */
+    public void stopTimer(LatencyHistogram histogram, long start) {
+        if (start != NOT_TIMED) {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records the time elapsed since the given start time in the histogram
+     * with the given name.
+     * 
+     * @param name
+     * @param start
+     *            as returned by {@link #startTimer()}
+     */
+    public void stopTimer(String name, long start) {
+        if (start != NOT_TIMED) {
+            stopTimer(histogram(name), start);
+        }
+    }
+
+    /**
+     * Removes all recorded values.
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+        for (AtomicLong counter : counters.values()) {
+            counter.set(0);
+        }
+    }
+
+    /**
+     * @return the histograms and counters as a JSON object. Latencies are in
+     *         microseconds.
+     */
+    public String toJson() {
+        Map<String, Object> histogramsJson = new LinkedHashMap<String, Object>();
+        for (LatencyHistogram histogram : sortedHistograms().values()) {
+            Map<String, Object> h = new LinkedHashMap<String, Object>();
+            h.put("count", histogram.getCount());
+            h.put("mean_us", micros(histogram.getMean()));
+            h.put("min_us", micros(histogram.getMin()));
+            h.put("p50_us", micros(histogram.getValueAtPercentile(50.0)));
+            h.put("p90_us", micros(histogram.getValueAtPercentile(90.0)));
+            h.put("p99_us", micros(histogram.getValueAtPercentile(99.0)));
+            h.put("p999_us", micros(histogram.getValueAtPercentile(99.9)));
+            h.put("max_us", micros(histogram.getMax()));
+            h.put("total_us", micros(histogram.getSum()));
+            histogramsJson.put(histogram.getName(), h);
+        }
+        Map<String, Object> countersJson = new LinkedHashMap<String, Object>();
+        for (Map.Entry<String, AtomicLong> e : sortedCounters().entrySet()) {
+            countersJson.put(e.getKey(), e.getValue().get());
+        }
+        Map<String, Object> json = new LinkedHashMap<String, Object>();
+        json.put("timestamp", System.currentTimeMillis());
+        json.put("histograms", histogramsJson);
+        json.put("counters", countersJson);
+        return JSONValue.toJSONString(json);
+    }
+
+    /**
+     * @return the histograms and counters in the Prometheus text exposition
+     *         format. Histograms are exposed as the summary
+     *         {@code reverb_stage_seconds} with a {@code stage} label, and
+     *         counters as {@code reverb_events_total} with a {@code name}
+     *         label.
+     */
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder();
+        out.append("# HELP reverb_stage_seconds Latency of the stages of the extraction pipeline.\n");
+        out.append("# TYPE reverb_stage_seconds summary\n");
+        double[] quantiles = { 0.5, 0.9, 0.99, 0.999 };
+        for (LatencyHistogram histogram : sortedHistograms().values()) {
+            String label = "stage=\"" + escapeLabel(histogram.getName()) + "\"";
+            for (double q : quantiles) {
+                out.append("reverb_stage_seconds{").append(label)
+                        .append(",quantile=\"").append(q).append("\"} ")
+                        .append(seconds(histogram.getValueAtPercentile(q * 100.0)))
+                        .append('\n');
+            }
+            out.append("reverb_stage_seconds_sum{").append(label).append("} ")
+                    .append(seconds(histogram.getSum())).append('\n');
+            out.append("reverb_stage_seconds_count{").append(label)
+                    .append("} ").append(histogram.getCount()).append('\n');
+        }
+        out.append("# HELP reverb_events_total Events counted by the extraction pipeline.\n");
+        out.append("# TYPE reverb_events_total counter\n");
+        for (Map.Entry<String, AtomicLong> e : sortedCounters().entrySet()) {
+            out.append("reverb_events_total{name=\"")
+                    .append(escapeLabel(e.getKey())).append("\"} ")
+                    .append(e.getValue().get()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private SortedMap<String, LatencyHistogram> sortedHistograms() {
+        return new TreeMap<String, LatencyHistogram>(histograms);
+    }
+
+    private SortedMap<String, AtomicLong> sortedCounters() {
+        return new TreeMap<String, AtomicLong>(counters);
+    }
+
+    private static double micros(double nanos) {
+        return Math.round(nanos / 10.0) / 100.0;
+    }
+
+    private static String seconds(double nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"")
+                .replace("\n", "\\n");
+    }
+}
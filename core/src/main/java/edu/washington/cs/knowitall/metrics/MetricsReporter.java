@@ -0,0 +1,117 @@
+package edu.washington.cs.knowitall.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically writes the contents of a {@link MetricsRegistry} to a file, as
+ * JSON or in the Prometheus text format. The file is replaced on each write,
+ * so that it always holds a complete dump, e.g. for the textfile collector of
+ * the Prometheus node exporter.
+ */
+public class MetricsReporter {
+
+    /**
+     * The output formats.
+     */
+    public enum Format {
+        JSON, PROMETHEUS
+    }
+
+    private final MetricsRegistry registry;
+    private final File file;
+    private final Format format;
+    private ScheduledExecutorService executor;
+
+    /**
+     * Constructs a new reporter. Call {@link #start(long)} to start writing.
+     * 
+     * @param registry
+     * @param file
+     * @param format
+     */
+    public MetricsReporter(MetricsRegistry registry, File file, Format format) {
+        this.registry = registry;
+        this.file = file;
+        this.format = format;
+    }
+
+    /**
+     * Writes the registry to the file every given number of seconds, on a
+     * daemon thread.
+     * 
+     * @param intervalSecs
+     */
+    public synchronized void start(long intervalSecs) {
+        if (executor != null) {
+            throw new IllegalStateException("Reporter already started");
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "MetricsReporter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.scheduleAtFixedRate(new Runnable() {
+            public void run() {
+                try {
+                    report();
+                } catch (IOException e) {
+                    System.err.println("Could not write metrics to " + file
+                            + ": " + e.getMessage());
+                }
+            }
+        }, intervalSecs, intervalSecs, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the periodic writes and writes the registry one last time.
+     * 
+     * @throws IOException
+     */
+    public synchronized void stop() throws IOException {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executor = null;
+        }
+        report();
+    }
+
+    /**
+     * Writes the registry to the file now.
+     * 
+     * @throws IOException
+     */
+    public void report() throws IOException {
+        String contents = format == Format.JSON ? registry.toJson() + "\n"
+                : registry.toPrometheus();
+        File dir = file.getAbsoluteFile().getParentFile();
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        Writer out = new OutputStreamWriter(new FileOutputStream(tmp), "UTF-8");
+        try {
+            out.write(contents);
+        } finally {
+            out.close();
+        }
+        if (!tmp.renameTo(file)) {
+            file.delete();
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+                throw new IOException("Could not replace " + file);
+            }
+        }
+    }
+}
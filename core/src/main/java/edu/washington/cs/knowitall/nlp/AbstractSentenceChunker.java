@@ -0,0 +1,59 @@
+package edu.washington.cs.knowitall.nlp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A base class for {@link SentenceChunker} implementations that can chunk a
+ * batch of sentences at once. The default implementation of
+ * {@link #chunkSentences(List)} chunks the sentences one by one; subclasses
+ * can override it to amortize per-call overhead across the batch.
+ *
+ * Callers holding an arbitrary <code>SentenceChunker</code> should use
+ * {@link #chunkSentences(SentenceChunker, List)}, which also accepts
+ * chunkers that do not extend this class.
+ */
+public abstract class AbstractSentenceChunker implements SentenceChunker {
+
+    /**
+     * Chunks a batch of sentences. A sentence that cannot be chunked does not
+     * fail the batch: its entry in the returned list is <code>null</code>.
+     *
+     * @param sents
+     * @return a list with one entry per input sentence, in the same order
+     */
+    public List<ChunkedSentence> chunkSentences(List<String> sents) {
+        return chunkEach(this, sents);
+    }
+
+    /**
+     * Chunks a batch of sentences with the given chunker, using
+     * {@link #chunkSentences(List)} if it extends this class.
+     *
+     * @param chunker
+     * @param sents
+     * @return a list with one entry per input sentence, in the same order,
+     *         <code>null</code> for the sentences that cannot be chunked
+     */
+    public static List<ChunkedSentence> chunkSentences(SentenceChunker chunker,
+            List<String> sents) {
+        if (chunker instanceof AbstractSentenceChunker) {
+            return ((AbstractSentenceChunker) chunker).chunkSentences(sents);
+        }
+        return chunkEach(chunker, sents);
+    }
+
+    private static List<ChunkedSentence> chunkEach(SentenceChunker chunker,
+            List<String> sents) {
+        List<ChunkedSentence> results = new ArrayList<ChunkedSentence>(
+                sents.size());
+        for (String sent : sents) {
+            try {
+                results.add(chunker.chunkSentence(sent));
+            } catch (ChunkerException e) {
+                results.add(null);
+            }
+        }
+        return results;
+    }
+}
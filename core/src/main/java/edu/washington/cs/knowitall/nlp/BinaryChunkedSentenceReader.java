@@ -0,0 +1,227 @@
+package edu.washington.cs.knowitall.nlp;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import com.google.common.collect.AbstractIterator;
+
+import edu.washington.cs.knowitall.commonlib.Range;
+
+/***
+ * Reads sentences written by {@link BinaryChunkedSentenceWriter}. The file is
+ * memory-mapped, in windows of at most {@link #DEFAULT_WINDOW_SIZE} bytes so
+ * that files larger than 2GB can be read, and decoded record by record. Each
+ * call to {@link #iterator()} starts again from the beginning of the file.
+ * Tokens and tags that appear more than once in the file are decoded once and
+ * shared between sentences.
+ */
+public class BinaryChunkedSentenceReader implements Iterable<ChunkedSentence>,
+        Closeable {
+
+    /** The default size of the mapped window */
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+    private static final int HEADER_SIZE = 12;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int windowSize;
+    private int maxTokens;
+
+    /**
+     * @param file
+     * @throws IOException
+     *             if unable to open the file, or if it is not in the expected
+     *             format
+     */
+    public BinaryChunkedSentenceReader(File file) throws IOException {
+        this(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param file
+     * @param windowSize
+     *            the maximum number of bytes to map at once. Must be larger
+     *            than the largest record in the file.
+     * @throws IOException
+     *             if unable to open the file, or if it is not in the expected
+     *             format
+     */
+    public BinaryChunkedSentenceReader(File file, int windowSize)
+            throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        this.channel = this.file.getChannel();
+        this.fileSize = channel.size();
+        this.windowSize = windowSize;
+        checkHeader();
+    }
+
+    private void checkHeader() throws IOException {
+        if (fileSize < HEADER_SIZE) {
+            close();
+            throw new IOException("Not a chunked sentence file: too short");
+        }
+        ByteBuffer header = map(0);
+        int magic = header.getInt();
+        int version = header.getInt();
+        maxTokens = header.getInt();
+        if (magic != BinaryChunkedSentenceWriter.MAGIC) {
+            close();
+            throw new IOException("Not a chunked sentence file: bad magic "
+                    + Integer.toHexString(magic));
+        } else if (version != BinaryChunkedSentenceWriter.VERSION) {
+            close();
+            throw new IOException("Unsupported chunked sentence file version "
+                    + version);
+        }
+    }
+
+    private ByteBuffer map(long position) throws IOException {
+        long size = Math.min(windowSize, fileSize - position);
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    /**
+     * @return an iterator over the sentences in the file.
+     * @throws IllegalStateException
+     *             if the file is truncated or corrupt
+     */
+    @Override
+    public Iterator<ChunkedSentence> iterator() {
+        return new AbstractIterator<ChunkedSentence>() {
+
+            private final List<String> tokens = new ArrayList<String>();
+            private final List<String> posTags = new ArrayList<String>();
+            private final List<String> chunkTags = new ArrayList<String>();
+            private byte[] stringBuffer = new byte[64];
+
+            private long windowStart = HEADER_SIZE;
+            private ByteBuffer window;
+
+            @Override
+            protected ChunkedSentence computeNext() {
+                try {
+                    if (window == null) {
+                        window = map(windowStart);
+                    }
+                    long position = windowStart + window.position();
+                    if (position == fileSize) {
+                        return endOfData();
+                    }
+                    if (window.remaining() < 4) {
+                        remap(position);
+                    }
+                    int length = window.getInt();
+                    if (window.remaining() < length) {
+                        remap(position);
+                        if (window.remaining() < 4 + length) {
+                            throw new IllegalStateException(String.format(
+                                    "Truncated or oversized record at byte %s",
+                                    position));
+                        }
+                        window.getInt();
+                    }
+                    return readRecord();
+                } catch (IOException e) {
+                    throw new IllegalStateException(
+                            "Could not read chunked sentence file", e);
+                }
+            }
+
+            private void remap(long position) throws IOException {
+                windowStart = position;
+                window = map(position);
+            }
+
+            private ChunkedSentence readRecord() {
+                int n = readVarint();
+                int flags = window.get();
+                String[] toks = new String[n];
+                String[] pos = new String[n];
+                String[] chunks = new String[n];
+                for (int i = 0; i < n; i++) {
+                    toks[i] = readToken();
+                }
+                for (int i = 0; i < n; i++) {
+                    pos[i] = readTag(posTags);
+                }
+                for (int i = 0; i < n; i++) {
+                    chunks[i] = readTag(chunkTags);
+                }
+                Range[] offsets = null;
+                if ((flags & BinaryChunkedSentenceWriter.HAS_OFFSETS) != 0) {
+                    offsets = new Range[n];
+                    int prevEnd = 0;
+                    for (int i = 0; i < n; i++) {
+                        int start = prevEnd + readSignedVarint();
+                        offsets[i] = new Range(start, readVarint());
+                        prevEnd = offsets[i].getEnd();
+                    }
+                    return new ChunkedSentence(offsets, toks, pos, chunks);
+                } else {
+                    return new ChunkedSentence(toks, pos, chunks);
+                }
+            }
+
+            private String readToken() {
+                int id = readVarint();
+                if (id == maxTokens) {
+                    // the table was full when the token was written
+                    return readString();
+                } else if (id == tokens.size()) {
+                    tokens.add(readString());
+                }
+                return tokens.get(id);
+            }
+
+            private String readTag(List<String> table) {
+                int code = window.get() & 0xFF;
+                if (code == table.size()) {
+                    table.add(readString());
+                }
+                return table.get(code);
+            }
+
+            private String readString() {
+                int length = readVarint();
+                if (stringBuffer.length < length) {
+                    stringBuffer = new byte[Math.max(length,
+                            stringBuffer.length * 2)];
+                }
+                window.get(stringBuffer, 0, length);
+                return new String(stringBuffer, 0, length,
+                        BinaryChunkedSentenceWriter.UTF8);
+            }
+
+            private int readSignedVarint() {
+                int value = readVarint();
+                return (value >>> 1) ^ -(value & 1);
+            }
+
+            private int readVarint() {
+                int value = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = window.get();
+                    value |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                return value;
+            }
+        };
+    }
+}
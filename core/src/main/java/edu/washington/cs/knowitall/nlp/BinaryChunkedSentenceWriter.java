@@ -0,0 +1,273 @@
+package edu.washington.cs.knowitall.nlp;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.washington.cs.knowitall.commonlib.Range;
+
+/***
+ * Writes {@link ChunkedSentence} objects in a compact binary format that can
+ * be read back by {@link BinaryChunkedSentenceReader} without re-running the
+ * tokenizer, POS tagger and chunker.
+ * <p>
+ * The file starts with the 4 byte magic number {@link #MAGIC}, an int
+ * version and the int size limit of the token string table, followed by one
+ * record per sentence. Each record is an int byte
+ * length followed by:
+ * </p>
+ * <ul>
+ * <li>the number of tokens and a flags byte (bit 0 set if the sentence has
+ * character offsets);</li>
+ * <li>one string table id per token;</li>
+ * <li>one byte code per POS tag, then one per chunk tag;</li>
+ * <li>if present, the character offsets, as the gap since the end of the
+ * previous token followed by the token length.</li>
+ * </ul>
+ * <p>
+ * Tokens and tags are stored in string tables that are built as the file is
+ * written: the first time a string is seen, its id is the next free id and
+ * the UTF-8 bytes of the string follow it. All other integers are written as
+ * variable length integers. Only the token, POS and chunk layers are stored.
+ * </p>
+ * <p>
+ * The token table is kept in memory while writing and reading, so it is
+ * limited to {@link #DEFAULT_MAX_TOKENS} strings (about 100MB of heap for
+ * short tokens). Once it is full, a new token is written with the id equal to
+ * the limit, followed by its bytes, and is not added to the table.
+ * </p>
+ */
+public class BinaryChunkedSentenceWriter implements Closeable {
+
+    /** The magic number at the start of every file */
+    public static final int MAGIC = 0x52564353; // "RVCS"
+
+    /** The version of the format written by this class */
+    public static final int VERSION = 2;
+
+    /** The default maximum number of distinct tokens in the string table */
+    public static final int DEFAULT_MAX_TOKENS = 1 << 20;
+
+    /** Set in the flags byte if the record has character offsets */
+    static final int HAS_OFFSETS = 1;
+
+    /** The maximum number of distinct POS or chunk tags */
+    static final int MAX_TAGS = 256;
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final DataOutputStream out;
+    private final int maxTokens;
+    private final Map<String, Integer> tokenIds = new HashMap<String, Integer>();
+    private final Map<String, Integer> posCodes = new HashMap<String, Integer>();
+    private final Map<String, Integer> chunkCodes = new HashMap<String, Integer>();
+
+    // The record being built, reused from one sentence to the next, and the
+    // strings it adds to the tables, which are removed if it is not written
+    private byte[] record = new byte[1024];
+    private int recordLength;
+    private final List<String> newTokens = new ArrayList<String>();
+    private final List<String> newPosTags = new ArrayList<String>();
+    private final List<String> newChunkTags = new ArrayList<String>();
+
+    // Set when a record could not be written entirely
+    private boolean failed = false;
+
+    /**
+     * @param file
+     * @throws IOException
+     *             if unable to open the file
+     */
+    public BinaryChunkedSentenceWriter(File file) throws IOException {
+        this(new FileOutputStream(file));
+    }
+
+    /**
+     * @param out
+     * @throws IOException
+     *             if unable to write the header
+     */
+    public BinaryChunkedSentenceWriter(OutputStream out) throws IOException {
+        this(out, DEFAULT_MAX_TOKENS);
+    }
+
+    /**
+     * @param out
+     * @param maxTokens
+     *            the maximum number of distinct tokens in the string table
+     * @throws IOException
+     *             if unable to write the header
+     */
+    BinaryChunkedSentenceWriter(OutputStream out, int maxTokens)
+            throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        this.maxTokens = maxTokens;
+        try {
+            this.out.writeInt(MAGIC);
+            this.out.writeInt(VERSION);
+            this.out.writeInt(maxTokens);
+        } catch (IOException e) {
+            this.out.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the given sentence. If the sentence cannot be encoded, nothing is
+     * written and the writer can still be used. If the output fails, the file
+     * is left incomplete and all later calls fail.
+     *
+     * @param sent
+     * @throws IOException
+     *             if unable to write, or if the sentence has more distinct tags
+     *             than the format allows
+     */
+    public void write(ChunkedSentence sent) throws IOException {
+        if (failed) {
+            throw new IOException("An earlier sentence could not be written");
+        }
+        boolean encoded = false;
+        try {
+            encode(sent);
+            encoded = true;
+        } finally {
+            if (!encoded) {
+                removeAll(tokenIds, newTokens);
+                removeAll(posCodes, newPosTags);
+                removeAll(chunkCodes, newChunkTags);
+            }
+            newTokens.clear();
+            newPosTags.clear();
+            newChunkTags.clear();
+        }
+
+        try {
+            out.writeInt(recordLength);
+            out.write(record, 0, recordLength);
+        } catch (IOException e) {
+            failed = true;
+            throw e;
+        }
+    }
+
+    private void encode(ChunkedSentence sent) throws IOException {
+        int n = sent.getLength();
+        List<Range> offsets = sent.getOffsets();
+
+        recordLength = 0;
+        writeVarint(n);
+        writeByte(offsets == null ? 0 : HAS_OFFSETS);
+        for (int i = 0; i < n; i++) {
+            writeToken(sent.getToken(i));
+        }
+        for (int i = 0; i < n; i++) {
+            writeTag(posCodes, newPosTags, sent.getPosTag(i));
+        }
+        for (int i = 0; i < n; i++) {
+            writeTag(chunkCodes, newChunkTags, sent.getChunkTag(i));
+        }
+        if (offsets != null) {
+            int prevEnd = 0;
+            for (Range r : offsets) {
+                writeSignedVarint(r.getStart() - prevEnd);
+                writeVarint(r.getLength());
+                prevEnd = r.getEnd();
+            }
+        }
+    }
+
+    private static void removeAll(Map<String, Integer> table,
+            List<String> strings) {
+        for (String s : strings) {
+            table.remove(s);
+        }
+    }
+
+    /**
+     * Flushes any buffered output.
+     *
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeToken(String token) {
+        Integer id = tokenIds.get(token);
+        if (id != null) {
+            writeVarint(id);
+        } else if (tokenIds.size() < maxTokens) {
+            writeVarint(tokenIds.size());
+            tokenIds.put(token, tokenIds.size());
+            newTokens.add(token);
+            writeString(token);
+        } else {
+            writeVarint(maxTokens);
+            writeString(token);
+        }
+    }
+
+    private void writeTag(Map<String, Integer> codes, List<String> newTags,
+            String tag) throws IOException {
+        Integer code = codes.get(tag);
+        if (code != null) {
+            writeByte(code);
+        } else if (codes.size() < MAX_TAGS) {
+            writeByte(codes.size());
+            codes.put(tag, codes.size());
+            newTags.add(tag);
+            writeString(tag);
+        } else {
+            throw new IOException("Too many distinct tags, can't encode " + tag);
+        }
+    }
+
+    private void writeString(String s) {
+        byte[] bytes = s.getBytes(UTF8);
+        writeVarint(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, record, recordLength, bytes.length);
+        recordLength += bytes.length;
+    }
+
+    private void writeSignedVarint(int value) {
+        writeVarint((value << 1) ^ (value >> 31));
+    }
+
+    private void writeVarint(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            record[recordLength++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        record[recordLength++] = (byte) value;
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        record[recordLength++] = (byte) value;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (recordLength + extra > record.length) {
+            byte[] bigger = new byte[Math.max(record.length * 2, recordLength
+                    + extra)];
+            System.arraycopy(record, 0, bigger, 0, recordLength);
+            record = bigger;
+        }
+    }
+}
@@ -7,6 +7,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.List;
 
 import com.google.common.collect.Iterables;
 
@@ -154,17 +155,13 @@ public class ChunkedDocumentReader {
             throws ExtractorException {
         ArrayList<String> sents = new ArrayList<String>();
         Iterables.addAll(sents, sentExtractor.extract(docStr));
-        ArrayList<ChunkedSentence> chunkedSents = new ArrayList<ChunkedSentence>(
-                sents.size());
-
-        int sentNum = 1;
-        for (String sent : sents) {
-            try {
-                chunkedSents.add(sentChunker.chunkSentence(sent));
-                sentNum++;
-            } catch (ChunkerException e) {
+        List<ChunkedSentence> chunkedSents = AbstractSentenceChunker
+                .chunkSentences(sentChunker, sents);
+
+        for (int i = 0; i < chunkedSents.size(); i++) {
+            if (chunkedSents.get(i) == null) {
                 String msg = String.format(
-                        "Could not chunk sentence %s in document %s", sentNum,
+                        "Could not chunk sentence %s in document %s", i + 1,
                         id);
                 throw new ExtractorException(msg);
             }
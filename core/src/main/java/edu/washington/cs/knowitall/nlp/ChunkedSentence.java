@@ -40,6 +40,9 @@ public class ChunkedSentence extends BIOLayeredSequence {
     // a cache for getTokensAsString
     private String tokensAsString = null;
 
+    // a cache for getChunkedSentenceTokens
+    private ImmutableList<ChunkedSentenceToken> chunkedSentenceTokens = null;
+
     protected final ImmutableList<Range> offsets;
 
     /**
@@ -85,7 +88,7 @@ public class ChunkedSentence extends BIOLayeredSequence {
         super(tokens.size());
         this.offsets = offsets;
         addLayer(TOKEN_LAYER, tokens);
-        addLayer(POS_LAYER, posTags);
+        addSymbolLayer(POS_LAYER, posTags);
         addSpanLayer(NP_LAYER, npChunkTags);
     }
 
@@ -104,34 +107,33 @@ public class ChunkedSentence extends BIOLayeredSequence {
     }
 
     /**
-     * Constructs a new instance using the given tokens, POS tags, and NP chunk
-     * tags, each of which must have the same length. The NP chunks should be
-     * expressed using the standard B-NP, I-NP, O tags.
+     * Constructs a copy of the given sentence, which shares its layers.
      *
-     * @param tokens
-     * @param posTags
-     * @param npChunkTags
+     * @param sent
      */
     public ChunkedSentence(ChunkedSentence sent) {
-        super(sent.getLength());
-        try {
-            this.offsets = sent.offsets;
-            addLayer(TOKEN_LAYER, sent.getTokens());
-            addLayer(POS_LAYER, sent.getPosTags());
-            addSpanLayer(NP_LAYER, sent.getChunkTags());
-            for (String layerName : sent.getLayerNames()) {
-                if (!hasLayer(layerName) && sent.isSpanLayer(layerName)) {
-                    addSpanLayer(layerName, sent.getLayer(layerName));
-                } else if (!hasLayer(layerName)) {
-                    addLayer(layerName, sent.getLayer(layerName));
-                }
-            }
-        } catch (SequenceException e) {
-            // if this exception gets thrown, something is very wrong: we
-            // should always be able to construct a new instance of a sentence
-            // from an existing one.
-            throw new IllegalStateException(e);
-        }
+        this(sent, sent.offsets);
+    }
+
+    private ChunkedSentence(ChunkedSentence sent, ImmutableList<Range> offsets) {
+        super(sent);
+        this.offsets = offsets;
+    }
+
+    /**
+     * Constructs the subsequence of the given sentence that starts at the
+     * given start index and has the given length. It shares the layers of the
+     * sentence, and has no offsets.
+     *
+     * @param sent
+     * @param start
+     * @param length
+     * @throws IndexOutOfBoundsException
+     *             if the subsequence is not within the sentence
+     */
+    protected ChunkedSentence(ChunkedSentence sent, int start, int length) {
+        super(sent, start, length);
+        this.offsets = null;
     }
 
     public ImmutableList<Range> getOffsets() {
@@ -143,7 +145,8 @@ public class ChunkedSentence extends BIOLayeredSequence {
     }
 
     /**
-     * Returns a new ChunkedSentence object that starts at the given range.
+     * Returns a view of this sentence over the given range. See
+     * {@link #getSubSequence(int, int)}.
      *
      * @param range
      */
@@ -152,35 +155,16 @@ public class ChunkedSentence extends BIOLayeredSequence {
     }
 
     /**
-     * Returns a new ChunkedSentence object that starts at the given start index
-     * and has the given length.
+     * Returns a view of this sentence that starts at the given start index and
+     * has the given length. The view shares the tokens and tags of this
+     * sentence instead of copying them, so it is cheap to create. If it starts
+     * inside a chunk, its first chunk tag is a B- tag.
      *
      * @param start
      * @param length
      */
     public ChunkedSentence getSubSequence(int start, int length) {
-        try {
-            ChunkedSentence result = new ChunkedSentence(getSubSequence(
-                    TOKEN_LAYER, start, length), getSubSequence(POS_LAYER,
-                    start, length), getSubSequence(NP_LAYER, start, length));
-            for (String layerName : getLayerNames()) {
-                if (!result.hasLayer(layerName) && isSpanLayer(layerName)) {
-                    result.addSpanLayer(layerName,
-                            getSubSequence(layerName, start, length));
-                } else if (!result.hasLayer(layerName)) {
-                    result.addLayer(layerName,
-                            getSubSequence(layerName, start, length));
-                }
-            }
-            return result;
-        } catch (SequenceException e) {
-            // This is an illegal state - we should be able to construct sub-
-            // sequences of this object.
-            String msg = String.format(
-                    "Could not create subsequence of length %s starting at %s",
-                    length, start);
-            throw new IllegalStateException(msg, e);
-        }
+        return new ChunkedSentence(this, start, length);
     }
 
     /***
@@ -228,23 +212,24 @@ public class ChunkedSentence extends BIOLayeredSequence {
      * Returns a copy of this object.
      */
     public ChunkedSentence clone() {
-        try {
-            ChunkedSentence clone = new ChunkedSentence(getTokens(),
-                    getPosTags(), getChunkTags());
-            for (String layerName : getLayerNames()) {
-                if (!clone.hasLayer(layerName) && isSpanLayer(layerName)) {
-                    clone.addSpanLayer(layerName, getLayer(layerName));
-                } else if (!clone.hasLayer(layerName)) {
-                    clone.addLayer(layerName, getLayer(layerName));
-                }
+        return new ChunkedSentence(this, null);
+    }
+
+    /**
+     * @return the {@link ChunkedSentenceToken}s of this sentence, which are
+     *         only created once. See {@link ChunkedSentenceToken#tokenize}.
+     */
+    ImmutableList<ChunkedSentenceToken> getChunkedSentenceTokens() {
+        ImmutableList<ChunkedSentenceToken> tokens = chunkedSentenceTokens;
+        if (tokens == null) {
+            ChunkedSentenceToken[] array = new ChunkedSentenceToken[getLength()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = new ChunkedSentenceToken(this, i);
             }
-            return clone;
-        } catch (SequenceException e) {
-            // This is an illegal state - we should be able to clone the
-            // sentence without having errors occur.
-            String msg = "Could not clone sentence";
-            throw new IllegalStateException(msg, e);
+            tokens = ImmutableList.copyOf(array);
+            chunkedSentenceTokens = tokens;
         }
+        return tokens;
     }
 
     /**
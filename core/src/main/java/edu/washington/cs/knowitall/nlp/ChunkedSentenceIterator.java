@@ -2,15 +2,20 @@ package edu.washington.cs.knowitall.nlp;
 
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Queue;
 
 import com.google.common.base.Predicate;
+import com.google.common.base.Supplier;
 import com.google.common.collect.AbstractIterator;
 
 /**
  * A class that combines an Iterator<String> object over sentences with a
  * SentenceChunker object to produce an iterator over {@link ChunkedSentence}
- * objects.
+ * objects. Sentences are pulled from the underlying iterator and chunked in
+ * batches of {@link #getBatchSize()} (see
+ * {@link AbstractSentenceChunker#chunkSentences(SentenceChunker, List)}).
  *
  * @author afader
  *
@@ -21,6 +26,14 @@ public class ChunkedSentenceIterator extends AbstractIterator<ChunkedSentence> {
     private Iterator<String> sentIter;
     private List<Predicate<ChunkedSentence>> filters;
 
+    /** The default number of sentences chunked at once */
+    public static final int DEFAULT_BATCH_SIZE = 32;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private Supplier<Boolean> inputReady = null;
+    private Queue<ChunkedSentence> chunked = new LinkedList<ChunkedSentence>();
+    private long batchComputeTime = 0;
+
     private long lastComputeTime = 0;
 
     /**
@@ -36,6 +49,43 @@ public class ChunkedSentenceIterator extends AbstractIterator<ChunkedSentence> {
     }
 
     /**
+     * @return the number of sentences chunked at once.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the number of sentences chunked at once. Batching reads ahead in
+     * the underlying iterator, so interactive callers that need each sentence
+     * as soon as it is available should either use a batch size of 1 or call
+     * {@link #setInputReady(Supplier)}.
+     *
+     * @param batchSize
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: "
+                    + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets the test of whether more input can be read without blocking. When
+     * it is false, the sentences read so far are chunked as a smaller batch
+     * instead of waiting for the batch to fill up.
+     *
+     * @param inputReady
+     */
+    public void setInputReady(Supplier<Boolean> inputReady) {
+        this.inputReady = inputReady;
+    }
+
+    /**
+     * The time spent chunking a batch is attributed to the first sentence
+     * returned from that batch, so summing this value over all of the
+     * sentences gives the total chunking time.
      *
      * @return the time of the last computation in nanoseconds
      */
@@ -55,28 +105,50 @@ public class ChunkedSentenceIterator extends AbstractIterator<ChunkedSentence> {
 
     @Override
     protected ChunkedSentence computeNext() {
-        while (sentIter.hasNext()) {
-            try {
-                long start = System.nanoTime();
-
-                ChunkedSentence chunkedSentence = chunker
-                        .chunkSentence(sentIter.next());
-                for (Predicate<ChunkedSentence> filter : this.filters) {
-                    if (filter.apply(chunkedSentence)) {
-                        continue;
-                    }
-                }
-
-                lastComputeTime = System.nanoTime() - start;
+        if (chunked.isEmpty()) {
+            chunkNextBatch();
+        }
+        if (chunked.isEmpty()) {
+            lastComputeTime = 0;
+            return endOfData();
+        }
 
-                return chunkedSentence;
-            } catch (ChunkerException e) {
+        ChunkedSentence chunkedSentence = chunked.remove();
+        for (Predicate<ChunkedSentence> filter : this.filters) {
+            if (filter.apply(chunkedSentence)) {
                 continue;
             }
+        }
+
+        lastComputeTime = batchComputeTime;
+        batchComputeTime = 0;
 
+        return chunkedSentence;
+    }
+
+    private void chunkNextBatch() {
+        List<String> batch = new ArrayList<String>(batchSize);
+        while (chunked.isEmpty() && sentIter.hasNext()) {
+            batch.clear();
+            while (batch.size() < batchSize
+                    && (batch.isEmpty() || isInputReady())
+                    && sentIter.hasNext()) {
+                batch.add(sentIter.next());
+            }
+
+            long start = System.nanoTime();
+            for (ChunkedSentence sent : AbstractSentenceChunker
+                    .chunkSentences(chunker, batch)) {
+                // sentences that could not be chunked are skipped
+                if (sent != null) {
+                    chunked.add(sent);
+                }
+            }
+            batchComputeTime += System.nanoTime() - start;
         }
+    }
 
-        lastComputeTime = 0;
-        return endOfData();
+    private boolean isInputReady() {
+        return inputReady == null || inputReady.get();
     }
 }
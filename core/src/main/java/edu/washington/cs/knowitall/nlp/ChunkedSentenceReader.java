@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.io.Reader;
 
 import com.google.common.base.Predicate;
+import com.google.common.base.Supplier;
 
 import edu.washington.cs.knowitall.extractor.SentenceExtractor;
 import edu.washington.cs.knowitall.io.BufferedReaderIterator;
@@ -17,23 +18,30 @@ import edu.washington.cs.knowitall.util.IterableAdapter;
  * <code>SentenceExtractor</code> to obtain <code>String</code> sentences from
  * the input, and then chunks the sentences using the
  * <code>SentenceChunker</code> object.
+ * <p>
+ * A reader is an iterator over its input and must only be consumed by one
+ * thread at a time. Different readers can be used concurrently: the
+ * constructors that do not take a <code>SentenceChunker</code> use
+ * {@link ThreadLocalSentenceChunker#getDefault()}, which chunks each sentence
+ * with an <code>OpenNlpSentenceChunker</code> owned by the calling thread. If
+ * a chunker is given explicitly, the caller is responsible for not sharing it
+ * between readers that run on different threads (the OpenNLP classes are not
+ * thread-safe).
+ * </p>
  *
  * @author afader
  *
  */
 public class ChunkedSentenceReader implements Iterable<ChunkedSentence> {
 
-    /** The singleton default sentence chunker */
-    private static OpenNlpSentenceChunker SENT_CHUNKER;
-
     private SentenceExtractor sentExtractor;
     private SentenceChunker sentChunker;
     private ChunkedSentenceIterator chunkedSentIter;
 
     /**
      * Constructs a reader from <code>r</code> using the sentence extractor
-     * <code>se</code> and the default <code>OpenNlpSentenceChunker</code>
-     * object.
+     * <code>se</code> and the default thread-confined
+     * <code>OpenNlpSentenceChunker</code>.
      *
      * @param r
      * @param se
@@ -41,9 +49,7 @@ public class ChunkedSentenceReader implements Iterable<ChunkedSentence> {
      */
     public ChunkedSentenceReader(Reader r, SentenceExtractor se)
             throws IOException {
-        if (SENT_CHUNKER == null)
-            SENT_CHUNKER = new OpenNlpSentenceChunker();
-        init(r, se, SENT_CHUNKER);
+        init(r, se, getDefaultChunker());
     }
 
     /**
@@ -61,15 +67,14 @@ public class ChunkedSentenceReader implements Iterable<ChunkedSentence> {
 
     /**
      * Constructs a reader from <code>r</code> using the default
-     * <code>SentenceExtractor</code> and <code>OpenNlpSentenceChunker</code>.
+     * <code>SentenceExtractor</code> and the default thread-confined
+     * <code>OpenNlpSentenceChunker</code>.
      *
      * @param r
      * @throws IOException
      */
     public ChunkedSentenceReader(Reader r) throws IOException {
-        if (SENT_CHUNKER == null)
-            SENT_CHUNKER = new OpenNlpSentenceChunker();
-        init(r, new SentenceExtractor(), SENT_CHUNKER);
+        init(r, new SentenceExtractor(), getDefaultChunker());
     }
 
     /**
@@ -85,15 +90,32 @@ public class ChunkedSentenceReader implements Iterable<ChunkedSentence> {
         init(r, se, sc);
     }
 
+    /**
+     * Returns the default chunker, making sure the calling thread's chunker
+     * can be loaded so that model errors are reported at construction time.
+     */
+    private static SentenceChunker getDefaultChunker() throws IOException {
+        ThreadLocalSentenceChunker chunker = ThreadLocalSentenceChunker
+                .getDefault();
+        chunker.get();
+        return chunker;
+    }
+
     private void init(Reader reader, SentenceExtractor sentExtractor,
             SentenceChunker sentChunker) {
         this.sentChunker = sentChunker;
         this.sentExtractor = sentExtractor;
-        BufferedReaderIterator bri = new BufferedReaderIterator(reader);
+        final BufferedReaderIterator bri = new BufferedReaderIterator(reader);
         TextBlockIterator tbi = new TextBlockIterator(bri);
         SentenceBlocksIterator sbi = new SentenceBlocksIterator(tbi,
                 sentExtractor);
         chunkedSentIter = new ChunkedSentenceIterator(sbi, sentChunker);
+        // don't hold back sentences while waiting for interactive input
+        chunkedSentIter.setInputReady(new Supplier<Boolean>() {
+            public Boolean get() {
+                return bri.ready();
+            }
+        });
     }
 
     /**
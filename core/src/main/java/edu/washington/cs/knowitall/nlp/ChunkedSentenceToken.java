@@ -1,6 +1,5 @@
 package edu.washington.cs.knowitall.nlp;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -24,18 +23,29 @@ public class ChunkedSentenceToken {
         this.index = index;
     }
 
+    /**
+     * Returns the tokens of the given sentence. They are created once per
+     * sentence and shared by every call, so the list is unmodifiable.
+     *
+     * @param sentence
+     * @return the tokens of the sentence
+     */
     public static List<ChunkedSentenceToken> tokenize(ChunkedSentence sentence) {
-        return ChunkedSentenceToken.tokenize(sentence, sentence.getRange());
+        return sentence.getChunkedSentenceTokens();
     }
 
+    /**
+     * Returns the tokens of the given sentence in the given range, as a view
+     * of the list returned by {@link #tokenize(ChunkedSentence)}. Their
+     * indexes are indexes in the sentence.
+     *
+     * @param sentence
+     * @param range
+     * @return the tokens of the range, in an unmodifiable list
+     */
     public static List<ChunkedSentenceToken> tokenize(ChunkedSentence sentence, Range range) {
-        List<ChunkedSentenceToken> tokens = new ArrayList<ChunkedSentenceToken>(
-                sentence.getLength());
-        for (int i = range.getStart(); i < range.getEnd(); i++) {
-            tokens.add(new ChunkedSentenceToken(sentence, i));
-        }
-
-        return tokens;
+        return sentence.getChunkedSentenceTokens().subList(range.getStart(),
+                range.getEnd());
     }
 
     /***
@@ -44,7 +54,7 @@ public class ChunkedSentenceToken {
      * @return
      */
     public String string() {
-        return this.ChunkedSentence.getTokens().get(this.index);
+        return this.ChunkedSentence.getToken(this.index);
     }
 
     /***
@@ -2,7 +2,7 @@ package edu.washington.cs.knowitall.nlp;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.regex.Pattern;
+import java.util.List;
 
 import ca.umontreal.rali.reverbfr.FrenchReverbUtils;
 import ca.umontreal.rali.reverbfr.ReverbConfiguration;
@@ -11,6 +11,8 @@ import opennlp.tools.postag.POSTagger;
 import opennlp.tools.tokenize.Tokenizer;
 import opennlp.tools.util.Span;
 import edu.washington.cs.knowitall.commonlib.Range;
+import edu.washington.cs.knowitall.metrics.LatencyHistogram;
+import edu.washington.cs.knowitall.metrics.MetricsRegistry;
 import edu.washington.cs.knowitall.util.DefaultObjects;
 
 /**
@@ -24,7 +26,15 @@ import edu.washington.cs.knowitall.util.DefaultObjects;
  * @author afader
  * 
  */
-public class OpenNlpSentenceChunker implements SentenceChunker {
+public class OpenNlpSentenceChunker extends AbstractSentenceChunker {
+    private static final MetricsRegistry METRICS = MetricsRegistry.getDefault();
+    private static final LatencyHistogram TOKENIZE_TIME = METRICS
+            .histogram("chunker.tokenize");
+    private static final LatencyHistogram POS_TIME = METRICS
+            .histogram("chunker.pos");
+    private static final LatencyHistogram CHUNK_TIME = METRICS
+            .histogram("chunker.chunk");
+
     private Chunker chunker;
     private POSTagger posTagger;
     private Tokenizer tokenizer;
@@ -32,8 +42,6 @@ public class OpenNlpSentenceChunker implements SentenceChunker {
     private boolean attachOfs = true;
     private boolean attachPossessives = true;
 
-    Pattern convertToSpace = Pattern.compile("\\xa0");
-
     /**
      * Constructs a new object using the default models from
      * {@link DefaultObjects}.
@@ -99,10 +107,9 @@ public class OpenNlpSentenceChunker implements SentenceChunker {
      */
     public ChunkedSentence chunkSentence(String sent) throws ChunkerException {
 
-        // OpenNLP cannot handle non-breaking whitespace
-        sent = convertToSpace.matcher(sent).replaceAll(" ");
+        sent = replaceNonBreakingSpaces(sent);
 
-        ArrayList<Range> ranges;
+        Range[] ranges;
         String[] tokens, posTags, npChunkTags;
 
         // OpenNLP can throw a NullPointerException. Catch it, and raise it
@@ -110,22 +117,103 @@ public class OpenNlpSentenceChunker implements SentenceChunker {
         // TODO: try to figure out what caused the NPE and actually fix the
         // problem
         try {
+            long start = METRICS.startTimer();
             Span[] offsets = tokenizer.tokenizePos(sent);
-            ranges = new ArrayList<Range>(offsets.length);
-            ArrayList<String> tokenList = new ArrayList<String>(offsets.length);
-            for (Span span : offsets) {
-                ranges.add(Range.fromInterval(span.getStart(), span.getEnd()));
-                tokenList.add(sent.substring(span.getStart(), span.getEnd()));
-            }
+            ranges = new Range[offsets.length];
+            tokens = new String[offsets.length];
+            setTokens(sent, offsets, ranges, tokens);
+            METRICS.stopTimer(TOKENIZE_TIME, start);
 
-            tokens = tokenList.toArray(new String[] {});
+            start = METRICS.startTimer();
             posTags = posTagger.tag(tokens);
+            METRICS.stopTimer(POS_TIME, start);
+
+            start = METRICS.startTimer();
             npChunkTags = chunker.chunk(tokens, posTags);
+            METRICS.stopTimer(CHUNK_TIME, start);
             
         } catch (NullPointerException e) {
             throw new ChunkerException("OpenNLP threw NPE on '" + sent + "'", e);
         }
 
+        return toChunkedSentence(ranges, tokens, posTags, npChunkTags);
+    }
+
+    /**
+     * Chunks a batch of sentences stage by stage: all sentences are tokenized,
+     * then tagged, then chunked, so that each OpenNLP model runs over the
+     * whole batch in turn and stays in the CPU caches. The result is the same
+     * as chunking the sentences one by one.
+     */
+    @Override
+    public List<ChunkedSentence> chunkSentences(List<String> sents) {
+        int n = sents.size();
+        Range[][] ranges = new Range[n][];
+        String[][] tokens = new String[n][];
+        String[][] posTags = new String[n][];
+        for (int i = 0; i < n; i++) {
+            String sent = replaceNonBreakingSpaces(sents.get(i));
+            try {
+                long start = METRICS.startTimer();
+                Span[] offsets = tokenizer.tokenizePos(sent);
+                ranges[i] = new Range[offsets.length];
+                tokens[i] = new String[offsets.length];
+                setTokens(sent, offsets, ranges[i], tokens[i]);
+                METRICS.stopTimer(TOKENIZE_TIME, start);
+            } catch (NullPointerException e) {
+                tokens[i] = null;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (tokens[i] != null) {
+                try {
+                    long start = METRICS.startTimer();
+                    posTags[i] = posTagger.tag(tokens[i]);
+                    METRICS.stopTimer(POS_TIME, start);
+                } catch (NullPointerException e) {
+                    tokens[i] = null;
+                }
+            }
+        }
+        List<ChunkedSentence> results = new ArrayList<ChunkedSentence>(n);
+        for (int i = 0; i < n; i++) {
+            ChunkedSentence result = null;
+            if (tokens[i] != null) {
+                try {
+                    long start = METRICS.startTimer();
+                    String[] npChunkTags = chunker.chunk(tokens[i],
+                            posTags[i]);
+                    METRICS.stopTimer(CHUNK_TIME, start);
+                    result = toChunkedSentence(ranges[i], tokens[i],
+                            posTags[i], npChunkTags);
+                } catch (NullPointerException e) {
+                    // like a ChunkerException from chunkSentence
+                }
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    // OpenNLP cannot handle non-breaking whitespace
+    private static String replaceNonBreakingSpaces(String sent) {
+        if (sent.indexOf('\u00a0') >= 0) {
+            return sent.replace('\u00a0', ' ');
+        }
+        return sent;
+    }
+
+    private static void setTokens(String sent, Span[] offsets,
+            Range[] ranges, String[] tokens) {
+        for (int i = 0; i < offsets.length; i++) {
+            Span span = offsets[i];
+            ranges[i] = Range.fromInterval(span.getStart(), span.getEnd());
+            tokens[i] = sent.substring(span.getStart(), span.getEnd());
+        }
+    }
+
+    private ChunkedSentence toChunkedSentence(Range[] ranges, String[] tokens,
+            String[] posTags, String[] npChunkTags) {
         if (ReverbConfiguration.isEn()) {
             if (attachOfs)
                 OpenNlpUtils.attachOfs(tokens, npChunkTags);
@@ -137,8 +225,8 @@ public class OpenNlpSentenceChunker implements SentenceChunker {
             FrenchReverbUtils.fixClitics(tokens, posTags, npChunkTags);
         }
         
-        ChunkedSentence result = new ChunkedSentence(
-                ranges.toArray(new Range[] {}), tokens, posTags, npChunkTags);
+        ChunkedSentence result = new ChunkedSentence(ranges, tokens, posTags,
+                npChunkTags);
         return result;
     }
 
@@ -0,0 +1,70 @@
+package edu.washington.cs.knowitall.nlp;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A {@link SentenceChunker} that gives each thread its own
+ * {@link OpenNlpSentenceChunker}. The OpenNLP tagger and chunker keep state
+ * between calls and cannot be shared, so every call to
+ * {@link #chunkSentence(String)} is delegated to the chunker owned by the
+ * calling thread, which is created the first time that thread needs it. The
+ * models themselves are shared through
+ * {@link edu.washington.cs.knowitall.util.NlpModelRegistry}, so a new
+ * thread does not pay for loading them again.
+ *
+ * A single instance can therefore be handed to any number of threads, and
+ * objects holding on to it (like {@link ChunkedSentenceReader}) can be created
+ * on one thread and used on another.
+ */
+public class ThreadLocalSentenceChunker extends AbstractSentenceChunker {
+
+    private static final ThreadLocalSentenceChunker DEFAULT = new ThreadLocalSentenceChunker();
+
+    private final ThreadLocal<OpenNlpSentenceChunker> chunkers = new ThreadLocal<OpenNlpSentenceChunker>();
+
+    /**
+     * @return a shared instance.
+     */
+    public static ThreadLocalSentenceChunker getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return the chunker owned by the calling thread, creating it if needed.
+     * @throws IOException
+     *             if unable to load the models
+     */
+    public OpenNlpSentenceChunker get() throws IOException {
+        OpenNlpSentenceChunker chunker = chunkers.get();
+        if (chunker == null) {
+            chunker = new OpenNlpSentenceChunker();
+            chunkers.set(chunker);
+        }
+        return chunker;
+    }
+
+    @Override
+    public ChunkedSentence chunkSentence(String sent) throws ChunkerException {
+        return getChecked().chunkSentence(sent);
+    }
+
+    /**
+     * Chunks the whole batch with the chunker owned by the calling thread,
+     * looking it up only once.
+     */
+    @Override
+    public List<ChunkedSentence> chunkSentences(List<String> sents) {
+        return getChecked().chunkSentences(sents);
+    }
+
+    private OpenNlpSentenceChunker getChecked() {
+        try {
+            return get();
+        } catch (IOException e) {
+            // Not a problem with the input, so don't let callers skip it as
+            // they would a ChunkerException.
+            throw new IllegalStateException("Unable to load chunker models", e);
+        }
+    }
+}
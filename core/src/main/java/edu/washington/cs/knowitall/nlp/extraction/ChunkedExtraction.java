@@ -27,7 +27,7 @@ public class ChunkedExtraction extends ChunkedSentence {
      *            the subsequence of sent that this extraction will represent.
      */
     public ChunkedExtraction(ChunkedSentence sent, Range range) {
-        super(sent.getSubSequence(range));
+        super(sent, range.getStart(), range.getLength());
         this.range = range;
         this.sent = sent;
         this.string = null;
@@ -48,7 +48,7 @@ public class ChunkedExtraction extends ChunkedSentence {
      *            different than just the subsequence in the sentence.
      */
     public ChunkedExtraction(ChunkedSentence sent, Range range, String string) {
-        super(sent.getSubSequence(range));
+        super(sent, range.getStart(), range.getLength());
         this.range = range;
         this.sent = sent;
         this.string = string;
@@ -1,10 +1,5 @@
 package edu.washington.cs.knowitall.normalization;
 
-import java.io.ByteArrayInputStream;
-import java.io.StringReader;
-
-import uk.ac.susx.informatics.Morpha;
-
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
 
 /**
@@ -16,11 +11,11 @@ import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
  */
 public class BasicFieldNormalizer implements FieldNormalizer {
 
-    private Morpha lexer;
+    private Stemmer stemmer;
 
     public BasicFieldNormalizer() {
 
-        lexer = new Morpha(new ByteArrayInputStream("".getBytes()));
+        stemmer = Stemmer.getDefault();
     }
 
     @Override
@@ -37,29 +32,8 @@ public class BasicFieldNormalizer implements FieldNormalizer {
                 .toArray(new String[normTokens.length]));
     }
 
-    /**
-     * A wrapper for the call to Morpha. If morpha returns null, token is
-     * returned unchanged.
-     * 
-     * @param token
-     * @param posTag
-     * @return
-     */
     private String stem(String token, String posTag) {
-        token = token.toLowerCase();
-        String wordTag = token + "_" + posTag;
-        try {
-            lexer.yyreset(new StringReader(wordTag));
-            lexer.yybegin(Morpha.scan);
-            String tokenNorm = lexer.next();
-            if (tokenNorm == null) {
-                return token;
-            } else {
-                return tokenNorm;
-            }
-        } catch (Throwable e) {
-            return token;
-        }
+        return stemmer.stem(token, posTag);
     }
 
     public String stemSingleToken(String token, String posTag) {
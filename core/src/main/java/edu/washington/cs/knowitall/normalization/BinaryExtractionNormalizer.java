@@ -1,5 +1,7 @@
 package edu.washington.cs.knowitall.normalization;
 
+import edu.washington.cs.knowitall.metrics.LatencyHistogram;
+import edu.washington.cs.knowitall.metrics.MetricsRegistry;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedBinaryExtraction;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
 
@@ -13,6 +15,10 @@ import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
  */
 public class BinaryExtractionNormalizer {
 
+    private static final MetricsRegistry METRICS = MetricsRegistry.getDefault();
+    private static final LatencyHistogram NORMALIZE_TIME = METRICS
+            .histogram("normalize");
+
     private ArgumentNormalizer argNormalizer;
     private VerbalRelationNormalizer relNormalizer;
 
@@ -51,9 +57,11 @@ public class BinaryExtractionNormalizer {
      * @return the normalized extraction
      */
     public NormalizedBinaryExtraction normalize(ChunkedBinaryExtraction extr) {
+        long start = METRICS.startTimer();
         NormalizedField arg1Norm = normalizeArgument(extr.getArgument1());
         NormalizedField arg2Norm = normalizeArgument(extr.getArgument2());
         NormalizedField relNorm = normalizeRelation(extr.getRelation());
+        METRICS.stopTimer(NORMALIZE_TIME, start);
         return new NormalizedBinaryExtraction(extr, arg1Norm, relNorm, arg2Norm);
     }
 
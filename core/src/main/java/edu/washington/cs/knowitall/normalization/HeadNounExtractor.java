@@ -3,21 +3,16 @@ package edu.washington.cs.knowitall.normalization;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
 import edu.washington.cs.knowitall.sequence.SequenceException;
 
-import java.io.ByteArrayInputStream;
-import java.io.StringReader;
-
-import uk.ac.susx.informatics.Morpha;
-
 /**
  * Created by IntelliJ IDEA. User: niranjan Date: 11/26/11 Time: 11:09 AM To
  * change this template use File | Settings | File Templates.
  */
 public class HeadNounExtractor {
 
-    private static Morpha lexer;
+    private Stemmer stemmer;
 
     public HeadNounExtractor() {
-        lexer = new Morpha(new ByteArrayInputStream("".getBytes()));
+        stemmer = Stemmer.getDefault();
     }
 
     public NormalizedField normalizeField(ChunkedExtraction field) {
@@ -93,16 +88,7 @@ public class HeadNounExtractor {
     }
 
     private String stem(String token, String posTag) {
-        token = token.toLowerCase();
-        String wordTag = token + "_" + posTag;
-        try {
-            lexer.yyreset(new StringReader(wordTag));
-            lexer.yybegin(Morpha.scan);
-            String tokenNorm = lexer.next();
-            return tokenNorm;
-        } catch (Throwable e) {
-            return token;
-        }
+        return stemmer.stem(token, posTag);
     }
 
 }
@@ -0,0 +1,300 @@
+package edu.washington.cs.knowitall.normalization;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import uk.ac.susx.informatics.Morpha;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import edu.washington.cs.knowitall.metrics.MetricsRegistry;
+
+/***
+ * A thread-safe wrapper around the {@link Morpha} stemmer, shared by the
+ * normalizers and the confidence features. A token is lower cased and stemmed
+ * according to its POS tag, and is returned unchanged if Morpha fails on it.
+ * <p>
+ * The same (token, POS tag) pairs are stemmed over and over, so results are
+ * first looked up in an optional precomputed table of frequent forms, then in
+ * a bounded cache. Each thread runs its own Morpha lexer, which is reset for
+ * every token rather than allocated again. Cache hits and misses are recorded
+ * in the default {@link MetricsRegistry} as <code>stem.cache.hit</code> and
+ * <code>stem.cache.miss</code>.
+ * </p>
+ * <p>
+ * The table of the default stemmer is read from the file named by the
+ * {@value #TABLE_PROPERTY} system property, or else from the
+ * {@value #TABLE_RESOURCE} resource if it is on the classpath. It has one
+ * <code>token&lt;TAB&gt;tag&lt;TAB&gt;stem</code> line per form, and can be
+ * built from POS-tagged text with {@link #main(String[])}.
+ * </p>
+ */
+public class Stemmer {
+
+    /** Default maximum number of stems in the cache */
+    public static final long DEFAULT_CACHE_SIZE = 50000;
+
+    /** System property naming the table of the default stemmer */
+    public static final String TABLE_PROPERTY = "reverb.stemTable";
+
+    /** Classpath resource read if {@value #TABLE_PROPERTY} is not set */
+    public static final String TABLE_RESOURCE = "stem_table.txt.gz";
+
+    /** Default number of forms written by {@link #main(String[])} */
+    public static final int DEFAULT_TABLE_SIZE = 20000;
+
+    private static final MetricsRegistry METRICS = MetricsRegistry.getDefault();
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s");
+
+    private static Stemmer defaultStemmer;
+
+    private final Map<String, String> table;
+    private final Cache<String, String> cache;
+    private final ThreadLocal<Morpha> lexers = new ThreadLocal<Morpha>() {
+        @Override
+        protected Morpha initialValue() {
+            return new Morpha(new ByteArrayInputStream(new byte[0]));
+        }
+    };
+
+    /**
+     * Constructs a new stemmer with a cache of the default size and no
+     * precomputed table.
+     */
+    public Stemmer() {
+        this(DEFAULT_CACHE_SIZE, Collections.<String, String> emptyMap());
+    }
+
+    /**
+     * Constructs a new stemmer.
+     *
+     * @param cacheSize
+     *            the maximum number of stems in the cache, or 0 to disable it
+     * @param table
+     *            precomputed stems, keyed by {@link #key(String, String)}
+     */
+    public Stemmer(long cacheSize, Map<String, String> table) {
+        this.table = new HashMap<String, String>(table);
+        if (cacheSize > 0) {
+            cache = CacheBuilder.newBuilder().maximumSize(cacheSize)
+                    .recordStats().build();
+        } else {
+            cache = null;
+        }
+    }
+
+    /**
+     * Returns the stemmer shared by the normalizers and the confidence
+     * features, loading its table on the first call.
+     *
+     * @return the default stemmer
+     * @throws IllegalStateException
+     *             if the table cannot be read
+     */
+    public static synchronized Stemmer getDefault() {
+        if (defaultStemmer == null) {
+            try {
+                defaultStemmer = new Stemmer(DEFAULT_CACHE_SIZE,
+                        loadDefaultTable());
+            } catch (IOException e) {
+                throw new IllegalStateException(
+                        "Could not load the stemmer table", e);
+            }
+        }
+        return defaultStemmer;
+    }
+
+    private static Map<String, String> loadDefaultTable() throws IOException {
+        String fileName = System.getProperty(TABLE_PROPERTY);
+        InputStream in;
+        if (fileName != null) {
+            in = new FileInputStream(new File(fileName));
+        } else {
+            in = Stemmer.class.getClassLoader().getResourceAsStream(
+                    TABLE_RESOURCE);
+            if (in == null) {
+                return Collections.emptyMap();
+            }
+        }
+        try {
+            return loadTable(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads a table of precomputed stems, gzipped or not.
+     *
+     * @param in
+     * @return the stems keyed by {@link #key(String, String)}
+     * @throws IOException
+     */
+    public static Map<String, String> loadTable(InputStream in)
+            throws IOException {
+        if (!in.markSupported()) {
+            in = new BufferedInputStream(in);
+        }
+        in.mark(2);
+        int magic = in.read() | (in.read() << 8);
+        in.reset();
+        if (magic == GZIPInputStream.GZIP_MAGIC) {
+            in = new GZIPInputStream(in);
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in,
+                "UTF-8"));
+        Map<String, String> table = new HashMap<String, String>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] fields = line.split("\t");
+            if (fields.length != 3) {
+                throw new IOException("Invalid stemmer table line: " + line);
+            }
+            table.put(key(fields[0], fields[1]), fields[2]);
+        }
+        return table;
+    }
+
+    /**
+     * @param token
+     *            a lower cased token
+     * @param posTag
+     * @return the key of the token in the table and cache, which is also the
+     *         input given to Morpha.
+     */
+    public static String key(String token, String posTag) {
+        return token + "_" + posTag;
+    }
+
+    /**
+     * Stems the given token. Underscores, which Morpha reads as the tag
+     * separator, are replaced by hyphens, and tokens containing whitespace
+     * are not stemmed.
+     *
+     * @param token
+     * @param posTag
+     * @return the lower cased stem of the token
+     */
+    public String stem(String token, String posTag) {
+        token = token.toLowerCase().replace('_', '-');
+        String key = key(token, posTag);
+        String stem = table.get(key);
+        if (stem != null) {
+            return stem;
+        }
+        if (cache == null) {
+            return morpha(token, key);
+        }
+        stem = cache.getIfPresent(key);
+        if (stem != null) {
+            METRICS.increment("stem.cache.hit", 1);
+        } else {
+            stem = morpha(token, key);
+            cache.put(key, stem);
+            METRICS.increment("stem.cache.miss", 1);
+        }
+        return stem;
+    }
+
+    private String morpha(String token, String wordTag) {
+        if (WHITESPACE.matcher(token).find()) {
+            return token;
+        }
+        Morpha lexer = lexers.get();
+        try {
+            lexer.yyreset(new StringReader(wordTag));
+            lexer.yybegin(Morpha.scan);
+            String tokenNorm = lexer.next();
+            if (tokenNorm == null) {
+                return token;
+            } else {
+                return tokenNorm;
+            }
+        } catch (Throwable e) {
+            // A failed scan may leave the lexer in any state
+            lexers.remove();
+            return token;
+        }
+    }
+
+    /**
+     * @return the statistics of the cache, or <code>null</code> if it is
+     *         disabled.
+     */
+    public CacheStats getCacheStats() {
+        return cache == null ? null : cache.stats();
+    }
+
+    /**
+     * Builds a table of the most frequent forms in POS-tagged text, read from
+     * standard input as whitespace separated <code>token_TAG</code> words.
+     * The table is written to standard output.
+     *
+     * @param args
+     *            [SIZE], the number of forms to keep
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0])
+                : DEFAULT_TABLE_SIZE;
+        final Map<String, Integer> counts = new HashMap<String, Integer>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                System.in, "UTF-8"));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            for (String word : WHITESPACE.split(line.trim())) {
+                int sep = word.lastIndexOf('_');
+                if (sep <= 0 || sep == word.length() - 1) {
+                    continue;
+                }
+                String key = key(word.substring(0, sep).toLowerCase()
+                        .replace('_', '-'), word.substring(sep + 1));
+                Integer count = counts.get(key);
+                counts.put(key, count == null ? 1 : count + 1);
+            }
+        }
+
+        List<Entry<String, Integer>> entries = new ArrayList<Entry<String, Integer>>(
+                counts.entrySet());
+        Collections.sort(entries, new Comparator<Entry<String, Integer>>() {
+            public int compare(Entry<String, Integer> e1,
+                    Entry<String, Integer> e2) {
+                int c = e2.getValue().compareTo(e1.getValue());
+                return c != 0 ? c : e1.getKey().compareTo(e2.getKey());
+            }
+        });
+
+        Stemmer stemmer = new Stemmer(0, Collections.<String, String> emptyMap());
+        PrintStream out = new PrintStream(System.out, false, "UTF-8");
+        for (Entry<String, Integer> entry : entries.subList(0,
+                Math.min(size, entries.size()))) {
+            String key = entry.getKey();
+            int sep = key.lastIndexOf('_');
+            String token = key.substring(0, sep);
+            String posTag = key.substring(sep + 1);
+            out.println(token + "\t" + posTag + "\t"
+                    + stemmer.stem(token, posTag));
+        }
+        out.flush();
+    }
+}
@@ -6,7 +6,6 @@ import java.util.List;
 
 import uk.ac.susx.informatics.Morpha;
 
-import edu.washington.cs.knowitall.morpha.MorphaStemmer;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
 import edu.washington.cs.knowitall.sequence.SequenceException;
 
@@ -26,6 +25,7 @@ public class VerbalRelationNormalizer implements FieldNormalizer {
     private boolean stripBeAdj = false;
     private HashSet<String> ignorePosTags;
     private HashSet<String> auxVerbs;
+    private Stemmer stemmer;
 
     /**
      * Constructs a new instance.
@@ -45,6 +45,8 @@ public class VerbalRelationNormalizer implements FieldNormalizer {
         auxVerbs.add("be");
         auxVerbs.add("have");
         auxVerbs.add("do");
+
+        stemmer = Stemmer.getDefault();
     }
 
     /**
@@ -89,12 +91,7 @@ public class VerbalRelationNormalizer implements FieldNormalizer {
     }
 
     private String stem(String token, String posTag) {
-        token = token.toLowerCase();
-        try {
-            return MorphaStemmer.stemToken(token, posTag);
-        } catch (Throwable e) {
-            return token;
-        }
+        return stemmer.stem(token, posTag);
     }
 
     private void stemAll(List<String> tokens, List<String> posTags) {
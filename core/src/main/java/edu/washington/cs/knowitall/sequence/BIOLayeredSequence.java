@@ -1,8 +1,8 @@
 package edu.washington.cs.knowitall.sequence;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 
 import com.google.common.collect.ImmutableCollection;
@@ -24,11 +24,15 @@ import edu.washington.cs.knowitall.commonlib.Range;
  */
 public class BIOLayeredSequence extends SimpleLayeredSequence {
 
-    // Maps layerName => immutable list of span ranges
-    private HashMap<String, List<Range>> spans;
-
-    // Maps layerName => span type => immutable list of ranges
-    private HashMap<String, ImmutableMultimap<String, Range>> spanTypes;
+    // The span layers. The spans of spanNames[k] are packed in spans[k] as
+    // (start, length, SymbolTable code of the type) triples, and are computed
+    // on demand for subsequences. spanTypes[k] maps types to ranges and
+    // spanLists[k] lists all of them, once requested.
+    private String[] spanNames;
+    private int[][] spans;
+    private ImmutableMultimap<String, Range>[] spanTypes;
+    private ImmutableList<Range>[] spanLists;
+    private int numSpanLayers;
 
     /**
      * Constructs a new {@linkplain BIOLayeredSequence} class.
@@ -37,23 +41,114 @@ public class BIOLayeredSequence extends SimpleLayeredSequence {
      */
     public BIOLayeredSequence(int length) {
         super(length);
-        spans = new HashMap<String, List<Range>>();
-        spanTypes = new HashMap<String, ImmutableMultimap<String, Range>>();
+        initSpans(1);
+    }
+
+    /**
+     * Constructs a copy of <code>source</code>, which shares the values of its
+     * layers.
+     * 
+     * @param source
+     */
+    protected BIOLayeredSequence(BIOLayeredSequence source) {
+        super(source, 0, source.getLength());
+        copySpans(source, true);
+    }
+
+    /**
+     * Constructs the subsequence of <code>source</code> starting at the given
+     * position with the given length, which shares the values of the layers
+     * of <code>source</code>. If the subsequence partially intersects a span
+     * (e.g. the subsequence starts at a I-X tag), then it will be replaced
+     * with a B-X tag.
+     * 
+     * @param source
+     * @param start
+     * @param length
+     * @throws IndexOutOfBoundsException
+     *             if the subsequence is not within <code>source</code>
+     */
+    protected BIOLayeredSequence(BIOLayeredSequence source, int start,
+            int length) {
+        super(source, start, length);
+        copySpans(source, false);
+        for (int k = 0; k < numSpanLayers; k++) {
+            String layerName = spanNames[k];
+            String first = length > 0 ? get(layerName, 0) : "";
+            if (first.startsWith("I-")) {
+                try {
+                    replaceFirst(layerName, "B-" + getType(first));
+                } catch (SequenceException e) {
+                    // A malformed I- tag (e.g. "I-" or "I-X-Y") is not part
+                    // of any span, like an O tag, so it is kept as is.
+                }
+            } else if (start == 0 && length == source.getLength()) {
+                spans[k] = source.spans[k];
+                spanTypes[k] = source.spanTypes[k];
+                spanLists[k] = source.spanLists[k];
+            }
+        }
+    }
+
+    /**
+     * Copies the span layers of source, and their spans if shareSpans is true.
+     */
+    private void copySpans(BIOLayeredSequence source, boolean shareSpans) {
+        initSpans(Math.max(source.numSpanLayers, 1));
+        numSpanLayers = source.numSpanLayers;
+        System.arraycopy(source.spanNames, 0, spanNames, 0, numSpanLayers);
+        if (shareSpans) {
+            System.arraycopy(source.spans, 0, spans, 0, numSpanLayers);
+            System.arraycopy(source.spanTypes, 0, spanTypes, 0, numSpanLayers);
+            System.arraycopy(source.spanLists, 0, spanLists, 0, numSpanLayers);
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void initSpans(int slots) {
+        spanNames = new String[slots];
+        spans = new int[slots][];
+        spanTypes = new ImmutableMultimap[slots];
+        spanLists = new ImmutableList[slots];
     }
 
     /**
      * Creates a copy of this object.
      */
     public BIOLayeredSequence clone() {
-        BIOLayeredSequence clone = new BIOLayeredSequence(getLength());
-        for (String layerName : getLayerNames()) {
-            if (isSpanLayer(layerName)) {
-                clone.addSpanLayer(layerName, getLayer(layerName));
-            } else {
-                clone.addLayer(layerName, getLayer(layerName));
+        return new BIOLayeredSequence(this);
+    }
+
+    private int getSpanSlot(String layerName) {
+        for (int k = 0; k < numSpanLayers; k++) {
+            if (spanNames[k] == layerName || spanNames[k].equals(layerName)) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    private ImmutableMultimap<String, Range> getSpanTypes(int k) {
+        ImmutableMultimap<String, Range> typeToSpans = spanTypes[k];
+        if (typeToSpans == null) {
+            int[] packed = spans[k];
+            if (packed == null) {
+                try {
+                    packed = getRanges(getLayer(spanNames[k]));
+                } catch (SequenceException e) {
+                    // The layer was checked when it was added
+                    throw new IllegalStateException(e);
+                }
             }
+            TreeMultimap<String, Range> ranges = TreeMultimap.create();
+            for (int i = 0; i < packed.length; i += 3) {
+                ranges.put(SymbolTable.getSymbol(packed[i + 2]), new Range(
+                        packed[i], packed[i + 1]));
+            }
+            typeToSpans = ImmutableMultimap.copyOf(ranges);
+            spanTypes[k] = typeToSpans;
         }
-        return clone;
+        return typeToSpans;
     }
 
     /**
@@ -64,8 +159,14 @@ public class BIOLayeredSequence extends SimpleLayeredSequence {
      */
     public List<Range> getSpans(String layerName) {
         if (hasLayer(layerName)) {
-            if (spans.containsKey(layerName)) {
-                return spans.get(layerName);
+            int k = getSpanSlot(layerName);
+            if (k >= 0) {
+                ImmutableList<Range> allSpans = spanLists[k];
+                if (allSpans == null) {
+                    allSpans = ImmutableList.copyOf(getSpanTypes(k).values());
+                    spanLists[k] = allSpans;
+                }
+                return allSpans;
             } else {
                 return new ArrayList<Range>();
             }
@@ -85,9 +186,9 @@ public class BIOLayeredSequence extends SimpleLayeredSequence {
      */
     public ImmutableCollection<Range> getSpans(String layerName, String type) {
         if (hasLayer(layerName)) {
-            if (spans.containsKey(layerName)
-                    && spanTypes.get(layerName).containsKey(type)) {
-                return spanTypes.get(layerName).get(type);
+            int k = getSpanSlot(layerName);
+            if (k >= 0 && getSpanTypes(k).containsKey(type)) {
+                return getSpanTypes(k).get(type);
             } else {
                 return ImmutableSet.of();
             }
@@ -113,14 +214,19 @@ public class BIOLayeredSequence extends SimpleLayeredSequence {
     public void addSpanLayer(String layerName, List<String> input)
             throws SequenceException {
 
-        ImmutableMultimap<String, Range> typeToSpans = ImmutableMultimap
-                .copyOf(getRanges(input));
-        List<Range> allRanges = new ArrayList<Range>();
-        Collections.sort(allRanges);
-        super.addLayer(layerName, input);
+        int[] packed = getRanges(input);
+        super.addSymbolLayer(layerName, input);
 
-        spans.put(layerName, ImmutableList.copyOf(typeToSpans.values()));
-        spanTypes.put(layerName, typeToSpans);
+        if (numSpanLayers == spanNames.length) {
+            int slots = spanNames.length * 2;
+            spanNames = Arrays.copyOf(spanNames, slots);
+            spans = Arrays.copyOf(spans, slots);
+            spanTypes = Arrays.copyOf(spanTypes, slots);
+            spanLists = Arrays.copyOf(spanLists, slots);
+        }
+        spanNames[numSpanLayers] = layerName;
+        spans[numSpanLayers] = packed;
+        numSpanLayers++;
     }
 
     /**
@@ -180,17 +286,16 @@ public class BIOLayeredSequence extends SimpleLayeredSequence {
             int length) {
         ImmutableList<String> subLayer = super.getSubSequence(layerName, start,
                 length);
-        if (spans.containsKey(layerName)) {
+        if (isSpanLayer(layerName) && subLayer.size() > 0
+                && subLayer.get(0).startsWith("I-")) {
             List<String> spanSub = new ArrayList<String>(length);
             spanSub.addAll(subLayer);
-            if (spanSub.size() > 0 && spanSub.get(0).startsWith("I-")) {
 
-                try {
-                    String type = getType(spanSub.get(0));
-                    spanSub.set(0, "B-" + type);
-                } catch (SequenceException e) {
-                    // TODO: what is going on here?
-                }
+            try {
+                String type = getType(spanSub.get(0));
+                spanSub.set(0, "B-" + type);
+            } catch (SequenceException e) {
+                // TODO: what is going on here?
             }
             return ImmutableList.copyOf(spanSub);
         } else {
@@ -218,24 +323,7 @@ public class BIOLayeredSequence extends SimpleLayeredSequence {
      * then it will be replaced with a B-X tag.
      */
     public BIOLayeredSequence getSubSequence(int start, int length) {
-        BIOLayeredSequence sub = new BIOLayeredSequence(length);
-        for (String layerName : getLayerNames()) {
-            List<String> subLayer = getSubSequence(layerName, start, length);
-
-            try {
-                if (isSpanLayer(layerName)) {
-                    sub.addSpanLayer(layerName, subLayer);
-                } else {
-                    sub.addLayer(layerName, subLayer);
-                }
-            } catch (SequenceException e) {
-                String msg = String.format(
-                        "Could not create subsequence of length %s starting at %s "
-                                + "for layer %s", start, length, layerName);
-                throw new IllegalStateException(msg, e);
-            }
-        }
-        return sub;
+        return new BIOLayeredSequence(this, start, length);
     }
 
     /**
@@ -248,25 +336,33 @@ public class BIOLayeredSequence extends SimpleLayeredSequence {
     }
 
     protected boolean isSpanLayer(String layerName) {
-        return spans.containsKey(layerName);
+        return getSpanSlot(layerName) >= 0;
     }
 
-    private TreeMultimap<String, Range> getRanges(List<String> tags)
-            throws SequenceException {
+    /**
+     * @return the spans of the given tags, as (start, length, type code)
+     *         triples in order of their start.
+     */
+    private int[] getRanges(List<String> tags) throws SequenceException {
 
         String inType = null;
         int startIndex = -1;
         int length = 0;
 
-        TreeMultimap<String, Range> results = TreeMultimap.create();
+        int[] results = new int[12];
+        int size = 0;
 
         for (int i = 0; i < tags.size(); i++) {
 
             String tag = tags.get(i);
-            if (inType != null && (!tag.equals("I-" + inType))) {
+            if (inType != null && !isInside(tag, inType)) {
 
-                Range r = new Range(startIndex, length);
-                results.put(inType, r);
+                if (size == results.length) {
+                    results = Arrays.copyOf(results, size * 2);
+                }
+                results[size++] = startIndex;
+                results[size++] = length;
+                results[size++] = SymbolTable.intern(inType);
 
                 inType = null;
                 startIndex = -1;
@@ -280,8 +376,7 @@ public class BIOLayeredSequence extends SimpleLayeredSequence {
                 startIndex = i;
                 length = 1;
 
-            } else if (tag.startsWith("I-") && inType != null
-                    && tag.equals("I-" + inType)) {
+            } else if (inType != null && isInside(tag, inType)) {
 
                 length++;
 
@@ -289,11 +384,23 @@ public class BIOLayeredSequence extends SimpleLayeredSequence {
         }
 
         if (inType != null) {
-            Range r = new Range(startIndex, length);
-            results.put(inType, r);
+            if (size == results.length) {
+                results = Arrays.copyOf(results, size * 2);
+            }
+            results[size++] = startIndex;
+            results[size++] = length;
+            results[size++] = SymbolTable.intern(inType);
         }
 
-        return results;
+        return Arrays.copyOf(results, size);
+    }
+
+    /**
+     * @return true if tag equals "I-" + type
+     */
+    private static boolean isInside(String tag, String type) {
+        return tag.length() == type.length() + 2 && tag.startsWith("I-")
+                && tag.endsWith(type);
     }
 
     private String getType(String tag) throws SequenceException {
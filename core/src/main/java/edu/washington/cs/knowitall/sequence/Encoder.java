@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import com.google.common.base.Joiner;
@@ -37,10 +38,20 @@ import com.google.common.collect.Sets;
  * represents tuples as String arrays.
  * </p>
  * <p>
- * There is no guarantee on the actual integer values assigned to each tuple.
- * The mapping cannot be larger than 2^16. This means that the product
+ * There is no guarantee on the actual integer values assigned to each tuple,
+ * except that as chars they are never line terminators or surrogates, so that
+ * {@code .} and {@code $} in an encoded pattern treat every token alike. The
+ * mapping cannot be larger than 2^16. This means that the product
  * {@code (|S_1|+1) * (|S_2|+1) * ... * (|S_n| + 1)} must be less than or equal
- * to 2^16.
+ * to 2^16, minus the number of excluded chars.
+ * </p>
+ * <p>
+ * An encoder constructed with layer names can also encode a whole
+ * {@link LayeredSequence} at once (see {@link #encode(LayeredSequence)}). This
+ * reads the layers directly, using the interned codes of
+ * {@link SimpleLayeredSequence#getLayerCodes(String)} when the sequence has
+ * them, and caches the result on {@link SimpleLayeredSequence} objects so
+ * that patterns sharing an encoder do not encode the same sequence twice.
  * </p>
  * 
  * @author afader
@@ -65,6 +76,23 @@ public class Encoder {
     // them hashable) to integers.
     private HashMap<StringArrayWrapper, Integer> encodingTable;
 
+    // The layer names of the tuple positions, if known
+    private List<String> layerNames;
+
+    // For each tuple position, the index of each symbol in its alphabet, the
+    // index of UNK, and the multiplier of that index in the encoding. The
+    // encoding of a tuple is the sum of index * stride over the positions.
+    private List<Map<String, Integer>> symbolIndexes;
+    private int[] unkIndexes;
+    private int[] strides;
+
+    // The char assigned to each sum of index * stride
+    private char[] valueChars;
+
+    // For each tuple position, maps SymbolTable codes to alphabet indexes.
+    // Grown on demand; -1 means not computed yet.
+    private volatile int[][] codeIndexes;
+
     /**
      * Constructs a new encoding table using the given symbol sets. These symbol
      * sets should not contain the unknown symbol {@link Encoder#UNK}.
@@ -104,18 +132,205 @@ public class Encoder {
             throw new SequenceException("Maximum size exceeded");
         }
 
+        // Number each symbol of each alphabet, and compute the stride of each
+        // position so that every tuple gets a distinct value.
+        int n = alphabets.size();
+        symbolIndexes = new ArrayList<Map<String, Integer>>(n);
+        unkIndexes = new int[n];
+        strides = new int[n];
+        int stride = 1;
+        for (int i = n - 1; i >= 0; i--) {
+            Map<String, Integer> index = new HashMap<String, Integer>();
+            for (String symbol : alphabets.get(i)) {
+                index.put(symbol, index.size());
+            }
+            symbolIndexes.add(0, index);
+            unkIndexes[i] = index.get(UNK);
+            strides[i] = stride;
+            stride *= index.size();
+        }
+        codeIndexes = new int[n][0];
+
+        // Assign chars to values, skipping the ones that have a special
+        // meaning to java.util.regex
+        valueChars = new char[encodingTableSize];
+        char c = 0;
+        for (int value = 0; value < encodingTableSize; value++) {
+            while (isReserved(c)) {
+                c++;
+            }
+            if (c >= MAX_SIZE) {
+                throw new SequenceException("Maximum size exceeded");
+            }
+            valueChars[value] = c++;
+        }
+
         // Create the encoding table. Each tuple is represented as a wrapper
         // around String arrays, which allows them to be keys in a HashMap.
         encodingTable = new HashMap<StringArrayWrapper, Integer>(
                 encodingTableSize);
-        int i = 0;
         for (List<String> tupleAr : Sets.cartesianProduct(alphabets)) {
-            StringArrayWrapper tuple = new StringArrayWrapper(
-                    tupleAr.toArray(new String[0]));
-            encodingTable.put(tuple, i);
-            i++;
+            String[] tupleData = tupleAr.toArray(new String[0]);
+            int value = 0;
+            for (int i = 0; i < n; i++) {
+                value += symbolIndexes.get(i).get(tupleData[i]) * strides[i];
+            }
+            encodingTable.put(new StringArrayWrapper(tupleData),
+                    (int) valueChars[value]);
+        }
+
+    }
+
+    /**
+     * @return true if c is a line terminator or a surrogate, which
+     *         {@link java.util.regex.Pattern} does not treat like other chars.
+     */
+    private static boolean isReserved(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028'
+                || c == '\u2029' || Character.isSurrogate(c);
+    }
+
+    /**
+     * Constructs a new encoding table using the given symbol sets, where the
+     * i-th set holds the symbols of the layer named by the i-th layer name.
+     * Unlike encoders built with {@link #Encoder(List)}, the result can encode
+     * whole sequences with {@link #encode(LayeredSequence)}.
+     *
+     * @param layerNames
+     * @param symbols
+     * @throws SequenceException
+     *             if the symbol sets result in an encoding table larger than
+     *             {@link Encoder#MAX_SIZE}, or if there is not one symbol set
+     *             per layer name.
+     */
+    public Encoder(List<String> layerNames, List<Set<String>> symbols)
+            throws SequenceException {
+        this(symbols);
+        if (layerNames.size() != symbols.size()) {
+            String msg = String.format(
+                    "Expected %s symbol sets for layers %s, got %s",
+                    layerNames.size(), layerNames, symbols.size());
+            throw new SequenceException(msg);
         }
+        this.layerNames = new ArrayList<String>(layerNames);
+    }
+
+    /**
+     * @return the layer names of the tuple positions, or null if this encoder
+     *         was constructed without them.
+     */
+    public List<String> getLayerNames() {
+        return layerNames;
+    }
 
+    /**
+     * Encodes every position of the given sequence, reading the value of
+     * each tuple position from the layer with the corresponding name. This is
+     * equivalent to calling {@link #encode(String[])} on each vertical slice
+     * of the sequence, without building the slices. If the sequence is a
+     * {@link SimpleLayeredSequence}, the result is cached on it, so encoding
+     * the same sequence again with this encoder is free.
+     *
+     * @param seq
+     * @return the encoded sequence, one char per position
+     * @throws SequenceException
+     *             if this encoder has no layer names, if seq is missing one of
+     *             the layers, or if a value equals {@link #UNK}
+     */
+    public CharSequence encode(LayeredSequence seq) throws SequenceException {
+        if (layerNames == null) {
+            throw new SequenceException(
+                    "Encoder was constructed without layer names");
+        }
+
+        SimpleLayeredSequence simpleSeq = null;
+        if (seq instanceof SimpleLayeredSequence) {
+            simpleSeq = (SimpleLayeredSequence) seq;
+            CharSequence cached = simpleSeq.getCachedEncoding(this);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        int n = seq.getLength();
+        if (n == 0) {
+            return "";
+        }
+        char[] encoded = new char[n];
+        for (int j = 0; j < layerNames.size(); j++) {
+            String layerName = layerNames.get(j);
+            if (!seq.hasLayer(layerName)) {
+                String msg = String.format(
+                        "seq does not have layer with name '%s'", layerName);
+                throw new SequenceException(msg);
+            }
+            int[] codes = simpleSeq == null ? null : simpleSeq
+                    .getLayerCodes(layerName);
+            if (codes != null) {
+                for (int i = 0; i < n; i++) {
+                    encoded[i] += getCodeIndex(j, codes[i]) * strides[j];
+                }
+            } else {
+                List<String> layer = simpleSeq == null ? null : simpleSeq
+                        .getLayer(layerName);
+                for (int i = 0; i < n; i++) {
+                    String value = layer == null ? seq.get(layerName, i)
+                            : layer.get(i);
+                    encoded[i] += getIndex(j, value) * strides[j];
+                }
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            encoded[i] = valueChars[encoded[i]];
+        }
+
+        String result = new String(encoded);
+        if (simpleSeq != null) {
+            simpleSeq.setCachedEncoding(this, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return the index of value in the alphabet of the given position.
+     */
+    private int getIndex(int position, String value) throws SequenceException {
+        Integer index = symbolIndexes.get(position).get(value);
+        if (index == null) {
+            return unkIndexes[position];
+        } else if (value.equals(UNK)) {
+            String msg = String.format("Symbol at position %s equals %s",
+                    position, UNK);
+            throw new SequenceException(msg);
+        }
+        return index;
+    }
+
+    /**
+     * @return the index in the alphabet of the given position of the symbol
+     *         with the given {@link SymbolTable} code.
+     */
+    private int getCodeIndex(int position, int code) throws SequenceException {
+        int[] indexes = codeIndexes[position];
+        if (code < indexes.length && indexes[code] >= 0) {
+            return indexes[code];
+        }
+        int index = getIndex(position, SymbolTable.getSymbol(code));
+
+        // Copy on write, so that readers never see a partially filled array.
+        // Concurrent updates may lose each other's entries, which only means
+        // they get computed again.
+        int[] updated = new int[Math.max(indexes.length, 2 * code + 1)];
+        System.arraycopy(indexes, 0, updated, 0, indexes.length);
+        for (int i = indexes.length; i < updated.length; i++) {
+            updated[i] = -1;
+        }
+        updated[code] = index;
+        int[][] all = codeIndexes.clone();
+        all[position] = updated;
+        codeIndexes = all;
+        return index;
     }
 
     /**
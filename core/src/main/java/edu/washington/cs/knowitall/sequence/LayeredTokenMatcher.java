@@ -1,48 +1,182 @@
 package edu.washington.cs.knowitall.sequence;
 
 import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class LayeredTokenMatcher {
     private Matcher m;
 
+    // Used instead of m by matchers of the DFA engine. Groups other than the
+    // whole match are resolved with a java.util.regex matcher on demand.
+    private TokenAutomaton forward;
+    private TokenAutomaton reverse;
+    private Pattern encodedPattern;
+    private int groupCount;
+    private CharSequence encoded;
+    private int[] starts;
+    private int searchFrom;
+    private int start;
+    private int end;
+    private boolean groupsResolved;
+
     protected LayeredTokenMatcher(Matcher m) {
         this.m = m;
     }
 
+    /**
+     * Constructs a matcher for the {@link LayeredTokenPattern.Engine#DFA}
+     * engine, which finds leftmost-longest matches.
+     */
+    LayeredTokenMatcher(TokenAutomaton forward, TokenAutomaton reverse,
+            Pattern encodedPattern, int groupCount, CharSequence encoded) {
+        this.forward = forward;
+        this.reverse = reverse;
+        this.encodedPattern = encodedPattern;
+        this.groupCount = groupCount;
+        this.encoded = encoded;
+        reset();
+    }
+
+    private boolean isDfa() {
+        return forward != null;
+    }
+
     public int end() {
+        if (isDfa()) {
+            checkMatch();
+            return end;
+        }
         return m.end();
     }
 
     public int end(int group) {
+        if (isDfa() && group == 0) {
+            return end();
+        } else if (isDfa()) {
+            resolveGroups();
+        }
         return m.end(group);
     }
 
     public boolean find() {
+        if (isDfa()) {
+            return search(searchFrom);
+        }
         return m.find();
     }
 
     public boolean find(int group) {
+        if (isDfa()) {
+            if (group < 0 || group > encoded.length()) {
+                throw new IndexOutOfBoundsException("Illegal start index");
+            }
+            reset();
+            return search(group);
+        }
         return m.find(group);
     }
 
     public int groupCount() {
+        if (isDfa()) {
+            return groupCount;
+        }
         return m.groupCount();
     }
 
     public boolean matches() {
+        if (isDfa()) {
+            reset();
+            int n = encoded.length();
+            if (forward.longestMatch(encoded, 0) == n) {
+                setMatch(0, n);
+                return true;
+            }
+            return false;
+        }
         return m.matches();
     }
 
     public int start() {
+        if (isDfa()) {
+            checkMatch();
+            return start;
+        }
         return m.start();
     }
 
     public int start(int group) {
+        if (isDfa() && group == 0) {
+            return start();
+        } else if (isDfa()) {
+            resolveGroups();
+        }
         return m.start(group);
     }
 
     public void reset() {
-        m.reset();
+        if (isDfa()) {
+            searchFrom = 0;
+            start = -1;
+            end = -1;
+            groupsResolved = false;
+        } else {
+            m.reset();
+        }
+    }
+
+    private boolean search(int from) {
+        if (starts == null) {
+            starts = reverse.matchStarts(encoded);
+        }
+        for (int i = from; i < starts.length; i++) {
+            if (starts[i] != 0) {
+                int matchEnd = forward.longestMatch(encoded, i);
+                if (matchEnd >= 0) {
+                    setMatch(i, matchEnd);
+                    return true;
+                }
+            }
+        }
+        start = -1;
+        end = -1;
+        searchFrom = starts.length;
+        return false;
+    }
+
+    private void setMatch(int matchStart, int matchEnd) {
+        start = matchStart;
+        end = matchEnd;
+        searchFrom = matchEnd == matchStart ? matchEnd + 1 : matchEnd;
+        groupsResolved = false;
+    }
+
+    private void checkMatch() {
+        if (start < 0) {
+            throw new IllegalStateException("No match available");
+        }
+    }
+
+    /**
+     * Matches the encoded pattern against exactly the current match, so that
+     * the groups of the DFA engine are those java.util.regex would assign to
+     * it. This backtracks, so unlike finding the match it is not linear-time
+     * (see {@link LayeredTokenPattern.Engine#DFA}).
+     */
+    private void resolveGroups() {
+        checkMatch();
+        if (!groupsResolved) {
+            if (m == null) {
+                m = encodedPattern.matcher(encoded);
+                m.useAnchoringBounds(false);
+                m.useTransparentBounds(true);
+            }
+            m.region(start, end);
+            if (!m.matches()) {
+                throw new IllegalStateException(
+                        "Could not resolve groups of match");
+            }
+            groupsResolved = true;
+        }
     }
 
 }
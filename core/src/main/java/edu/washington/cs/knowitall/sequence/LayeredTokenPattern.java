@@ -64,12 +64,82 @@ import com.google.common.base.Joiner;
  * at least one proper noun, and then ending with a period. Captures the two
  * proper nouns as groups (see {@link LayeredTokenMatcher}).</li>
  * </ul>
+ * <p>
+ * Patterns that are applied to the same sequences can be compiled together
+ * with {@link #compileShared(String...)}. They then share one {@link Encoder},
+ * so a sequence is only encoded once for all of them.
+ * </p>
+ * <p>
+ * There are two matching engines (see {@link Engine}). The default is
+ * {@link Engine#REGEX}, unless the system property
+ * {@value #ENGINE_PROPERTY} is set to {@code dfa}, and can be changed with
+ * {@link #setDefaultEngine(Engine)}. The default engine applies to patterns
+ * constructed without one, such as those of {@code RegexExtractor} (used for
+ * the French relation pattern) and of {@code ReVerbFeatures}. It does not
+ * apply to {@link LayeredTokenPatternSet}, which always matches with its own
+ * automaton: the English relation patterns of
+ * {@code ReVerbRelationExtractor} are matched that way whatever the default
+ * engine.
+ * </p>
  * 
  * @author afader
  * 
  */
 public class LayeredTokenPattern {
 
+    /**
+     * The engines that can be used to match a pattern.
+     */
+    public enum Engine {
+        /**
+         * Matches the encoded pattern with {@link java.util.regex.Pattern}.
+         * Matches are leftmost-first, as in Perl, but backtracking can take
+         * exponential time on nested quantifiers.
+         */
+        REGEX,
+
+        /**
+         * Matches the pattern with a lazily built DFA over the encoded
+         * alphabet. Finding a match takes time linear in the length of the
+         * sequence, whatever the nesting of quantifiers; finding every match
+         * can take quadratic time when each search reads far past the end of
+         * its match. Matches are leftmost-longest, as in POSIX. Groups other
+         * than the whole match are resolved with
+         * {@link java.util.regex.Pattern} on the matched subsequence only, so
+         * accessing them is not linear-time: it backtracks like
+         * {@link #REGEX}, over the match instead of the whole sequence. For
+         * this reason, {@code RegexGroupExtractor} always uses
+         * {@link #REGEX}. Patterns using constructs that the DFA does not
+         * support, such as lookaround, are matched with {@link #REGEX}.
+         */
+        DFA
+    }
+
+    /**
+     * The system property that sets the initial default engine.
+     */
+    public static final String ENGINE_PROPERTY = "reverb.pattern.engine";
+
+    private static volatile Engine defaultEngine = "dfa"
+            .equalsIgnoreCase(System.getProperty(ENGINE_PROPERTY)) ? Engine.DFA
+            : Engine.REGEX;
+
+    /**
+     * Sets the engine used by patterns constructed without one.
+     * 
+     * @param engine
+     */
+    public static void setDefaultEngine(Engine engine) {
+        defaultEngine = engine;
+    }
+
+    /**
+     * @return the engine used by patterns constructed without one.
+     */
+    public static Engine getDefaultEngine() {
+        return defaultEngine;
+    }
+
     // The caller-supplied pattern string
     private String patternString;
 
@@ -88,6 +158,11 @@ public class LayeredTokenPattern {
     private Encoder encoder;
     private String encodedPatternString;
     private Pattern encodedPattern;
+    private int groupCount;
+
+    // The automata of the DFA engine, null with the regex engine
+    private TokenAutomaton forwardAutomaton;
+    private TokenAutomaton reverseAutomaton;
 
     /**
      * Constructs a new instance from the given String pattern
@@ -97,12 +172,95 @@ public class LayeredTokenPattern {
      *             if unable to compile patternString
      */
     public LayeredTokenPattern(String patternString) throws SequenceException {
+        this(patternString, defaultEngine);
+    }
+
+    /**
+     * Constructs a new instance from the given String pattern, matched with
+     * the given engine.
+     * 
+     * @param patternString
+     * @param engine
+     * @throws SequenceException
+     *             if unable to compile patternString
+     */
+    public LayeredTokenPattern(String patternString, Engine engine)
+            throws SequenceException {
+        this(patternString, null, engine);
+    }
+
+    /**
+     * Constructs a new instance from the given String pattern, using the given
+     * encoder, or building a new one if it is null.
+     * 
+     * @param patternString
+     * @param sharedEncoder
+     * @param engine
+     * @throws SequenceException
+     *             if unable to compile patternString
+     */
+    private LayeredTokenPattern(String patternString, Encoder sharedEncoder,
+            Engine engine) throws SequenceException {
         this.patternString = patternString;
         tokenizePattern();
         validatePattern();
         buildAlphabets();
-        buildEncoder();
+        if (sharedEncoder == null) {
+            buildEncoder();
+        } else {
+            layerNames = sharedEncoder.getLayerNames();
+            encoder = sharedEncoder;
+        }
         encodePattern();
+        if (engine == Engine.DFA) {
+            buildAutomata();
+        }
+    }
+
+    /**
+     * Compiles the given patterns so that they share one {@link Encoder},
+     * whose alphabets are the union of the alphabets of the patterns. Each
+     * returned pattern matches exactly what it would match if compiled on its
+     * own, but a {@link SimpleLayeredSequence} matched against several of them
+     * is only encoded once. Sequences must have every layer used by any of the
+     * patterns.
+     * 
+     * @param patternStrings
+     * @return the compiled patterns, in the given order
+     * @throws SequenceException
+     *             if unable to compile one of the patterns, or if the combined
+     *             alphabets are too large for an {@link Encoder}
+     */
+    public static List<LayeredTokenPattern> compileShared(
+            String... patternStrings) throws SequenceException {
+        List<String> layerNames = new ArrayList<String>();
+        Map<String, Set<String>> layerAlphabets = new HashMap<String, Set<String>>();
+        for (String patternString : patternStrings) {
+            LayeredTokenPattern pattern = new LayeredTokenPattern(
+                    patternString, Engine.REGEX);
+            for (String layerName : pattern.layerNames) {
+                if (!layerAlphabets.containsKey(layerName)) {
+                    layerNames.add(layerName);
+                    layerAlphabets.put(layerName, new HashSet<String>());
+                }
+                layerAlphabets.get(layerName).addAll(
+                        pattern.layerAlphabets.get(layerName));
+            }
+        }
+
+        List<Set<String>> sets = new ArrayList<Set<String>>();
+        for (String layerName : layerNames) {
+            sets.add(layerAlphabets.get(layerName));
+        }
+        Encoder encoder = new Encoder(layerNames, sets);
+
+        List<LayeredTokenPattern> patterns = new ArrayList<LayeredTokenPattern>(
+                patternStrings.length);
+        for (String patternString : patternStrings) {
+            patterns.add(new LayeredTokenPattern(patternString, encoder,
+                    defaultEngine));
+        }
+        return patterns;
     }
 
     @Override
@@ -184,7 +342,7 @@ public class LayeredTokenPattern {
         for (String layerName : layerNames) {
             sets.add(layerAlphabets.get(layerName));
         }
-        encoder = new Encoder(sets);
+        encoder = new Encoder(layerNames, sets);
     }
 
     /**
@@ -211,6 +369,30 @@ public class LayeredTokenPattern {
         }
         encodedPatternString = Joiner.on("").join(encodedTokens);
         encodedPattern = Pattern.compile(encodedPatternString);
+        groupCount = encodedPattern.matcher("").groupCount();
+    }
+
+    /**
+     * Compiles the pattern into the automata of the DFA engine, leaving them
+     * null if the pattern is not supported by it.
+     */
+    private void buildAutomata() {
+        try {
+            forwardAutomaton = TokenAutomaton.longest(this, false);
+            reverseAutomaton = TokenAutomaton.longest(this, true);
+        } catch (SequenceException e) {
+            forwardAutomaton = null;
+            reverseAutomaton = null;
+        }
+    }
+
+    /**
+     * @return the engine that this pattern is matched with. This is
+     *         {@link Engine#REGEX} if the pattern was constructed with
+     *         {@link Engine#DFA} but is not supported by it.
+     */
+    public Engine getEngine() {
+        return forwardAutomaton == null ? Engine.REGEX : Engine.DFA;
     }
 
     /**
@@ -224,53 +406,32 @@ public class LayeredTokenPattern {
      */
     public LayeredTokenMatcher matcher(LayeredSequence seq)
             throws SequenceException {
-        String encoded = encodeSequence(seq);
+        CharSequence encoded = encoder.encode(seq);
+        if (forwardAutomaton != null) {
+            return new LayeredTokenMatcher(forwardAutomaton, reverseAutomaton,
+                    encodedPattern, groupCount, encoded);
+        }
         Matcher m = encodedPattern.matcher(encoded);
         return new LayeredTokenMatcher(m);
     }
 
     /**
-     * Takes the given layered sequence object and encodes it using the
-     * {@link Encoder} object of this instance.
-     * 
-     * @param seq
-     * @return an encoded version of seq
-     * @throws SequenceException
+     * @return the encoder used to encode sequences for this pattern.
      */
-    private String encodeSequence(LayeredSequence seq) throws SequenceException {
-        int n = seq.getLength();
-        char[] encoded = new char[n];
-        for (int i = 0; i < n; i++) {
-            String[] tuple = getTupleAt(seq, i);
-            encoded[i] = encoder.encode(tuple);
-        }
-        return new String(encoded);
+    Encoder getEncoder() {
+        return encoder;
     }
 
-    /**
-     * Returns a vertical "slice" of the given layered sequence at index i. This
-     * is a tuple containing each layer's value at index i.
-     * 
-     * @param seq
-     * @param i
-     * @return the tuple at index i
-     * @throws SequenceException
-     *             if unable to get the tuple
-     */
-    private String[] getTupleAt(LayeredSequence seq, int i)
-            throws SequenceException {
-        String[] tuple = new String[encoder.size()];
-        for (int j = 0; j < layerNames.size(); j++) {
-            String layerName = layerNames.get(j);
-            if (seq.hasLayer(layerName)) {
-                tuple[j] = seq.get(layerNames.get(j), i);
-            } else {
-                String msg = String.format(
-                        "seq does not have layer with name '%s'", layerName);
-                throw new SequenceException(msg);
-            }
-        }
-        return tuple;
+    String[] getPatternTokens() {
+        return patternTokens;
+    }
+
+    String[] getPatternSymbols() {
+        return patternSymbols;
+    }
+
+    String[] getPatternLayerNames() {
+        return patternLayerNames;
     }
 
     /**
@@ -0,0 +1,73 @@
+package edu.washington.cs.knowitall.sequence;
+
+import java.util.Arrays;
+import java.util.List;
+
+import edu.washington.cs.knowitall.commonlib.Range;
+
+/**
+ * A set of {@link LayeredTokenPattern} objects that are matched against a
+ * sequence together. The patterns are compiled with
+ * {@link LayeredTokenPattern#compileShared(String...)} and then into a single
+ * automaton, so {@link #findAll(LayeredSequence)} encodes the sequence once and
+ * finds the matches of every pattern together: one right-to-left scan marks
+ * where matches can start, and the patterns are then matched left to right
+ * from those positions only. The matches are the same as those found by
+ * calling {@link LayeredTokenMatcher#find()} with each pattern separately.
+ * <p>
+ * Patterns can use tokens, classes of tokens, groups, alternation, the
+ * quantifiers {@code ?}, {@code *} and {@code +} (greedy or reluctant),
+ * {@code .}, {@code ^} and {@code $}. At most 16 patterns are supported.
+ * Instances are thread-safe.
+ * </p>
+ */
+public class LayeredTokenPatternSet {
+
+    private final List<LayeredTokenPattern> patterns;
+    private final Encoder encoder;
+    private final TokenAutomaton automaton;
+    private final TokenAutomaton startAutomaton;
+
+    /**
+     * Constructs a new instance from the given String patterns.
+     *
+     * @param patternStrings
+     * @throws SequenceException
+     *             if unable to compile one of the patterns, or if a pattern
+     *             uses a construct that is not supported
+     */
+    public LayeredTokenPatternSet(String... patternStrings)
+            throws SequenceException {
+        patterns = LayeredTokenPattern.compileShared(patternStrings);
+        encoder = patterns.get(0).getEncoder();
+        automaton = new TokenAutomaton(patterns);
+        startAutomaton = TokenAutomaton.starts(patterns);
+    }
+
+    /**
+     * @return the patterns in this set, in the order given to the constructor
+     */
+    public List<LayeredTokenPattern> getPatterns() {
+        return patterns;
+    }
+
+    /**
+     * Finds the matches of every pattern in the given sequence.
+     *
+     * @param seq
+     * @return for each pattern in order, the ranges of its matches, in the
+     *         order they would be found by its {@link LayeredTokenMatcher}
+     * @throws SequenceException
+     *             if unable to encode seq
+     */
+    public List<List<Range>> findAll(LayeredSequence seq)
+            throws SequenceException {
+        CharSequence encoded = encoder.encode(seq);
+        return automaton.findAll(encoded, startAutomaton.matchStarts(encoded));
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(patterns.toArray());
+    }
+}
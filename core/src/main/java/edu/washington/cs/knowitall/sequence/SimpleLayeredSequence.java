@@ -1,12 +1,13 @@
 package edu.washington.cs.knowitall.sequence;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
 
 import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 
 import edu.washington.cs.knowitall.commonlib.Range;
@@ -17,31 +18,108 @@ import edu.washington.cs.knowitall.commonlib.Range;
  * part-of-speech tags). In this implementation, the length of the sequence is
  * fixed and the values at each position in the sequence cannot be changed. New
  * layers can be added.
+ * <p>
+ * Layers are kept in a small number of named slots. The values of a layer
+ * added with {@link #addSymbolLayer(String, List)} are stored as
+ * {@link SymbolTable} codes in a <code>short</code> array, and
+ * {@link #getLayerCodes(String)} caches them as an <code>int</code> array on
+ * the first call. Subsequences share
+ * the arrays and lists of their parent, so that
+ * {@link #getSubSequence(int, int)} only copies the slots.
+ * </p>
  * 
  * @author afader
  * 
  */
 public class SimpleLayeredSequence implements LayeredSequence {
 
-    private HashMap<String, ImmutableList<String>> layers;
-    private HashSet<String> layerNames;
+    private static final int INITIAL_SLOTS = 3;
+
+    // The layers in the order they were added. A layer is either a list, or
+    // the codes codes[slot][codeOffsets[slot] + i]; in the latter case
+    // lists[slot] caches the list built from the codes, if any.
+    private String[] names;
+    private ImmutableList<String>[] lists;
+    private short[][] codes;
+    private int[] codeOffsets;
     private int numLayers;
     private int length;
 
+    // The most recent result of Encoder.encode(LayeredSequence) on this
+    // sequence, reset whenever a layer is added
+    private volatile CachedEncoding cachedEncoding;
+
+    // The results of getLayerCodes by slot. The array is replaced rather than
+    // updated, so that its elements are safely published. Computing a result
+    // twice is harmless.
+    private volatile int[][] cachedLayerCodes;
+
     /**
      * Constructs a new layered sequence with the given length
      * 
      * @param length
      */
     public SimpleLayeredSequence(int length) {
-        init();
+        init(INITIAL_SLOTS);
         this.length = length;
         numLayers = 0;
     }
 
-    private void init() {
-        layers = new HashMap<String, ImmutableList<String>>();
-        layerNames = new HashSet<String>();
+    /**
+     * Constructs the subsequence of <code>source</code> starting at the given
+     * position with the given length. The subsequence shares the values of
+     * the layers of <code>source</code>.
+     * 
+     * @param source
+     * @param start
+     * @param length
+     * @throws IndexOutOfBoundsException
+     *             if the subsequence is not within <code>source</code>
+     */
+    protected SimpleLayeredSequence(SimpleLayeredSequence source, int start,
+            int length) {
+        Preconditions.checkPositionIndexes(start, start + length,
+                source.length);
+        init(Math.max(source.numLayers, INITIAL_SLOTS));
+        this.length = length;
+        numLayers = source.numLayers;
+        for (int i = 0; i < numLayers; i++) {
+            names[i] = source.names[i];
+            ImmutableList<String> list = source.lists[i];
+            if (list != null) {
+                lists[i] = list.subList(start, start + length);
+            }
+            if (source.codes[i] != null) {
+                codes[i] = source.codes[i];
+                codeOffsets[i] = source.codeOffsets[i] + start;
+            }
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void init(int slots) {
+        names = new String[slots];
+        lists = new ImmutableList[slots];
+        codes = new short[slots][];
+        codeOffsets = new int[slots];
+    }
+
+    private int getSlot(String layerName) {
+        for (int i = 0; i < numLayers; i++) {
+            if (names[i] == layerName || names[i].equals(layerName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int getExistingSlot(String layerName) {
+        int slot = getSlot(layerName);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Invalid layer name: "
+                    + layerName);
+        }
+        return slot;
     }
 
     /**
@@ -49,12 +127,19 @@ public class SimpleLayeredSequence implements LayeredSequence {
      * @return an immutable list of the layer
      */
     public ImmutableList<String> getLayer(String layerName) {
-        if (hasLayer(layerName)) {
-            return layers.get(layerName);
-        } else {
-            throw new IllegalArgumentException("Invalid layer name: "
-                    + layerName);
+        int slot = getExistingSlot(layerName);
+        ImmutableList<String> list = lists[slot];
+        if (list == null) {
+            String[] values = new String[length];
+            short[] layerCodes = codes[slot];
+            int offset = codeOffsets[slot];
+            for (int i = 0; i < length; i++) {
+                values[i] = SymbolTable.getSymbol(layerCodes[offset + i]);
+            }
+            list = ImmutableList.copyOf(values);
+            lists[slot] = list;
         }
+        return list;
     }
 
     /**
@@ -82,7 +167,50 @@ public class SimpleLayeredSequence implements LayeredSequence {
      */
     public void addLayer(String layerName, ImmutableList<String> layer)
             throws SequenceException {
+        checkNewLayer(layerName, layer);
+        lists[newSlot(layerName)] = layer;
+    }
 
+    /**
+     * Adds a new layer whose values come from a small, closed set (such as
+     * tags). The values are stored as {@link SymbolTable} codes, which are
+     * also returned by {@link #getLayerCodes(String)}.
+     * 
+     * @param layerName
+     * @param layer
+     * @throws SequenceException
+     *             if a layer with layerName already exists or the given layer
+     *             has the incorrect length
+     */
+    public void addSymbolLayer(String layerName, List<String> layer)
+            throws SequenceException {
+        checkNewLayer(layerName, layer);
+        short[] layerCodes = toShortCodes(layer);
+        if (layerCodes == null) {
+            addLayer(layerName, layer);
+        } else {
+            codes[newSlot(layerName)] = layerCodes;
+        }
+    }
+
+    /**
+     * @return the codes of the symbols, or null if one of them does not fit
+     *         in a short.
+     */
+    private static short[] toShortCodes(List<String> symbols) {
+        short[] result = new short[symbols.size()];
+        for (int i = 0; i < result.length; i++) {
+            int code = SymbolTable.intern(symbols.get(i));
+            if (code > Short.MAX_VALUE) {
+                return null;
+            }
+            result[i] = (short) code;
+        }
+        return result;
+    }
+
+    private void checkNewLayer(String layerName, List<String> layer)
+            throws SequenceException {
         if (hasLayer(layerName)) {
             String msg = String.format(
                     "Cannot add layer '%s': layer already exists", layerName);
@@ -94,9 +222,110 @@ public class SimpleLayeredSequence implements LayeredSequence {
                     layer.size());
             throw new SequenceException(msg);
         }
-        layerNames.add(layerName);
-        layers.put(layerName, layer);
-        numLayers++;
+    }
+
+    private int newSlot(String layerName) {
+        if (numLayers == names.length) {
+            int slots = names.length * 2;
+            names = Arrays.copyOf(names, slots);
+            lists = Arrays.copyOf(lists, slots);
+            codes = Arrays.copyOf(codes, slots);
+            codeOffsets = Arrays.copyOf(codeOffsets, slots);
+        }
+        names[numLayers] = layerName;
+        cachedEncoding = null;
+        return numLayers++;
+    }
+
+    /**
+     * Replaces the first value of the given layer. This is only meant for
+     * subsequences under construction; the values shared with the parent are
+     * copied first.
+     * 
+     * @param layerName
+     * @param value
+     */
+    void replaceFirst(String layerName, String value) {
+        int slot = getExistingSlot(layerName);
+        short[] slotCodes = codes[slot];
+        int code = SymbolTable.intern(value);
+        if (slotCodes != null && code <= Short.MAX_VALUE) {
+            int offset = codeOffsets[slot];
+            short[] copy = Arrays.copyOfRange(slotCodes, offset, offset
+                    + length);
+            copy[0] = (short) code;
+            codes[slot] = copy;
+            codeOffsets[slot] = 0;
+            lists[slot] = null;
+        } else {
+            String[] values = getLayer(layerName).toArray(new String[length]);
+            values[0] = value;
+            codes[slot] = null;
+            lists[slot] = ImmutableList.copyOf(values);
+        }
+        cachedEncoding = null;
+        cachedLayerCodes = null;
+    }
+
+    /**
+     * Returns the values of the given layer as {@link SymbolTable} codes, for
+     * layers whose values come from a small, closed set (such as tags). This
+     * implementation returns the codes of the layers added with
+     * {@link #addSymbolLayer(String, List)}, and null for the others, meaning
+     * that codes are not available and the layer should be read with
+     * {@link #getLayer(String)}.
+     * 
+     * @param layerName
+     * @return the codes of the layer, or null. The returned array must not be
+     *         modified.
+     */
+    public int[] getLayerCodes(String layerName) {
+        int slot = getSlot(layerName);
+        if (slot < 0 || codes[slot] == null) {
+            return null;
+        }
+        int[][] cached = cachedLayerCodes;
+        if (cached != null && slot < cached.length && cached[slot] != null) {
+            return cached[slot];
+        }
+        short[] values = codes[slot];
+        int offset = codeOffsets[slot];
+        int[] result = new int[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = values[offset + i];
+        }
+        int[][] updated = cached == null ? new int[names.length][]
+                : Arrays.copyOf(cached, names.length);
+        updated[slot] = result;
+        cachedLayerCodes = updated;
+        return result;
+    }
+
+    /**
+     * @param encoder
+     * @return the encoding of this sequence cached by
+     *         {@link Encoder#encode(LayeredSequence)}, or null
+     */
+    CharSequence getCachedEncoding(Encoder encoder) {
+        CachedEncoding cached = cachedEncoding;
+        if (cached != null && cached.encoder == encoder) {
+            return cached.encoding;
+        }
+        return null;
+    }
+
+    void setCachedEncoding(Encoder encoder, CharSequence encoding) {
+        cachedEncoding = new CachedEncoding(encoder, encoding);
+    }
+
+    private static class CachedEncoding {
+        private final Encoder encoder;
+        private final CharSequence encoding;
+
+        private CachedEncoding(Encoder encoder, CharSequence encoding) {
+            this.encoder = encoder;
+            this.encoding = encoding;
+        }
     }
 
     /**
@@ -135,15 +364,23 @@ public class SimpleLayeredSequence implements LayeredSequence {
      * @return true if this sequence has a layer with the given name
      */
     public boolean hasLayer(String layerName) {
-        return layerNames.contains(layerName);
+        return getSlot(layerName) >= 0;
     }
 
     /**
      * @return the value of the given layer at the given index
      */
     public String get(String layerName, int index) {
-        List<String> layer = getLayer(layerName);
-        return layer.get(index);
+        return getValue(getExistingSlot(layerName), index);
+    }
+
+    private String getValue(int slot, int index) {
+        ImmutableList<String> list = lists[slot];
+        if (list != null) {
+            return list.get(index);
+        }
+        Preconditions.checkElementIndex(index, length);
+        return SymbolTable.getSymbol(codes[slot][codeOffsets[slot] + index]);
     }
 
     /**
@@ -179,20 +416,7 @@ public class SimpleLayeredSequence implements LayeredSequence {
      * @return
      */
     public SimpleLayeredSequence getSubSequence(int start, int length) {
-        SimpleLayeredSequence sub = new SimpleLayeredSequence(length);
-        for (String layerName : getLayerNames()) {
-
-            try {
-                sub.addLayer(layerName,
-                        getSubSequence(layerName, start, length));
-            } catch (SequenceException e) {
-                String msg = String.format(
-                        "Could not create subsequence of length %s starting at %s "
-                                + "for layer %s", start, length, layerName);
-                throw new IllegalStateException(msg, e);
-            }
-        }
-        return sub;
+        return new SimpleLayeredSequence(this, start, length);
     }
 
     /**
@@ -210,7 +434,8 @@ public class SimpleLayeredSequence implements LayeredSequence {
      * @return the layer names
      */
     public Collection<String> getLayerNames() {
-        return layerNames;
+        return Collections.unmodifiableList(Arrays.asList(names).subList(0,
+                numLayers));
     }
 
     /**
@@ -243,18 +468,67 @@ public class SimpleLayeredSequence implements LayeredSequence {
         return Joiner.on(" ").join(sub.iterator());
     }
 
+    // hashCode and equals treat the layers as a map from layer names to lists,
+    // regardless of the order in which they were added or how they are
+    // stored. Coded layers are compared without building their lists.
     @Override
     public int hashCode() {
         final int prime = 31;
+        int namesHash = 0;
+        int layersHash = 0;
+        for (int i = 0; i < numLayers; i++) {
+            namesHash += names[i].hashCode();
+            layersHash += names[i].hashCode() ^ layerHashCode(i);
+        }
         int result = 1;
-        result = prime * result
-                + ((layerNames == null) ? 0 : layerNames.hashCode());
-        result = prime * result + ((layers == null) ? 0 : layers.hashCode());
+        result = prime * result + namesHash;
+        result = prime * result + layersHash;
         result = prime * result + length;
         result = prime * result + numLayers;
         return result;
     }
 
+    /**
+     * @return the hash code of the list of values of the layer in the given
+     *         slot, as defined by {@link List#hashCode()}.
+     */
+    private int layerHashCode(int slot) {
+        ImmutableList<String> list = lists[slot];
+        if (list != null) {
+            return list.hashCode();
+        }
+        short[] layerCodes = codes[slot];
+        int offset = codeOffsets[slot];
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash
+                    + SymbolTable.getSymbol(layerCodes[offset + i]).hashCode();
+        }
+        return hash;
+    }
+
+    private boolean layerEquals(int slot, SimpleLayeredSequence other,
+            int otherSlot) {
+        if (codes[slot] != null && other.codes[otherSlot] != null) {
+            short[] layerCodes = codes[slot];
+            short[] otherCodes = other.codes[otherSlot];
+            int offset = codeOffsets[slot];
+            int otherOffset = other.codeOffsets[otherSlot];
+            for (int i = 0; i < length; i++) {
+                if (layerCodes[offset + i] != otherCodes[otherOffset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (int i = 0; i < length; i++) {
+            if (!getValue(slot, i).equals(other.getValue(otherSlot, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj)
@@ -264,20 +538,15 @@ public class SimpleLayeredSequence implements LayeredSequence {
         if (!(obj instanceof SimpleLayeredSequence))
             return false;
         SimpleLayeredSequence other = (SimpleLayeredSequence) obj;
-        if (layerNames == null) {
-            if (other.layerNames != null)
-                return false;
-        } else if (!layerNames.equals(other.layerNames))
-            return false;
-        if (layers == null) {
-            if (other.layers != null)
-                return false;
-        } else if (!layers.equals(other.layers))
-            return false;
         if (length != other.length)
             return false;
         if (numLayers != other.numLayers)
             return false;
+        for (int i = 0; i < numLayers; i++) {
+            int otherSlot = other.getSlot(names[i]);
+            if (otherSlot < 0 || !layerEquals(i, other, otherSlot))
+                return false;
+        }
         return true;
     }
 
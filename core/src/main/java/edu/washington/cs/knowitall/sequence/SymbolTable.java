@@ -0,0 +1,78 @@
+package edu.washington.cs.knowitall.sequence;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A JVM-wide table that interns String symbols (like POS and chunk tags) as
+ * small non-negative int codes. Codes are assigned in order of first use and
+ * never change, so two symbols are equal if and only if their codes are. This
+ * class is thread-safe.
+ */
+public class SymbolTable {
+
+    private static final ConcurrentMap<String, Integer> CODES = new ConcurrentHashMap<String, Integer>();
+    private static volatile String[] symbols = new String[64];
+    private static int size = 0;
+
+    private SymbolTable() {
+    }
+
+    /**
+     * @param symbol
+     * @return the code of the given symbol, assigning a new one if needed.
+     */
+    public static int intern(String symbol) {
+        Integer code = CODES.get(symbol);
+        if (code != null) {
+            return code;
+        }
+        synchronized (SymbolTable.class) {
+            code = CODES.get(symbol);
+            if (code == null) {
+                code = size;
+                String[] current = symbols;
+                if (code == current.length) {
+                    String[] bigger = new String[current.length * 2];
+                    System.arraycopy(current, 0, bigger, 0, current.length);
+                    current = bigger;
+                }
+                current[code] = symbol;
+                // publish the symbol before the code can be seen
+                symbols = current;
+                size++;
+                CODES.put(symbol, code);
+            }
+            return code;
+        }
+    }
+
+    /**
+     * Interns each of the given symbols.
+     *
+     * @param symbols
+     * @return the codes, in the same order
+     */
+    public static int[] intern(List<String> symbols) {
+        int[] codes = new int[symbols.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = intern(symbols.get(i));
+        }
+        return codes;
+    }
+
+    /**
+     * @param code
+     * @return the symbol with the given code
+     * @throws IndexOutOfBoundsException
+     *             if no symbol has the given code
+     */
+    public static String getSymbol(int code) {
+        String[] current = symbols;
+        if (code < 0 || code >= current.length || current[code] == null) {
+            throw new IndexOutOfBoundsException("No symbol with code " + code);
+        }
+        return current[code];
+    }
+}
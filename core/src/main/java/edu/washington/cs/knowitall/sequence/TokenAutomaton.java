@@ -0,0 +1,831 @@
+package edu.washington.cs.knowitall.sequence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import edu.washington.cs.knowitall.commonlib.Range;
+
+/**
+ * <p>
+ * A lazily built DFA that matches one or more {@link LayeredTokenPattern}
+ * objects sharing an {@link Encoder} against an encoded sequence.
+ * </p>
+ * <p>
+ * The patterns are compiled into one Thompson-style program. By default a DFA
+ * state is the ordered list of program threads that are still alive, so the
+ * priority of alternatives and greedy/reluctant quantifiers is kept, and
+ * {@link #findAll(CharSequence, int[])} reports for each pattern exactly the
+ * matches that repeated calls to {@link java.util.regex.Matcher#find()} on its
+ * encoded pattern return, scanning for all patterns at once. The positions
+ * where matches can start are found first by one backward pass of the
+ * automaton built with {@link #starts(List)}; the forward automaton is only
+ * run from those positions, and each run stops when its threads are dead.
+ * Every character is therefore read once by the backward pass, plus once by
+ * each run that reaches it. This is linear unless a run keeps reading past the
+ * end of its match into the next one, which costs up to quadratic time on
+ * patterns like {@code a*b|a}. Automata built with
+ * {@link #longest(LayeredTokenPattern, boolean)} instead treat states as sets
+ * and find leftmost-longest matches (see {@link #matchStarts(CharSequence)}
+ * and {@link #longestMatch(CharSequence, int)}). Finding one match takes
+ * linear time. Finding all of them rescans the characters that a search reads
+ * past the end of its match, so it has the same quadratic worst case, on
+ * patterns like {@code a|a*b}.
+ * States and transitions are built on demand and cached, so after warm-up each
+ * token costs one array lookup. As in RE2, the cache is dropped and started
+ * over when it holds too many states, so memory stays bounded.
+ * </p>
+ * <p>
+ * Only the subset of the pattern language used by token patterns is
+ * supported: tokens, classes of tokens, groups (capturing or {@code (?:)}),
+ * alternation, the greedy and reluctant quantifiers {@code ? * +}, {@code .},
+ * {@code ^} and {@code $}. Instances are thread-safe.
+ * </p>
+ */
+class TokenAutomaton {
+
+    // Program instructions
+    private static final int CHARS = 0;
+    private static final int ANY = 1;
+    private static final int SPLIT = 2;
+    private static final int JUMP = 3;
+    private static final int BEGIN = 4;
+    private static final int END = 5;
+    private static final int MATCH = 6;
+
+    // When the cache holds this many states, it is dropped and started over
+    private static final int MAX_STATES = 10000;
+
+    private final int numPatterns;
+    private final boolean longest;
+    private final boolean unanchored;
+    private final int[] ops;
+    private final int[] args1;
+    private final int[] args2;
+    private final int[] patternOf;
+    private final int[] entries;
+
+    // Characters are mapped to classes of characters that every instruction
+    // treats the same way. Characters at or beyond classOf.length belong to
+    // otherClass.
+    private final int[] classOf;
+    private final int otherClass;
+    private final int numClasses;
+    private final boolean[][] accepts;
+
+    private volatile Cache cache;
+
+    /**
+     * Compiles the given patterns, which must all use the same encoder.
+     *
+     * @param patterns
+     * @throws SequenceException
+     *             if one of the patterns uses a construct that is not
+     *             supported, or if the patterns use different encoders
+     */
+    TokenAutomaton(List<LayeredTokenPattern> patterns)
+            throws SequenceException {
+        this(parse(patterns), false, false);
+    }
+
+    /**
+     * Compiles the given pattern into an automaton with leftmost-longest
+     * semantics.
+     *
+     * @param pattern
+     * @param reverse
+     *            if true, the automaton reads sequences backwards and is
+     *            unanchored, for use with {@link #matchStarts(CharSequence)}.
+     *            Otherwise, it is anchored, for use with
+     *            {@link #longestMatch(CharSequence, int)}.
+     * @return the automaton
+     * @throws SequenceException
+     *             if the pattern uses a construct that is not supported
+     */
+    static TokenAutomaton longest(LayeredTokenPattern pattern, boolean reverse)
+            throws SequenceException {
+        Node node = new Parser(pattern).parse();
+        if (reverse) {
+            node = node.reverse();
+        }
+        List<Node> roots = new ArrayList<Node>();
+        roots.add(node);
+        return new TokenAutomaton(roots, true, reverse);
+    }
+
+    /**
+     * Compiles the given patterns, which must all use the same encoder, into
+     * a reverse, unanchored automaton whose
+     * {@link #matchStarts(CharSequence)} finds where each of them can match.
+     *
+     * @param patterns
+     * @return the automaton
+     * @throws SequenceException
+     *             if one of the patterns uses a construct that is not
+     *             supported, or if the patterns use different encoders
+     */
+    static TokenAutomaton starts(List<LayeredTokenPattern> patterns)
+            throws SequenceException {
+        List<Node> roots = parse(patterns);
+        for (int p = 0; p < roots.size(); p++) {
+            roots.set(p, roots.get(p).reverse());
+        }
+        return new TokenAutomaton(roots, true, true);
+    }
+
+    private static List<Node> parse(List<LayeredTokenPattern> patterns)
+            throws SequenceException {
+        if (patterns.size() == 0 || patterns.size() > 16) {
+            throw new SequenceException(
+                    "Automaton needs between 1 and 16 patterns, got "
+                            + patterns.size());
+        }
+        Encoder encoder = patterns.get(0).getEncoder();
+        List<Node> roots = new ArrayList<Node>();
+        for (LayeredTokenPattern pattern : patterns) {
+            if (pattern.getEncoder() != encoder) {
+                throw new SequenceException(
+                        "Patterns must share an encoder: " + patterns);
+            }
+            roots.add(new Parser(pattern).parse());
+        }
+        return roots;
+    }
+
+    private TokenAutomaton(List<Node> roots, boolean longest,
+            boolean unanchored) {
+        this.longest = longest;
+        this.unanchored = unanchored;
+        numPatterns = roots.size();
+        Program program = new Program();
+        entries = new int[numPatterns];
+        for (int p = 0; p < numPatterns; p++) {
+            entries[p] = program.size();
+            program.patternId = p;
+            roots.get(p).emit(program);
+            program.add(MATCH, p, 0, null);
+        }
+
+        int n = program.size();
+        ops = new int[n];
+        args1 = new int[n];
+        args2 = new int[n];
+        patternOf = new int[n];
+        for (int pc = 0; pc < n; pc++) {
+            ops[pc] = program.ops.get(pc);
+            args1[pc] = program.args1.get(pc);
+            args2[pc] = program.args2.get(pc);
+            patternOf[pc] = program.patterns.get(pc);
+        }
+
+        // Group characters by the set of instructions that accept them. The
+        // encoder never produces line terminators, so . accepts every char
+        // and $ only matches at the end.
+        int alphabetSize = 0;
+        for (int pc = 0; pc < n; pc++) {
+            if (ops[pc] == CHARS) {
+                alphabetSize = Math.max(alphabetSize,
+                        program.charSets.get(pc).length());
+            }
+        }
+        classOf = new int[alphabetSize];
+        int other = 0;
+        Map<BitSet, Integer> classes = new HashMap<BitSet, Integer>();
+        List<BitSet> signatures = new ArrayList<BitSet>();
+        for (int c = 0; c <= alphabetSize; c++) {
+            BitSet signature = new BitSet(n);
+            for (int pc = 0; pc < n; pc++) {
+                if (ops[pc] == CHARS) {
+                    BitSet chars = program.charSets.get(pc);
+                    if (c < alphabetSize && chars.get(c)) {
+                        signature.set(pc);
+                    }
+                } else if (ops[pc] == ANY) {
+                    signature.set(pc);
+                }
+            }
+            Integer cls = classes.get(signature);
+            if (cls == null) {
+                cls = classes.size();
+                classes.put(signature, cls);
+                signatures.add(signature);
+            }
+            if (c < alphabetSize) {
+                classOf[c] = cls;
+            } else {
+                other = cls;
+            }
+        }
+        otherClass = other;
+        numClasses = classes.size();
+        accepts = new boolean[n][numClasses];
+        for (int cls = 0; cls < numClasses; cls++) {
+            BitSet signature = signatures.get(cls);
+            for (int pc = signature.nextSetBit(0); pc >= 0; pc = signature
+                    .nextSetBit(pc + 1)) {
+                accepts[pc][cls] = true;
+            }
+        }
+
+        cache = new Cache();
+    }
+
+    /**
+     * Finds the matches of every pattern in the given encoded sequence.
+     *
+     * @param encoded
+     * @param starts
+     *            the result of {@link #matchStarts(CharSequence)} on the
+     *            sequence for the automaton built by {@link #starts(List)}
+     *            from the same patterns
+     * @return for each pattern, the list of its matches, in the order that
+     *         {@link java.util.regex.Matcher#find()} would return them
+     */
+    List<List<Range>> findAll(CharSequence encoded, int[] starts) {
+        int n = encoded.length();
+        List<List<Range>> results = new ArrayList<List<Range>>(numPatterns);
+        for (int p = 0; p < numPatterns; p++) {
+            results.add(new ArrayList<Range>());
+        }
+
+        int[] searchFrom = new int[numPatterns];
+        int[] matchEnds = new int[numPatterns];
+        for (int start = 0; start <= n; start++) {
+
+            // The patterns that are looking for a match and have one
+            // starting here
+            int mask = starts[start];
+            if (mask == 0) {
+                continue;
+            }
+            for (int p = 0; p < numPatterns; p++) {
+                if (searchFrom[p] > start) {
+                    mask &= ~(1 << p);
+                } else {
+                    matchEnds[p] = -1;
+                }
+            }
+            if (mask == 0) {
+                continue;
+            }
+
+            // Run the automaton anchored at start until all threads are dead
+            State state = getStartState(mask);
+            for (int i = start;; i++) {
+                int context = getContext(i, n);
+                int matched = state.matched[context];
+                while (matched != 0) {
+                    int p = Integer.numberOfTrailingZeros(matched);
+                    matchEnds[p] = i;
+                    matched &= matched - 1;
+                }
+                if (i == n || state.isDead(context)) {
+                    break;
+                }
+                state = state.next(context, getClass(encoded.charAt(i)));
+            }
+
+            for (int p = 0; p < numPatterns; p++) {
+                if ((mask & (1 << p)) != 0 && matchEnds[p] >= 0) {
+                    int end = matchEnds[p];
+                    results.get(p).add(new Range(start, end - start));
+                    searchFrom[p] = end == start ? end + 1 : end;
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Runs a reverse automaton over the given encoded sequence.
+     *
+     * @param encoded
+     * @return an array whose i-th entry has bit p set if a match of pattern p
+     *         starts at position i, for {@code 0 <= i <= encoded.length()}
+     */
+    int[] matchStarts(CharSequence encoded) {
+        int n = encoded.length();
+        int[] starts = new int[n + 1];
+        State state = getStartState((1 << numPatterns) - 1);
+        for (int i = n;; i--) {
+            int context = getContext(i, n);
+            starts[i] = state.matched[context];
+            if (i == 0) {
+                break;
+            }
+            state = state.next(context, getClass(encoded.charAt(i - 1)));
+        }
+        return starts;
+    }
+
+    /**
+     * Runs a forward leftmost-longest automaton anchored at start.
+     *
+     * @param encoded
+     * @param start
+     * @return the end of the longest match starting at start, or -1 if there
+     *         is none
+     */
+    int longestMatch(CharSequence encoded, int start) {
+        int n = encoded.length();
+        int end = -1;
+        State state = getStartState(1);
+        for (int i = start;; i++) {
+            int context = getContext(i, n);
+            if (state.matched[context] != 0) {
+                end = i;
+            }
+            if (i == n || state.isDead(context)) {
+                break;
+            }
+            state = state.next(context, getClass(encoded.charAt(i)));
+        }
+        return end;
+    }
+
+    private int getClass(char c) {
+        return c < classOf.length ? classOf[c] : otherClass;
+    }
+
+    /**
+     * @return the assertion context at position i of a sequence of length n.
+     *         Bit 0 is set where ^ matches, bit 1 where $ matches.
+     */
+    private static int getContext(int i, int n) {
+        return (i == 0 ? 1 : 0) | (i == n ? 2 : 0);
+    }
+
+    private State getStartState(int mask) {
+        Cache cache = this.cache;
+        State state = cache.startStates[mask];
+        if (state == null) {
+            int[] pcs = new int[Integer.bitCount(mask)];
+            int i = 0;
+            for (int p = 0; p < numPatterns; p++) {
+                if ((mask & (1 << p)) != 0) {
+                    pcs[i++] = entries[p];
+                }
+            }
+            state = getState(pcs);
+            cache.startStates[mask] = state;
+        }
+        return state;
+    }
+
+    private State getState(int[] pcs) {
+        if (longest) {
+            // Sets of threads, so order does not matter
+            Arrays.sort(pcs);
+            int size = 0;
+            for (int i = 0; i < pcs.length; i++) {
+                if (size == 0 || pcs[i] != pcs[size - 1]) {
+                    pcs[size++] = pcs[i];
+                }
+            }
+            pcs = Arrays.copyOf(pcs, size);
+        }
+        Kernel kernel = new Kernel(pcs);
+        Cache cache = this.cache;
+        State state = cache.states.get(kernel);
+        if (state == null) {
+            if (cache.states.size() >= MAX_STATES) {
+                // Searches still running on the old states go on into the new
+                // cache, and the old states are collected once they are done
+                cache = new Cache();
+                this.cache = cache;
+            }
+            state = new State(pcs);
+            State existing = cache.states.putIfAbsent(kernel, state);
+            if (existing != null) {
+                state = existing;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * The states built so far, by kernel, and the start states by mask of
+     * patterns.
+     */
+    private final class Cache {
+        private final ConcurrentMap<Kernel, State> states = new ConcurrentHashMap<Kernel, State>();
+        private final State[] startStates = new State[1 << numPatterns];
+    }
+
+    /**
+     * The list of threads that are alive before the epsilon closure, used as
+     * the key of a state.
+     */
+    private static final class Kernel {
+        private final int[] pcs;
+        private final int hash;
+
+        private Kernel(int[] pcs) {
+            this.pcs = pcs;
+            this.hash = Arrays.hashCode(pcs);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Kernel && Arrays.equals(pcs, ((Kernel) obj).pcs);
+        }
+    }
+
+    /**
+     * A DFA state. For each of the four assertion contexts, it holds the
+     * patterns that match at the current position and the threads that go on
+     * to read the next character. Transitions are filled in on demand;
+     * racing threads compute equal states, so no locking is needed.
+     */
+    private final class State {
+        private final int[] matched = new int[4];
+        private final int[][] consumers = new int[4][];
+        private final State[] next;
+
+        private State(int[] kernel) {
+            for (int context = 0; context < 4; context++) {
+                closure(kernel, context);
+            }
+            next = new State[4 * numClasses];
+        }
+
+        private void closure(int[] kernel, int context) {
+            List<Integer> threads = new ArrayList<Integer>();
+            boolean[] visited = new boolean[ops.length];
+            for (int pc : kernel) {
+                addThread(pc, context, visited, threads);
+            }
+
+            // Unless looking for the longest match, a pattern's match cuts off
+            // its lower priority threads
+            int cut = 0;
+            int[] result = new int[threads.size()];
+            int size = 0;
+            for (int pc : threads) {
+                int bit = 1 << patternOf[pc];
+                if ((cut & bit) != 0) {
+                    continue;
+                } else if (ops[pc] == MATCH) {
+                    matched[context] |= bit;
+                    if (!longest) {
+                        cut |= bit;
+                    }
+                } else {
+                    result[size++] = pc;
+                }
+            }
+            consumers[context] = Arrays.copyOf(result, size);
+        }
+
+        private void addThread(int pc, int context, boolean[] visited,
+                List<Integer> threads) {
+            if (visited[pc]) {
+                return;
+            }
+            visited[pc] = true;
+            switch (ops[pc]) {
+            case SPLIT:
+                addThread(args1[pc], context, visited, threads);
+                addThread(args2[pc], context, visited, threads);
+                break;
+            case JUMP:
+                addThread(args1[pc], context, visited, threads);
+                break;
+            case BEGIN:
+                if ((context & 1) != 0) {
+                    addThread(pc + 1, context, visited, threads);
+                }
+                break;
+            case END:
+                if ((context & 2) != 0) {
+                    addThread(pc + 1, context, visited, threads);
+                }
+                break;
+            default:
+                threads.add(pc);
+            }
+        }
+
+        private boolean isDead(int context) {
+            return consumers[context].length == 0;
+        }
+
+        private State next(int context, int cls) {
+            int index = context * numClasses + cls;
+            State state = next[index];
+            if (state == null) {
+                int[] threads = consumers[context];
+                int[] pcs = new int[threads.length + entries.length];
+                int size = 0;
+                for (int pc : threads) {
+                    if (accepts[pc][cls]) {
+                        pcs[size++] = pc + 1;
+                    }
+                }
+                if (unanchored) {
+                    // A match may start at every position
+                    for (int entry : entries) {
+                        pcs[size++] = entry;
+                    }
+                }
+                state = getState(Arrays.copyOf(pcs, size));
+                next[index] = state;
+            }
+            return state;
+        }
+    }
+
+    /**
+     * The program being built by {@link Node#emit(Program)}.
+     */
+    private static final class Program {
+        private final List<Integer> ops = new ArrayList<Integer>();
+        private final List<Integer> args1 = new ArrayList<Integer>();
+        private final List<Integer> args2 = new ArrayList<Integer>();
+        private final List<Integer> patterns = new ArrayList<Integer>();
+        private final List<BitSet> charSets = new ArrayList<BitSet>();
+        private int patternId;
+
+        private int size() {
+            return ops.size();
+        }
+
+        private int add(int op, int arg1, int arg2, BitSet chars) {
+            ops.add(op);
+            args1.add(arg1);
+            args2.add(arg2);
+            patterns.add(patternId);
+            charSets.add(chars);
+            return ops.size() - 1;
+        }
+
+        private void patch(int pc, int arg1, int arg2) {
+            args1.set(pc, arg1);
+            args2.set(pc, arg2);
+        }
+    }
+
+    /**
+     * A node of the syntax tree of a pattern.
+     */
+    private static abstract class Node {
+        abstract void emit(Program program);
+
+        /**
+         * @return a node matching the reverse of the sequences this one
+         *         matches
+         */
+        abstract Node reverse();
+    }
+
+    private static final class Leaf extends Node {
+        private final int op;
+        private final BitSet chars;
+
+        private Leaf(int op, BitSet chars) {
+            this.op = op;
+            this.chars = chars;
+        }
+
+        @Override
+        void emit(Program program) {
+            program.add(op, 0, 0, chars);
+        }
+
+        @Override
+        Node reverse() {
+            return this;
+        }
+    }
+
+    private static final class Concat extends Node {
+        private final List<Node> nodes;
+
+        private Concat(List<Node> nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        void emit(Program program) {
+            for (Node node : nodes) {
+                node.emit(program);
+            }
+        }
+
+        @Override
+        Node reverse() {
+            List<Node> reversed = new ArrayList<Node>(nodes.size());
+            for (int i = nodes.size() - 1; i >= 0; i--) {
+                reversed.add(nodes.get(i).reverse());
+            }
+            return new Concat(reversed);
+        }
+    }
+
+    private static final class Alternation extends Node {
+        private final List<Node> nodes;
+
+        private Alternation(List<Node> nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        void emit(Program program) {
+            List<Integer> jumps = new ArrayList<Integer>();
+            for (int i = 0; i < nodes.size(); i++) {
+                if (i < nodes.size() - 1) {
+                    int split = program.add(SPLIT, 0, 0, null);
+                    nodes.get(i).emit(program);
+                    jumps.add(program.add(JUMP, 0, 0, null));
+                    program.patch(split, split + 1, program.size());
+                } else {
+                    nodes.get(i).emit(program);
+                }
+            }
+            for (int jump : jumps) {
+                program.patch(jump, program.size(), 0);
+            }
+        }
+
+        @Override
+        Node reverse() {
+            List<Node> reversed = new ArrayList<Node>(nodes.size());
+            for (Node node : nodes) {
+                reversed.add(node.reverse());
+            }
+            return new Alternation(reversed);
+        }
+    }
+
+    private static final class Repeat extends Node {
+        private final Node node;
+        private final char quantifier;
+        private final boolean greedy;
+
+        private Repeat(Node node, char quantifier, boolean greedy) {
+            this.node = node;
+            this.quantifier = quantifier;
+            this.greedy = greedy;
+        }
+
+        @Override
+        void emit(Program program) {
+            if (quantifier == '+') {
+                int body = program.size();
+                node.emit(program);
+                int split = program.add(SPLIT, 0, 0, null);
+                patchSplit(program, split, body, split + 1);
+            } else {
+                int split = program.add(SPLIT, 0, 0, null);
+                node.emit(program);
+                if (quantifier == '*') {
+                    program.add(JUMP, split, 0, null);
+                }
+                patchSplit(program, split, split + 1, program.size());
+            }
+        }
+
+        @Override
+        Node reverse() {
+            return new Repeat(node.reverse(), quantifier, greedy);
+        }
+
+        private void patchSplit(Program program, int split, int loop, int exit) {
+            if (greedy) {
+                program.patch(split, loop, exit);
+            } else {
+                program.patch(split, exit, loop);
+            }
+        }
+    }
+
+    /**
+     * A recursive descent parser over the tokens of a pattern.
+     */
+    private static final class Parser {
+        private final LayeredTokenPattern pattern;
+        private final String[] tokens;
+        private final String[] symbols;
+        private final String[] layerNames;
+        private int i = 0;
+
+        private Parser(LayeredTokenPattern pattern) {
+            this.pattern = pattern;
+            this.tokens = pattern.getPatternTokens();
+            this.symbols = pattern.getPatternSymbols();
+            this.layerNames = pattern.getPatternLayerNames();
+        }
+
+        private Node parse() throws SequenceException {
+            Node node = parseAlternation();
+            if (i < tokens.length) {
+                throw unsupported();
+            }
+            return node;
+        }
+
+        private Node parseAlternation() throws SequenceException {
+            List<Node> nodes = new ArrayList<Node>();
+            nodes.add(parseConcat());
+            while (peek("|")) {
+                i++;
+                nodes.add(parseConcat());
+            }
+            return nodes.size() == 1 ? nodes.get(0) : new Alternation(nodes);
+        }
+
+        private Node parseConcat() throws SequenceException {
+            List<Node> nodes = new ArrayList<Node>();
+            while (i < tokens.length && !peek("|") && !peek(")")) {
+                Node node = parseAtom();
+                while (peek("?") || peek("*") || peek("+")) {
+                    char quantifier = tokens[i++].charAt(0);
+                    boolean greedy = true;
+                    if (peek("?")) {
+                        i++;
+                        greedy = false;
+                    } else if (peek("+")) {
+                        // Possessive quantifiers do not backtrack
+                        throw unsupported();
+                    }
+                    node = new Repeat(node, quantifier, greedy);
+                }
+                nodes.add(node);
+            }
+            return new Concat(nodes);
+        }
+
+        private Node parseAtom() throws SequenceException {
+            if (symbols[i] != null) {
+                return new Leaf(CHARS, getChars(i++));
+            }
+            String token = tokens[i++];
+            if (token.equals("[")) {
+                BitSet chars = new BitSet();
+                while (i < tokens.length && symbols[i] != null) {
+                    chars.or(getChars(i++));
+                }
+                if (!peek("]")) {
+                    throw unsupported();
+                }
+                i++;
+                return new Leaf(CHARS, chars);
+            } else if (token.equals("(")) {
+                if (peek("?")) {
+                    if (i + 1 < tokens.length && tokens[i + 1].equals(":")) {
+                        i += 2;
+                    } else {
+                        throw unsupported();
+                    }
+                }
+                Node node = parseAlternation();
+                if (!peek(")")) {
+                    throw unsupported();
+                }
+                i++;
+                return node;
+            } else if (token.equals(".")) {
+                return new Leaf(ANY, null);
+            } else if (token.equals("^")) {
+                return new Leaf(BEGIN, null);
+            } else if (token.equals("$")) {
+                return new Leaf(END, null);
+            }
+            i--;
+            throw unsupported();
+        }
+
+        private BitSet getChars(int index) throws SequenceException {
+            Encoder encoder = pattern.getEncoder();
+            int layerIndex = encoder.getLayerNames().indexOf(layerNames[index]);
+            BitSet chars = new BitSet();
+            for (char c : encoder.encodeClass(layerIndex, symbols[index])) {
+                chars.set(c);
+            }
+            return chars;
+        }
+
+        private boolean peek(String token) {
+            return i < tokens.length && symbols[i] == null
+                    && tokens[i].equals(token);
+        }
+
+        private SequenceException unsupported() {
+            String token = i < tokens.length ? tokens[i] : "end of pattern";
+            String msg = String.format(
+                    "Pattern '%s' is not supported by the automaton matcher "
+                            + "(at '%s')", pattern, token);
+            return new SequenceException(msg);
+        }
+    }
+}
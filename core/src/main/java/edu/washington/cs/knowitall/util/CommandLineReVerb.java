@@ -6,8 +6,15 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -28,13 +35,24 @@ import edu.washington.cs.knowitall.extractor.conf.ConfidenceFunction;
 import edu.washington.cs.knowitall.extractor.conf.ConfidenceFunctionException;
 import edu.washington.cs.knowitall.extractor.conf.ReVerbOpenNlpConfFunction;
 import edu.washington.cs.knowitall.extractor.mapper.PronounArgumentFilter;
+import edu.washington.cs.knowitall.extractor.SentenceExtractor;
 import edu.washington.cs.knowitall.io.BufferedReaderIterator;
+import edu.washington.cs.knowitall.io.TextBlockIterator;
+import edu.washington.cs.knowitall.metrics.MetricsRegistry;
+import edu.washington.cs.knowitall.metrics.MetricsReporter;
+import edu.washington.cs.knowitall.nlp.AbstractSentenceChunker;
+import edu.washington.cs.knowitall.nlp.BinaryChunkedSentenceReader;
+import edu.washington.cs.knowitall.nlp.BinaryChunkedSentenceWriter;
 import edu.washington.cs.knowitall.nlp.ChunkedSentence;
 import edu.washington.cs.knowitall.nlp.ChunkedSentenceIterator;
 import edu.washington.cs.knowitall.nlp.ChunkedSentenceReader;
+import edu.washington.cs.knowitall.nlp.OpenNlpSentenceChunker;
+import edu.washington.cs.knowitall.nlp.SentenceBlocksIterator;
+import edu.washington.cs.knowitall.nlp.SentenceChunker;
 import edu.washington.cs.knowitall.nlp.extraction.ChunkedBinaryExtraction;
 import edu.washington.cs.knowitall.normalization.BinaryExtractionNormalizer;
 import edu.washington.cs.knowitall.normalization.NormalizedBinaryExtraction;
+import edu.washington.cs.knowitall.sequence.LayeredTokenPattern;
 
 /***
  * A command line wrapper for ReVerbExtractor. Run with -h to see the usage
@@ -47,6 +65,13 @@ public class CommandLineReVerb {
 
     private static final String NAME = "CommandLineReVerb";
 
+    /** Number of sentences handed to a worker at a time in threaded mode */
+    private static final int BLOCK_SIZE = 100;
+
+    /** Marks the end of the input for the workers and the output loop */
+    private static final SentenceBlock END_OF_INPUT = new SentenceBlock(
+            Collections.emptyList());
+
     private ReVerbRelationExtractor extractor;
     private ConfidenceFunction confFunc;
     private BufferedReaderIterator stdinLineIterator;
@@ -64,6 +89,14 @@ public class CommandLineReVerb {
     private boolean allowUnary = false;
     private boolean useArgLearner = false;
     private int minFreq = 20;
+    private int numThreads = 1;
+    private boolean readChunked = false;
+    private BinaryChunkedSentenceWriter chunkedWriter;
+    private MetricsReporter metricsReporter;
+    private long metricsInterval = 10;
+
+    private List<ExtractionWorker> workers;
+    private BlockingQueue<SentenceBlock> workQueue;
 
     private int messageEvery = 1000;
     private int numSents = 0;
@@ -115,6 +148,31 @@ public class CommandLineReVerb {
                 "Allow relations with a single argument to be output. (Default setting is to disallow unary relations.)");
         options.addOption("N", "noConstraints", false,
                 "Do not enforce the syntactic and lexical constraints that are part of ReVerb.");
+        options.addOption(
+                "j",
+                "threads",
+                true,
+                "Number of extraction threads. Each thread gets its own chunker, extractor and confidence function. Output order is the same as with a single thread. (Default is 1.)");
+        options.addOption("w", "write-chunked", true,
+                "Also write the chunked sentences to the given file, in a binary format that can be read back with --read-chunked.");
+        options.addOption(
+                "r",
+                "read-chunked",
+                false,
+                "The input files were written with --write-chunked. Read the chunked sentences from them instead of chunking the text again. Standard input is not supported.");
+        options.addOption(
+                null,
+                "pattern-engine",
+                true,
+                "Engine matching the patterns of the French relation extractor and of the confidence features: regex (backtracking) or dfa (linear-time automaton). The English relation patterns are always matched in one pass by an automaton, whatever this setting. Can also be set with -D"
+                        + LayeredTokenPattern.ENGINE_PROPERTY
+                        + "=dfa. (Default is regex.)");
+        options.addOption("M", "metrics", true,
+                "Record latency histograms and counters for each stage of the pipeline, and write them to the given file periodically and at the end of the run.");
+        options.addOption(null, "metrics-format", true,
+                "Format of the --metrics file: json or prometheus. (Default is json.)");
+        options.addOption(null, "metrics-interval", true,
+                "Seconds between two writes of the --metrics file. (Default is 10.)");
 
         CommandLineParser parser = new PosixParser();
 
@@ -188,37 +246,72 @@ public class CommandLineReVerb {
 
         useArgLearner = params.hasOption("argLearner");
 
+        numThreads = Integer.parseInt(params.getOptionValue("threads", "1"));
+        if (numThreads < 1) {
+            throw new ExtractorException("Number of threads must be at least 1");
+        }
+
+        if (params.hasOption("pattern-engine")) {
+            String engine = params.getOptionValue("pattern-engine");
+            if (engine.equalsIgnoreCase("regex")) {
+                LayeredTokenPattern.setDefaultEngine(
+                        LayeredTokenPattern.Engine.REGEX);
+            } else if (engine.equalsIgnoreCase("dfa")) {
+                LayeredTokenPattern.setDefaultEngine(
+                        LayeredTokenPattern.Engine.DFA);
+            } else {
+                throw new ExtractorException("Unknown pattern engine: "
+                        + engine);
+            }
+        }
+
+        readChunked = params.hasOption("read-chunked");
+        if (readChunked && dataStdin) {
+            throw new ExtractorException(
+                    "Cannot read chunked sentences from standard input");
+        }
+
         normalizer = new BinaryExtractionNormalizer();
 
         try {
 
-            if (useArgLearner) {
-                messageInc("Initializing ReVerb+ArgLearner extractor...");
-                extractor = new R2A2();
-                message("Done.");
-                messageInc("Initializing confidence function...");
-                confFunc = new ConfidenceMetric();
+            if (numThreads > 1) {
+                messageInc("Initializing " + numThreads
+                        + " extraction workers...");
+                workQueue = new ArrayBlockingQueue<SentenceBlock>(
+                        numThreads * 2);
+                workers = new ArrayList<ExtractionWorker>(numThreads);
+                for (int i = 0; i < numThreads; i++) {
+                    SentenceChunker chunker = readChunked ? null
+                            : new OpenNlpSentenceChunker();
+                    workers.add(new ExtractionWorker(chunker,
+                            createExtractor(), createConfFunction()));
+                }
                 message("Done.");
             } else {
-                messageInc("Initializing ReVerb extractor...");
-                extractor = new ReVerbExtractor(minFreq, useSynLexConstraints,
-                        mergeOverlapRels, allowUnary);
+                messageInc("Initializing " + getExtractorName()
+                        + " extractor...");
+                extractor = createExtractor();
                 message("Done.");
                 messageInc("Initializing confidence function...");
-                confFunc = new ReVerbOpenNlpConfFunction();
+                confFunc = createConfFunction();
                 message("Done.");
             }
 
-            if (filterPronouns) {
-                extractor.getArgument1Extractor().addMapper(
-                        new PronounArgumentFilter());
-                extractor.getArgument2Extractor().addMapper(
-                        new PronounArgumentFilter());
+            if (!readChunked) {
+                messageInc("Initializing NLP tools...");
+                DefaultObjects.initializeNlpTools();
+                message("Done.");
+            }
+
+            if (params.hasOption("metrics")) {
+                initializeMetrics(params);
             }
 
-            messageInc("Initializing NLP tools...");
-            DefaultObjects.initializeNlpTools();
-            message("Done.");
+            if (params.hasOption("write-chunked")) {
+                chunkedWriter = new BinaryChunkedSentenceWriter(new File(
+                        params.getOptionValue("write-chunked")));
+            }
 
         } catch (ConfidenceFunctionException e) {
             throw new ExtractorException(e);
@@ -228,23 +321,97 @@ public class CommandLineReVerb {
 
     }
 
+    private void initializeMetrics(CommandLine params)
+            throws ExtractorException {
+        String format = params.getOptionValue("metrics-format", "json");
+        MetricsReporter.Format reporterFormat;
+        if (format.equalsIgnoreCase("json")) {
+            reporterFormat = MetricsReporter.Format.JSON;
+        } else if (format.equalsIgnoreCase("prometheus")) {
+            reporterFormat = MetricsReporter.Format.PROMETHEUS;
+        } else {
+            throw new ExtractorException("Unknown metrics format: " + format);
+        }
+        metricsInterval = Long.parseLong(params.getOptionValue(
+                "metrics-interval", "10"));
+        if (metricsInterval < 1) {
+            throw new ExtractorException(
+                    "Metrics interval must be at least 1 second");
+        }
+        MetricsRegistry.getDefault().setEnabled(true);
+        metricsReporter = new MetricsReporter(MetricsRegistry.getDefault(),
+                new File(params.getOptionValue("metrics")), reporterFormat);
+    }
+
+    private String getExtractorName() {
+        return useArgLearner ? "ReVerb+ArgLearner" : "ReVerb";
+    }
+
+    /**
+     * Creates a new extractor using the settings given on the command line.
+     * Each extraction thread owns the extractor returned by this method.
+     */
+    private ReVerbRelationExtractor createExtractor()
+            throws ExtractorException {
+        ReVerbRelationExtractor result;
+        if (useArgLearner) {
+            result = new R2A2();
+        } else {
+            result = new ReVerbExtractor(minFreq, useSynLexConstraints,
+                    mergeOverlapRels, allowUnary);
+        }
+        if (filterPronouns) {
+            result.getArgument1Extractor().addMapper(
+                    new PronounArgumentFilter());
+            result.getArgument2Extractor().addMapper(
+                    new PronounArgumentFilter());
+        }
+        return result;
+    }
+
+    /**
+     * Creates a new confidence function matching the extractor returned by
+     * {@link #createExtractor()}.
+     */
+    private ConfidenceFunction createConfFunction()
+            throws ConfidenceFunctionException, IOException {
+        if (useArgLearner) {
+            return new ConfidenceMetric();
+        } else {
+            return new ReVerbOpenNlpConfFunction();
+        }
+    }
+
     public void runExtractor() throws IOException, ExtractorException {
 
         message("Starting extraction.");
 
         startAtTime = System.currentTimeMillis();
-        if (dataStdin) {
-            extractFromStdin();
-        } else {
-            while (haveNextFile()) {
-                try {
-                    extractFromNextFile();
-                } catch (ExtractorException e) {
-                    message("Error during extraction: " + e.getMessage());
-                } catch (IOException e) {
-                    message("Error reading file: " + e.getMessage());
+        if (metricsReporter != null) {
+            metricsReporter.start(metricsInterval);
+        }
+        try {
+            if (dataStdin) {
+                extractFromStdin();
+            } else {
+                while (haveNextFile()) {
+                    try {
+                        extractFromNextFile();
+                    } catch (ExtractorException e) {
+                        message("Error during extraction: " + e.getMessage());
+                    } catch (IOException e) {
+                        message("Error reading file: " + e.getMessage());
+                    }
+                    numFiles++;
                 }
-                numFiles++;
+            }
+        } finally {
+            stopWorkers();
+            if (chunkedWriter != null) {
+                chunkedWriter.close();
+            }
+            if (metricsReporter != null) {
+                metricsReporter.stop();
             }
         }
 
@@ -306,18 +473,39 @@ public class CommandLineReVerb {
     private void extractFromNextFile() throws IOException, ExtractorException {
         File f = getNextFile();
         currentFile = f.getAbsolutePath();
-        BufferedReader in = new BufferedReader(new InputStreamReader(
-                new FileInputStream(f)));
-        ChunkedSentenceReader reader = getSentenceReader(in);
         message("Extracting from " + f);
-        extractFromSentReader(reader);
+        if (readChunked) {
+            BinaryChunkedSentenceReader reader = new BinaryChunkedSentenceReader(
+                    f);
+            try {
+                if (numThreads > 1) {
+                    extractConcurrently(reader.iterator());
+                } else {
+                    extractFromSentences(reader.iterator());
+                }
+            } finally {
+                reader.close();
+            }
+        } else {
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(f)));
+            extractFromInput(in);
+        }
     }
 
     private void extractFromStdin() throws IOException, ExtractorException {
         currentFile = "stdin";
         BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
-        ChunkedSentenceReader reader = getSentenceReader(in);
-        extractFromSentReader(reader);
+        extractFromInput(in);
+    }
+
+    private void extractFromInput(BufferedReader in) throws IOException,
+            ExtractorException {
+        if (numThreads > 1) {
+            extractConcurrently(getSentenceIterator(in));
+        } else {
+            extractFromSentences(getSentenceReader(in).iterator());
+        }
     }
 
     private ChunkedSentenceReader getSentenceReader(BufferedReader in)
@@ -329,7 +517,25 @@ public class CommandLineReVerb {
         }
     }
 
-    private double getConf(ChunkedBinaryExtraction extr) {
+    /**
+     * Returns an iterator over the unchunked sentences of the input. Used in
+     * threaded mode, where chunking is done by the workers.
+     */
+    private Iterator<String> getSentenceIterator(BufferedReader in)
+            throws IOException {
+        SentenceExtractor sentExtractor;
+        if (stripHtml) {
+            sentExtractor = DefaultObjects.getDefaultHtmlSentenceExtractor();
+        } else {
+            sentExtractor = DefaultObjects.getDefaultSentenceExtractor();
+        }
+        TextBlockIterator blocks = new TextBlockIterator(
+                new BufferedReaderIterator(in));
+        return new SentenceBlocksIterator(blocks, sentExtractor);
+    }
+
+    private static double getConf(ConfidenceFunction confFunc,
+            ChunkedBinaryExtraction extr) {
         try {
             return confFunc.getConf(extr);
         } catch (ConfidenceFunctionException e) {
@@ -339,16 +545,20 @@ public class CommandLineReVerb {
         }
     }
 
-    private void extractFromSentReader(ChunkedSentenceReader reader)
-            throws ExtractorException {
+    private void extractFromSentences(Iterator<ChunkedSentence> sentenceIt)
+            throws ExtractorException, IOException {
         long start;
 
-        ChunkedSentenceIterator sentenceIt = reader.iterator();
-
         while (sentenceIt.hasNext()) {
             // get the next chunked sentence
             ChunkedSentence sent = sentenceIt.next();
-            chunkTime += sentenceIt.getLastComputeTime();
+            if (sentenceIt instanceof ChunkedSentenceIterator) {
+                chunkTime += ((ChunkedSentenceIterator) sentenceIt)
+                        .getLastComputeTime();
+            }
+            if (chunkedWriter != null) {
+                chunkedWriter.write(sent);
+            }
 
             numSents++;
 
@@ -363,19 +573,171 @@ public class CommandLineReVerb {
 
                 // run the confidence function
                 start = System.nanoTime();
-                double conf = getConf(extr);
+                double conf = getConf(confFunc, extr);
                 confTime += System.nanoTime() - start;
 
                 NormalizedBinaryExtraction extrNorm = normalizer
                         .normalize(extr);
-                printExtr(extrNorm, conf);
+                printExtr(formatExtr(extrNorm, conf));
             }
             if (numSents % messageEvery == 0)
                 summary();
         }
     }
 
-    private void printExtr(NormalizedBinaryExtraction extr, double conf) {
+    /**
+     * Extracts from the given sentences using the worker threads. The input
+     * is made of String sentences, or of chunked sentences if the input was
+     * written with --write-chunked. A reader
+     * thread groups the sentences into blocks and hands them to the workers.
+     * The blocks are also queued in input order, and this thread waits on each
+     * one in turn before printing it, so the output rows come out in the same
+     * order as in single-threaded mode.
+     */
+    private void extractConcurrently(final Iterator<?> sents)
+            throws ExtractorException, IOException {
+
+        startWorkers();
+
+        final BlockingQueue<SentenceBlock> outputQueue = new ArrayBlockingQueue<SentenceBlock>(
+                numThreads * 4);
+        final RuntimeException[] readerError = new RuntimeException[1];
+
+        Thread reader = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    List<Object> block = new ArrayList<Object>(BLOCK_SIZE);
+                    while (sents.hasNext()) {
+                        block.add(sents.next());
+                        if (block.size() == BLOCK_SIZE) {
+                            enqueue(new SentenceBlock(block));
+                            block = new ArrayList<Object>(BLOCK_SIZE);
+                        }
+                    }
+                    if (!block.isEmpty()) {
+                        enqueue(new SentenceBlock(block));
+                    }
+                } catch (RuntimeException e) {
+                    readerError[0] = e;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    try {
+                        outputQueue.put(END_OF_INPUT);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+
+            private void enqueue(SentenceBlock block)
+                    throws InterruptedException {
+                outputQueue.put(block);
+                workQueue.put(block);
+            }
+        }, NAME + "-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        // Keep draining after an error so the reader thread never blocks on a
+        // full queue.
+        Throwable error = null;
+        try {
+            while (true) {
+                SentenceBlock block = outputQueue.take();
+                if (block == END_OF_INPUT) {
+                    break;
+                }
+                block.done.await();
+                if (error != null) {
+                    continue;
+                } else if (block.error != null) {
+                    error = block.error;
+                    continue;
+                }
+
+                chunkTime += block.chunkTime;
+                extractTime += block.extractTime;
+                confTime += block.confTime;
+
+                if (chunkedWriter != null) {
+                    for (ChunkedSentence sent : block.chunked) {
+                        if (sent != null) {
+                            chunkedWriter.write(sent);
+                        }
+                    }
+                }
+
+                for (List<String> rows : block.rows) {
+                    numSents++;
+                    for (String row : rows) {
+                        numExtrs++;
+                        printExtr(row);
+                    }
+                    if (numSents % messageEvery == 0)
+                        summary();
+                }
+            }
+            reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExtractorException("Interrupted during extraction", e);
+        }
+
+        if (error instanceof ExtractorException) {
+            throw (ExtractorException) error;
+        } else if (error instanceof Error) {
+            throw (Error) error;
+        } else if (error != null) {
+            throw new ExtractorException((Exception) error);
+        } else if (readerError[0] != null) {
+            throw new ExtractorException(readerError[0]);
+        }
+    }
+
+    private void startWorkers() {
+        for (ExtractionWorker worker : workers) {
+            if (worker.thread == null) {
+                worker.thread = new Thread(worker, NAME + "-worker-"
+                        + workers.indexOf(worker));
+                worker.thread.setDaemon(true);
+                worker.thread.start();
+            }
+        }
+    }
+
+    private void stopWorkers() {
+        if (workers == null) {
+            return;
+        }
+        try {
+            for (ExtractionWorker worker : workers) {
+                if (worker.thread != null) {
+                    workQueue.put(END_OF_INPUT);
+                }
+            }
+            for (ExtractionWorker worker : workers) {
+                if (worker.thread != null) {
+                    worker.thread.join();
+                    worker.thread = null;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void printExtr(String row) {
+        System.out.println(currentFile + "\t" + numSents + "\t" + row);
+    }
+
+    /**
+     * Formats the given extraction as a row of output columns, leaving out
+     * the file name and sentence number, which are only known when the row is
+     * printed.
+     */
+    private static String formatExtr(NormalizedBinaryExtraction extr,
+            double conf) {
         String arg1 = extr.getArgument1().toString();
         String rel = extr.getRelation().toString();
         String arg2 = extr.getArgument2().toString();
@@ -398,13 +760,120 @@ public class CommandLineReVerb {
         String a2s = String.valueOf(arg2Range.getStart());
         String a2e = String.valueOf(arg2Range.getEnd());
 
-        String row = Joiner.on("\t").join(
-                new String[] { currentFile, String.valueOf(numSents), arg1,
-                        rel, arg2, a1s, a1e, rs, re, a2s, a2e,
+        return Joiner.on("\t").join(
+                new String[] { arg1, rel, arg2, a1s, a1e, rs, re, a2s, a2e,
                         String.valueOf(conf), toks, pos, chunks, arg1Norm,
                         relNorm, arg2Norm });
+    }
+
+    /**
+     * A block of input sentences, along with the output rows computed for it
+     * by a worker. The rows are stored per chunked sentence; sentences that
+     * could not be chunked are skipped, as in single-threaded mode. The input
+     * is a list of Strings, or of chunked sentences with --read-chunked.
+     */
+    private static class SentenceBlock {
+        private final List<?> sents;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private List<ChunkedSentence> chunked;
+        private List<List<String>> rows;
+        private Throwable error;
+        private long chunkTime = 0;
+        private long extractTime = 0;
+        private long confTime = 0;
+
+        private SentenceBlock(List<?> sents) {
+            this.sents = sents;
+        }
+    }
+
+    /**
+     * Takes sentence blocks off the work queue and runs the full pipeline on
+     * them. The OpenNLP classes are not thread-safe, so each worker has its
+     * own chunker, extractor and confidence function.
+     */
+    private class ExtractionWorker implements Runnable {
+
+        private final SentenceChunker chunker;
+        private final ReVerbRelationExtractor extractor;
+        private final ConfidenceFunction confFunc;
+        private final BinaryExtractionNormalizer normalizer;
+        private Thread thread;
+
+        private ExtractionWorker(SentenceChunker chunker,
+                ReVerbRelationExtractor extractor, ConfidenceFunction confFunc) {
+            this.chunker = chunker;
+            this.extractor = extractor;
+            this.confFunc = confFunc;
+            this.normalizer = new BinaryExtractionNormalizer();
+        }
+
+        public void run() {
+            while (true) {
+                SentenceBlock block;
+                try {
+                    block = workQueue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (block == END_OF_INPUT) {
+                    return;
+                }
+                // Errors are caught too, so that the block is never left
+                // without rows or an error, and the worker stays alive for
+                // the blocks still queued behind it.
+                try {
+                    process(block);
+                } catch (Throwable e) {
+                    block.error = e;
+                } finally {
+                    block.done.countDown();
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void process(SentenceBlock block) throws ExtractorException {
+            long start;
+            List<List<String>> rows = new ArrayList<List<String>>(
+                    block.sents.size());
+
+            List<ChunkedSentence> sents;
+            if (readChunked) {
+                sents = (List<ChunkedSentence>) block.sents;
+            } else {
+                start = System.nanoTime();
+                sents = AbstractSentenceChunker.chunkSentences(chunker,
+                        (List<String>) block.sents);
+                block.chunkTime += System.nanoTime() - start;
+            }
+            block.chunked = sents;
+
+            for (ChunkedSentence sent : sents) {
+                // sentences that could not be chunked are skipped
+                if (sent == null) {
+                    continue;
+                }
 
-        System.out.println(row);
+                start = System.nanoTime();
+                Iterable<ChunkedBinaryExtraction> extractions = extractor
+                        .extract(sent);
+                block.extractTime += System.nanoTime() - start;
+
+                List<String> sentRows = new ArrayList<String>();
+                for (ChunkedBinaryExtraction extr : extractions) {
+                    start = System.nanoTime();
+                    double conf = getConf(confFunc, extr);
+                    block.confTime += System.nanoTime() - start;
+
+                    NormalizedBinaryExtraction extrNorm = normalizer
+                            .normalize(extr);
+                    sentRows.add(formatExtr(extrNorm, conf));
+                }
+                rows.add(sentRows);
+            }
+            block.rows = rows;
+        }
     }
 
 }
@@ -6,16 +6,12 @@ import java.io.Reader;
 
 import opennlp.tools.chunker.Chunker;
 import opennlp.tools.chunker.ChunkerME;
-import opennlp.tools.chunker.ChunkerModel;
-import opennlp.tools.postag.POSModel;
 import opennlp.tools.postag.POSTagger;
 import opennlp.tools.postag.POSTaggerME;
 import opennlp.tools.sentdetect.SentenceDetector;
 import opennlp.tools.sentdetect.SentenceDetectorME;
-import opennlp.tools.sentdetect.SentenceModel;
 import opennlp.tools.tokenize.Tokenizer;
 import opennlp.tools.tokenize.TokenizerME;
-import opennlp.tools.tokenize.TokenizerModel;
 import ca.umontreal.rali.reverbfr.PatchedFrenchTokenizer;
 import ca.umontreal.rali.reverbfr.ReverbConfiguration;
 import edu.washington.cs.knowitall.extractor.HtmlSentenceExtractor;
@@ -45,33 +41,53 @@ public class DefaultObjects {
         return in;
     }
 
+    /**
+     * Loads the default OpenNLP models into the {@link NlpModelRegistry}, so
+     * that the first call to the factory methods below does not pay for it.
+     *
+     * @throws IOException
+     */
     public static void initializeNlpTools() throws IOException {
-        getDefaultSentenceDetector();
-        getDefaultTokenizer();
-        getDefaultPosTagger();
-        getDefaultChunker();
+        NlpModelRegistry.getSentenceModel();
+        NlpModelRegistry.getTokenizerModel();
+        NlpModelRegistry.getPosModel();
+        NlpModelRegistry.getChunkerModel();
     }
 
+    /**
+     * Returns a new tokenizer. The underlying model is shared through the
+     * {@link NlpModelRegistry}, so this is cheap, but the returned object is
+     * not thread-safe and should be confined to one thread.
+     */
     public static Tokenizer getDefaultTokenizer() throws IOException {
         return ReverbConfiguration.isEn() ? 
-               new TokenizerME(new TokenizerModel(getResourceAsStream(DefaultObjects.getTokenizermodelfile()))) :
+               new TokenizerME(NlpModelRegistry.getTokenizerModel()) :
                new PatchedFrenchTokenizer();
     }
 
+    /**
+     * Returns a new POS tagger backed by the shared model. The returned object
+     * is not thread-safe.
+     */
     public static POSTagger getDefaultPosTagger() throws IOException {
-        return new POSTaggerME(new POSModel(
-                getResourceAsStream(getTaggermodelfile())));
+        return new POSTaggerME(NlpModelRegistry.getPosModel());
     }
 
+    /**
+     * Returns a new chunker backed by the shared model. The returned object
+     * is not thread-safe.
+     */
     public static Chunker getDefaultChunker() throws IOException {
-        return new ChunkerME(new ChunkerModel(
-                getResourceAsStream(getChunkermodelfile())));
+        return new ChunkerME(NlpModelRegistry.getChunkerModel());
     }
 
+    /**
+     * Returns a new sentence detector backed by the shared model. The
+     * returned object is not thread-safe.
+     */
     public static SentenceDetector getDefaultSentenceDetector()
             throws IOException {
-        return new SentenceDetectorME(new SentenceModel(
-                getResourceAsStream(getSentdetectormodelfile())));
+        return new SentenceDetectorME(NlpModelRegistry.getSentenceModel());
     }
 
     public static void addDefaultSentenceFilters(SentenceExtractor extractor) {
@@ -0,0 +1,333 @@
+package edu.washington.cs.knowitall.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.lang.StringEscapeUtils;
+
+/***
+ * Extracts the text of an HTML page in a single pass over its characters,
+ * following the rules of {@link HtmlUtils#removeHtml(String)}:
+ * <ul>
+ * <li>each run of whitespace becomes a single space,</li>
+ * <li>the elements whose content is not text, such as <code>script</code>
+ * and <code>style</code>, are replaced by a line break, as are the tags of
+ * the block elements, such as <code>p</code> and <code>div</code>,</li>
+ * <li>the other tags are dropped,</li>
+ * <li>runs of spaces and runs of line breaks are collapsed, and semicolons
+ * become line breaks.</li>
+ * </ul>
+ * As in <code>removeHtml</code>, a tag is matched by the start of its name,
+ * so that <code>&lt;link&gt;</code> breaks the text like
+ * <code>&lt;li&gt;</code>, and an element is removed only if its end tag is
+ * found. Unlike <code>removeHtml</code>, character entities are decoded, a
+ * non-breaking space becoming a space, and overlapping elements are removed
+ * from left to right.
+ *
+ * The class has no state, and can be used by several threads at once.
+ */
+public final class HtmlTextExtractor {
+
+    // '#' matches a digit
+    private static final String[] BREAK_TAGS = { "blockquote", "br",
+            "center", "dd", "div", "dt", "fieldset", "h#", "hr", "img",
+            "input", "isindex", "li", "noframes", "noscript", "p", "pre", "q",
+            "table", "td", "textarea", "th", "xmp" };
+
+    private static final String[] REMOVE_TAGS = { "applet", "form", "head",
+            "iframe", "legend", "map", "object", "script", "select", "style",
+            "title" };
+
+    // the longest entity name is "thetasym", and the longest numeric entity
+    // is "#x10FFFF"
+    private static final int MAX_ENTITY_LENGTH = 8;
+
+    private static final Map<String, Character> ENTITIES = htmlEntities();
+
+    private HtmlTextExtractor() {
+    }
+
+    private static Map<String, Character> htmlEntities() {
+        Map<String, Character> entities = new HashMap<String, Character>();
+        // the entities of HTML 4.0 are all in this range
+        for (char c = 0; c < 0x3000; c++) {
+            String escaped = StringEscapeUtils.escapeHtml(String.valueOf(c));
+            if (escaped.startsWith("&") && !escaped.startsWith("&#")) {
+                entities.put(escaped.substring(1, escaped.length() - 1), c);
+            }
+        }
+        entities.put("apos", '\'');
+        return entities;
+    }
+
+    /**
+     * @param html
+     * @return the text of the given HTML
+     */
+    public static String extract(CharSequence html) {
+        StringBuilder text = new StringBuilder(html.length());
+        extract(html, text);
+        return text.toString();
+    }
+
+    /**
+     * Writes the text of the given HTML into a builder, replacing its
+     * contents, so that the builder can be reused from page to page.
+     *
+     * @param html
+     * @param text
+     */
+    public static void extract(CharSequence html, StringBuilder text) {
+        text.setLength(0);
+        new Scanner(html, text).scan();
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B'
+                || c == '\f' || c == '\r';
+    }
+
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static class Scanner {
+        private final CharSequence in;
+        private final int length;
+        private final StringBuilder out;
+
+        // the last character written, before semicolons are replaced
+        private char last = 0;
+
+        // the index of the next end tag of each element to remove, at or
+        // after the index its search started from, or -1 if it has none
+        private final int[] endTags = new int[REMOVE_TAGS.length];
+        private final int[] endTagSearches = new int[REMOVE_TAGS.length];
+
+        public Scanner(CharSequence in, StringBuilder out) {
+            this.in = in;
+            this.length = in.length();
+            this.out = out;
+            for (int t = 0; t < REMOVE_TAGS.length; t++) {
+                endTagSearches[t] = Integer.MAX_VALUE;
+            }
+        }
+
+        public void scan() {
+            int i = 0;
+            while (i < length) {
+                char c = in.charAt(i);
+                if (isSpace(c)) {
+                    i++;
+                    while (i < length && isSpace(in.charAt(i))) {
+                        i++;
+                    }
+                    write(' ');
+                } else if (c == '<') {
+                    i = scanTag(i);
+                } else if (c == '&') {
+                    i = scanEntity(i);
+                } else {
+                    write(c);
+                    i++;
+                }
+            }
+        }
+
+        private void write(char c) {
+            if ((c == ' ' || c == '\n') && last == c) {
+                return;
+            }
+            last = c;
+            out.append(c == ';' ? '\n' : c);
+        }
+
+        /**
+         * Scans the tag or element starting at the '<' at index i, and
+         * returns the index after it.
+         */
+        private int scanTag(int i) {
+            int end = removedElementEnd(i);
+            if (end >= 0) {
+                write('\n');
+                return end;
+            }
+
+            int j = tagEnd(i, true);
+            if (j < 0) {
+                // not a tag
+                write('<');
+                return i + 1;
+            }
+            if (isBreakTag(i)) {
+                write('\n');
+            }
+            return j + 1;
+        }
+
+        /**
+         * Returns the index of the '>' ending the tag that starts at the '<'
+         * at index i, or -1 if it is not a tag. As the elements to remove
+         * are removed before the tags, and the tags breaking the text before
+         * the others, a tag can span elements to remove and, if
+         * skipBreakTags, tags breaking the text.
+         */
+        private int tagEnd(int i, boolean skipBreakTags) {
+            int j = i + 1;
+            while (j < length) {
+                char c = in.charAt(j);
+                if (c == '>') {
+                    return j;
+                } else if (c == '<') {
+                    int end = removedElementEnd(j);
+                    if (end < 0 && skipBreakTags && isBreakTag(j)) {
+                        int inner = tagEnd(j, false);
+                        end = inner < 0 ? -1 : inner + 1;
+                    }
+                    if (end < 0) {
+                        return -1;
+                    }
+                    j = end;
+                } else {
+                    j++;
+                }
+            }
+            return -1;
+        }
+
+        private boolean isBreakTag(int i) {
+            int name = i + 1;
+            if (name < length && in.charAt(name) == '/') {
+                name++;
+            }
+            return indexOfTag(BREAK_TAGS, name) >= 0
+                    || indexOfTag(REMOVE_TAGS, name) >= 0;
+        }
+
+        /**
+         * Returns the index after the element starting at the '<' at index
+         * i, if it is an element to remove and it has an end tag, or -1.
+         */
+        private int removedElementEnd(int i) {
+            int t = indexOfTag(REMOVE_TAGS, i + 1);
+            if (t < 0) {
+                return -1;
+            }
+            int j = i + 1 + REMOVE_TAGS[t].length();
+            while (j < length && in.charAt(j) != '>' && in.charAt(j) != '<') {
+                j++;
+            }
+            if (j >= length || in.charAt(j) == '<') {
+                return -1;
+            }
+            int endTag = findEndTag(t, j + 1);
+            return endTag < 0 ? -1 : endTag + REMOVE_TAGS[t].length() + 3;
+        }
+
+        private int findEndTag(int t, int from) {
+            if (endTagSearches[t] <= from
+                    && (endTags[t] < 0 || endTags[t] >= from)) {
+                return endTags[t];
+            }
+            String name = REMOVE_TAGS[t];
+            int endTag = -1;
+            for (int j = from; j + name.length() + 2 < length; j++) {
+                if (in.charAt(j) == '<' && in.charAt(j + 1) == '/'
+                        && in.charAt(j + name.length() + 2) == '>'
+                        && startsWith(j + 2, name)) {
+                    endTag = j;
+                    break;
+                }
+            }
+            endTagSearches[t] = from;
+            endTags[t] = endTag;
+            return endTag;
+        }
+
+        /**
+         * Returns the index of the tag whose name starts at index i, or -1.
+         */
+        private int indexOfTag(String[] tags, int i) {
+            if (i >= length) {
+                return -1;
+            }
+            char first = toLowerCase(in.charAt(i));
+            for (int t = 0; t < tags.length; t++) {
+                if (tags[t].charAt(0) == first && startsWith(i, tags[t])) {
+                    return t;
+                }
+            }
+            return -1;
+        }
+
+        private boolean startsWith(int i, String name) {
+            if (i + name.length() > length) {
+                return false;
+            }
+            for (int k = 0; k < name.length(); k++) {
+                char c = toLowerCase(in.charAt(i + k));
+                char expected = name.charAt(k);
+                if (expected == '#' ? !(c >= '0' && c <= '9') : c != expected) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Scans the entity starting at the '&' at index i, and returns the
+         * index after it.
+         */
+        private int scanEntity(int i) {
+            int j = i + 1;
+            int limit = Math.min(length, j + MAX_ENTITY_LENGTH);
+            while (j < limit && isEntityChar(in.charAt(j))) {
+                j++;
+            }
+            if (j > i + 1 && j < length && in.charAt(j) == ';') {
+                int c = decodeEntity(in.subSequence(i + 1, j).toString());
+                if (c >= 0) {
+                    if (c == '\u00A0') {
+                        write(' ');
+                    } else if (Character.isSupplementaryCodePoint(c)) {
+                        write(Character.highSurrogate(c));
+                        write(Character.lowSurrogate(c));
+                    } else {
+                        write((char) c);
+                    }
+                    return j + 1;
+                }
+            }
+            write('&');
+            return i + 1;
+        }
+
+        private boolean isEntityChar(char c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                    || (c >= '0' && c <= '9') || c == '#';
+        }
+
+        /**
+         * Returns the code point of the given entity name, or -1 if it is not
+         * an entity.
+         */
+        private int decodeEntity(String name) {
+            if (name.charAt(0) != '#') {
+                Character c = ENTITIES.get(name);
+                return c == null ? -1 : c.charValue();
+            }
+            try {
+                int c;
+                if (name.length() > 1
+                        && (name.charAt(1) == 'x' || name.charAt(1) == 'X')) {
+                    c = Integer.parseInt(name.substring(2), 16);
+                } else {
+                    c = Integer.parseInt(name.substring(1));
+                }
+                return Character.isValidCodePoint(c) ? c : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+    }
+}
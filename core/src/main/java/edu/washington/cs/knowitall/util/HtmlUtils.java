@@ -10,9 +10,8 @@ import org.apache.commons.lang.StringEscapeUtils;
 
 public class HtmlUtils {
 
-    private static HashSet<Pattern> removePatterns;
-    private static HashSet<Pattern> breakPatterns;
-    private static boolean initialized = false;
+    private static final HashSet<Pattern> removePatterns = new HashSet<Pattern>();
+    private static final HashSet<Pattern> breakPatterns = new HashSet<Pattern>();
 
     private static final String[] breakTags = { "blockquote", "br", "center",
             "dd", "div", "dt", "fieldset", "h\\d", "hr", "img", "input",
@@ -28,10 +27,15 @@ public class HtmlUtils {
     private static Pattern multiSpace = Pattern.compile("  +");
     private static Pattern multiBreaks = Pattern.compile("\n\n+");
 
-    public static String removeHtml(String content) {
+    static {
+        initPatterns();
+    }
 
-        if (!initialized)
-            initPatterns();
+    /**
+     * Extracts the text of the given HTML with a series of regular
+     * expressions. {@link HtmlTextExtractor} does the same in a single pass.
+     */
+    public static String removeHtml(String content) {
 
         // Normalize whitespace
         content = whiteSpace.matcher(content).replaceAll(" ");
@@ -77,8 +81,6 @@ public class HtmlUtils {
     }
 
     private static void initPatterns() {
-        removePatterns = new HashSet<Pattern>();
-        breakPatterns = new HashSet<Pattern>();
         for (int i = 0; i < removeTags.length; i++) {
             Pattern p = Pattern.compile("(?is)<" + removeTags[i]
                     + "[^<]*?>.*?</" + removeTags[i] + ">");
@@ -90,7 +92,6 @@ public class HtmlUtils {
             Pattern p = Pattern.compile("(?i)</?" + breakTags[i] + "[^<]*?>");
             breakPatterns.add(p);
         }
-        initialized = true;
     }
 
 }
@@ -0,0 +1,172 @@
+package edu.washington.cs.knowitall.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import opennlp.tools.chunker.ChunkerModel;
+import opennlp.tools.postag.POSModel;
+import opennlp.tools.sentdetect.SentenceModel;
+import opennlp.tools.tokenize.TokenizerModel;
+
+/**
+ * A JVM-wide registry of OpenNLP models. Each model resource is read and
+ * deserialized at most once, and the resulting model object is shared by every
+ * caller. OpenNLP model objects are immutable and safe to share between
+ * threads; the <code>*ME</code> classes built on top of them are not, but they
+ * are cheap to construct once the model is loaded. Callers should therefore
+ * create one <code>*ME</code> instance per thread from the models returned
+ * here, which is what the factory methods in {@link DefaultObjects} do.
+ *
+ * Models are keyed by resource path, so the English and French models can be
+ * loaded side by side.
+ */
+public class NlpModelRegistry {
+
+    private static final ConcurrentMap<String, Object> MODELS = new ConcurrentHashMap<String, Object>();
+
+    private enum ModelType {
+        TOKENIZER, POS, CHUNKER, SENTENCE
+    }
+
+    private NlpModelRegistry() {
+    }
+
+    /**
+     * @return the tokenizer model for the current locale.
+     * @throws IOException
+     *             if unable to load the model
+     */
+    public static TokenizerModel getTokenizerModel() throws IOException {
+        return getTokenizerModel(DefaultObjects.getTokenizermodelfile());
+    }
+
+    /**
+     * @param resource
+     * @return the tokenizer model stored at the given classpath resource.
+     * @throws IOException
+     *             if unable to load the model
+     */
+    public static TokenizerModel getTokenizerModel(String resource)
+            throws IOException {
+        return (TokenizerModel) getModel(resource, ModelType.TOKENIZER);
+    }
+
+    /**
+     * @return the POS tagger model for the current locale.
+     * @throws IOException
+     *             if unable to load the model
+     */
+    public static POSModel getPosModel() throws IOException {
+        return getPosModel(DefaultObjects.getTaggermodelfile());
+    }
+
+    /**
+     * @param resource
+     * @return the POS tagger model stored at the given classpath resource.
+     * @throws IOException
+     *             if unable to load the model
+     */
+    public static POSModel getPosModel(String resource) throws IOException {
+        return (POSModel) getModel(resource, ModelType.POS);
+    }
+
+    /**
+     * @return the chunker model for the current locale.
+     * @throws IOException
+     *             if unable to load the model
+     */
+    public static ChunkerModel getChunkerModel() throws IOException {
+        return getChunkerModel(DefaultObjects.getChunkermodelfile());
+    }
+
+    /**
+     * @param resource
+     * @return the chunker model stored at the given classpath resource.
+     * @throws IOException
+     *             if unable to load the model
+     */
+    public static ChunkerModel getChunkerModel(String resource)
+            throws IOException {
+        return (ChunkerModel) getModel(resource, ModelType.CHUNKER);
+    }
+
+    /**
+     * @return the sentence detector model for the current locale.
+     * @throws IOException
+     *             if unable to load the model
+     */
+    public static SentenceModel getSentenceModel() throws IOException {
+        return getSentenceModel(DefaultObjects.getSentdetectormodelfile());
+    }
+
+    /**
+     * @param resource
+     * @return the sentence detector model stored at the given classpath
+     *         resource.
+     * @throws IOException
+     *             if unable to load the model
+     */
+    public static SentenceModel getSentenceModel(String resource)
+            throws IOException {
+        return (SentenceModel) getModel(resource, ModelType.SENTENCE);
+    }
+
+    /**
+     * @param resource
+     * @return true if the model at the given resource has already been
+     *         loaded.
+     */
+    public static boolean isLoaded(String resource) {
+        return MODELS.containsKey(resource);
+    }
+
+    /**
+     * Removes all of the loaded models from the registry. Instances already
+     * built from them are unaffected.
+     */
+    public static void clear() {
+        MODELS.clear();
+    }
+
+    private static Object getModel(String resource, ModelType type)
+            throws IOException {
+        Object model = MODELS.get(resource);
+        if (model != null) {
+            return model;
+        }
+        // Models take a while to deserialize, so make sure only one thread
+        // does it for a given resource.
+        synchronized (NlpModelRegistry.class) {
+            model = MODELS.get(resource);
+            if (model == null) {
+                model = loadModel(resource, type);
+                MODELS.put(resource, model);
+            }
+        }
+        return model;
+    }
+
+    private static Object loadModel(String resource, ModelType type)
+            throws IOException {
+        InputStream in = DefaultObjects.getResourceAsStream(resource);
+        try {
+            switch (type) {
+            case TOKENIZER:
+                return new TokenizerModel(in);
+            case POS:
+                return new POSModel(in);
+            case CHUNKER:
+                return new ChunkerModel(in);
+            case SENTENCE:
+                return new SentenceModel(in);
+            default:
+                throw new IllegalArgumentException("Unknown model type: "
+                        + type);
+            }
+        } finally {
+            in.close();
+        }
+    }
+}
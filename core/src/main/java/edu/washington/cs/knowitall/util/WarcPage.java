@@ -9,11 +9,13 @@ public class WarcPage {
     private String WARC_Target_URI;
     private String WARC_TREC_ID;
     private StringBuilder lines;
+    private CharSequence content;
     private final long serialNumber;
 
     public WarcPage(long serialNumber) {
         this.serialNumber = serialNumber;
         lines = new StringBuilder();
+        content = lines;
     }
 
     /**
@@ -39,10 +41,31 @@ public class WarcPage {
     }
 
     public String getContent() {
-        return lines.toString();
+        return content.toString();
+    }
+
+    /**
+     * Returns the content of the page without copying it. The content of a
+     * page read from a file by {@link WarcReader} is decoded the first time
+     * its characters are read.
+     */
+    public CharSequence getContentChars() {
+        return content;
+    }
+
+    /**
+     * Replaces the content of the page, including the lines added so far.
+     */
+    public void setContent(CharSequence content) {
+        this.content = content;
+        lines = null;
     }
 
     public void addLine(String line) {
+        if (lines == null) {
+            lines = new StringBuilder(content);
+            content = lines;
+        }
         lines.append("\n" + line);
     }
 
@@ -59,11 +82,11 @@ public class WarcPage {
     }
 
     public boolean hasContent() {
-        return lines.length() > 0;
+        return content.length() > 0;
     }
 
     public StringReader getPageReader() throws IOException {
-        return new StringReader(lines.toString());
+        return new StringReader(content.toString());
     }
 
     public void setWARC_TREC_ID(String wARC_TREC_ID) {
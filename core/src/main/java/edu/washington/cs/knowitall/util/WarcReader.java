@@ -1,25 +1,169 @@
 package edu.washington.cs.knowitall.util;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import com.google.common.collect.AbstractIterator;
+
+/***
+ * Reads the pages of a WARC file.
+ *
+ * A reader built from a {@link BufferedReader} or an {@link InputStream}
+ * reads the input line by line, and can be iterated over once.
+ *
+ * A reader built from a {@link File} reads it record by record: it parses the
+ * WARC headers of each record and uses their <code>Content-Length</code> to
+ * skip the records that are not responses, and to slice the block of each
+ * response without scanning it. A plain file is memory-mapped, in windows of
+ * at most {@link #DEFAULT_WINDOW_SIZE} bytes so that files larger than 2GB can
+ * be read, and the blocks are slices of the mapping. A file whose name ends
+ * in <code>.gz</code> is read as a series of gzipped records, with one record
+ * in memory at a time. The content of a page is the body of the HTTP
+ * response, decoded with the charset of its <code>Content-Type</code> header
+ * the first time it is read. Each call to {@link #iterator()} starts again
+ * from the beginning of the file.
+ */
+public class WarcReader implements Iterable<WarcPage>, Closeable {
+
+    /** The default size of the mapped window */
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Charset LATIN1 = Charset.forName("ISO-8859-1");
+
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
 
-public class WarcReader implements Iterable<WarcPage> {
     private final BufferedReader in;
     protected long serialNumber;
 
+    private final File file;
+    private final Charset charset;
+    private final int windowSize;
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+    private final List<RecordInput> openInputs = new ArrayList<RecordInput>();
+
     public WarcReader(BufferedReader in) {
         this.in = in;
+        this.file = null;
+        this.charset = null;
+        this.windowSize = 0;
+        this.randomAccessFile = null;
+        this.channel = null;
     }
 
     public WarcReader(InputStream is) throws IOException {
         this(new BufferedReader(new InputStreamReader(is)));
     }
 
+    /**
+     * Reads the given file record by record, decoding pages in UTF-8 unless
+     * they declare another charset.
+     *
+     * @param file
+     * @throws IOException
+     *             if unable to open the file
+     */
+    public WarcReader(File file) throws IOException {
+        this(file, UTF8);
+    }
+
+    /**
+     * Reads the given file record by record.
+     *
+     * @param file
+     * @param charset
+     *            the charset of the pages that do not declare theirs
+     * @throws IOException
+     *             if unable to open the file
+     */
+    public WarcReader(File file, Charset charset) throws IOException {
+        this(file, charset, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Reads the given file record by record.
+     *
+     * @param file
+     * @param charset
+     *            the charset of the pages that do not declare theirs
+     * @param windowSize
+     *            the maximum number of bytes to map at once
+     * @throws IOException
+     *             if unable to open the file
+     */
+    public WarcReader(File file, Charset charset, int windowSize)
+            throws IOException {
+        this.in = null;
+        this.file = file;
+        this.charset = charset;
+        this.windowSize = windowSize;
+        if (isGzipped(file)) {
+            if (!file.isFile()) {
+                throw new FileNotFoundException(file.getPath());
+            }
+            this.randomAccessFile = null;
+            this.channel = null;
+        } else {
+            this.randomAccessFile = new RandomAccessFile(file, "r");
+            this.channel = randomAccessFile.getChannel();
+        }
+    }
+
+    private static boolean isGzipped(File file) {
+        return file.getName().endsWith(".gz");
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+        }
+        synchronized (openInputs) {
+            for (RecordInput input : openInputs) {
+                input.close();
+            }
+            openInputs.clear();
+        }
+        if (randomAccessFile != null) {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * @return an iterator over the pages of the input
+     * @throws IllegalStateException
+     *             when iterating, if a file read record by record is
+     *             truncated or corrupt
+     */
     @Override
     public Iterator<WarcPage> iterator() {
+        if (file != null) {
+            return recordIterator();
+        } else {
+            return lineIterator();
+        }
+    }
+
+    private Iterator<WarcPage> lineIterator() {
         return new Iterator<WarcPage>() {
             WarcPage w = null;
 
@@ -89,4 +233,407 @@ public class WarcReader implements Iterable<WarcPage> {
         };
     }
 
+    private Iterator<WarcPage> recordIterator() {
+        return new AbstractIterator<WarcPage>() {
+
+            private RecordInput input;
+
+            // the WARC headers of the current record
+            private String type;
+            private String targetUri;
+            private String trecId;
+            private long contentLength;
+
+            @Override
+            protected WarcPage computeNext() {
+                try {
+                    if (input == null) {
+                        input = openInput();
+                    }
+                    while (readHeaders()) {
+                        if (!"response".equals(type)) {
+                            input.skip(contentLength);
+                            continue;
+                        }
+                        if (contentLength > Integer.MAX_VALUE) {
+                            throw new IllegalStateException(String.format(
+                                    "Oversized record at byte %s",
+                                    input.position()));
+                        }
+                        ByteBuffer block = input.read((int) contentLength);
+
+                        WarcPage page = new WarcPage(serialNumber++);
+                        page.setWARC_Target_URI(targetUri);
+                        page.setWARC_TREC_ID(trecId);
+                        page.setContent(httpContent(block));
+                        return page;
+                    }
+                    closeInput(input);
+                    return endOfData();
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not read WARC file "
+                            + file, e);
+                }
+            }
+
+            private boolean readHeaders() throws IOException {
+                String line;
+                do {
+                    line = input.readLine();
+                    if (line == null) {
+                        return false;
+                    }
+                } while (line.length() == 0);
+                if (!line.startsWith("WARC/")) {
+                    throw new IllegalStateException(String.format(
+                            "Expected a WARC record before byte %s: %s",
+                            input.position(), line));
+                }
+
+                type = null;
+                targetUri = null;
+                trecId = null;
+                contentLength = -1;
+                while ((line = input.readLine()) != null && line.length() > 0) {
+                    int colon = line.indexOf(':');
+                    if (colon < 0) {
+                        continue;
+                    }
+                    String name = line.substring(0, colon).trim();
+                    String value = line.substring(colon + 1).trim();
+                    if (name.equalsIgnoreCase("WARC-Type")) {
+                        type = value;
+                    } else if (name.equalsIgnoreCase("WARC-Target-URI")) {
+                        targetUri = value;
+                    } else if (name.equalsIgnoreCase("WARC-TREC-ID")) {
+                        trecId = value;
+                    } else if (name.equalsIgnoreCase("Content-Length")) {
+                        try {
+                            contentLength = Long.parseLong(value);
+                        } catch (NumberFormatException e) {
+                            contentLength = -1;
+                        }
+                    }
+                }
+                if (contentLength < 0) {
+                    throw new IllegalStateException(String.format(
+                            "WARC record without a valid Content-Length "
+                                    + "before byte %s", input.position()));
+                }
+                return true;
+            }
+        };
+    }
+
+    private RecordInput openInput() throws IOException {
+        if (channel != null) {
+            return new MappedInput();
+        }
+        RecordInput input = new StreamInput(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(file),
+                        STREAM_BUFFER_SIZE), STREAM_BUFFER_SIZE));
+        synchronized (openInputs) {
+            openInputs.add(input);
+        }
+        return input;
+    }
+
+    private void closeInput(RecordInput input) throws IOException {
+        synchronized (openInputs) {
+            openInputs.remove(input);
+        }
+        input.close();
+    }
+
+    /**
+     * Returns the body of the HTTP response in the given block, or the whole
+     * block if it is not an HTTP response, without decoding it.
+     */
+    private CharSequence httpContent(ByteBuffer block) {
+        int start = block.position();
+        int end = block.limit();
+        if (!startsWith(block, start, end, "HTTP/")) {
+            return new DecodedContent(block, charset);
+        }
+
+        Charset pageCharset = charset;
+        int body = end;
+        int lineStart = start;
+        for (int i = start; i < end; i++) {
+            if (block.get(i) != '\n') {
+                continue;
+            }
+            int lineEnd = i;
+            if (lineEnd > lineStart && block.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            if (lineEnd == lineStart) {
+                body = i + 1;
+                break;
+            }
+            if (startsWith(block, lineStart, lineEnd, "Content-Type:")) {
+                pageCharset = headerCharset(block, lineStart, lineEnd,
+                        pageCharset);
+            }
+            lineStart = i + 1;
+        }
+
+        ByteBuffer content = block.duplicate();
+        content.position(body);
+        return new DecodedContent(content.slice(), pageCharset);
+    }
+
+    private static boolean startsWith(ByteBuffer bytes, int start, int end,
+            String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            int b = bytes.get(start + i);
+            int c = prefix.charAt(i);
+            if (b != c && Character.toLowerCase(b) != Character.toLowerCase(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Charset headerCharset(ByteBuffer bytes, int start,
+            int end, Charset defaultCharset) {
+        byte[] line = new byte[end - start];
+        for (int i = 0; i < line.length; i++) {
+            line[i] = bytes.get(start + i);
+        }
+        String header = new String(line, LATIN1).toLowerCase();
+        int index = header.indexOf("charset=");
+        if (index < 0) {
+            return defaultCharset;
+        }
+        String name = header.substring(index + "charset=".length()).trim();
+        int stop = 0;
+        while (stop < name.length() && name.charAt(stop) != ';'
+                && !Character.isWhitespace(name.charAt(stop))) {
+            stop++;
+        }
+        name = name.substring(0, stop).replace("\"", "").replace("'", "");
+        try {
+            if (name.length() > 0 && Charset.isSupported(name)) {
+                return Charset.forName(name);
+            }
+        } catch (IllegalCharsetNameException e) {
+            // fall back to the default charset
+        }
+        return defaultCharset;
+    }
+
+    /**
+     * A page decoded from its bytes the first time its characters are read.
+     */
+    private static class DecodedContent implements CharSequence {
+        private ByteBuffer bytes;
+        private final Charset charset;
+        private CharBuffer chars;
+
+        public DecodedContent(ByteBuffer bytes, Charset charset) {
+            this.bytes = bytes;
+            this.charset = charset;
+        }
+
+        private CharBuffer decoded() {
+            if (chars == null) {
+                chars = charset.decode(bytes);
+                bytes = null;
+            }
+            return chars;
+        }
+
+        @Override
+        public int length() {
+            return decoded().length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return decoded().charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return decoded().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return decoded().toString();
+        }
+    }
+
+    /**
+     * The bytes of a WARC file, read from the start of the file.
+     */
+    private abstract static class RecordInput {
+        private byte[] line = new byte[256];
+
+        /**
+         * @return the next byte, or -1 at the end of the file
+         */
+        public abstract int read() throws IOException;
+
+        /**
+         * @return the given number of bytes, from the current position
+         */
+        public abstract ByteBuffer read(int length) throws IOException;
+
+        public abstract void skip(long length) throws IOException;
+
+        /**
+         * @return the number of bytes read or skipped so far
+         */
+        public abstract long position();
+
+        public void close() throws IOException {
+        }
+
+        /**
+         * @return the next line, without its line terminator, or null at the
+         *         end of the file
+         */
+        public String readLine() throws IOException {
+            int length = 0;
+            int b;
+            while ((b = read()) >= 0 && b != '\n') {
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, 2 * length);
+                }
+                line[length++] = (byte) b;
+            }
+            if (b < 0 && length == 0) {
+                return null;
+            }
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+            return new String(line, 0, length, UTF8);
+        }
+
+        protected IllegalStateException truncated() {
+            return new IllegalStateException(String.format(
+                    "Truncated WARC record at byte %s", position()));
+        }
+    }
+
+    private class MappedInput extends RecordInput {
+        private final long size;
+        private long position = 0;
+        private long windowStart = 0;
+        private ByteBuffer window = ByteBuffer.allocate(0);
+
+        public MappedInput() throws IOException {
+            this.size = channel.size();
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position >= size) {
+                return -1;
+            }
+            if (position >= windowStart + window.limit()) {
+                windowStart = position;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(windowSize, size - position));
+            }
+            return window.get((int) (position++ - windowStart)) & 0xFF;
+        }
+
+        @Override
+        public ByteBuffer read(int length) throws IOException {
+            if (position + length > size) {
+                throw truncated();
+            }
+            ByteBuffer bytes;
+            if (position + length <= windowStart + window.limit()) {
+                bytes = window.duplicate();
+                bytes.position((int) (position - windowStart));
+                bytes.limit(bytes.position() + length);
+                bytes = bytes.slice();
+            } else {
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        length);
+            }
+            position += length;
+            return bytes;
+        }
+
+        @Override
+        public void skip(long length) {
+            if (position + length > size) {
+                throw truncated();
+            }
+            position += length;
+        }
+
+        @Override
+        public long position() {
+            return position;
+        }
+    }
+
+    private static class StreamInput extends RecordInput {
+        private final InputStream in;
+        private long position = 0;
+
+        public StreamInput(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                position++;
+            }
+            return b;
+        }
+
+        @Override
+        public ByteBuffer read(int length) throws IOException {
+            byte[] bytes = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                int n = in.read(bytes, offset, length - offset);
+                if (n < 0) {
+                    throw truncated();
+                }
+                offset += n;
+                position += n;
+            }
+            return ByteBuffer.wrap(bytes);
+        }
+
+        @Override
+        public void skip(long length) throws IOException {
+            long remaining = length;
+            while (remaining > 0) {
+                long n = in.skip(remaining);
+                if (n <= 0) {
+                    if (in.read() < 0) {
+                        throw truncated();
+                    }
+                    n = 1;
+                }
+                remaining -= n;
+                position += n;
+            }
+        }
+
+        @Override
+        public long position() {
+            return position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
 }
@@ -0,0 +1,129 @@
+package edu.washington.cs.knowitall.argumentidentifier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Vector;
+
+import org.junit.Test;
+
+import cc.mallet.types.FeatureVector;
+import cc.mallet.types.FeatureVectorSequence;
+import edu.washington.cs.knowitall.argumentidentifier.ArgLearner.Mode;
+import edu.washington.cs.knowitall.commonlib.Range;
+import edu.washington.cs.knowitall.nlp.ChunkedSentence;
+import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
+
+public class ArgSubstructureClassifierTest {
+
+	private static List<ChunkedSentence> sentences() {
+		List<ChunkedSentence> sents = new ArrayList<ChunkedSentence>();
+		sents.add(new ChunkedSentence(
+				"Barack Obama , the president , was born in Hawaii in 1961 ."
+						.split(" "),
+				"NNP NNP , DT NN , VBD VBN IN NNP IN CD .".split(" "),
+				"B-NP I-NP O B-NP I-NP O O O O B-NP O B-NP O".split(" ")));
+		sents.add(new ChunkedSentence(
+				"The cat that he saw wants to eat the red fish , he said ."
+						.split(" "),
+				"DT NN WDT PRP VBD VBZ TO VB DT JJ NN , PRP VBD .".split(" "),
+				"B-NP I-NP O B-NP O O O O B-NP I-NP I-NP O B-NP O O"
+						.split(" ")));
+		return sents;
+	}
+
+	/**
+	 * Returns the features of every (relation, bound) pair of the sample
+	 * sentences that the classifier of the given mode would be asked about.
+	 */
+	private static List<Vector<Vector<String>>> features(Mode mode,
+			ArgSubstructureFeatureGenerator generator) {
+		List<Vector<Vector<String>>> result = new ArrayList<Vector<Vector<String>>>();
+		for (ChunkedSentence sent : sentences()) {
+			int n = sent.getLength();
+			for (int start = 1; start < n - 1; start++) {
+				for (int length = 1; length <= 3 && start + length < n; length++) {
+					ChunkedExtraction extr = new ChunkedExtraction(sent,
+							new Range(start, length));
+					int from = mode == Mode.LEFT ? 1 : start + length;
+					int to = mode == Mode.LEFT ? start : n;
+					for (int bound = from; bound < to; bound++) {
+						Vector<Vector<String>> features = generator
+								.extractCRFFeatureVectors(extr, bound, bound,
+										false);
+						if (features != null) {
+							result.add(features);
+						}
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	private static void assertSameSequence(FeatureVectorSequence expected,
+			FeatureVectorSequence actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			FeatureVector e = expected.get(i);
+			FeatureVector a = actual.get(i);
+			assertEquals(e.numLocations(), a.numLocations());
+			for (int j = 0; j < e.numLocations(); j++) {
+				assertEquals(e.indexAtLocation(j), a.indexAtLocation(j));
+				assertEquals(e.valueAtLocation(j), a.valueAtLocation(j), 0.0);
+			}
+		}
+	}
+
+	private static void assertSameAsPipe(Mode mode) {
+		ArgSubstructureFeatureGenerator generator = new ArgSubstructureFeatureGenerator(
+				mode);
+		ArgSubstructureClassifier classifier = new ArgSubstructureClassifier(
+				mode, generator);
+		List<Vector<Vector<String>>> samples = features(mode, generator);
+		assertTrue(samples.size() > 50);
+		for (Vector<Vector<String>> features : samples) {
+			FeatureVectorSequence expected = classifier
+					.parseInputSequence(generator.convertInstancesToFeatures(
+							features, false));
+			assertSameSequence(expected, classifier.toInputSequence(features));
+		}
+	}
+
+	@Test
+	public void testArg1SameAsPipe() {
+		assertSameAsPipe(Mode.LEFT);
+	}
+
+	@Test
+	public void testArg2SameAsPipe() {
+		assertSameAsPipe(Mode.RIGHT);
+	}
+
+	@Test
+	public void testTextFallback() {
+		ArgSubstructureFeatureGenerator generator = new ArgSubstructureFeatureGenerator(
+				Mode.RIGHT);
+		ArgSubstructureClassifier classifier = new ArgSubstructureClassifier(
+				Mode.RIGHT, generator);
+		Vector<Vector<String>> features = features(Mode.RIGHT, generator)
+				.get(0);
+		assertNotNull(classifier.toInputSequence(features));
+
+		// features the text format cannot represent are left to the pipe
+		for (String feature : new String[] { "", "two words", "tab\tbed" }) {
+			Vector<Vector<String>> changed = new Vector<Vector<String>>();
+			for (Vector<String> instance : features) {
+				changed.add(new Vector<String>(instance));
+			}
+			changed.get(0).set(0, feature);
+			assertNull(classifier.toInputSequence(changed));
+			assertNotNull(classifier.parseInputSequence(generator
+					.convertInstancesToFeatures(changed, false)));
+		}
+	}
+}
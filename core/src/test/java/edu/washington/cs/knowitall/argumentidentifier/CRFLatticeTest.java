@@ -0,0 +1,73 @@
+package edu.washington.cs.knowitall.argumentidentifier;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ObjectInputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+import cc.mallet.fst.CRF;
+import cc.mallet.fst.confidence.ViterbiConfidenceEstimator;
+import cc.mallet.types.Alphabet;
+import cc.mallet.types.FeatureVector;
+import cc.mallet.types.FeatureVectorSequence;
+import cc.mallet.types.Instance;
+import cc.mallet.types.Sequence;
+import edu.washington.cs.knowitall.commonlib.ResourceUtils;
+
+public class CRFLatticeTest {
+
+	private static CRF loadCRF(String name) throws Exception {
+		ObjectInputStream in = new ObjectInputStream(
+				ResourceUtils.loadResource(name,
+						ArgSubstructureClassifier.class));
+		try {
+			return (CRF) in.readObject();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void assertSameAsMallet(String model) throws Exception {
+		CRF crf = loadCRF(model);
+		Alphabet alphabet = crf.getInputAlphabet();
+		ViterbiConfidenceEstimator estimator = new ViterbiConfidenceEstimator(
+				crf);
+		CRFLattice lattice = new CRFLattice(crf);
+		Random random = new Random(0);
+		for (int trial = 0; trial < 1000; trial++) {
+			FeatureVector[] vectors = new FeatureVector[1 + random.nextInt(12)];
+			for (int i = 0; i < vectors.length; i++) {
+				int[] indices = new int[random.nextInt(20)];
+				for (int j = 0; j < indices.length; j++) {
+					indices[j] = random.nextInt(alphabet.size());
+				}
+				vectors[i] = new FeatureVector(alphabet, indices);
+			}
+			FeatureVectorSequence input = new FeatureVectorSequence(vectors);
+
+			Sequence<?> expected = crf.transduce(input);
+			double confidence = estimator.estimateConfidenceFor(new Instance(
+					input, null, null, null), null, null);
+			lattice.compute(input);
+			Sequence<?> output = lattice.getBestOutput();
+
+			assertEquals(expected.size(), output.size());
+			for (int i = 0; i < expected.size(); i++) {
+				assertEquals(expected.get(i), output.get(i));
+			}
+			assertEquals(confidence, lattice.getConfidence(), 0.0);
+		}
+	}
+
+	@Test
+	public void testArg1Model() throws Exception {
+		assertSameAsMallet("arg1substructure-model");
+	}
+
+	@Test
+	public void testArg2Model() throws Exception {
+		assertSameAsMallet("arg2substructure-model");
+	}
+}
@@ -6,6 +6,8 @@ import java.util.Map;
 
 import org.junit.Test;
 
+import edu.washington.cs.knowitall.extractor.conf.featureset.BooleanFeatureSet;
+
 public class BooleanFeatureSetTest {
 
 	@Test
@@ -49,4 +51,16 @@ public class BooleanFeatureSetTest {
 		for (int i = 0; i < 3; i++) assertEquals(expectedJoe[i], gotJoe[i]);
 	}
 
+	@Test
+	public void testFeaturizeToBits() {
+		BooleanFeatureSet<String> featureSet = StringFeatures.featureSet;
+		long[] bits = featureSet.featurizeToBits("jane", null);
+		for (int i = 0; i < 3; i++) assertTrue(BooleanFeatureSet.getBit(bits, i));
+
+		// the bitset is reused and overwritten
+		assertSame(bits, featureSet.featurizeToBits("joe", bits));
+		boolean[] expectedJoe = { true, false, true };
+		for (int i = 0; i < 3; i++) assertEquals(expectedJoe[i], BooleanFeatureSet.getBit(bits, i));
+	}
+
 }
@@ -0,0 +1,80 @@
+package edu.washington.cs.knowitall.extractor.conf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import edu.washington.cs.knowitall.argumentidentifier.Arg1LocationFeatureGenerator;
+import edu.washington.cs.knowitall.extractor.conf.classifier.CompiledDecisionTree;
+import edu.washington.cs.knowitall.extractor.conf.classifier.DecisionTree;
+import edu.washington.cs.knowitall.extractor.conf.classifier.DoubleFeatures;
+import edu.washington.cs.knowitall.extractor.conf.classifier.LazyFeatureVector;
+
+public class DecisionTreeTest {
+
+	private static class ArrayFeatures extends LazyFeatureVector {
+		private final double[] values;
+		private final Set<Integer> computed = new HashSet<Integer>();
+
+		public ArrayFeatures(double[] values) {
+			super(values.length);
+			this.values = values;
+		}
+
+		@Override
+		protected double compute(int feature) {
+			assertTrue(computed.add(feature));
+			return values[feature];
+		}
+	}
+
+	// records the features read by the interpreted tree, which are those of
+	// the nodes on the evaluated path
+	private static class RecordingFeatures extends DoubleFeatures {
+		private static final long serialVersionUID = 1L;
+		private final Set<Object> read = new HashSet<Object>();
+
+		@Override
+		public Double get(Object key) {
+			read.add(key);
+			return super.get(key);
+		}
+	}
+
+	@Test
+	public void testCompiledClassify() throws Exception {
+		List<String> names = Arg1LocationFeatureGenerator.FEATURE_NAMES;
+		DecisionTree tree = DecisionTree.fromModel(DecisionTreeTest.class
+				.getResource("/r2a2-arg1loc.tree"));
+		CompiledDecisionTree compiled = tree.compile(names);
+
+		Random random = new Random(0);
+		for (int trial = 0; trial < 10000; trial++) {
+			double[] values = new double[names.size()];
+			RecordingFeatures map = new RecordingFeatures();
+			for (int i = 0; i < values.length; i++) {
+				values[i] = names.get(i).endsWith("count")
+						? random.nextInt(8) : random.nextInt(2);
+				map.put(names.get(i), values[i]);
+			}
+
+			ArrayFeatures features = new ArrayFeatures(values);
+			String outcome = compiled.getOutcome(compiled.classify(features));
+			assertEquals(tree.classify(map), outcome);
+
+			// only the features on the evaluated path are computed, and each
+			// of them once
+			Set<Object> computedNames = new HashSet<Object>();
+			for (int feature : features.computed) {
+				computedNames.add(names.get(feature));
+			}
+			assertEquals(map.read, computedNames);
+		}
+	}
+}
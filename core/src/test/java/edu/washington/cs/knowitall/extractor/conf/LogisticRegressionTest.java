@@ -0,0 +1,52 @@
+package edu.washington.cs.knowitall.extractor.conf;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import edu.washington.cs.knowitall.extractor.conf.classifier.LogisticRegression;
+
+public class LogisticRegressionTest {
+
+	@Test
+	public void testConfidence() {
+		Map<String, Double> weights = new HashMap<String, Double>();
+		weights.put("intercept", -1.0);
+		weights.put("contains e", 0.5);
+		weights.put("starts with j", 2.0);
+		// "longer than 3" has no weight
+		LogisticRegression<String> logreg = new LogisticRegression<String>(
+				StringFeatures.featureSet, weights);
+
+		assertEquals(1.0 / (1.0 + Math.exp(-1.5)), logreg.confidence("jane"),
+				0.0);
+		assertEquals(1.0 / (1.0 + Math.exp(0.5)), logreg.confidence("eat"),
+				0.0);
+		assertEquals(1.0 / (1.0 + Math.exp(1.0)), logreg.confidence("of"),
+				0.0);
+	}
+
+	@Test
+	public void testBatchConfidence() {
+		Map<String, Double> weights = new HashMap<String, Double>();
+		weights.put("intercept", 0.25);
+		weights.put("contains e", -0.5);
+		weights.put("starts with j", 1.0);
+		weights.put("longer than 3", 0.75);
+		LogisticRegression<String> logreg = new LogisticRegression<String>(
+				StringFeatures.featureSet, weights);
+
+		List<String> tokens = Arrays.asList("jane", "joe", "of", "eat",
+				"jim", "apple");
+		double[] confidences = logreg.confidence(tokens);
+		assertEquals(tokens.size(), confidences.length);
+		for (int i = 0; i < tokens.size(); i++) {
+			assertEquals(logreg.confidence(tokens.get(i)), confidences[i], 0.0);
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package edu.washington.cs.knowitall.extractor.conf;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import opennlp.maxent.GIS;
 import opennlp.maxent.GISModel;
@@ -26,4 +27,17 @@ public class OpenNlpClassifierConfFunctionTest {
         assertTrue(ofConf < 1.0);
         assertTrue(0.0 < janeConf);
     }
+
+    @Test
+    public void testGetConfMatchesModel() throws Exception {
+        BooleanFeatureSet<String> features = StringFeatures.featureSet;
+        GISModel model = GIS.trainModel(
+                new ListEventStream(StringFeatures.dataSet.getInstances()), 100, 0);
+        OpenNlpConfFunction<String> conf = new OpenNlpConfFunction<String>(model, features);
+        int positive = model.getIndex("1");
+        for (String token : new String[] { "jane", "of", "Joe", "", "the" }) {
+            double expected = model.eval(conf.featurize(token))[positive];
+            assertEquals(expected, conf.getConf(token), 0.0);
+        }
+    }
 }
@@ -0,0 +1,101 @@
+package edu.washington.cs.knowitall.extractor.conf.featureset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import edu.washington.cs.knowitall.commonlib.Range;
+import edu.washington.cs.knowitall.extractor.conf.featureset.FeatureContext.Part;
+import edu.washington.cs.knowitall.nlp.ChunkedSentence;
+import edu.washington.cs.knowitall.nlp.extraction.ChunkedArgumentExtraction;
+import edu.washington.cs.knowitall.nlp.extraction.ChunkedBinaryExtraction;
+import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
+import edu.washington.cs.knowitall.normalization.Stemmer;
+import edu.washington.cs.knowitall.sequence.SymbolTable;
+
+public class FeatureContextTest {
+
+	private static ChunkedSentence sentence() {
+		return new ChunkedSentence(
+				"The cats were eating fish in the kitchens .".split(" "),
+				"DT NNS VBD VBG NN IN DT NNS .".split(" "),
+				"B-NP I-NP O O B-NP O B-NP I-NP O".split(" "));
+	}
+
+	private static ChunkedBinaryExtraction extraction(ChunkedSentence sent,
+			Range arg1, Range rel, Range arg2) {
+		ChunkedExtraction relation = new ChunkedExtraction(sent, rel);
+		return new ChunkedBinaryExtraction(relation,
+				new ChunkedArgumentExtraction(sent, arg1, relation),
+				new ChunkedArgumentExtraction(sent, arg2, relation));
+	}
+
+	@Test
+	public void testContext() {
+		ChunkedSentence sent = sentence();
+		FeatureContext context = FeatureContext.of(extraction(sent,
+				new Range(0, 2), new Range(2, 2), new Range(4, 1)));
+		assertEquals(9, context.getLength());
+		assertEquals(2, context.getStart(Part.REL));
+		assertEquals(4, context.getEnd(Part.REL));
+		assertEquals(3, context.getRelationHeadVerb());
+		assertEquals("the", context.getLowerToken(0));
+		assertEquals(SymbolTable.intern("NNS"), context.getPosCode(1));
+		assertEquals(SymbolTable.intern("I-NP"), context.getChunkCode(1));
+		assertEquals(FeatureContext.NO_TAG, context.getPosCode(-1));
+		assertEquals(FeatureContext.NO_TAG, context.getChunkCode(9));
+	}
+
+	@Test
+	public void testStemsAreLazy() {
+		ChunkedSentence sent = sentence();
+		FeatureContext context = FeatureContext.of(extraction(sent,
+				new Range(0, 2), new Range(2, 2), new Range(4, 1)));
+		for (int i = 0; i < context.getLength(); i++) {
+			assertFalse(context.hasStem(i));
+		}
+
+		String expected = Stemmer.getDefault().stem("cats", "NNS")
+				.toLowerCase();
+		assertEquals(expected, context.getStem(1));
+		assertTrue(context.hasStem(1));
+		assertFalse(context.hasStem(7));
+	}
+
+	@Test
+	public void testReuse() {
+		ChunkedSentence sent = sentence();
+		ChunkedBinaryExtraction first = extraction(sent, new Range(0, 2),
+				new Range(2, 2), new Range(4, 1));
+		FeatureContext context = FeatureContext.of(first);
+		assertSame(context, FeatureContext.of(first));
+		context.getStem(1);
+
+		// another extraction of the same sentence gets its own bounds, but
+		// shares the stems computed so far
+		ChunkedBinaryExtraction second = extraction(sent, new Range(4, 1),
+				new Range(5, 1), new Range(6, 2));
+		FeatureContext other = FeatureContext.of(second);
+		assertNotSame(context, other);
+		assertSame(second, other.getExtraction());
+		assertEquals(5, other.getStart(Part.REL));
+		assertEquals(-1, other.getRelationHeadVerb());
+		assertTrue(other.hasStem(1));
+
+		// only the last context is kept
+		FeatureContext again = FeatureContext.of(first);
+		assertNotSame(context, again);
+		assertEquals(2, again.getStart(Part.REL));
+
+		// an equal but distinct sentence starts over
+		ChunkedBinaryExtraction copy = extraction(sentence(), new Range(0, 2),
+				new Range(2, 2), new Range(4, 1));
+		FeatureContext fresh = FeatureContext.of(copy);
+		assertSame(copy.getSentence(), fresh.getSentence());
+		assertFalse(fresh.hasStem(1));
+	}
+}
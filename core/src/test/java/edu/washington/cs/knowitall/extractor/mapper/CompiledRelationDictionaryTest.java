@@ -0,0 +1,75 @@
+package edu.washington.cs.knowitall.extractor.mapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+public class CompiledRelationDictionaryTest {
+
+	private static InputStream dictionary(int n) throws IOException {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < n; i++) {
+			text.append(i + 1).append('\t').append("rel " + i).append('\n');
+		}
+		return new ByteArrayInputStream(text.toString().getBytes("UTF-8"));
+	}
+
+	private static void assertFrequencies(CompiledRelationDictionary dict,
+			int n) {
+		assertEquals(n, dict.size());
+		for (int i = 0; i < n; i++) {
+			assertEquals(i + 1, dict.getFrequency("rel " + i));
+			assertEquals(0, dict.getFrequency("other " + i));
+		}
+	}
+
+	@Test
+	public void testCompile() throws IOException {
+		for (int n : new int[] { 0, 1, 2, 7, 100, 10000 }) {
+			assertFrequencies(CompiledRelationDictionary.compile(dictionary(n)),
+					n);
+		}
+	}
+
+	@Test
+	public void testWriteAndRead() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		CompiledRelationDictionary.compile(dictionary(5000), out);
+		CompiledRelationDictionary dict = CompiledRelationDictionary
+				.read(new ByteArrayInputStream(out.toByteArray()));
+		assertFrequencies(dict, 5000);
+	}
+
+	@Test
+	public void testMinFreq() throws IOException {
+		CompiledRelationDictionary dict = CompiledRelationDictionary
+				.compile(dictionary(30));
+		assertTrue(dict.contains("rel 19", 20));
+		assertFalse(dict.contains("rel 18", 20));
+		assertTrue(dict.contains("rel 0", 0));
+		assertFalse(dict.contains("missing", 0));
+	}
+
+	@Test
+	public void testDuplicateRelations() throws IOException {
+		String text = "5\trel a\n30\trel b\n25\trel a\n1\trel b\n"
+				+ "3\trel a\n";
+		CompiledRelationDictionary dict = CompiledRelationDictionary
+				.compile(new ByteArrayInputStream(text.getBytes("UTF-8")));
+		assertEquals(2, dict.size());
+		assertEquals(25, dict.getFrequency("rel a"));
+		assertEquals(30, dict.getFrequency("rel b"));
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotADictionary() throws IOException {
+		CompiledRelationDictionary.read(dictionary(3));
+	}
+}
@@ -0,0 +1,59 @@
+package edu.washington.cs.knowitall.extractor.mapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.cache.CacheStats;
+
+import edu.washington.cs.knowitall.commonlib.Range;
+import edu.washington.cs.knowitall.nlp.ChunkedSentence;
+import edu.washington.cs.knowitall.nlp.extraction.ChunkedExtraction;
+
+public class NormalizedRelationDictionaryFilterTest {
+
+	private static ChunkedExtraction relation(String tokens, String posTags) {
+		String[] toks = tokens.split(" ");
+		String[] chunks = new String[toks.length];
+		for (int i = 0; i < chunks.length; i++) {
+			chunks[i] = "O";
+		}
+		ChunkedSentence sent = new ChunkedSentence(toks, posTags.split(" "),
+				chunks);
+		return new ChunkedExtraction(sent, new Range(0, toks.length));
+	}
+
+	@After
+	public void tearDown() {
+		NormalizedRelationDictionaryFilter
+				.setCacheSize(NormalizedRelationDictionaryFilter.DEFAULT_CACHE_SIZE);
+	}
+
+	@Test
+	public void testCache() {
+		HashSet<String> relations = new HashSet<String>();
+		relations.add("bear in");
+		NormalizedRelationDictionaryFilter filter = new NormalizedRelationDictionaryFilter(
+				relations);
+		NormalizedRelationDictionaryFilter.setCacheSize(100);
+
+		assertTrue(filter.doFilter(relation("was born in", "VBD VBN IN")));
+		assertTrue(filter.doFilter(relation("was born in", "VBD VBN IN")));
+		assertFalse(filter.doFilter(relation("was born on", "VBD VBN IN")));
+		// Same tokens with other tags are normalized separately
+		assertFalse(filter.doFilter(relation("was born in", "VBD NN IN")));
+
+		CacheStats stats = NormalizedRelationDictionaryFilter.getCacheStats();
+		assertEquals(1, stats.hitCount());
+		assertEquals(3, stats.missCount());
+
+		NormalizedRelationDictionaryFilter.setCacheSize(0);
+		assertTrue(filter.doFilter(relation("was born in", "VBD VBN IN")));
+		assertEquals(null, NormalizedRelationDictionaryFilter.getCacheStats());
+	}
+}
@@ -0,0 +1,72 @@
+package edu.washington.cs.knowitall.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import org.json.simple.JSONValue;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void testBuckets() {
+		int previous = -1;
+		for (long value = 0; value < 1000000; value++) {
+			int index = LatencyHistogram.bucketIndex(value);
+			assertTrue(index == previous || index == previous + 1);
+			assertTrue(value <= LatencyHistogram.highestValueInBucket(index));
+			previous = index;
+		}
+		int last = LatencyHistogram.bucketIndex(Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueInBucket(last));
+	}
+
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram("test");
+		Random random = new Random(0);
+		long[] values = new long[10000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = (long) Math.exp(random.nextDouble() * 20);
+			histogram.record(values[i]);
+		}
+		Arrays.sort(values);
+		assertEquals(values.length, histogram.getCount());
+		assertEquals(values[0], histogram.getMin());
+		assertEquals(values[values.length - 1], histogram.getMax());
+		for (double p : new double[] { 1.0, 50.0, 90.0, 99.0, 99.9, 100.0 }) {
+			long exact = values[(int) Math.ceil(p / 100.0 * values.length) - 1];
+			long approx = histogram.getValueAtPercentile(p);
+			assertTrue(approx >= exact);
+			assertTrue(approx <= exact + exact / 64 + 1);
+		}
+	}
+
+	@Test
+	public void testRegistryOutput() {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.increment("sentences", 1);
+		assertEquals(0, registry.counter("sentences").get());
+		assertEquals(0, registry.histogram("stage").getCount());
+
+		registry.setEnabled(true);
+		registry.increment("sentences", 2);
+		registry.stopTimer("stage \"a\"", registry.startTimer());
+		assertEquals(2, registry.counter("sentences").get());
+		assertEquals(1, registry.histogram("stage \"a\"").getCount());
+
+		Map<?, ?> json = (Map<?, ?>) JSONValue.parse(registry.toJson());
+		Map<?, ?> counters = (Map<?, ?>) json.get("counters");
+		assertEquals(2L, counters.get("sentences"));
+		Map<?, ?> histograms = (Map<?, ?>) json.get("histograms");
+		assertEquals(1L, ((Map<?, ?>) histograms.get("stage \"a\"")).get("count"));
+
+		String text = registry.toPrometheus();
+		assertTrue(text.contains("reverb_events_total{name=\"sentences\"} 2\n"));
+		assertTrue(text.contains("reverb_stage_seconds_count{stage=\"stage \\\"a\\\"\"} 1\n"));
+	}
+}
@@ -0,0 +1,182 @@
+package edu.washington.cs.knowitall.nlp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.washington.cs.knowitall.commonlib.Range;
+
+public class BinaryChunkedSentenceReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private List<ChunkedSentence> sents;
+
+    @Before
+    public void setUp() throws Exception {
+        sents = new ArrayList<ChunkedSentence>();
+        sents.add(new ChunkedSentence(
+                new Range[] { new Range(0, 5), new Range(6, 3),
+                        new Range(10, 4), new Range(15, 2), new Range(18, 6),
+                        new Range(24, 1) },
+                new String[] { "Obama", "was", "born", "in", "Hawaïi", "." },
+                new String[] { "NNP", "VBD", "VBN", "IN", "NNP", "." },
+                new String[] { "B-NP", "O", "O", "O", "B-NP", "O" }));
+        sents.add(new ChunkedSentence(
+                new String[] { "Hawaïi", "is", "a", "state", "." },
+                new String[] { "NNP", "VBZ", "DT", "NN", "." },
+                new String[] { "B-NP", "O", "B-NP", "I-NP", "O" }));
+        sents.add(new ChunkedSentence(new String[] {}, new String[] {},
+                new String[] {}));
+    }
+
+    private File write(List<ChunkedSentence> sents) throws IOException {
+        return write("sents.bin", sents,
+                BinaryChunkedSentenceWriter.DEFAULT_MAX_TOKENS);
+    }
+
+    private File write(String name, List<ChunkedSentence> sents,
+            int maxTokens) throws IOException {
+        File file = folder.newFile(name);
+        BinaryChunkedSentenceWriter writer = new BinaryChunkedSentenceWriter(
+                new FileOutputStream(file), maxTokens);
+        for (ChunkedSentence sent : sents) {
+            writer.write(sent);
+        }
+        writer.close();
+        return file;
+    }
+
+    private void assertSameSentences(BinaryChunkedSentenceReader reader) {
+        List<ChunkedSentence> results = new ArrayList<ChunkedSentence>();
+        for (ChunkedSentence sent : reader) {
+            results.add(sent);
+        }
+        assertEquals(sents.size(), results.size());
+        for (int i = 0; i < sents.size(); i++) {
+            ChunkedSentence expected = sents.get(i);
+            ChunkedSentence result = results.get(i);
+            assertEquals(expected.getTokens(), result.getTokens());
+            assertEquals(expected.getPosTags(), result.getPosTags());
+            assertEquals(expected.getChunkTags(), result.getChunkTags());
+            assertEquals(expected.getOffsets(), result.getOffsets());
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        BinaryChunkedSentenceReader reader = new BinaryChunkedSentenceReader(
+                write(sents));
+        assertSameSentences(reader);
+        // iterating again starts over
+        assertSameSentences(reader);
+        reader.close();
+    }
+
+    @Test
+    public void testRoundTripSmallWindow() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            sents.add(sents.get(i % 3));
+        }
+        BinaryChunkedSentenceReader reader = new BinaryChunkedSentenceReader(
+                write(sents), 128);
+        assertSameSentences(reader);
+        reader.close();
+    }
+
+    @Test
+    public void testOffsetsAreOptional() throws Exception {
+        // only the first sentence has offsets
+        BinaryChunkedSentenceReader reader = new BinaryChunkedSentenceReader(
+                write(sents));
+        Iterator<ChunkedSentence> it = reader.iterator();
+        ChunkedSentence first = it.next();
+        assertEquals(new Range(18, 6), first.getOffsets().get(4));
+        assertNull(it.next().getOffsets());
+        reader.close();
+
+        // none of the sentences have offsets
+        List<ChunkedSentence> noOffsets = sents.subList(1, 3);
+        reader = new BinaryChunkedSentenceReader(write("no-offsets.bin",
+                noOffsets, BinaryChunkedSentenceWriter.DEFAULT_MAX_TOKENS));
+        List<ChunkedSentence> results = new ArrayList<ChunkedSentence>();
+        for (ChunkedSentence sent : reader) {
+            assertNull(sent.getOffsets());
+            results.add(sent);
+        }
+        reader.close();
+        assertEquals(noOffsets.size(), results.size());
+        for (int i = 0; i < noOffsets.size(); i++) {
+            assertEquals(noOffsets.get(i).getTokens(), results.get(i)
+                    .getTokens());
+        }
+    }
+
+    @Test
+    public void testFullTokenTable() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            sents.add(sents.get(i % 3));
+        }
+        // "Obama", "was", "born" fill the table
+        BinaryChunkedSentenceReader reader = new BinaryChunkedSentenceReader(
+                write("full.bin", sents, 3));
+        assertSameSentences(reader);
+        reader.close();
+    }
+
+    @Test
+    public void testTooManyTags() throws Exception {
+        int n = BinaryChunkedSentenceWriter.MAX_TAGS + 10;
+        String[] tokens = new String[n];
+        String[] posTags = new String[n];
+        String[] chunkTags = new String[n];
+        for (int i = 0; i < n; i++) {
+            tokens[i] = "token" + i;
+            posTags[i] = "TAG" + i;
+            chunkTags[i] = "O";
+        }
+        ChunkedSentence tooMany = new ChunkedSentence(tokens, posTags,
+                chunkTags);
+
+        File file = folder.newFile("tags.bin");
+        BinaryChunkedSentenceWriter writer = new BinaryChunkedSentenceWriter(
+                new FileOutputStream(file));
+        writer.write(sents.get(0));
+        try {
+            writer.write(tooMany);
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            // the tokens and tags of the sentence are not kept
+        }
+        writer.write(sents.get(1));
+        writer.write(sents.get(2));
+        writer.close();
+
+        BinaryChunkedSentenceReader reader = new BinaryChunkedSentenceReader(
+                file);
+        assertSameSentences(reader);
+        reader.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void testBadMagic() throws Exception {
+        File file = folder.newFile("bad.bin");
+        FileOutputStream out = new FileOutputStream(file);
+        out.write("not a chunked file".getBytes());
+        out.close();
+        new BinaryChunkedSentenceReader(file);
+    }
+}
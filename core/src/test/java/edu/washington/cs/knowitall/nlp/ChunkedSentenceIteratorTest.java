@@ -0,0 +1,65 @@
+package edu.washington.cs.knowitall.nlp;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import com.google.common.base.Supplier;
+
+public class ChunkedSentenceIteratorTest {
+
+    private static class OneWordChunker implements SentenceChunker {
+        public ChunkedSentence chunkSentence(String sent)
+                throws ChunkerException {
+            if (sent.isEmpty()) {
+                throw new ChunkerException("empty sentence");
+            }
+            return new ChunkedSentence(new String[] { sent },
+                    new String[] { "NN" }, new String[] { "B-NP" });
+        }
+    }
+
+    @Test
+    public void testSkipsUnchunkable() {
+        ChunkedSentenceIterator it = new ChunkedSentenceIterator(Arrays
+                .asList("a", "", "b").iterator(), new OneWordChunker());
+        assertEquals("a", it.next().getTokensAsString());
+        assertEquals("b", it.next().getTokensAsString());
+        assertEquals(false, it.hasNext());
+    }
+
+    @Test
+    public void testDoesNotWaitForInput() {
+        final Iterator<String> sents = Arrays.asList("a", "b", "c").iterator();
+        final int[] read = new int[1];
+        Iterator<String> counted = new Iterator<String>() {
+            public boolean hasNext() {
+                return sents.hasNext();
+            }
+
+            public String next() {
+                read[0]++;
+                return sents.next();
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        ChunkedSentenceIterator it = new ChunkedSentenceIterator(counted,
+                new OneWordChunker());
+        it.setInputReady(new Supplier<Boolean>() {
+            public Boolean get() {
+                return false;
+            }
+        });
+        assertEquals("a", it.next().getTokensAsString());
+        assertEquals(1, read[0]);
+        assertEquals("b", it.next().getTokensAsString());
+        assertEquals(2, read[0]);
+    }
+}
@@ -0,0 +1,105 @@
+package edu.washington.cs.knowitall.nlp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChunkedSentenceReaderConcurrencyTest {
+
+    private static final int NUM_THREADS = 32;
+    private static final int NUM_ROUNDS = 3;
+
+    private String text;
+    private List<String> expected;
+
+    @Before
+    public void setUp() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        String[] sents = {
+                "Barack Obama was born in Hawaii in 1961.",
+                "The capital of France is Paris, a city on the Seine.",
+                "Microsoft acquired LinkedIn for 26 billion dollars.",
+                "Albert Einstein developed the theory of relativity.",
+                "The dog chased the cat into the neighbor's garden.",
+                "Smith is the inventor of the stopwatch." };
+        for (int i = 0; i < 5; i++) {
+            for (String sent : sents) {
+                sb.append(sent).append("\n\n");
+            }
+        }
+        text = sb.toString();
+        expected = readAll(text);
+        assertFalse(expected.isEmpty());
+    }
+
+    private static List<String> readAll(String text) throws Exception {
+        ChunkedSentenceReader reader = new ChunkedSentenceReader(
+                new StringReader(text));
+        List<String> results = new ArrayList<String>();
+        for (ChunkedSentence sent : reader.getSentences()) {
+            results.add(sent.toOpenNlpFormat());
+        }
+        return results;
+    }
+
+    @Test
+    public void testConcurrentReaders() throws Exception {
+        ExecutorService exec = Executors.newFixedThreadPool(NUM_THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<List<String>>> results = new ArrayList<Future<List<String>>>();
+            for (int i = 0; i < NUM_THREADS; i++) {
+                results.add(exec.submit(new Callable<List<String>>() {
+                    public List<String> call() throws Exception {
+                        start.await();
+                        List<String> last = null;
+                        for (int round = 0; round < NUM_ROUNDS; round++) {
+                            last = readAll(text);
+                            assertEquals(expected, last);
+                        }
+                        return last;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<List<String>> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            exec.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReaderCreatedOnAnotherThread() throws Exception {
+        final ChunkedSentenceReader[] reader = new ChunkedSentenceReader[1];
+        Thread t = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    reader[0] = new ChunkedSentenceReader(new StringReader(
+                            text));
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        t.start();
+        t.join();
+        List<String> results = new ArrayList<String>();
+        for (ChunkedSentence sent : reader[0].getSentences()) {
+            results.add(sent.toOpenNlpFormat());
+        }
+        assertEquals(expected, results);
+    }
+}
@@ -0,0 +1,29 @@
+package edu.washington.cs.knowitall.nlp;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class OpenNlpSentenceChunkerTest {
+
+    @Test
+    public void testBatchSameAsOneByOne() throws Exception {
+        OpenNlpSentenceChunker chunker = new OpenNlpSentenceChunker();
+        List<String> sents = Arrays.asList(
+                "Barack Obama was born in Hawaii.",
+                "The cat that he saw wants to eat the red fish.", "",
+                "Paris is the capital of France, he said.");
+        for (int round = 0; round < 2; round++) {
+            List<ChunkedSentence> batch = chunker.chunkSentences(sents);
+            assertEquals(sents.size(), batch.size());
+            for (int i = 0; i < sents.size(); i++) {
+                ChunkedSentence expected = chunker.chunkSentence(sents.get(i));
+                assertEquals(expected, batch.get(i));
+                assertEquals(expected.getOffsets(), batch.get(i).getOffsets());
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package edu.washington.cs.knowitall.normalization;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.common.cache.CacheStats;
+
+public class StemmerTest {
+
+	@Test
+	public void testStem() {
+		Stemmer stemmer = new Stemmer();
+		assertEquals("be", stemmer.stem("Was", "VBD"));
+		assertEquals("bear", stemmer.stem("born", "VBN"));
+		assertEquals("mouse", stemmer.stem("mice", "NNS"));
+		assertEquals("a-b", stemmer.stem("a_b", "NN"));
+		assertEquals("new york", stemmer.stem("New York", "NNP"));
+	}
+
+	@Test
+	public void testCache() {
+		Stemmer stemmer = new Stemmer(10,
+				Collections.<String, String> emptyMap());
+		assertEquals("go", stemmer.stem("went", "VBD"));
+		assertEquals("go", stemmer.stem("went", "VBD"));
+		assertEquals("went", stemmer.stem("went", "NN"));
+		CacheStats stats = stemmer.getCacheStats();
+		assertEquals(1, stats.hitCount());
+		assertEquals(2, stats.missCount());
+	}
+
+	@Test
+	public void testTable() throws IOException {
+		String table = "went\tVBD\tgone\ndata\tNNS\tdatum\n";
+		Map<String, String> stems = Stemmer.loadTable(new ByteArrayInputStream(
+				table.getBytes("UTF-8")));
+		assertEquals(2, stems.size());
+		Stemmer stemmer = new Stemmer(0, stems);
+		assertEquals("gone", stemmer.stem("Went", "VBD"));
+		assertEquals("go", stemmer.stem("went", "VB"));
+	}
+}
@@ -137,4 +137,65 @@ public class BIOLayeredSequenceTest {
         assertEquals(1, sub.getSpans("layer", "Z").size());
     }
 
+    @Test
+    public void testSharedSubSequence() throws SequenceException {
+        BIOLayeredSequence seq = new BIOLayeredSequence(5);
+        seq.addLayer("tok", split("a b c d e"));
+        seq.addSpanLayer("layer", split("I-X I-X O B-Y I-Y"));
+        
+        BIOLayeredSequence sub = seq.getSubSequence(1, 4);
+        assertEquals(split("b c d e"), sub.getLayer("tok"));
+        assertEquals(split("B-X O B-Y I-Y"), sub.getLayer("layer"));
+        assertEquals("B-X", sub.get("layer", 0));
+        assertEquals(2, sub.getSpans("layer").size());
+        // The parent is unchanged
+        assertEquals("I-X", seq.get("layer", 1));
+        
+        // Copies keep the first tag, subsequences of the whole do not
+        assertEquals(seq, seq.clone());
+        assertEquals("I-X", seq.clone().get("layer", 0));
+        assertEquals("B-X", seq.getSubSequence(0, 5).get("layer", 0));
+        
+        // Layers added to a subsequence are its own
+        sub.addLayer("other", split("1 2 3 4"));
+        assertTrue(sub.hasLayer("other"));
+        assertFalse(seq.hasLayer("other"));
+        assertEquals(4, seq.getSubSequence(1, 4).getLayerCodes("layer").length);
+        assertNull(seq.getLayerCodes("tok"));
+
+        // Codes are computed once, and the first tag of a subsequence is B-X
+        assertSame(seq.getLayerCodes("layer"), seq.getLayerCodes("layer"));
+        assertEquals(SymbolTable.intern("B-X"),
+                sub.getLayerCodes("layer")[0]);
+    }
+
+    @Test
+    public void testReplaceFirstResetsCodes() throws SequenceException {
+        SimpleLayeredSequence seq = new SimpleLayeredSequence(3);
+        seq.addSymbolLayer("pos", split("DT NN VBD"));
+        assertEquals(SymbolTable.intern("DT"), seq.getLayerCodes("pos")[0]);
+
+        seq.replaceFirst("pos", "PRP");
+        assertEquals(SymbolTable.intern("PRP"), seq.getLayerCodes("pos")[0]);
+        assertEquals(SymbolTable.intern("NN"), seq.getLayerCodes("pos")[1]);
+        assertEquals("PRP", seq.get("pos", 0));
+    }
+
+    @Test
+    public void testViewEquality() throws SequenceException {
+        BIOLayeredSequence seq = new BIOLayeredSequence(5);
+        seq.addSymbolLayer("pos", split("DT NN VBD DT NN"));
+        seq.addSpanLayer("np", split("B-NP I-NP O B-NP I-NP"));
+
+        BIOLayeredSequence expected = new BIOLayeredSequence(3);
+        expected.addLayer("pos", split("NN VBD DT"));
+        expected.addSpanLayer("np", split("B-NP O B-NP"));
+
+        BIOLayeredSequence sub = seq.getSubSequence(1, 3);
+        assertEquals(expected, sub);
+        assertEquals(sub, expected);
+        assertEquals(expected.hashCode(), sub.hashCode());
+        assertFalse(sub.equals(seq.getSubSequence(2, 3)));
+    }
+
 }
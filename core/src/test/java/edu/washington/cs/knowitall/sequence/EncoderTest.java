@@ -2,8 +2,10 @@ package edu.washington.cs.knowitall.sequence;
 
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -11,6 +13,7 @@ import java.util.Set;
 import org.junit.Before;
 import org.junit.Test;
 
+import edu.washington.cs.knowitall.nlp.ChunkedSentence;
 import edu.washington.cs.knowitall.sequence.Encoder;
 
 public class EncoderTest {
@@ -51,4 +54,24 @@ public class EncoderTest {
 		assertEquals(36, encoder.tableSize());
 		
 	}
+
+	@Test
+	public void testEncodeSequence() throws SequenceException {
+		List<Set<String>> tagSets = sets.subList(1, 3);
+		Encoder encoder = new Encoder(
+				Arrays.asList(ChunkedSentence.POS_LAYER, ChunkedSentence.NP_LAYER),
+				tagSets);
+		ChunkedSentence sent = new ChunkedSentence(
+				new String[] { "There", "are", "3", "of", "them" },
+				new String[] { "EX", "VBP", "CD", "IN", "PRP" },
+				new String[] { "B-NP", "O", "B-NP", "O", "B-NP" });
+
+		CharSequence encoded = encoder.encode(sent);
+		assertEquals(sent.getLength(), encoded.length());
+		for (int i = 0; i < sent.getLength(); i++) {
+			String[] tuple = { sent.getPosTag(i), sent.getChunkTag(i) };
+			assertEquals(encoder.encode(tuple), encoded.charAt(i));
+		}
+		assertSame(encoded, encoder.encode(sent));
+	}
 }
@@ -0,0 +1,136 @@
+package edu.washington.cs.knowitall.sequence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+
+import org.junit.Test;
+
+import edu.washington.cs.knowitall.commonlib.Range;
+import edu.washington.cs.knowitall.extractor.ReVerbRelationExtractor;
+import edu.washington.cs.knowitall.sequence.LayeredTokenPattern.Engine;
+
+public class LayeredTokenPatternDfaTest {
+
+	private static final String[] POS = { "DT", "NN", "JJ", "RB", "VB",
+			"VBD", "VBN", "VBG", "RP", "IN", "TO", "." };
+
+	private static SimpleLayeredSequence randomSequence(Random random) {
+		int length = random.nextInt(14);
+		String[] pos = new String[length];
+		for (int i = 0; i < length; i++) {
+			pos[i] = POS[random.nextInt(POS.length)];
+		}
+		SimpleLayeredSequence seq = new SimpleLayeredSequence(length);
+		seq.addLayer("pos", pos);
+		return seq;
+	}
+
+	/**
+	 * Finds leftmost-longest matches by trying every span with
+	 * java.util.regex.
+	 */
+	private static List<Range> bruteForce(LayeredTokenPattern pattern,
+			LayeredSequence seq) throws SequenceException {
+		CharSequence encoded = pattern.getEncoder().encode(seq);
+		Matcher m = pattern.getEncodedPattern().matcher(encoded);
+		m.useAnchoringBounds(false);
+		m.useTransparentBounds(true);
+		List<Range> ranges = new ArrayList<Range>();
+		int n = encoded.length();
+		int from = 0;
+		for (int start = 0; start <= n; start++) {
+			if (start < from) {
+				continue;
+			}
+			for (int end = n; end >= start; end--) {
+				m.region(start, end);
+				if (m.matches()) {
+					ranges.add(new Range(start, end - start));
+					from = end == start ? end + 1 : end;
+					break;
+				}
+			}
+		}
+		return ranges;
+	}
+
+	private static List<Range> find(LayeredTokenPattern pattern,
+			LayeredSequence seq) throws SequenceException {
+		List<Range> ranges = new ArrayList<Range>();
+		LayeredTokenMatcher m = pattern.matcher(seq);
+		while (m.find()) {
+			ranges.add(new Range(m.start(), m.end() - m.start()));
+		}
+		return ranges;
+	}
+
+	private static void assertLeftmostLongest(String patternString)
+			throws SequenceException {
+		LayeredTokenPattern pattern = new LayeredTokenPattern(patternString,
+				Engine.DFA);
+		assertEquals(Engine.DFA, pattern.getEngine());
+		Random random = new Random(0);
+		for (int trial = 0; trial < 1000; trial++) {
+			SimpleLayeredSequence seq = randomSequence(random);
+			assertEquals(patternString, bruteForce(pattern, seq),
+					find(pattern, seq));
+		}
+	}
+
+	@Test
+	public void testLeftmostLongest() throws SequenceException {
+		assertLeftmostLongest(ReVerbRelationExtractor.SHORT_RELATION_PATTERN);
+		assertLeftmostLongest(ReVerbRelationExtractor.LONG_RELATION_PATTERN);
+		assertLeftmostLongest("^ RB_pos* VB_pos");
+		assertLeftmostLongest("IN_pos . ._pos? $");
+		assertLeftmostLongest("[VB_pos VBD_pos]+? (RP_pos|IN_pos TO_pos)?");
+		assertLeftmostLongest("RB_pos?");
+	}
+
+	@Test
+	public void testGroups() throws SequenceException {
+		String[] pos = "DT NN VBD RB IN DT NN".split(" ");
+		SimpleLayeredSequence seq = new SimpleLayeredSequence(pos.length);
+		seq.addLayer("pos", pos);
+		LayeredTokenPattern pattern = new LayeredTokenPattern(
+				"(DT_pos NN_pos) VBD_pos (RB_pos? IN_pos)", Engine.DFA);
+		LayeredTokenMatcher m = pattern.matcher(seq);
+		assertTrue(m.find());
+		assertEquals(2, m.groupCount());
+		assertEquals(0, m.start(1));
+		assertEquals(2, m.end(1));
+		assertEquals(3, m.start(2));
+		assertEquals(5, m.end(2));
+		assertFalse(m.find());
+		assertTrue(m.find(0));
+		assertEquals(0, m.start());
+		assertFalse(m.matches());
+	}
+
+	@Test
+	public void testLongSentence() throws SequenceException {
+		// Nested quantifiers that make backtracking slow
+		String[] pos = new String[5000];
+		for (int i = 0; i < pos.length; i++) {
+			pos[i] = i % 2 == 0 ? "VB" : "RB";
+		}
+		SimpleLayeredSequence seq = new SimpleLayeredSequence(pos.length);
+		seq.addLayer("pos", pos);
+		LayeredTokenPattern pattern = new LayeredTokenPattern(
+				"((VB_pos RB_pos?)* RB_pos?)* DT_pos", Engine.DFA);
+		assertFalse(pattern.matcher(seq).find());
+	}
+
+	@Test
+	public void testUnsupportedFallsBack() throws SequenceException {
+		LayeredTokenPattern pattern = new LayeredTokenPattern(
+				"(?=DT_pos) DT_pos", Engine.DFA);
+		assertEquals(Engine.REGEX, pattern.getEngine());
+	}
+}
@@ -0,0 +1,78 @@
+package edu.washington.cs.knowitall.sequence;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.washington.cs.knowitall.commonlib.Range;
+import edu.washington.cs.knowitall.extractor.ReVerbRelationExtractor;
+
+public class LayeredTokenPatternSetTest {
+
+	private static final String[] POS = { "DT", "NN", "NNS", "NNP", "JJ",
+			"RB", "VB", "VBD", "VBZ", "VBN", "VBG", "MD", "RP", "IN", "TO",
+			"PRP", "CD", "." };
+	private static final String[] NP = { "B-NP", "I-NP", "O" };
+
+	private static List<Range> find(LayeredTokenPattern pattern,
+			LayeredSequence seq) throws SequenceException {
+		List<Range> ranges = new ArrayList<Range>();
+		LayeredTokenMatcher m = pattern.matcher(seq);
+		while (m.find()) {
+			ranges.add(new Range(m.start(), m.end() - m.start()));
+		}
+		return ranges;
+	}
+
+	private static void assertSameMatches(String... patternStrings)
+			throws SequenceException {
+		LayeredTokenPatternSet set = new LayeredTokenPatternSet(patternStrings);
+		List<LayeredTokenPattern> patterns = new ArrayList<LayeredTokenPattern>();
+		for (String patternString : patternStrings) {
+			patterns.add(new LayeredTokenPattern(patternString,
+					LayeredTokenPattern.Engine.REGEX));
+		}
+		Random random = new Random(0);
+		for (int trial = 0; trial < 2000; trial++) {
+			int length = random.nextInt(12);
+			String[] pos = new String[length];
+			String[] np = new String[length];
+			for (int i = 0; i < length; i++) {
+				pos[i] = POS[random.nextInt(POS.length)];
+				np[i] = NP[random.nextInt(NP.length)];
+			}
+			SimpleLayeredSequence seq = new SimpleLayeredSequence(length);
+			seq.addLayer("pos", pos);
+			seq.addLayer("np", np);
+
+			List<List<Range>> found = set.findAll(seq);
+			for (int p = 0; p < patterns.size(); p++) {
+				assertEquals(patternStrings[p], find(patterns.get(p), seq),
+						found.get(p));
+			}
+		}
+	}
+
+	@Test
+	public void testRelationPatterns() throws SequenceException {
+		assertSameMatches(ReVerbRelationExtractor.SHORT_RELATION_PATTERN,
+				ReVerbRelationExtractor.LONG_RELATION_PATTERN);
+	}
+
+	@Test
+	public void testOperators() throws SequenceException {
+		assertSameMatches("B-NP_np I-NP_np*", "(?:DT_pos|DT_pos JJ_pos) NN_pos",
+				"^ RB_pos* VB_pos", "IN_pos . ._pos? $", "VBZ_pos .*? NN_pos",
+				"[VB_pos VBD_pos]+? (RP_pos|IN_pos TO_pos)?", "RB_pos?",
+				"DT_pos* NN_pos|DT_pos");
+	}
+
+	@Test(expected = SequenceException.class)
+	public void testUnsupported() throws SequenceException {
+		new LayeredTokenPatternSet("(?=DT_pos) NN_pos");
+	}
+}
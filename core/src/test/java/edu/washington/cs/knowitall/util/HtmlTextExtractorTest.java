@@ -0,0 +1,62 @@
+package edu.washington.cs.knowitall.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import org.junit.Test;
+
+import com.google.common.io.CharStreams;
+
+public class HtmlTextExtractorTest {
+
+    private static void assertSameAsRegex(String html) {
+        assertEquals(HtmlUtils.removeHtml(html), HtmlTextExtractor.extract(html));
+    }
+
+    @Test
+    public void testSameAsRegex() {
+        assertSameAsRegex("<html><head><title>Title</title></head>"
+                + "<body><h1>Header</h1>\n<p>Some <b>bold</b>\ttext.</p>"
+                + "<script type=\"text/javascript\">var a = 1 < 2;</script>"
+                + "<DIV class=x>One; two</DIV><br/><link rel=a>Last</body>");
+        assertSameAsRegex("a < b and c > d");
+        assertSameAsRegex("<script>unclosed <p>text");
+        assertSameAsRegex("<p a=\"<script>x</script>\">text</p>");
+        assertSameAsRegex("<<br/>x> <x<p>y>");
+        assertSameAsRegex("<!-- a > b --> <> < p>text\n\n\n");
+    }
+
+    @Test
+    public void testSameAsRegexOnPage() throws Exception {
+        Reader reader = new InputStreamReader(
+                HtmlTextExtractorTest.class.getResourceAsStream("/en.html"),
+                "UTF-8");
+        String page;
+        try {
+            page = CharStreams.toString(reader);
+        } finally {
+            reader.close();
+        }
+        assertTrue(page.contains("&#39;"));
+        // the regular expressions leave entities as they are
+        assertSameAsRegex(page.replace("&", ""));
+    }
+
+    @Test
+    public void testEntities() {
+        assertEquals("Café & éé <b> x",
+                HtmlTextExtractor.extract("Caf&eacute; &amp; &#233;&#xE9; &lt;b&gt;&nbsp;x"));
+        assertEquals("&bogus\n &#xZZ\n &amp", HtmlTextExtractor.extract("&bogus; &#xZZ; &amp"));
+        assertEquals("a\nb", HtmlTextExtractor.extract("a&#59;b"));
+    }
+
+    @Test
+    public void testReuseBuilder() {
+        StringBuilder text = new StringBuilder("old");
+        HtmlTextExtractor.extract("<p>new</p>", text);
+        assertEquals("\nnew\n", text.toString());
+    }
+}
@@ -0,0 +1,160 @@
+package edu.washington.cs.knowitall.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class WarcReaderTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Charset LATIN1 = Charset.forName("ISO-8859-1");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] record(String type, String uri, String trecId,
+            byte[] block) throws IOException {
+        StringBuilder headers = new StringBuilder();
+        headers.append("WARC/0.18\r\n");
+        headers.append("WARC-Type: " + type + "\r\n");
+        if (uri != null) {
+            headers.append("WARC-Target-URI: " + uri + "\r\n");
+        }
+        if (trecId != null) {
+            headers.append("WARC-TREC-ID: " + trecId + "\r\n");
+        }
+        headers.append("Content-Length: " + block.length + "\r\n\r\n");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(headers.toString().getBytes(UTF8));
+        out.write(block);
+        out.write("\r\n\r\n".getBytes(UTF8));
+        return out.toByteArray();
+    }
+
+    private static byte[] response(String contentType, byte[] body)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(("HTTP/1.1 200 OK\r\nContent-Type: " + contentType
+                + "\r\nContent-Length: " + body.length + "\r\n\r\n")
+                .getBytes(UTF8));
+        out.write(body);
+        return out.toByteArray();
+    }
+
+    private static List<byte[]> records() throws IOException {
+        List<byte[]> records = new ArrayList<byte[]>();
+        records.add(record("warcinfo", null, null,
+                "software: test\r\n".getBytes(UTF8)));
+        records.add(record("request", "http://a.com/", null,
+                "GET / HTTP/1.1\r\n\r\n".getBytes(UTF8)));
+        records.add(record("response", "http://a.com/", "doc-0", response(
+                "text/html; charset=ISO-8859-1",
+                "<p>Café\nWARC/0.18</p>".getBytes(LATIN1))));
+        records.add(record("metadata", "http://a.com/", null,
+                "fetchTimeMs: 5\r\n".getBytes(UTF8)));
+        records.add(record("response", "http://b.com/", "doc-1", response(
+                "text/html", "<p>naïve</p>".getBytes(UTF8))));
+        return records;
+    }
+
+    private File write(String name, boolean gzip) throws IOException {
+        File file = folder.newFile(name);
+        OutputStream out = new FileOutputStream(file);
+        try {
+            for (byte[] record : records()) {
+                if (gzip) {
+                    GZIPOutputStream member = new GZIPOutputStream(out) {
+                        @Override
+                        public void close() throws IOException {
+                            finish();
+                        }
+                    };
+                    member.write(record);
+                    member.close();
+                } else {
+                    out.write(record);
+                }
+            }
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private static void assertPages(WarcReader reader) {
+        for (int pass = 0; pass < 2; pass++) {
+            List<WarcPage> pages = new ArrayList<WarcPage>();
+            for (WarcPage page : reader) {
+                pages.add(page);
+            }
+            assertEquals(2, pages.size());
+            assertEquals("http://a.com/", pages.get(0).getWARC_Target_URI());
+            assertEquals("doc-0", pages.get(0).getWARC_TREC_ID());
+            assertEquals("<p>Café\nWARC/0.18</p>", pages.get(0)
+                    .getContent());
+            assertEquals("http://b.com/", pages.get(1).getWARC_Target_URI());
+            assertEquals("doc-1", pages.get(1).getWARC_TREC_ID());
+            assertEquals("<p>naïve</p>", pages.get(1).getContentChars()
+                    .toString());
+        }
+    }
+
+    @Test
+    public void testMapped() throws IOException {
+        WarcReader reader = new WarcReader(write("test.warc", false));
+        try {
+            assertPages(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testSmallWindow() throws IOException {
+        WarcReader reader = new WarcReader(write("test.warc", false), UTF8, 16);
+        try {
+            assertPages(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testGzipped() throws IOException {
+        WarcReader reader = new WarcReader(write("test.warc.gz", true));
+        try {
+            assertPages(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testTruncated() throws IOException {
+        File file = folder.newFile("truncated.warc");
+        OutputStream out = new FileOutputStream(file);
+        byte[] record = records().get(2);
+        out.write(record, 0, record.length - 10);
+        out.close();
+
+        WarcReader reader = new WarcReader(file);
+        try {
+            reader.iterator().hasNext();
+        } finally {
+            reader.close();
+        }
+    }
+}